@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Licensed to the Apache Software Foundation (ASF) under one
+# or more contributor license agreements.  See the NOTICE file
+# distributed with this work for additional information
+# regarding copyright ownership.  The ASF licenses this file
+# to you under the Apache License, Version 2.0 (the
+# "License"); you may not use this file except in compliance
+# with the License.  You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+set -e
+
+# usage: check-bench.sh <baseline.json> [gate options] [jmh args...]
+#   e.g. check-bench.sh baselines/routing.json --tolerance 15 RouterBench -f 1
+#   gate options: --tolerance <pct> --alloc-tolerance <pct> --alloc-slack <bytes>
+#                 --result <file> --compare-only --update-baseline
+# exits non-zero if the time or the allocations (gc.alloc.rate.norm) regressed compared to the baseline.
+if [ $# -lt 1 ]; then
+  echo "usage: $0 <baseline.json> [gate options] [jmh args...]"
+  exit 2
+fi
+BASELINE="$1"
+shift
+
+mvn clean package -DskipTests
+java -cp "target/lib/*:target/*" io.github.matteobertozzi.rednaco.bench.BenchRegressionGate --baseline "$BASELINE" "$@"
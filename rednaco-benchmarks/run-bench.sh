@@ -17,9 +17,24 @@
 
 set -e
 
-BENCH_CLASSES="collections.HashMapBench"
+BENCH_CLASSES="collections.HashMapBench collections.arrays.ArraySortBench
+  bytes.BytesSearchBench bytes.encoding.GroupVarIntBench bytes.encoding.IntEncoderBench bytes.encoding.RowKeyBench
+  data.DataFormatBench data.JsonTreeWriterBench
+  dispatcher.MessageDispatcherBench dispatcher.message.MessageMetadataMapBench dispatcher.routing.RouterBench
+  strings.Base64Bench strings.BaseNBench time.WindowedCounterBench"
+
+# usage: run-bench.sh [--gc] [bench classes...]
+#   --gc  run with the JMH GC profiler (gc.alloc.rate.norm = bytes allocated per op)
+JMH_ARGS=""
+if [ "$1" = "--gc" ]; then
+  JMH_ARGS="-prof gc"
+  shift
+fi
+if [ $# -gt 0 ]; then
+  BENCH_CLASSES="$*"
+fi
 
 mvn clean package -DskipTests
 for bench_class in $BENCH_CLASSES; do
-  java -cp target/lib/\*:target/rednaco-benchmarks-3.0.0-SNAPSHOT.jar io.github.matteobertozzi.rednaco.$bench_class
+  java -cp "target/lib/*:target/*" org.openjdk.jmh.Main $JMH_ARGS "io.github.matteobertozzi.rednaco.$bench_class"
 done
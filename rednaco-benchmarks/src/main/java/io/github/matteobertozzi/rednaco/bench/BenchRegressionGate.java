@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.matteobertozzi.rednaco.data.JsonFormat;
+
+/**
+ * Run a JMH suite with the GC profiler, and compare the JSON results with a stored baseline.
+ * Exits with 1 if the time (primary score) or the allocations (gc.alloc.rate.norm) regressed beyond the tolerance,
+ * and beyond the combined scoreError of the two runs (the JMH 99.9% confidence interval).
+ * Baseline benchmarks missing from the current run, and new ones without baseline, are reported but don't fail the gate
+ * (e.g. when the jmh args select a subset of the suite).
+ *
+ * <pre>
+ * BenchRegressionGate --baseline baselines/main.json [--tolerance 10] [--alloc-tolerance 5] [--alloc-slack 16]
+ *                     [--result target/jmh-result.json] [--compare-only] [--update-baseline] [jmh args...]
+ * </pre>
+ * The remaining args are passed to JMH (e.g. "RouterBench -f 1 -wi 3").
+ * If the baseline does not exist, the results are stored as the new baseline.
+ */
+public final class BenchRegressionGate {
+  private static final String GC_ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+
+  public record JmhMetric(double score, double scoreError, String scoreUnit) {}
+  public record JmhResult(String benchmark, String mode, Map<String, String> params,
+      JmhMetric primaryMetric, Map<String, JmhMetric> secondaryMetrics) {
+    public String key() {
+      final StringBuilder key = new StringBuilder(benchmark).append(' ').append(mode);
+      if (params != null) {
+        new TreeMap<>(params).forEach((k, v) -> key.append(' ').append(k).append('=').append(v));
+      }
+      return key.toString();
+    }
+
+    public JmhMetric allocMetric() {
+      return secondaryMetrics != null ? secondaryMetrics.get(GC_ALLOC_RATE_NORM) : null;
+    }
+
+    public double allocBytesPerOp() {
+      final JmhMetric alloc = allocMetric();
+      return alloc != null ? alloc.score() : Double.NaN;
+    }
+
+    public boolean higherIsBetter() {
+      return "thrpt".equals(mode);
+    }
+  }
+
+  public record Regression(String key, String metric, double baseline, double current, double deltaPercent) {}
+  public record Comparison(List<Regression> regressions, List<String> missing, List<String> added) {}
+
+  private BenchRegressionGate() {
+    // no-op
+  }
+
+  // ================================================================================
+  //  Compare related
+  // ================================================================================
+  /**
+   * @param tolerance max time regression, in percent of the baseline
+   * @param allocTolerance max allocation regression, in percent of the baseline
+   * @param allocSlack allocation regression (bytes/op) always tolerated, to ignore noise on allocation-free benchmarks
+   */
+  public static Comparison compare(final JmhResult[] baseline, final JmhResult[] current,
+      final double tolerance, final double allocTolerance, final double allocSlack) {
+    final HashMap<String, JmhResult> baselineIndex = new HashMap<>(baseline.length);
+    for (final JmhResult result: baseline) {
+      baselineIndex.put(result.key(), result);
+    }
+
+    final ArrayList<Regression> regressions = new ArrayList<>();
+    final ArrayList<String> added = new ArrayList<>();
+    for (final JmhResult result: current) {
+      final JmhResult base = baselineIndex.remove(result.key());
+      if (base == null) {
+        added.add(result.key());
+        continue;
+      }
+
+      final double baseScore = base.primaryMetric().score();
+      final double score = result.primaryMetric().score();
+      final double timeDelta = deltaPercent(baseScore, score);
+      if ((result.higherIsBetter() ? (-timeDelta > tolerance) : (timeDelta > tolerance))
+          && exceedsError(base.primaryMetric(), result.primaryMetric())) {
+        regressions.add(new Regression(result.key(), result.primaryMetric().scoreUnit(), baseScore, score, timeDelta));
+      }
+
+      final JmhMetric baseAlloc = base.allocMetric();
+      final JmhMetric alloc = result.allocMetric();
+      if (baseAlloc != null && alloc != null && (alloc.score() - baseAlloc.score()) > allocSlack
+          && deltaPercent(baseAlloc.score(), alloc.score()) > allocTolerance && exceedsError(baseAlloc, alloc)) {
+        regressions.add(new Regression(result.key(), "B/op", baseAlloc.score(), alloc.score(), deltaPercent(baseAlloc.score(), alloc.score())));
+      }
+    }
+
+    final ArrayList<String> missing = new ArrayList<>(new TreeMap<>(baselineIndex).keySet());
+    return new Comparison(regressions, missing, added);
+  }
+
+  /**
+   * @return true if the scores differ by more than the combined error of the two runs (NaN, e.g. single iteration, counts as 0)
+   */
+  private static boolean exceedsError(final JmhMetric baseline, final JmhMetric current) {
+    final double error = errorOrZero(baseline.scoreError()) + errorOrZero(current.scoreError());
+    return Math.abs(current.score() - baseline.score()) > error;
+  }
+
+  private static double errorOrZero(final double scoreError) {
+    return Double.isNaN(scoreError) ? 0 : scoreError;
+  }
+
+  private static double deltaPercent(final double baseline, final double current) {
+    if (baseline == 0) return current == 0 ? 0 : Double.POSITIVE_INFINITY;
+    return ((current - baseline) / baseline) * 100.0;
+  }
+
+  private static void printReport(final JmhResult[] baseline, final JmhResult[] current) {
+    final HashMap<String, JmhResult> baselineIndex = new HashMap<>();
+    for (final JmhResult result: baseline) {
+      baselineIndex.put(result.key(), result);
+    }
+
+    System.out.printf("%-80s %14s %14s %8s %12s %12s %8s%n", "Benchmark", "Base", "Current", "Delta", "Base B/op", "B/op", "Delta");
+    for (final JmhResult result: current) {
+      final JmhResult base = baselineIndex.get(result.key());
+      final double baseScore = base != null ? base.primaryMetric().score() : Double.NaN;
+      final double baseAlloc = base != null ? base.allocBytesPerOp() : Double.NaN;
+      System.out.printf("%-80s %14.3f %14.3f %7.1f%% %12.1f %12.1f %7.1f%%%n", result.key(),
+        baseScore, result.primaryMetric().score(), deltaPercent(baseScore, result.primaryMetric().score()),
+        baseAlloc, result.allocBytesPerOp(), deltaPercent(baseAlloc, result.allocBytesPerOp()));
+    }
+  }
+
+  // ================================================================================
+  //  Main related
+  // ================================================================================
+  public static void main(final String[] args) throws Exception {
+    Path baselinePath = null;
+    Path resultPath = Path.of("target", "jmh-result.json");
+    double tolerance = 10;
+    double allocTolerance = 5;
+    double allocSlack = 16;
+    boolean compareOnly = false;
+    boolean updateBaseline = false;
+    final ArrayList<String> jmhArgs = new ArrayList<>();
+    for (int i = 0; i < args.length; ++i) {
+      switch (args[i]) {
+        case "--baseline" -> baselinePath = Path.of(args[++i]);
+        case "--result" -> resultPath = Path.of(args[++i]);
+        case "--tolerance" -> tolerance = Double.parseDouble(args[++i]);
+        case "--alloc-tolerance" -> allocTolerance = Double.parseDouble(args[++i]);
+        case "--alloc-slack" -> allocSlack = Double.parseDouble(args[++i]);
+        case "--compare-only" -> compareOnly = true;
+        case "--update-baseline" -> updateBaseline = true;
+        default -> jmhArgs.add(args[i]);
+      }
+    }
+
+    if (baselinePath == null) {
+      System.err.println("usage: BenchRegressionGate --baseline <file> [--tolerance %] [--alloc-tolerance %] [--alloc-slack bytes]"
+        + " [--result <file>] [--compare-only] [--update-baseline] [jmh args...]");
+      System.exit(2);
+    }
+
+    if (!compareOnly) {
+      runSuite(resultPath, jmhArgs.toArray(new String[0]));
+    }
+
+    if (updateBaseline || !Files.exists(baselinePath)) {
+      storeBaseline(resultPath, baselinePath);
+      return;
+    }
+
+    final JmhResult[] baseline = loadResults(baselinePath);
+    final JmhResult[] current = loadResults(resultPath);
+    printReport(baseline, current);
+
+    final Comparison comparison = compare(baseline, current, tolerance, allocTolerance, allocSlack);
+    for (final String key: comparison.missing()) {
+      System.out.println("missing from the current run: " + key);
+    }
+    for (final String key: comparison.added()) {
+      System.out.println("new, without baseline: " + key);
+    }
+
+    final List<Regression> regressions = comparison.regressions();
+    if (regressions.isEmpty()) {
+      System.out.println("no regressions (tolerance " + tolerance + "%, alloc tolerance " + allocTolerance + "%)");
+      return;
+    }
+
+    System.out.println(regressions.size() + " regressions:");
+    for (final Regression regression: regressions) {
+      System.out.printf(" - %s [%s]: %.3f -> %.3f (%+.1f%%)%n", regression.key(), regression.metric(),
+        regression.baseline(), regression.current(), regression.deltaPercent());
+    }
+    System.exit(1);
+  }
+
+  private static void runSuite(final Path resultPath, final String[] jmhArgs) throws Exception {
+    Files.createDirectories(resultPath.toAbsolutePath().getParent());
+    final Options options = new OptionsBuilder()
+      .parent(new CommandLineOptions(jmhArgs))
+      .addProfiler(GCProfiler.class)
+      .resultFormat(ResultFormatType.JSON)
+      .result(resultPath.toString())
+      .build();
+    new Runner(options).run();
+  }
+
+  private static JmhResult[] loadResults(final Path path) throws IOException {
+    return JsonFormat.INSTANCE.fromFile(path, JmhResult[].class);
+  }
+
+  private static void storeBaseline(final Path resultPath, final Path baselinePath) throws IOException {
+    final Path parent = baselinePath.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+    Files.copy(resultPath, baselinePath, StandardCopyOption.REPLACE_EXISTING);
+    System.out.println("baseline stored to " + baselinePath);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bytes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.matteobertozzi.rednaco.strings.StringSearch;
+import io.github.matteobertozzi.rednaco.strings.StringSearch.LikePattern;
+
+/**
+ * BytesSearch is vectorized only when jdk.incubator.vector is loaded,
+ * the Scalar and Vector benchmarks run the same code with and without the module.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+public abstract class BytesSearchBench {
+  private static final String LOG_LINE = "2024-01-01T00:00:00.000Z INFO [dispatcher-%d] GET /api/v1/users/%d 200 %dms traceId=%016x\n";
+
+  private byte[] haystack;
+  private byte[] haystackCopy;
+  private byte[] needle;
+  private String text;
+  private LikePattern likePattern;
+  private LikePattern likeWildcardsPattern;
+
+  @Param({ "64", "4096", "1048576" })
+  private int size;
+
+  @Setup
+  public void setup() {
+    final Random rand = new Random(size);
+    final StringBuilder builder = new StringBuilder(size + LOG_LINE.length() * 2);
+    while (builder.length() < size) {
+      builder.append(String.format(LOG_LINE, rand.nextInt(16), rand.nextInt(100_000), rand.nextInt(1000), rand.nextLong()));
+    }
+    builder.setLength(size - 16);
+    builder.append("ERROR deadbeef\n");
+    builder.setLength(size);
+
+    text = builder.toString();
+    haystack = text.getBytes(StandardCharsets.UTF_8);
+    haystackCopy = haystack.clone();
+    haystackCopy[haystackCopy.length - 2] ^= 1;
+    needle = "ERROR deadbeef".getBytes(StandardCharsets.UTF_8);
+    likePattern = StringSearch.likePattern("%ERROR dead%");
+    likeWildcardsPattern = StringSearch.likePattern("2024-01-01T__:%GET /api/v_/users/%");
+  }
+
+  @Benchmark
+  public int indexOfByte() {
+    return BytesSearch.indexOf(haystack, (byte) 'E');
+  }
+
+  @Benchmark
+  public int lastIndexOfByte() {
+    return BytesSearch.lastIndexOf(haystack, (byte) '\t');
+  }
+
+  @Benchmark
+  public int indexOfBytes() {
+    return BytesSearch.indexOf(haystack, needle);
+  }
+
+  @Benchmark
+  public int lastIndexOfBytes() {
+    return BytesSearch.lastIndexOf(haystack, 0, haystack.length - 16, needle);
+  }
+
+  @Benchmark
+  public int prefix() {
+    return BytesSearch.prefix(haystack, haystackCopy);
+  }
+
+  @Benchmark
+  public boolean like() {
+    return likePattern.matches(text);
+  }
+
+  @Benchmark
+  public boolean likeWildcards() {
+    return likeWildcardsPattern.matches(text);
+  }
+
+  @Fork(value = 2, jvmArgsAppend = { "-Drednaco.bytes.search.vectorized=false" })
+  public static class Scalar extends BytesSearchBench {
+    // scalar implementation
+  }
+
+  @Fork(value = 2, jvmArgsAppend = { "--add-modules=jdk.incubator.vector" })
+  public static class Vector extends BytesSearchBench {
+    // jdk.incubator.vector implementation
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+        .include(BytesSearchBench.class.getSimpleName())
+        //.addProfiler(GCProfiler.class)
+        .build();
+    new Runner(opt).run();
+  }
+}
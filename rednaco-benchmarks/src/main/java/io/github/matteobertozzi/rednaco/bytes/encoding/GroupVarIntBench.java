@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bytes.encoding;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArray;
+import io.github.matteobertozzi.rednaco.collections.LongValue;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class GroupVarIntBench {
+  private final LongValue longValue = new LongValue();
+
+  private ByteArray output;
+  private int[] ints;
+  private long[] longs;
+  private int[] intsResult;
+  private long[] longsResult;
+
+  private byte[] group32Encoded;
+  private byte[] group64Encoded;
+  private byte[] varIntEncoded;
+  private byte[] unsignedVarIntEncoded;
+
+  @Param({ "1024", "65536" })
+  private int size;
+
+  @Param
+  private DataType dataType;
+
+  public enum DataType {
+    // posting list deltas, most values fit in 1-2 bytes
+    DELTAS,
+    // ids and timestamps, values of 3-6 bytes
+    IDS,
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rand = new Random(size);
+    ints = new int[size];
+    longs = new long[size];
+    for (int i = 0; i < size; ++i) {
+      switch (dataType) {
+        case DELTAS -> {
+          ints[i] = rand.nextInt(rand.nextBoolean() ? 128 : 4096);
+          longs[i] = ints[i];
+        }
+        case IDS -> {
+          ints[i] = rand.nextInt(1 << 24, Integer.MAX_VALUE);
+          longs[i] = rand.nextLong(1L << 32, 1L << 48);
+        }
+      }
+    }
+    intsResult = new int[size];
+    longsResult = new long[size];
+    output = new ByteArray(size * 9);
+
+    final ByteArray buf = new ByteArray(size * 9);
+    GroupVarInt.encode32(buf, IntEncoder.LITTLE_ENDIAN, ints, 0, size);
+    group32Encoded = buf.buffer();
+
+    buf.reset();
+    GroupVarInt.encode64(buf, IntEncoder.LITTLE_ENDIAN, longs, 0, size);
+    group64Encoded = buf.buffer();
+
+    buf.reset();
+    for (int i = 0; i < size; ++i) VarInt.write(buf, longs[i]);
+    varIntEncoded = buf.buffer();
+
+    buf.reset();
+    for (int i = 0; i < size; ++i) IntEncoder.writeUnsignedVarLong(buf, longs[i]);
+    unsignedVarIntEncoded = buf.buffer();
+  }
+
+  // ================================================================================
+  //  Encode
+  // ================================================================================
+  @Benchmark
+  public ByteArray encodeGroupVarInt32() {
+    output.reset();
+    GroupVarInt.encode32(output, IntEncoder.LITTLE_ENDIAN, ints, 0, size);
+    return output;
+  }
+
+  @Benchmark
+  public ByteArray encodeGroupVarInt64() {
+    output.reset();
+    GroupVarInt.encode64(output, IntEncoder.LITTLE_ENDIAN, longs, 0, size);
+    return output;
+  }
+
+  @Benchmark
+  public ByteArray encodeVarInt() {
+    output.reset();
+    for (int i = 0; i < size; ++i) {
+      VarInt.write(output, longs[i]);
+    }
+    return output;
+  }
+
+  @Benchmark
+  public ByteArray encodeUnsignedVarInt() {
+    output.reset();
+    for (int i = 0; i < size; ++i) {
+      IntEncoder.writeUnsignedVarLong(output, longs[i]);
+    }
+    return output;
+  }
+
+  // ================================================================================
+  //  Decode
+  // ================================================================================
+  @Benchmark
+  public int[] decodeGroupVarInt32() {
+    GroupVarInt.decode32(group32Encoded, 0, IntDecoder.LITTLE_ENDIAN, intsResult, 0, size);
+    return intsResult;
+  }
+
+  @Benchmark
+  public long[] decodeGroupVarInt64() {
+    GroupVarInt.decode64(group64Encoded, 0, IntDecoder.LITTLE_ENDIAN, longsResult, 0, size);
+    return longsResult;
+  }
+
+  @Benchmark
+  public long[] decodeVarInt() {
+    final byte[] buf = varIntEncoded;
+    int off = 0;
+    for (int i = 0; i < size; ++i) {
+      off += VarInt.read(buf, off, buf.length - off, longValue);
+      longsResult[i] = longValue.get();
+    }
+    return longsResult;
+  }
+
+  @Benchmark
+  public long[] decodeUnsignedVarInt() {
+    final byte[] buf = unsignedVarIntEncoded;
+    int off = 0;
+    for (int i = 0; i < size; ++i) {
+      final long v = IntDecoder.readUnsignedVarLong(buf, off);
+      off += IntUtil.unsignedVarLongSize(v);
+      longsResult[i] = v;
+    }
+    return longsResult;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+        .include(GroupVarIntBench.class.getSimpleName())
+        //.addProfiler(GCProfiler.class)
+        .build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bytes.encoding;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Fixed width IntEncoder/IntDecoder, see GroupVarIntBench for the variable length encodings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class IntEncoderBench {
+  private static final int SIZE = 4096;
+
+  private IntEncoder encoder;
+  private IntDecoder decoder;
+  private long[] values;
+  private long[] result;
+  private byte[] buffer;
+
+  @Param
+  private Endianness endianness;
+
+  @Param({ "3", "4", "8" })
+  private int bytesWidth;
+
+  public enum Endianness { LITTLE_ENDIAN, BIG_ENDIAN }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    encoder = endianness == Endianness.LITTLE_ENDIAN ? IntEncoder.LITTLE_ENDIAN : IntEncoder.BIG_ENDIAN;
+    decoder = endianness == Endianness.LITTLE_ENDIAN ? IntDecoder.LITTLE_ENDIAN : IntDecoder.BIG_ENDIAN;
+
+    final Random rand = new Random(bytesWidth);
+    final long maxValue = bytesWidth == 8 ? Long.MAX_VALUE : (1L << (bytesWidth * 8));
+    values = new long[SIZE];
+    for (int i = 0; i < SIZE; ++i) {
+      values[i] = rand.nextLong(maxValue);
+    }
+    result = new long[SIZE];
+    buffer = new byte[SIZE * bytesWidth];
+    for (int i = 0; i < SIZE; ++i) {
+      encoder.writeFixed(buffer, i * bytesWidth, values[i], bytesWidth);
+    }
+  }
+
+  @Benchmark
+  public byte[] writeFixed() {
+    for (int i = 0; i < SIZE; ++i) {
+      encoder.writeFixed(buffer, i * bytesWidth, values[i], bytesWidth);
+    }
+    return buffer;
+  }
+
+  @Benchmark
+  public long[] readFixed() {
+    for (int i = 0; i < SIZE; ++i) {
+      result[i] = decoder.readFixed(buffer, i * bytesWidth, bytesWidth);
+    }
+    return result;
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+      .include(IntEncoderBench.class.getSimpleName())
+      //.addProfiler(GCProfiler.class)
+      .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bytes.encoding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class RowKeyBench {
+  private final RowKeyReader reader = new RowKeyReader();
+  private byte[] key;
+  private byte[] otherKey;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    key = buildKey(1234567);
+    otherKey = buildKey(1234568);
+  }
+
+  private static byte[] buildKey(final long id) {
+    return RowKey.newKeyBuilder()
+      .add("tenant-abc")
+      .add("orders")
+      .addInt64(1700000000000L)
+      .addVarInt(id)
+      .add(new byte[] { 0x00, 0x01, 0x00, (byte) 0xff })
+      .drain();
+  }
+
+  @Benchmark
+  public byte[] build() {
+    return buildKey(1234567);
+  }
+
+  @Benchmark
+  public List<ByteArraySlice> decodeKey() {
+    return RowKey.decodeKey(key);
+  }
+
+  @Benchmark
+  public long read() {
+    reader.reset(key);
+    reader.next();
+    reader.next();
+    reader.next();
+    final long timestamp = reader.getInt64();
+    reader.next();
+    return timestamp + reader.getVarInt();
+  }
+
+  @Benchmark
+  public int compare() {
+    return RowKey.compare(key, otherKey);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+      .include(RowKeyBench.class.getSimpleName())
+      //.addProfiler(GCProfiler.class)
+      .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.arrays;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class ArraySortBench {
+  private long[] sourceLongs;
+  private int[] sourceInts;
+  private long[] longs;
+  private int[] ints;
+
+  @Param({ "1000", "100000", "10000000" })
+  private int size;
+
+  @Param
+  private DataType dataType;
+
+  public enum DataType {
+    RANDOM,
+    TIMESTAMPS,
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rand = new Random(size);
+    final long now = System.currentTimeMillis();
+    sourceLongs = new long[size];
+    sourceInts = new int[size];
+    for (int i = 0; i < size; ++i) {
+      switch (dataType) {
+        case RANDOM -> {
+          sourceLongs[i] = rand.nextLong();
+          sourceInts[i] = rand.nextInt();
+        }
+        case TIMESTAMPS -> {
+          sourceLongs[i] = now + rand.nextInt(86_400_000);
+          sourceInts[i] = rand.nextInt(1 << 20);
+        }
+      }
+    }
+    longs = new long[size];
+    ints = new int[size];
+  }
+
+  @Setup(Level.Invocation)
+  public void copyInput() {
+    System.arraycopy(sourceLongs, 0, longs, 0, size);
+    System.arraycopy(sourceInts, 0, ints, 0, size);
+  }
+
+  @Benchmark
+  public long[] longArraysSort() {
+    Arrays.sort(longs);
+    return longs;
+  }
+
+  @Benchmark
+  public long[] longArraysParallelSort() {
+    Arrays.parallelSort(longs);
+    return longs;
+  }
+
+  @Benchmark
+  public long[] longHeapSort() {
+    final long[] buf = longs;
+    ArraySortUtil.sort(0, buf.length, (a, b) -> Long.compare(buf[a], buf[b]), (a, b) -> {
+      final long tmp = buf[a];
+      buf[a] = buf[b];
+      buf[b] = tmp;
+    });
+    return buf;
+  }
+
+  @Benchmark
+  public long[] longRadixSort() {
+    ArraySortUtil.radixSort(longs, 0, longs.length);
+    return longs;
+  }
+
+  @Benchmark
+  public long[] longParallelSort() {
+    ArraySortUtil.parallelSort(longs, 0, longs.length);
+    return longs;
+  }
+
+  @Benchmark
+  public int[] intArraysSort() {
+    Arrays.sort(ints);
+    return ints;
+  }
+
+  @Benchmark
+  public int[] intArraysParallelSort() {
+    Arrays.parallelSort(ints);
+    return ints;
+  }
+
+  @Benchmark
+  public int[] intRadixSort() {
+    ArraySortUtil.radixSort(ints, 0, ints.length);
+    return ints;
+  }
+
+  @Benchmark
+  public int[] intParallelSort() {
+    ArraySortUtil.parallelSort(ints, 0, ints.length);
+    return ints;
+  }
+
+  @Benchmark
+  public int[] longIndexMergeSort() {
+    final long[] buf = longs;
+    return ArraySortUtil.sortedIndex(0, buf.length, (a, b) -> Long.compare(buf[a], buf[b]));
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+        .include(ArraySortBench.class.getSimpleName())
+        //.addProfiler(GCProfiler.class)
+        .build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class DataFormatBench {
+  public record Item(long id, String name, double price, boolean available, List<String> tags) {}
+  public record Order(String orderId, long timestamp, List<Item> items, Map<String, String> attributes) {}
+
+  public enum Format {
+    JSON(JsonFormat.INSTANCE),
+    CBOR(CborFormat.INSTANCE),
+    YAJBE(YajbeFormat.INSTANCE);
+
+    private final DataFormat format;
+
+    Format(final DataFormat format) {
+      this.format = format;
+    }
+  }
+
+  private DataFormatCodec<Order> codec;
+  private Order order;
+  private byte[] encoded;
+
+  @Param
+  private Format format;
+
+  @Param({ "4", "64" })
+  private int items;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rand = new Random(items);
+    final ArrayList<Item> itemList = new ArrayList<>(items);
+    for (int i = 0; i < items; ++i) {
+      itemList.add(new Item(rand.nextLong(1L << 40), "item-" + i, rand.nextInt(100_000) / 100.0, rand.nextBoolean(),
+        List.of("tag-" + rand.nextInt(10), "tag-" + rand.nextInt(10))));
+    }
+    order = new Order("ord-" + rand.nextLong(), System.currentTimeMillis(), itemList,
+      Map.of("channel", "web", "currency", "EUR", "country", "IT"));
+
+    codec = format.format.codec(Order.class);
+    encoded = codec.asBytes(order);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return codec.asBytes(order);
+  }
+
+  @Benchmark
+  public Order decode() {
+    return codec.fromBytes(encoded);
+  }
+
+  @Benchmark
+  public Order roundTrip() {
+    return codec.fromBytes(codec.asBytes(order));
+  }
+
+  @Benchmark
+  public byte[] encodeUncached() {
+    return format.format.asBytes(order);
+  }
+
+  @Benchmark
+  public Order decodeUncached() {
+    return format.format.fromBytes(encoded, Order.class);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+      .include(DataFormatBench.class.getSimpleName())
+      //.addProfiler(GCProfiler.class)
+      .build();
+
+    new Runner(opt).run();
+  }
+}
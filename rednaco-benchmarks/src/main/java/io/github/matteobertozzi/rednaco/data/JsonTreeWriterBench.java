@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.github.matteobertozzi.rednaco.data.json.JsonArray;
+import io.github.matteobertozzi.rednaco.data.json.JsonObject;
+import io.github.matteobertozzi.rednaco.data.json.JsonTreeWriter;
+
+/**
+ * Untyped trees (Map/List and JsonObject/JsonArray) and records serialized by:
+ *  - jackson: the ObjectMapper of the JSON format, through the generic Map/Collection serializers
+ *  - treeWriter: the hand-written JsonTreeWriter
+ *  - format: JsonFormat.INSTANCE, using whatever DataFormatMapperProvider is installed
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class JsonTreeWriterBench {
+  public record Item(String name, long value, double score, List<String> tags, boolean active) {}
+
+  private ObjectWriter jacksonWriter;
+  private DataFormatCodec<Item[]> recordCodec;
+  private Map<String, Object> mapTree;
+  private JsonObject jsonTree;
+  private Item[] records;
+
+  @Param({ "10", "1000" })
+  private int items;
+
+  @Setup
+  public void setup() {
+    final ObjectMapper mapper = JsonFormat.INSTANCE.jacksonMapper().getObjectMapper();
+    jacksonWriter = mapper.writer();
+    recordCodec = JsonFormat.INSTANCE.codec(Item[].class);
+
+    final ArrayList<Object> mapItems = new ArrayList<>(items);
+    final JsonArray jsonItems = new JsonArray();
+    records = new Item[items];
+    for (int i = 0; i < items; ++i) {
+      final Item item = new Item("item-" + i + " \"quoted\" è", i * 31L, i / 7.0, List.of("tag-" + (i & 7), "common"), (i & 1) == 0);
+      records[i] = item;
+
+      final LinkedHashMap<String, Object> mapItem = new LinkedHashMap<>();
+      mapItem.put("name", item.name());
+      mapItem.put("value", item.value());
+      mapItem.put("score", item.score());
+      mapItem.put("tags", item.tags());
+      mapItem.put("active", item.active());
+      mapItems.add(mapItem);
+
+      final JsonObject jsonItem = new JsonObject();
+      jsonItem.add("name", item.name());
+      jsonItem.add("value", item.value());
+      jsonItem.add("score", item.score());
+      final JsonArray tags = new JsonArray();
+      for (final String tag: item.tags()) tags.add(tag);
+      jsonItem.add("tags", tags);
+      jsonItem.add("active", item.active());
+      jsonItems.add(jsonItem);
+    }
+
+    mapTree = new LinkedHashMap<>();
+    mapTree.put("items", mapItems);
+    mapTree.put("nextPageToken", "abc");
+
+    jsonTree = new JsonObject();
+    jsonTree.add("items", jsonItems);
+    jsonTree.add("nextPageToken", "abc");
+  }
+
+  @Benchmark
+  public byte[] mapJackson() throws Exception {
+    return jacksonWriter.writeValueAsBytes(mapTree);
+  }
+
+  @Benchmark
+  public byte[] mapTreeWriter() {
+    return new JsonTreeWriter(JsonFormat.INSTANCE::asBytes).writeValue(mapTree).toByteArray();
+  }
+
+  @Benchmark
+  public byte[] jsonElementJackson() throws Exception {
+    return jacksonWriter.writeValueAsBytes(jsonTree);
+  }
+
+  @Benchmark
+  public byte[] jsonElementTreeWriter() {
+    return new JsonTreeWriter(JsonFormat.INSTANCE::asBytes).writeValue(jsonTree).toByteArray();
+  }
+
+  @Benchmark
+  public byte[] jsonElementFormat() {
+    return JsonFormat.INSTANCE.asBytes(jsonTree);
+  }
+
+  @Benchmark
+  public byte[] recordsJackson() throws Exception {
+    return jacksonWriter.writeValueAsBytes(records);
+  }
+
+  @Benchmark
+  public byte[] recordsCodec() {
+    return recordCodec.asBytes(records);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+        .include(JsonTreeWriterBench.class.getSimpleName())
+        //.addProfiler(GCProfiler.class)
+        .build();
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.dispatcher;
+
+import java.io.DataOutput;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
+import io.github.matteobertozzi.rednaco.data.DataFormat;
+import io.github.matteobertozzi.rednaco.dispatcher.MessageDispatcher.DispatcherContext;
+import io.github.matteobertozzi.rednaco.dispatcher.MessageExecutor.ExecutionType;
+import io.github.matteobertozzi.rednaco.dispatcher.message.Message;
+import io.github.matteobertozzi.rednaco.dispatcher.message.MessageMetadata;
+import io.github.matteobertozzi.rednaco.dispatcher.message.MessageMetadataMap;
+import io.github.matteobertozzi.rednaco.dispatcher.message.MessageUtil;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RouteBuilder;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutePathUtil;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutePathUtil.RouterPathSpec;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.DirectRouteMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.PatternRouteMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.UriMessage;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.UriMethod;
+
+/**
+ * MessageDispatcher.execute() with INLINE_FAST handlers: routing, recording and the inline execution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class MessageDispatcherBench {
+  private static final Message RESPONSE = MessageUtil.newTextMessage("ok");
+
+  private final UriMessage directMessage = new BenchUriMessage(UriMethod.GET, "/api/v1/ping");
+  private final UriMessage variableMessage = new BenchUriMessage(UriMethod.GET, "/api/v1/items/a1b2c3");
+  private final UriMessage notFoundMessage = new BenchUriMessage(UriMethod.GET, "/api/v1/unknown");
+  private MessageDispatcher dispatcher;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final RouterPathSpec itemSpec = RoutePathUtil.parsePathWithVariables("/api/v1/items/{itemId}");
+    final DirectRouteMapping[] direct = {
+      new DirectRouteMapping(UriMethod.METHODS_GET, "/api/v1/ping", ExecutionType.INLINE_FAST, (ctx, message) -> RESPONSE),
+    };
+    final PatternRouteMapping[] variables = {
+      new PatternRouteMapping(UriMethod.METHODS_GET, itemSpec.pattern(), ExecutionType.INLINE_FAST,
+        (ctx, message) -> ((DispatcherContext) ctx).pathVariable("itemId") != null ? RESPONSE : null, itemSpec.path()),
+    };
+
+    final RouteBuilder builder = new RouteBuilder();
+    builder.add(new RoutesMapping() {
+      @Override public DirectRouteMapping[] directRouteMappings() { return direct; }
+      @Override public PatternRouteMapping[] variableRouteMappings() { return variables; }
+      @Override public PatternRouteMapping[] patternRouteMappings() { return null; }
+    });
+
+    dispatcher = new MessageDispatcher();
+    dispatcher.setRouter(builder.build());
+  }
+
+  @Benchmark
+  public Message executeDirect() {
+    return dispatcher.execute(new BenchDispatcherContext(), directMessage);
+  }
+
+  @Benchmark
+  public Message executeVariable() {
+    return dispatcher.execute(new BenchDispatcherContext(), variableMessage);
+  }
+
+  @Benchmark
+  public Message executeNotFound() {
+    return dispatcher.execute(new BenchDispatcherContext(), notFoundMessage);
+  }
+
+  private static final class BenchDispatcherContext extends DispatcherContext {
+    @Override
+    public void writeAndFlush(final Message message) {
+      // no-op
+    }
+  }
+
+  private record BenchUriMessage(UriMethod method, String path, MessageMetadata queryParams, MessageMetadata metadata) implements UriMessage {
+    private BenchUriMessage(final UriMethod method, final String path) {
+      this(method, path, new MessageMetadataMap(), MessageMetadataMap.fromKeyValues(new String[] {
+        "accept", "application/json",
+        "user-agent", "rednaco-bench",
+      }));
+    }
+
+    @Override public Message retain() { return this; }
+    @Override public Message release() { return this; }
+
+    @Override public boolean hasContent() { return false; }
+    @Override public long writeContentToStream(final OutputStream stream) { return 0; }
+    @Override public long writeContentToStream(final DataOutput stream) { return 0; }
+    @Override public <T> T convertContent(final DataFormat format, final Class<T> classOfT) { return null; }
+    @Override public byte[] convertContentToBytes() { return BytesUtil.EMPTY_BYTES; }
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+      .include(MessageDispatcherBench.class.getSimpleName())
+      //.addProfiler(GCProfiler.class)
+      .build();
+
+    new Runner(opt).run();
+  }
+}
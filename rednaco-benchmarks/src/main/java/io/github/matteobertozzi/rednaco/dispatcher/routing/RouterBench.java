@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.dispatcher.routing;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.github.matteobertozzi.rednaco.dispatcher.MessageExecutor;
+import io.github.matteobertozzi.rednaco.dispatcher.MessageExecutor.ExecutionType;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutePathUtil.RouterPathSpec;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.DirectRouteMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.PatternRouteMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.RouteMatcher;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class RouterBench {
+  private static final MessageExecutor NO_OP_EXECUTOR = (ctx, message) -> null;
+
+  private Router router;
+
+  @Param({ "64", "512" })
+  private int routes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final DirectRouteMapping[] direct = new DirectRouteMapping[routes];
+    final PatternRouteMapping[] variables = new PatternRouteMapping[routes / 4];
+    final PatternRouteMapping[] patterns = new PatternRouteMapping[routes / 16];
+    for (int i = 0; i < direct.length; ++i) {
+      direct[i] = new DirectRouteMapping(UriMethod.METHODS_GET, "/api/v1/service" + i + "/list", ExecutionType.INLINE_FAST, NO_OP_EXECUTOR);
+    }
+    for (int i = 0; i < variables.length; ++i) {
+      variables[i] = newPatternMapping(RoutePathUtil.parsePathWithVariables("/api/v1/service" + i + "/items/{itemId}/details"));
+    }
+    for (int i = 0; i < patterns.length; ++i) {
+      patterns[i] = newPatternMapping(RoutePathUtil.parsePathWithPattern("/api/v1/service" + i + "/files/([0-9]+)/(.*)"));
+    }
+
+    final RouteBuilder builder = new RouteBuilder();
+    builder.add(new RoutesMapping() {
+      @Override public DirectRouteMapping[] directRouteMappings() { return direct; }
+      @Override public PatternRouteMapping[] variableRouteMappings() { return variables; }
+      @Override public PatternRouteMapping[] patternRouteMappings() { return patterns; }
+    });
+    builder.addAlias("/v1/", "/api/v1/");
+    router = builder.build();
+  }
+
+  private static PatternRouteMapping newPatternMapping(final RouterPathSpec spec) {
+    return new PatternRouteMapping(UriMethod.METHODS_GET, spec.pattern(), ExecutionType.INLINE_FAST, NO_OP_EXECUTOR, spec.path());
+  }
+
+  @Benchmark
+  public RouteMatcher getDirect() {
+    return router.get(UriMethod.GET, "/api/v1/service3/list");
+  }
+
+  @Benchmark
+  public RouteMatcher getDirectAlias() {
+    return router.get(UriMethod.GET, "/v1/service3/list");
+  }
+
+  @Benchmark
+  public RouteMatcher getVariable() {
+    return router.get(UriMethod.GET, "/api/v1/service3/items/a1b2c3/details");
+  }
+
+  @Benchmark
+  public RouteMatcher getPattern() {
+    return router.get(UriMethod.GET, "/api/v1/service3/files/12345/path/to/file.txt");
+  }
+
+  @Benchmark
+  public RouteMatcher getNotFound() {
+    return router.get(UriMethod.GET, "/api/v2/service3/unknown");
+  }
+
+  @Benchmark
+  public String cleanPath() {
+    return RoutePathUtil.cleanPath("/api/v1/service3/items/a1b2c3/details");
+  }
+
+  @Benchmark
+  public String cleanPathDirty() {
+    return RoutePathUtil.cleanPath("/api//v1/./service3/tmp/../items/a1b2c3/details/");
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+      .include(RouterBench.class.getSimpleName())
+      //.addProfiler(GCProfiler.class)
+      .build();
+
+    new Runner(opt).run();
+  }
+}
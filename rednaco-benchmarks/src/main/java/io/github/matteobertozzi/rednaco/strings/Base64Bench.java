@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.strings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Base64 (without padding) compared with java.util.Base64:
+ *  - toString/fromString: the allocating String API
+ *  - toArray/fromArray: encode/decode into a preallocated byte[]
+ *  - Base64Hex: custom alphabet, using the SWAR path instead of the jdk intrinsics
+ * sizes: 16 (session id), 48 (token), 4096 (payload)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class Base64Bench {
+  private final java.util.Base64.Encoder jdkEncoder = java.util.Base64.getEncoder().withoutPadding();
+  private final java.util.Base64.Decoder jdkDecoder = java.util.Base64.getDecoder();
+  private final Base64 base64 = Base64.base64();
+  private final Base64 base64hex = Base64.base64hex();
+
+  private byte[] data;
+  private byte[] encoded;
+  private String encodedString;
+  private byte[] encodedHex;
+  private byte[] encodeBuffer;
+  private byte[] decodeBuffer;
+
+  @Param({ "16", "48", "4096" })
+  private int size;
+
+  @Setup
+  public void setup() {
+    data = new byte[size];
+    new Random(size).nextBytes(data);
+    encodedString = jdkEncoder.encodeToString(data);
+    encoded = encodedString.getBytes(StandardCharsets.US_ASCII);
+    encodedHex = base64hex.encode(data).getBytes(StandardCharsets.US_ASCII);
+    encodeBuffer = new byte[encoded.length];
+    decodeBuffer = new byte[data.length];
+  }
+
+  @Benchmark
+  public String encodeToStringJdk() {
+    return jdkEncoder.encodeToString(data);
+  }
+
+  @Benchmark
+  public String encodeToStringRednaco() {
+    return base64.encode(data);
+  }
+
+  @Benchmark
+  public int encodeToArrayJdk() {
+    return jdkEncoder.encode(data, encodeBuffer);
+  }
+
+  @Benchmark
+  public int encodeToArrayRednaco() {
+    return base64.encode(data, 0, data.length, encodeBuffer, 0);
+  }
+
+  @Benchmark
+  public byte[] decodeFromStringJdk() {
+    return jdkDecoder.decode(encodedString);
+  }
+
+  @Benchmark
+  public byte[] decodeFromStringRednaco() {
+    return base64.decode(encodedString);
+  }
+
+  @Benchmark
+  public int decodeToArrayJdk() {
+    return jdkDecoder.decode(encoded, decodeBuffer);
+  }
+
+  @Benchmark
+  public int decodeToArrayRednaco() {
+    return base64.decode(encoded, 0, encoded.length, decodeBuffer, 0);
+  }
+
+  @Benchmark
+  public int encodeToArrayBase64Hex() {
+    return base64hex.encode(data, 0, data.length, encodeBuffer, 0);
+  }
+
+  @Benchmark
+  public int decodeToArrayBase64Hex() {
+    return base64hex.decode(encodedHex, 0, encodedHex.length, decodeBuffer, 0);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+        .include(Base64Bench.class.getSimpleName())
+        //.addProfiler(GCProfiler.class)
+        .build();
+    new Runner(opt).run();
+  }
+}
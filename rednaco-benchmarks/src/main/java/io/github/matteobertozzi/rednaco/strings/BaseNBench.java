@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.strings;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class BaseNBench {
+  private final BaseN base58 = BaseN.base58();
+  private final BaseN base62 = BaseN.base62();
+  private final byte[] dst = new byte[64];
+
+  private long id;
+  private byte[] uuid;
+  private String uuidBase58;
+  private String uuidBase62;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random rand = new Random(62);
+    id = rand.nextLong(1L << 40, Long.MAX_VALUE);
+    uuid = new byte[16];
+    rand.nextBytes(uuid);
+    uuidBase58 = base58.encode(uuid);
+    uuidBase62 = base62.encode(uuid);
+  }
+
+  @Benchmark
+  public String encodeLongBase62() {
+    return base62.encode(id);
+  }
+
+  @Benchmark
+  public int encodeLongBase62NoAlloc() {
+    return base62.encode(id, dst, 0);
+  }
+
+  @Benchmark
+  public String encodeBytesBase58() {
+    return base58.encode(uuid);
+  }
+
+  @Benchmark
+  public String encodeBytesBase62() {
+    return base62.encode(uuid);
+  }
+
+  @Benchmark
+  public int encodeBytesBase62NoAlloc() {
+    return base62.encode(uuid, 0, uuid.length, dst, 0);
+  }
+
+  @Benchmark
+  public byte[] decodeBase58() {
+    return base58.decode(uuidBase58);
+  }
+
+  @Benchmark
+  public byte[] decodeBase62() {
+    return base62.decode(uuidBase62);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+      .include(BaseNBench.class.getSimpleName())
+      //.addProfiler(GCProfiler.class)
+      .build();
+
+    new Runner(opt).run();
+  }
+}
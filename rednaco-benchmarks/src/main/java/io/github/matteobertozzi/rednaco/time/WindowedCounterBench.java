@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.time;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Contended updates of the windowed counters vs a plain AtomicLong/LongAdder (no window).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 4, time = 2)
+@Fork(value = 2)
+public class WindowedCounterBench {
+  private final AtomicLong atomicLong = new AtomicLong();
+  private final LongAdder longAdder = new LongAdder();
+  private final WindowedCounter windowedCounter = new WindowedCounter(60, 1, TimeUnit.SECONDS);
+  private final WindowedMaxAvg windowedMaxAvg = new WindowedMaxAvg(60, 1, TimeUnit.SECONDS);
+  private final WindowedHistogram windowedHistogram = new WindowedHistogram(60, 1, TimeUnit.SECONDS);
+
+  @Benchmark
+  public void atomicLong() {
+    atomicLong.incrementAndGet();
+  }
+
+  @Benchmark
+  public void longAdder() {
+    longAdder.increment();
+  }
+
+  @Benchmark
+  public void windowedCounter() {
+    windowedCounter.increment();
+  }
+
+  @Benchmark
+  public void windowedMaxAvg() {
+    windowedMaxAvg.add(System.nanoTime() & 0xffff);
+  }
+
+  @Benchmark
+  public void windowedHistogram() {
+    windowedHistogram.add(System.nanoTime() & 0xffff);
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final Options opt = new OptionsBuilder()
+      .include(WindowedCounterBench.class.getSimpleName())
+      //.addProfiler(GCProfiler.class)
+      .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bytes;
+
+import java.util.Arrays;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * jdk.incubator.vector implementation of the BytesSearch methods.
+ * It processes 16/32/64 bytes per step, depending on the preferred species of the cpu.
+ * This class must be loaded only when the module is available (see BytesSearch.VECTORIZED),
+ * the JVM must be started with: --add-modules jdk.incubator.vector
+ * It lives in its own source root, compiled by a separate execution (see pom.xml),
+ * so the rest of the module is built without the incubator module.
+ */
+final class VectorizedBytesSearch implements BytesSearch.VectorizedSearch {
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+  private static final int VECTOR_LENGTH = SPECIES.length();
+
+  VectorizedBytesSearch() {
+    // no-op
+  }
+
+  static int vectorLength() {
+    return VECTOR_LENGTH;
+  }
+
+  // ================================================================================
+  //  Bytes find single byte util
+  // ================================================================================
+  @Override
+  public int indexOf(final byte[] haystack, final int haystackOff, final int haystackLen, final byte needle) {
+    final int bound = SPECIES.loopBound(haystackLen);
+    int i = 0;
+    for (; i < bound; i += VECTOR_LENGTH) {
+      final VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, haystack, haystackOff + i).eq(needle);
+      if (mask.anyTrue()) {
+        return haystackOff + i + mask.firstTrue();
+      }
+    }
+    for (; i < haystackLen; ++i) {
+      if (haystack[haystackOff + i] == needle) {
+        return haystackOff + i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int lastIndexOf(final byte[] haystack, final int haystackOff, final int haystackLen, final byte needle) {
+    int i = haystackLen;
+    for (; i >= VECTOR_LENGTH; i -= VECTOR_LENGTH) {
+      final VectorMask<Byte> mask = ByteVector.fromArray(SPECIES, haystack, haystackOff + i - VECTOR_LENGTH).eq(needle);
+      if (mask.anyTrue()) {
+        return haystackOff + i - VECTOR_LENGTH + mask.lastTrue();
+      }
+    }
+    for (--i; i >= 0; --i) {
+      if (haystack[haystackOff + i] == needle) {
+        return haystackOff + i;
+      }
+    }
+    return -1;
+  }
+
+  // ================================================================================
+  //  Bytes find multi byte util
+  // ================================================================================
+  /**
+   * First/Last byte filtering: compare VECTOR_LENGTH candidates at the time
+   * using the first and the last byte of the needle, and verify only the candidates matching both.
+   */
+  @Override
+  public int indexOf(final byte[] haystack, final int haystackOff, final int haystackLen,
+      final byte[] needle, final int needleLen) {
+    final ByteVector first = ByteVector.broadcast(SPECIES, needle[0]);
+    final ByteVector last = ByteVector.broadcast(SPECIES, needle[needleLen - 1]);
+    final int lastOff = needleLen - 1;
+
+    // candidates are in [0, haystackLen - needleLen]
+    final int candidates = haystackLen - needleLen + 1;
+    int i = 0;
+    for (; (i + VECTOR_LENGTH) <= candidates; i += VECTOR_LENGTH) {
+      final int off = haystackOff + i;
+      final VectorMask<Byte> eqFirst = ByteVector.fromArray(SPECIES, haystack, off).compare(VectorOperators.EQ, first);
+      final VectorMask<Byte> eqLast = ByteVector.fromArray(SPECIES, haystack, off + lastOff).compare(VectorOperators.EQ, last);
+      long bits = eqFirst.and(eqLast).toLong();
+      while (bits != 0) {
+        final int candidateOff = off + Long.numberOfTrailingZeros(bits);
+        if (Arrays.equals(haystack, candidateOff + 1, candidateOff + lastOff, needle, 1, lastOff)) {
+          return candidateOff;
+        }
+        bits &= bits - 1;
+      }
+    }
+    for (; i < candidates; ++i) {
+      final int off = haystackOff + i;
+      if (Arrays.equals(haystack, off, off + needleLen, needle, 0, needleLen)) {
+        return off;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int lastIndexOf(final byte[] haystack, final int haystackOff, final int haystackLen,
+      final byte[] needle, final int needleLen) {
+    final ByteVector first = ByteVector.broadcast(SPECIES, needle[0]);
+    final ByteVector last = ByteVector.broadcast(SPECIES, needle[needleLen - 1]);
+    final int lastOff = needleLen - 1;
+
+    int candidates = haystackLen - needleLen + 1;
+    for (; candidates >= VECTOR_LENGTH; candidates -= VECTOR_LENGTH) {
+      final int off = haystackOff + candidates - VECTOR_LENGTH;
+      final VectorMask<Byte> eqFirst = ByteVector.fromArray(SPECIES, haystack, off).compare(VectorOperators.EQ, first);
+      final VectorMask<Byte> eqLast = ByteVector.fromArray(SPECIES, haystack, off + lastOff).compare(VectorOperators.EQ, last);
+      long bits = eqFirst.and(eqLast).toLong();
+      while (bits != 0) {
+        final int highBit = 63 - Long.numberOfLeadingZeros(bits);
+        final int candidateOff = off + highBit;
+        if (Arrays.equals(haystack, candidateOff + 1, candidateOff + lastOff, needle, 1, lastOff)) {
+          return candidateOff;
+        }
+        bits &= ~(1L << highBit);
+      }
+    }
+    for (int i = candidates - 1; i >= 0; --i) {
+      final int off = haystackOff + i;
+      if (Arrays.equals(haystack, off, off + needleLen, needle, 0, needleLen)) {
+        return off;
+      }
+    }
+    return -1;
+  }
+
+  // ================================================================================
+  //  Bytes Prefix related
+  // ================================================================================
+  @Override
+  public int prefix(final byte[] a, final int aOff, final byte[] b, final int bOff, final int len) {
+    final int bound = SPECIES.loopBound(len);
+    int i = 0;
+    for (; i < bound; i += VECTOR_LENGTH) {
+      final ByteVector va = ByteVector.fromArray(SPECIES, a, aOff + i);
+      final ByteVector vb = ByteVector.fromArray(SPECIES, b, bOff + i);
+      final VectorMask<Byte> mismatch = va.compare(VectorOperators.NE, vb);
+      if (mismatch.anyTrue()) {
+        return i + mismatch.firstTrue();
+      }
+    }
+    for (; i < len; ++i) {
+      if (a[aOff + i] != b[bOff + i]) {
+        return i;
+      }
+    }
+    return len;
+  }
+}
@@ -92,6 +92,17 @@ public class ByteArrayReader extends BytesInputStream {
     return available() > 0 ? (buffer[rpos++] & 0xff) : -1;
   }
 
+  @Override
+  public int read(final byte[] buf, final int off, final int len) {
+    final int avail = available();
+    if (avail <= 0) return (len == 0) ? 0 : -1;
+
+    final int n = Math.min(avail, len);
+    System.arraycopy(buffer, rpos, buf, off, n);
+    rpos += n;
+    return n;
+  }
+
   @Override
   public byte[] readNBytes(final int len) {
     // TODO: check if available
@@ -19,11 +19,52 @@ package io.github.matteobertozzi.rednaco.bytes;
 
 import java.util.Arrays;
 
+import io.github.matteobertozzi.rednaco.strings.StringConverter;
+
 public final class BytesSearch {
+  /**
+   * The jdk.incubator.vector implementation is used when the module is available
+   * (java --add-modules jdk.incubator.vector ...) and not disabled with -Drednaco.bytes.search.vectorized=false
+   */
+  private static final VectorizedSearch VECTORIZED_SEARCH = loadVectorizedSearch();
+  private static final boolean VECTORIZED = VECTORIZED_SEARCH != null;
+
+  /**
+   * Implemented by VectorizedBytesSearch, which is compiled separately with the incubator module.
+   * It is loaded by name, so this class has no compile time reference to jdk.incubator.vector.
+   */
+  interface VectorizedSearch {
+    int indexOf(byte[] haystack, int haystackOff, int haystackLen, byte needle);
+    int lastIndexOf(byte[] haystack, int haystackOff, int haystackLen, byte needle);
+    int indexOf(byte[] haystack, int haystackOff, int haystackLen, byte[] needle, int needleLen);
+    int lastIndexOf(byte[] haystack, int haystackOff, int haystackLen, byte[] needle, int needleLen);
+    int prefix(byte[] a, int aOff, byte[] b, int bOff, int len);
+  }
+
   private BytesSearch() {
     // no-op
   }
 
+  private static VectorizedSearch loadVectorizedSearch() {
+    if (!StringConverter.toBoolean(System.getProperty("rednaco.bytes.search.vectorized"), true)) {
+      return null;
+    }
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return null;
+    }
+    try {
+      final Class<?> searchClass = Class.forName(BytesSearch.class.getPackageName() + ".VectorizedBytesSearch");
+      return (VectorizedSearch) searchClass.getDeclaredConstructor().newInstance();
+    } catch (final ReflectiveOperationException | LinkageError e) {
+      // built without the vector source root
+      return null;
+    }
+  }
+
+  public static boolean isVectorized() {
+    return VECTORIZED;
+  }
+
   // ================================================================================
   //  Bytes find single byte util
   // ================================================================================
@@ -36,6 +77,8 @@ public final class BytesSearch {
   }
 
   public static int indexOf(final byte[] haystack, final int haystackOff, final int haystackLen, final byte needle) {
+    if (VECTORIZED) return VECTORIZED_SEARCH.indexOf(haystack, haystackOff, haystackLen, needle);
+
     for (int i = 0; i < haystackLen; ++i) {
       if (haystack[haystackOff + i] == needle) {
         return haystackOff + i;
@@ -53,6 +96,8 @@ public final class BytesSearch {
   }
 
   public static int lastIndexOf(final byte[] haystack, final int haystackOff, final int haystackLen, final byte needle) {
+    if (VECTORIZED) return VECTORIZED_SEARCH.lastIndexOf(haystack, haystackOff, haystackLen, needle);
+
     for (int i = haystackLen - 1; i >= 0; --i) {
       if (haystack[haystackOff + i] == needle) {
         return haystackOff + i;
@@ -80,6 +125,7 @@ public final class BytesSearch {
       final byte[] needle, final int needleLen) {
     if (needleLen > haystackLen || needleLen == 0 || haystackLen == 0) return -1;
     if (needleLen == 1) return indexOf(haystack, haystackOff, haystackLen, needle[0]);
+    if (VECTORIZED) return VECTORIZED_SEARCH.indexOf(haystack, haystackOff, haystackLen, needle, needleLen);
 
     final int len = haystackLen - needleLen;
     for (int i = 0; i <= len; ++i) {
@@ -107,6 +153,7 @@ public final class BytesSearch {
       final byte[] needle, final int needleLen) {
     if (needleLen > haystackLen || needleLen == 0 || haystackLen == 0) return -1;
     if (needleLen == 1) return lastIndexOf(haystack, haystackOff, haystackLen, needle[0]);
+    if (VECTORIZED) return VECTORIZED_SEARCH.lastIndexOf(haystack, haystackOff, haystackLen, needle, needleLen);
 
     final int len = haystackLen - needleLen;
     for (int i = len; i >= 0; --i) {
@@ -128,6 +175,8 @@ public final class BytesSearch {
   public static int prefix(final byte[] a, final int aOff, final int aLen,
       final byte[] b, final int bOff, final int bLen) {
     final int len = Math.min(aLen, bLen);
+    if (VECTORIZED) return VECTORIZED_SEARCH.prefix(a, aOff, b, bOff, len);
+
     for (int i = 0; i < len; ++i) {
       if (a[aOff + i] != b[bOff + i]) {
         return i;
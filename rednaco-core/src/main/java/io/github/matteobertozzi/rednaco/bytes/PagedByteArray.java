@@ -60,6 +60,28 @@ public class PagedByteArray implements ByteArrayAppender {
     return pageItems > 0 || pageCount > 1;
   }
 
+  // ================================================================================
+  //  PUBLIC pages related methods
+  // ================================================================================
+  public int pageSize() {
+    return pageSize;
+  }
+
+  public int pageCount() {
+    return pageCount;
+  }
+
+  /**
+   * @return the page buffer (not a copy), only the first pageLength(pageIndex) bytes are valid
+   */
+  public byte[] page(final int pageIndex) {
+    return (pageIndex == pageCount - 1) ? lastPage : pages[pageIndex];
+  }
+
+  public int pageLength(final int pageIndex) {
+    return (pageIndex == pageCount - 1) ? pageItems : pageSize;
+  }
+
   // ================================================================================
   //  PUBLIC toByteArray related methods
   // ================================================================================
@@ -188,9 +210,15 @@ public class PagedByteArray implements ByteArrayAppender {
     return pages[pageIndex][pageOffset] & 0xff;
   }
 
-  public void get(final int index, final byte[] buf, final int off, final int len) {
-    for (int i = 0; i < len; ++i) {
-      buf[off + i] = (byte) get(index + i);
+  public void get(int index, final byte[] buf, int off, int len) {
+    while (len > 0) {
+      final int pageOffset = index & (pageSize - 1);
+      final byte[] page = (pages == null) ? lastPage : pages[index / pageSize];
+      final int avail = Math.min(len, pageSize - pageOffset);
+      System.arraycopy(page, pageOffset, buf, off, avail);
+      index += avail;
+      off += avail;
+      len -= avail;
     }
   }
 
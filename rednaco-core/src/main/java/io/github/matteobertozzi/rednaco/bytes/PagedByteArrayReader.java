@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bytes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.github.matteobertozzi.rednaco.io.BytesInputStream;
+
+/**
+ * InputStream reading the PagedByteArray page by page, without concatenating the pages.
+ */
+public class PagedByteArrayReader extends BytesInputStream {
+  private final PagedByteArray buf;
+  private final int length;
+
+  private int rpos;
+
+  public PagedByteArrayReader(final PagedByteArray buffer) {
+    this.buf = buffer;
+    this.length = buffer.size();
+    this.rpos = 0;
+  }
+
+  @Override
+  public int available() {
+    return length - rpos;
+  }
+
+  @Override
+  public void reset() {
+    this.rpos = 0;
+  }
+
+  @Override
+  public void seekTo(final int offset) {
+    this.rpos = offset;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return length == 0;
+  }
+
+  @Override
+  public int length() {
+    return length;
+  }
+
+  public int readOffset() {
+    return rpos;
+  }
+
+  @Override
+  public long skip(final long n) {
+    final int skipLen = (int) Math.min(Math.max(n, 0), available());
+    rpos += skipLen;
+    return skipLen;
+  }
+
+  @Override
+  public int read() {
+    return available() > 0 ? buf.get(rpos++) : -1;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int off, final int len) {
+    final int avail = available();
+    if (avail <= 0) return (len == 0) ? 0 : -1;
+
+    final int n = Math.min(avail, len);
+    buf.get(rpos, buffer, off, n);
+    rpos += n;
+    return n;
+  }
+
+  @Override
+  public void copyTo(final int blockLen, final OutputStream stream) throws IOException {
+    final int n = Math.min(blockLen, available());
+    int written = 0;
+    while (written < n) {
+      final int pageIndex = (rpos + written) / buf.pageSize();
+      final int pageOffset = (rpos + written) & (buf.pageSize() - 1);
+      final int avail = Math.min(n - written, buf.pageLength(pageIndex) - pageOffset);
+      stream.write(buf.page(pageIndex), pageOffset, avail);
+      written += avail;
+    }
+    rpos += n;
+  }
+}
@@ -17,9 +17,65 @@
 
 package io.github.matteobertozzi.rednaco.bytes.encoding;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
 import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+import io.github.matteobertozzi.rednaco.collections.arrays.IntArray;
+import io.github.matteobertozzi.rednaco.collections.arrays.LongArray;
 
+/**
+ * Group VarInt encoding.
+ * <pre>
+ *  Int32: | 1byte head (4 x 2bit sizes) | 4 ints of 1-4 bytes |
+ *  Int64: | 3bytes head (8 x 3bit sizes) | 8 longs of 1-8 bytes |
+ * </pre>
+ * The last group of a sequence may contain less values, the decoder must know the number of values.
+ * The decoders are table-driven: the offset/size/mask of each value are looked up from the group head,
+ * and when there is enough room in the buffer the values are read with a single unaligned word read.
+ */
 public final class GroupVarInt {
+  public static final int MAX_GROUP32_LENGTH = 1 + (4 * 4);
+  public static final int MAX_GROUP64_LENGTH = 3 + (8 * 8);
+
+  private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  // Int32 group tables, indexed by (head << 2) + valueIndex
+  private static final byte[] GROUP32_LENGTH = new byte[256];
+  private static final byte[] GROUP32_OFFSETS = new byte[256 << 2];
+  private static final byte[] GROUP32_SIZES = new byte[256 << 2];
+  private static final int[] GROUP32_MASKS = new int[256 << 2];
+  private static final byte[] GROUP32_SHIFTS = new byte[256 << 2];
+  static {
+    for (int head = 0; head < 256; ++head) {
+      int offset = 0;
+      for (int i = 0; i < 4; ++i) {
+        final int index = (head << 2) + i;
+        final int size = 1 + ((head >>> (6 - (i << 1))) & 3);
+        GROUP32_OFFSETS[index] = (byte) offset;
+        GROUP32_SIZES[index] = (byte) size;
+        GROUP32_MASKS[index] = (size == 4) ? 0xffffffff : ((1 << (size << 3)) - 1);
+        GROUP32_SHIFTS[index] = (byte) ((4 - size) << 3);
+        offset += size;
+      }
+      GROUP32_LENGTH[head] = (byte) offset;
+    }
+  }
+
+  // Int64 masks/shifts, indexed by value size
+  private static final long[] LONG_MASKS = new long[9];
+  static {
+    for (int size = 1; size < 8; ++size) {
+      LONG_MASKS[size] = (1L << (size << 3)) - 1;
+    }
+    LONG_MASKS[8] = -1L;
+  }
+
   private GroupVarInt() {
     // no-op
   }
@@ -27,17 +83,25 @@ public final class GroupVarInt {
   // ====================================================================================================
   //  Group VarInt Int32 (1byte 4sizes + 4 ints) Encode
   // ====================================================================================================
+  public static void encode32(final ByteArrayAppender stream, final IntEncoder encoder, final IntArray values) {
+    encode32(stream, encoder, values.rawBuffer(), 0, values.size());
+  }
+
   public static void encode32(final ByteArrayAppender stream, final IntEncoder encoder, final int[] values, int off, int len) {
-    while (len >= 4) {
-      encodeBlock32(stream, encoder, values[off], values[off + 1], values[off + 2], values[off + 3]);
-      len -= 4;
-      off += 4;
-    }
-    switch (len) {
-      case 3 -> encodeBlock32(stream, encoder, values[off], values[off + 1], values[off + 2]);
-      case 2 -> encodeBlock32(stream, encoder, values[off], values[off + 1]);
-      case 1 -> encode32(stream, encoder, values[off]);
+    // groups are encoded in a local buffer and flushed to the stream in batch
+    final byte[] buffer = new byte[MAX_GROUP32_LENGTH << 4];
+    int bufLen = 0;
+    while (len > 0) {
+      final int count = Math.min(4, len);
+      bufLen = writeGroup32(buffer, bufLen, encoder, values, off, count);
+      if ((bufLen + MAX_GROUP32_LENGTH) > buffer.length) {
+        stream.add(buffer, 0, bufLen);
+        bufLen = 0;
+      }
+      len -= count;
+      off += count;
     }
+    if (bufLen > 0) stream.add(buffer, 0, bufLen);
   }
 
   public static void encodeBlock32(final ByteArrayAppender stream, final IntEncoder encoder, final int[] values, final int off, final int len) {
@@ -99,52 +163,263 @@ public final class GroupVarInt {
     encoder.writeFixed(stream, d, dSize);
   }
 
+  private static int writeGroup32(final byte[] buf, final int bufOff, final IntEncoder encoder,
+      final int[] values, final int off, final int count) {
+    int head = 0;
+    int dataOff = bufOff + 1;
+    for (int i = 0; i < count; ++i) {
+      final int v = values[off + i];
+      final int size = IntUtil.size(v);
+      head |= (size - 1) << (6 - (i << 1));
+      encoder.writeFixed(buf, dataOff, v, size);
+      dataOff += size;
+    }
+    buf[bufOff] = (byte) head;
+    return dataOff;
+  }
+
   // ====================================================================================================
   //  Group VarInt Int32 (1byte 4sizes + 4 ints) Decode
   // ====================================================================================================
-  public static void decode32(final byte[] buf, int bufOff, final IntDecoder decoder, final int[] out, int outOff, final int outLen) {
+  /**
+   * @return the offset of the first byte after the decoded groups
+   */
+  public static int decode32(final byte[] buf, int bufOff, final IntDecoder decoder, final int[] out, int outOff, final int outLen) {
+    // fast path: full groups with enough room in the buffer for the unaligned reads
     int avail = outLen;
-    while (avail >= 4) {
-      final int head = buf[bufOff++] & 0xff;
-
-      final int aSize = 1 + ((head >>> 6) & 3);
-      final int bSize = 1 + ((head >>> 4) & 3);
-      final int cSize = 1 + ((head >>> 2) & 3);
-      final int dSize = 1 + (head & 3);
-      out[outOff++] = (int) decoder.readFixed(buf, bufOff, aSize); bufOff += aSize;
-      out[outOff++] = (int) decoder.readFixed(buf, bufOff, bSize); bufOff += bSize;
-      out[outOff++] = (int) decoder.readFixed(buf, bufOff, cSize); bufOff += cSize;
-      out[outOff++] = (int) decoder.readFixed(buf, bufOff, dSize); bufOff += dSize;
-      avail -= 4;
-    }
-
-    if (avail != 0) {
-      final int head = buf[bufOff++] & 0xff;
-      switch (avail) {
-        case 3 -> {
-          final int aSize = 1 + ((head >>> 6) & 3);
-          final int bSize = 1 + ((head >>> 4) & 3);
-          final int cSize = 1 + ((head >>> 2) & 3);
-          out[outOff++] = (int) decoder.readFixed(buf, bufOff, aSize); bufOff += aSize;
-          out[outOff++] = (int) decoder.readFixed(buf, bufOff, bSize); bufOff += bSize;
-          out[outOff] = (int) decoder.readFixed(buf, bufOff, cSize);
-        }
-        case 2 -> {
-          final int aSize = 1 + ((head >>> 6) & 3);
-          final int bSize = 1 + ((head >>> 4) & 3);
-          out[outOff++] = (int) decoder.readFixed(buf, bufOff, aSize); bufOff += aSize;
-          out[outOff] = (int) decoder.readFixed(buf, bufOff, bSize);
-        }
-        case 1 -> {
-          final int aSize = 1 + ((head >>> 6) & 3);
-          out[outOff] = (int) decoder.readFixed(buf, bufOff, aSize);
-        }
+    final int fastLimit = buf.length - MAX_GROUP32_LENGTH;
+    if (decoder == IntDecoder.LITTLE_ENDIAN) {
+      while (avail >= 4 && bufOff <= fastLimit) {
+        final int head = buf[bufOff] & 0xff;
+        final int dataOff = bufOff + 1;
+        final int t = head << 2;
+        out[outOff] = (int) INT_LE.get(buf, dataOff) & GROUP32_MASKS[t];
+        out[outOff + 1] = (int) INT_LE.get(buf, dataOff + GROUP32_OFFSETS[t + 1]) & GROUP32_MASKS[t + 1];
+        out[outOff + 2] = (int) INT_LE.get(buf, dataOff + GROUP32_OFFSETS[t + 2]) & GROUP32_MASKS[t + 2];
+        out[outOff + 3] = (int) INT_LE.get(buf, dataOff + GROUP32_OFFSETS[t + 3]) & GROUP32_MASKS[t + 3];
+        bufOff = dataOff + GROUP32_LENGTH[head];
+        outOff += 4;
+        avail -= 4;
+      }
+    } else if (decoder == IntDecoder.BIG_ENDIAN) {
+      while (avail >= 4 && bufOff <= fastLimit) {
+        final int head = buf[bufOff] & 0xff;
+        final int dataOff = bufOff + 1;
+        final int t = head << 2;
+        out[outOff] = (int) INT_BE.get(buf, dataOff) >>> GROUP32_SHIFTS[t];
+        out[outOff + 1] = (int) INT_BE.get(buf, dataOff + GROUP32_OFFSETS[t + 1]) >>> GROUP32_SHIFTS[t + 1];
+        out[outOff + 2] = (int) INT_BE.get(buf, dataOff + GROUP32_OFFSETS[t + 2]) >>> GROUP32_SHIFTS[t + 2];
+        out[outOff + 3] = (int) INT_BE.get(buf, dataOff + GROUP32_OFFSETS[t + 3]) >>> GROUP32_SHIFTS[t + 3];
+        bufOff = dataOff + GROUP32_LENGTH[head];
+        outOff += 4;
+        avail -= 4;
+      }
+    }
+
+    // end of buffer, partial group or custom decoder
+    while (avail > 0) {
+      final int count = Math.min(4, avail);
+      bufOff = decodeGroup32(buf, bufOff, decoder, out, outOff, count);
+      outOff += count;
+      avail -= count;
+    }
+    return bufOff;
+  }
+
+  /**
+   * Decode {@code count} values appending them to the {@code out} array.
+   * @return the offset of the first byte after the decoded groups
+   */
+  public static int decode32(final byte[] buf, int bufOff, final IntDecoder decoder, final IntArray out, final int count) {
+    final int[] block = new int[256];
+    int avail = count;
+    while (avail > 0) {
+      final int blockLen = Math.min(block.length, avail);
+      bufOff = decode32(buf, bufOff, decoder, block, 0, blockLen);
+      out.add(block, 0, blockLen);
+      avail -= blockLen;
+    }
+    return bufOff;
+  }
+
+  /**
+   * @return the offset of the first byte after the decoded groups
+   */
+  public static int decode32(final PagedByteArray buf, int bufOff, final IntDecoder decoder, final int[] out, int outOff, final int outLen) {
+    final byte[] group = new byte[MAX_GROUP32_LENGTH];
+    int avail = outLen;
+    while (avail > 0) {
+      final int count = Math.min(4, avail);
+      final int groupLen = group32Length(buf.get(bufOff), count);
+      buf.get(bufOff, group, 0, groupLen);
+      decode32(group, 0, decoder, out, outOff, count);
+      bufOff += groupLen;
+      outOff += count;
+      avail -= count;
+    }
+    return bufOff;
+  }
+
+  private static int group32Length(final int head, final int count) {
+    final int index = (head << 2) + (count - 1);
+    return 1 + GROUP32_OFFSETS[index] + GROUP32_SIZES[index];
+  }
+
+  private static int decodeGroup32(final byte[] buf, final int bufOff, final IntDecoder decoder,
+      final int[] out, final int outOff, final int count) {
+    final int t = (buf[bufOff] & 0xff) << 2;
+    final int dataOff = bufOff + 1;
+    for (int i = 0; i < count; ++i) {
+      out[outOff + i] = (int) decoder.readFixed(buf, dataOff + GROUP32_OFFSETS[t + i], GROUP32_SIZES[t + i]);
+    }
+    return dataOff + GROUP32_OFFSETS[t + count - 1] + GROUP32_SIZES[t + count - 1];
+  }
+
+  // ====================================================================================================
+  //  Group VarInt Int64 (3bytes 8 sizes + 8 longs) Encode
+  // ====================================================================================================
+  public static void encode64(final ByteArrayAppender stream, final IntEncoder encoder, final LongArray values) {
+    encode64(stream, encoder, values.rawBuffer(), 0, values.size());
+  }
+
+  public static void encode64(final ByteArrayAppender stream, final IntEncoder encoder, final long[] values, int off, int len) {
+    final byte[] buffer = new byte[MAX_GROUP64_LENGTH << 3];
+    int bufLen = 0;
+    while (len > 0) {
+      final int count = Math.min(8, len);
+      bufLen = writeGroup64(buffer, bufLen, encoder, values, off, count);
+      if ((bufLen + MAX_GROUP64_LENGTH) > buffer.length) {
+        stream.add(buffer, 0, bufLen);
+        bufLen = 0;
       }
+      len -= count;
+      off += count;
     }
+    if (bufLen > 0) stream.add(buffer, 0, bufLen);
+  }
+
+  public static void encodeBlock64(final ByteArrayAppender stream, final IntEncoder encoder, final long[] values, final int off, final int len) {
+    if (len < 0 || len > 8) throw new IllegalArgumentException("expected 0-8 values, got " + len);
+    if (len == 0) return;
+
+    final byte[] buffer = new byte[MAX_GROUP64_LENGTH];
+    stream.add(buffer, 0, writeGroup64(buffer, 0, encoder, values, off, len));
+  }
+
+  private static int writeGroup64(final byte[] buf, final int bufOff, final IntEncoder encoder,
+      final long[] values, final int off, final int count) {
+    //     21  18  15  12   9   6   3   0
+    // | 111 111 111 111 111 111 111 111 |
+    int head = 0;
+    int dataOff = bufOff + 3;
+    for (int i = 0; i < count; ++i) {
+      final long v = values[off + i];
+      final int size = IntUtil.size(v);
+      head |= (size - 1) << (21 - (i * 3));
+      encoder.writeFixed(buf, dataOff, v, size);
+      dataOff += size;
+    }
+    buf[bufOff] = (byte) (head >>> 16);
+    buf[bufOff + 1] = (byte) (head >>> 8);
+    buf[bufOff + 2] = (byte) head;
+    return dataOff;
   }
 
   // ====================================================================================================
-  //  Group VarInt Int64 (3bytes 8 sizes + 8 ints)
+  //  Group VarInt Int64 (3bytes 8 sizes + 8 longs) Decode
   // ====================================================================================================
-  // TODO
+  /**
+   * @return the offset of the first byte after the decoded groups
+   */
+  public static int decode64(final byte[] buf, int bufOff, final IntDecoder decoder, final long[] out, int outOff, final int outLen) {
+    // fast path: full groups with enough room in the buffer for the unaligned reads
+    int avail = outLen;
+    final int fastLimit = buf.length - MAX_GROUP64_LENGTH;
+    if (decoder == IntDecoder.LITTLE_ENDIAN) {
+      while (avail >= 8 && bufOff <= fastLimit) {
+        final int head = ((buf[bufOff] & 0xff) << 16) | ((buf[bufOff + 1] & 0xff) << 8) | (buf[bufOff + 2] & 0xff);
+        int dataOff = bufOff + 3;
+        for (int i = 0; i < 8; ++i) {
+          final int size = 1 + ((head >>> (21 - (i * 3))) & 7);
+          out[outOff + i] = (long) LONG_LE.get(buf, dataOff) & LONG_MASKS[size];
+          dataOff += size;
+        }
+        bufOff = dataOff;
+        outOff += 8;
+        avail -= 8;
+      }
+    } else if (decoder == IntDecoder.BIG_ENDIAN) {
+      while (avail >= 8 && bufOff <= fastLimit) {
+        final int head = ((buf[bufOff] & 0xff) << 16) | ((buf[bufOff + 1] & 0xff) << 8) | (buf[bufOff + 2] & 0xff);
+        int dataOff = bufOff + 3;
+        for (int i = 0; i < 8; ++i) {
+          final int size = 1 + ((head >>> (21 - (i * 3))) & 7);
+          out[outOff + i] = (long) LONG_BE.get(buf, dataOff) >>> ((8 - size) << 3);
+          dataOff += size;
+        }
+        bufOff = dataOff;
+        outOff += 8;
+        avail -= 8;
+      }
+    }
+
+    // end of buffer, partial group or custom decoder
+    while (avail > 0) {
+      final int count = Math.min(8, avail);
+      bufOff = decodeGroup64(buf, bufOff, decoder, out, outOff, count);
+      outOff += count;
+      avail -= count;
+    }
+    return bufOff;
+  }
+
+  /**
+   * Decode {@code count} values appending them to the {@code out} array.
+   * @return the offset of the first byte after the decoded groups
+   */
+  public static int decode64(final byte[] buf, int bufOff, final IntDecoder decoder, final LongArray out, final int count) {
+    final long[] block = new long[256];
+    int avail = count;
+    while (avail > 0) {
+      final int blockLen = Math.min(block.length, avail);
+      bufOff = decode64(buf, bufOff, decoder, block, 0, blockLen);
+      out.add(block, 0, blockLen);
+      avail -= blockLen;
+    }
+    return bufOff;
+  }
+
+  /**
+   * @return the offset of the first byte after the decoded groups
+   */
+  public static int decode64(final PagedByteArray buf, int bufOff, final IntDecoder decoder, final long[] out, int outOff, final int outLen) {
+    final byte[] group = new byte[MAX_GROUP64_LENGTH];
+    int avail = outLen;
+    while (avail > 0) {
+      final int count = Math.min(8, avail);
+      final int head = (buf.get(bufOff) << 16) | (buf.get(bufOff + 1) << 8) | buf.get(bufOff + 2);
+      int groupLen = 3;
+      for (int i = 0; i < count; ++i) {
+        groupLen += 1 + ((head >>> (21 - (i * 3))) & 7);
+      }
+      buf.get(bufOff, group, 0, groupLen);
+      decode64(group, 0, decoder, out, outOff, count);
+      bufOff += groupLen;
+      outOff += count;
+      avail -= count;
+    }
+    return bufOff;
+  }
+
+  private static int decodeGroup64(final byte[] buf, final int bufOff, final IntDecoder decoder,
+      final long[] out, final int outOff, final int count) {
+    final int head = ((buf[bufOff] & 0xff) << 16) | ((buf[bufOff + 1] & 0xff) << 8) | (buf[bufOff + 2] & 0xff);
+    int dataOff = bufOff + 3;
+    for (int i = 0; i < count; ++i) {
+      final int size = 1 + ((head >>> (21 - (i * 3))) & 7);
+      out[outOff + i] = decoder.readFixed(buf, dataOff, size);
+      dataOff += size;
+    }
+    return dataOff;
+  }
 }
@@ -20,6 +20,7 @@ package io.github.matteobertozzi.rednaco.bytes.encoding;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -171,18 +172,38 @@ public final class RowKey {
       return ByteArraySlice.EMPTY_SLICE;
     }
 
-    final ByteArray key = new ByteArray(len - 1);
-    for (int i = 0; i < len; ++i) {
-      final int index = off + i;
-      key.add(buf[index]);
-      if (buf[index] == 0) {
-        if (buf[index + 1] != 1) {
-          throw new IllegalArgumentException("expected 0x01 after 0x00 got [" + (i + 1) + "] = " + Integer.toHexString(buf[off + i + 1]));
-        }
-        ++i;
+    final byte[] key = new byte[len - 1];
+    return new ByteArraySlice(key, 0, unescape(buf, off, len, key, 0));
+  }
+
+  /**
+   * Replace the escaped 0x0001 with 0x00.
+   * The runs between the zeros are copied in bulk, and the zeros are found with the (vectorized) BytesSearch.
+   * @return the number of bytes written to dst
+   */
+  static int unescape(final byte[] buf, final int off, final int len, final byte[] dst, final int dstOff) {
+    final int end = off + len;
+    int dstIndex = dstOff;
+    int start = off;
+    while (start < end) {
+      final int zero = BytesSearch.indexOf(buf, start, end - start, (byte) 0);
+      if (zero < 0) {
+        System.arraycopy(buf, start, dst, dstIndex, end - start);
+        dstIndex += end - start;
+        break;
+      }
+
+      if ((zero + 1) >= end || buf[zero + 1] != 1) {
+        final int next = (zero + 1) < end ? buf[zero + 1] : -1;
+        throw new IllegalArgumentException("expected 0x01 after 0x00 got [" + (zero + 1 - off) + "] = " + Integer.toHexString(next));
       }
+
+      final int runLen = zero + 1 - start;
+      System.arraycopy(buf, start, dst, dstIndex, runLen);
+      dstIndex += runLen;
+      start = zero + 2;
     }
-    return key.slice();
+    return dstIndex - dstOff;
   }
 
   public static ByteArraySlice keyWithoutLastComponent(final byte[] key) {
@@ -211,6 +232,47 @@ public final class RowKey {
     return BytesSearch.indexOf(key, offset, ZERO) + ZERO.length;
   }
 
+  // ================================================================================
+  //  Compare Key helpers
+  // ================================================================================
+  /**
+   * Compare two encoded keys without decoding them.
+   * The escaping (0x00 to 0x0001) and the separator (0x0000) preserve the order of the parts,
+   * so the unsigned lexicographic order of the encoded keys is the order of the decoded parts.
+   */
+  public static final Comparator<byte[]> COMPARATOR = RowKey::compare;
+
+  public static int compare(final byte[] a, final byte[] b) {
+    return Arrays.compareUnsigned(a, b);
+  }
+
+  public static int compare(final byte[] a, final int aOff, final int aLen, final byte[] b, final int bOff, final int bLen) {
+    return Arrays.compareUnsigned(a, aOff, aOff + aLen, b, bOff, bOff + bLen);
+  }
+
+  /**
+   * Compare only the first N parts of the two encoded keys.
+   * e.g. with parts=2 (a, b, c) and (a, b, d) are equal.
+   */
+  public static int compareParts(final byte[] a, final byte[] b, final int parts) {
+    return compare(a, 0, partsLength(a, 0, a.length, parts), b, 0, partsLength(b, 0, b.length, parts));
+  }
+
+  /**
+   * @return the length of the encoded first N parts, without the trailing separator
+   */
+  public static int partsLength(final byte[] key, final int off, final int len, final int parts) {
+    final int end = off + len;
+    int offset = off;
+    for (int i = 0; i < parts && offset < end; ++i) {
+      final int separator = BytesSearch.indexOf(key, offset, end - offset, ZERO);
+      if (separator < 0) return len;
+      if (i == (parts - 1)) return separator - off;
+      offset = separator + ZERO.length;
+    }
+    return Math.min(len, offset - off);
+  }
+
   // ================================================================================
   //  Key Builder related
   // ================================================================================
@@ -309,13 +371,19 @@ public final class RowKey {
     public RowKeyBuilder add(final byte[] buf, final int off, final int len) {
       if (components++ > 0) key.add(ZERO);
 
-      for (int i = 0; i < len; ++i) {
-        final byte currentByte = buf[off + i];
-        key.add(currentByte);
-        if (currentByte == 0x00) {
-          // replace 0x00 with 0x0001, 0x0000 is our key separator
-          key.add(0x01);
+      // replace 0x00 with 0x0001, 0x0000 is our key separator.
+      // the runs between the zeros are copied in bulk
+      final int end = off + len;
+      int start = off;
+      while (start < end) {
+        final int zero = BytesSearch.indexOf(buf, start, end - start, (byte) 0);
+        if (zero < 0) {
+          key.add(buf, start, end - start);
+          break;
         }
+        key.add(buf, start, zero + 1 - start);
+        key.add(0x01);
+        start = zero + 1;
       }
       return this;
     }
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.bytes.encoding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
+import io.github.matteobertozzi.rednaco.bytes.BytesSearch;
+import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
+import io.github.matteobertozzi.rednaco.collections.LongValue;
+
+/**
+ * Cursor over the parts of an encoded RowKey.
+ * Unlike RowKey, the parts are not indexed upfront and no slice is allocated per part:
+ * the reader walks the key in place, and the escaped parts are decoded in a reusable buffer.
+ * The reader can be reset() and reused for every key of a scan.
+ * <pre>
+ *   final RowKeyReader reader = new RowKeyReader();
+ *   for (final byte[] key: keys) {
+ *     reader.reset(key);
+ *     while (reader.next()) {
+ *       ... reader.getInt32() ...
+ *     }
+ *   }
+ * </pre>
+ */
+public final class RowKeyReader {
+  private static final byte[] ZERO = new byte[] { 0, 0 };
+
+  private final LongValue varIntValue = new LongValue();
+  private byte[] decodeBuffer = new byte[32];
+
+  private byte[] key;
+  private int keyEnd;
+  private int nextOffset;
+  private int partIndex;
+
+  // encoded part
+  private int encodedOffset;
+  private int encodedLength;
+
+  // decoded part (the key itself, or the decodeBuffer when the part contains escaped zeros)
+  private byte[] partBuffer;
+  private int partOffset;
+  private int partLength;
+  private boolean decoded;
+
+  public RowKeyReader() {
+    reset(BytesUtil.EMPTY_BYTES, 0, 0);
+  }
+
+  public RowKeyReader(final byte[] key) {
+    reset(key, 0, key.length);
+  }
+
+  public RowKeyReader reset(final byte[] key) {
+    return reset(key, 0, key.length);
+  }
+
+  public RowKeyReader reset(final ByteArraySlice key) {
+    return reset(key.rawBuffer(), key.offset(), key.length());
+  }
+
+  public RowKeyReader reset(final byte[] key, final int off, final int len) {
+    this.key = key;
+    this.keyEnd = off + len;
+    this.nextOffset = off;
+    this.partIndex = -1;
+    this.encodedOffset = off;
+    this.encodedLength = 0;
+    this.decoded = false;
+    return this;
+  }
+
+  // ================================================================================
+  //  Cursor related
+  // ================================================================================
+  public boolean hasNext() {
+    return nextOffset < keyEnd;
+  }
+
+  /**
+   * Move to the next part of the key.
+   * @return false if there are no more parts
+   */
+  public boolean next() {
+    if (nextOffset >= keyEnd) return false;
+
+    final int separator = BytesSearch.indexOf(key, nextOffset, keyEnd - nextOffset, ZERO);
+    encodedOffset = nextOffset;
+    if (separator < 0) {
+      encodedLength = keyEnd - nextOffset;
+      nextOffset = keyEnd;
+    } else {
+      encodedLength = separator - nextOffset;
+      nextOffset = separator + ZERO.length;
+    }
+    partIndex++;
+    decoded = false;
+    return true;
+  }
+
+  /**
+   * Skip the next N parts of the key.
+   * @return false if there are less than N parts
+   */
+  public boolean skip(final int parts) {
+    for (int i = 0; i < parts; ++i) {
+      if (!next()) return false;
+    }
+    return true;
+  }
+
+  public int partIndex() {
+    return partIndex;
+  }
+
+  // ================================================================================
+  //  Current part, encoded form
+  // ================================================================================
+  public int encodedOffset() {
+    return encodedOffset;
+  }
+
+  public int encodedLength() {
+    return encodedLength;
+  }
+
+  /**
+   * Compare the current part with the encoded part of another key, without decoding them.
+   */
+  public int compareEncoded(final byte[] other, final int off, final int len) {
+    return Arrays.compareUnsigned(key, encodedOffset, encodedOffset + encodedLength, other, off, off + len);
+  }
+
+  // ================================================================================
+  //  Current part, decoded form
+  //  NOTE: the buffer is reused, the data is valid only until the next call to next() or reset()
+  // ================================================================================
+  public byte[] partBuffer() {
+    decodePart();
+    return partBuffer;
+  }
+
+  public int partOffset() {
+    decodePart();
+    return partOffset;
+  }
+
+  public int partLength() {
+    decodePart();
+    return partLength;
+  }
+
+  public ByteArraySlice slice() {
+    decodePart();
+    return new ByteArraySlice(partBuffer, partOffset, partLength);
+  }
+
+  public int copyPart(final byte[] dst, final int dstOff) {
+    decodePart();
+    System.arraycopy(partBuffer, partOffset, dst, dstOff, partLength);
+    return partLength;
+  }
+
+  public boolean partEquals(final byte[] value, final int off, final int len) {
+    decodePart();
+    return Arrays.equals(partBuffer, partOffset, partOffset + partLength, value, off, off + len);
+  }
+
+  public int comparePart(final byte[] value, final int off, final int len) {
+    decodePart();
+    return Arrays.compareUnsigned(partBuffer, partOffset, partOffset + partLength, value, off, off + len);
+  }
+
+  public boolean getBool() {
+    return getInt8() != 0;
+  }
+
+  public int getInt8() {
+    decodePart();
+    return partBuffer[partOffset] & 0xff;
+  }
+
+  public int getInt16() {
+    return getInt(2);
+  }
+
+  public int getInt24() {
+    return getInt(3);
+  }
+
+  public int getInt32() {
+    return getInt(4);
+  }
+
+  public long getInt40() {
+    return getLong(5);
+  }
+
+  public long getInt48() {
+    return getLong(6);
+  }
+
+  public long getInt56() {
+    return getLong(7);
+  }
+
+  public long getInt64() {
+    return getLong(8);
+  }
+
+  public int getInt(final int bytesWidth) {
+    return Math.toIntExact(getLong(bytesWidth));
+  }
+
+  public long getLong(final int bytesWidth) {
+    decodePart();
+    return IntDecoder.BIG_ENDIAN.readFixed(partBuffer, partOffset, bytesWidth);
+  }
+
+  public long getVarInt() {
+    decodePart();
+    VarInt.read(partBuffer, partOffset, partLength, varIntValue);
+    return varIntValue.get();
+  }
+
+  public String getString() {
+    decodePart();
+    return new String(partBuffer, partOffset, partLength, StandardCharsets.UTF_8);
+  }
+
+  private void decodePart() {
+    if (decoded) return;
+
+    if (partIndex < 0) {
+      throw new IllegalStateException("expected a call to next() before reading the part");
+    }
+
+    if (BytesSearch.indexOf(key, encodedOffset, encodedLength, (byte) 0) < 0) {
+      partBuffer = key;
+      partOffset = encodedOffset;
+      partLength = encodedLength;
+    } else {
+      if (decodeBuffer.length < encodedLength) {
+        decodeBuffer = new byte[encodedLength];
+      }
+      partBuffer = decodeBuffer;
+      partOffset = 0;
+      partLength = RowKey.unescape(key, encodedOffset, encodedLength, decodeBuffer, 0);
+    }
+    decoded = true;
+  }
+}
@@ -17,7 +17,16 @@
 
 package io.github.matteobertozzi.rednaco.collections.arrays;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public final class ArraySortUtil {
+  private static final int RADIX_SORT_MIN_LENGTH = 256;
+  private static final int MERGE_SORT_INSERTION_LENGTH = 32;
+  private static final int PARALLEL_SORT_MIN_LENGTH = 1 << 16;
+  private static final int PARALLEL_SORT_CHUNK_LENGTH = 1 << 15;
+
   private ArraySortUtil() {
     // no-op
   }
@@ -130,4 +139,389 @@ public final class ArraySortUtil {
       }
     }
   }
+
+  // ================================================================================
+  //  Radix Sort related
+  // ================================================================================
+  /**
+   * LSD radix sort, 8bit per pass. the passes where all the keys have the same digit are skipped.
+   * (e.g. small positive values will only do one or two passes)
+   */
+  public static void radixSort(final int[] buf, final int off, final int len) {
+    if (len < RADIX_SORT_MIN_LENGTH) {
+      Arrays.sort(buf, off, off + len);
+      return;
+    }
+    radixSort(buf, off, len, new int[len], 0);
+  }
+
+  public static void radixSort(final long[] buf, final int off, final int len) {
+    if (len < RADIX_SORT_MIN_LENGTH) {
+      Arrays.sort(buf, off, off + len);
+      return;
+    }
+    radixSort(buf, off, len, new long[len], 0);
+  }
+
+  /**
+   * Stable LSD radix sort of the (key, index) pairs.
+   * the index array is reordered with the keys, so it can be used to sort correlated arrays.
+   */
+  public static void radixSort(final int[] keys, final int[] index, final int off, final int len) {
+    if (len < 2) return;
+
+    final int[] tmpKeys = new int[len];
+    final int[] tmpIndex = new int[len];
+    final int[] counts = new int[4 << 8];
+    for (int i = 0; i < len; ++i) {
+      final int v = keys[off + i] ^ Integer.MIN_VALUE;
+      counts[v & 0xff]++;
+      counts[0x100 | ((v >>> 8) & 0xff)]++;
+      counts[0x200 | ((v >>> 16) & 0xff)]++;
+      counts[0x300 | (v >>> 24)]++;
+    }
+
+    int[] srcKeys = keys, srcIndex = index, dstKeys = tmpKeys, dstIndex = tmpIndex;
+    int srcOff = off, dstOff = 0;
+    for (int shift = 0; shift < 32; shift += 8) {
+      final int base = (shift >>> 3) << 8;
+      if (isSingleDigitPass(counts, base, len, ((srcKeys[srcOff] ^ Integer.MIN_VALUE) >>> shift) & 0xff)) {
+        continue;
+      }
+
+      prefixSum(counts, base);
+      for (int i = 0; i < len; ++i) {
+        final int key = srcKeys[srcOff + i];
+        final int pos = dstOff + counts[base | (((key ^ Integer.MIN_VALUE) >>> shift) & 0xff)]++;
+        dstKeys[pos] = key;
+        dstIndex[pos] = srcIndex[srcOff + i];
+      }
+
+      final int[] swapKeys = srcKeys; srcKeys = dstKeys; dstKeys = swapKeys;
+      final int[] swapIndex = srcIndex; srcIndex = dstIndex; dstIndex = swapIndex;
+      final int swapOff = srcOff; srcOff = dstOff; dstOff = swapOff;
+    }
+
+    if (srcKeys != keys) {
+      System.arraycopy(srcKeys, srcOff, keys, off, len);
+      System.arraycopy(srcIndex, srcOff, index, off, len);
+    }
+  }
+
+  public static void radixSort(final long[] keys, final int[] index, final int off, final int len) {
+    if (len < 2) return;
+
+    final long[] tmpKeys = new long[len];
+    final int[] tmpIndex = new int[len];
+    final int[] counts = new int[8 << 8];
+    for (int i = 0; i < len; ++i) {
+      final long v = keys[off + i] ^ Long.MIN_VALUE;
+      for (int k = 0; k < 8; ++k) {
+        counts[(k << 8) | (int)((v >>> (k << 3)) & 0xff)]++;
+      }
+    }
+
+    long[] srcKeys = keys, dstKeys = tmpKeys;
+    int[] srcIndex = index, dstIndex = tmpIndex;
+    int srcOff = off, dstOff = 0;
+    for (int shift = 0; shift < 64; shift += 8) {
+      final int base = (shift >>> 3) << 8;
+      if (isSingleDigitPass(counts, base, len, (int)(((srcKeys[srcOff] ^ Long.MIN_VALUE) >>> shift) & 0xff))) {
+        continue;
+      }
+
+      prefixSum(counts, base);
+      for (int i = 0; i < len; ++i) {
+        final long key = srcKeys[srcOff + i];
+        final int pos = dstOff + counts[base | (int)(((key ^ Long.MIN_VALUE) >>> shift) & 0xff)]++;
+        dstKeys[pos] = key;
+        dstIndex[pos] = srcIndex[srcOff + i];
+      }
+
+      final long[] swapKeys = srcKeys; srcKeys = dstKeys; dstKeys = swapKeys;
+      final int[] swapIndex = srcIndex; srcIndex = dstIndex; dstIndex = swapIndex;
+      final int swapOff = srcOff; srcOff = dstOff; dstOff = swapOff;
+    }
+
+    if (srcKeys != keys) {
+      System.arraycopy(srcKeys, srcOff, keys, off, len);
+      System.arraycopy(srcIndex, srcOff, index, off, len);
+    }
+  }
+
+  private static void radixSort(final int[] buf, final int off, final int len, final int[] tmp, final int tmpOff) {
+    final int[] counts = new int[4 << 8];
+    for (int i = 0; i < len; ++i) {
+      final int v = buf[off + i] ^ Integer.MIN_VALUE;
+      counts[v & 0xff]++;
+      counts[0x100 | ((v >>> 8) & 0xff)]++;
+      counts[0x200 | ((v >>> 16) & 0xff)]++;
+      counts[0x300 | (v >>> 24)]++;
+    }
+
+    int[] src = buf, dst = tmp;
+    int srcOff = off, dstOff = tmpOff;
+    for (int shift = 0; shift < 32; shift += 8) {
+      final int base = (shift >>> 3) << 8;
+      if (isSingleDigitPass(counts, base, len, ((src[srcOff] ^ Integer.MIN_VALUE) >>> shift) & 0xff)) {
+        continue;
+      }
+
+      prefixSum(counts, base);
+      for (int i = 0; i < len; ++i) {
+        final int v = src[srcOff + i];
+        dst[dstOff + counts[base | (((v ^ Integer.MIN_VALUE) >>> shift) & 0xff)]++] = v;
+      }
+
+      final int[] swap = src; src = dst; dst = swap;
+      final int swapOff = srcOff; srcOff = dstOff; dstOff = swapOff;
+    }
+
+    if (src != buf) {
+      System.arraycopy(src, srcOff, buf, off, len);
+    }
+  }
+
+  private static void radixSort(final long[] buf, final int off, final int len, final long[] tmp, final int tmpOff) {
+    final int[] counts = new int[8 << 8];
+    for (int i = 0; i < len; ++i) {
+      final long v = buf[off + i] ^ Long.MIN_VALUE;
+      counts[(int)(v & 0xff)]++;
+      counts[0x100 | (int)((v >>> 8) & 0xff)]++;
+      counts[0x200 | (int)((v >>> 16) & 0xff)]++;
+      counts[0x300 | (int)((v >>> 24) & 0xff)]++;
+      counts[0x400 | (int)((v >>> 32) & 0xff)]++;
+      counts[0x500 | (int)((v >>> 40) & 0xff)]++;
+      counts[0x600 | (int)((v >>> 48) & 0xff)]++;
+      counts[0x700 | (int)(v >>> 56)]++;
+    }
+
+    long[] src = buf, dst = tmp;
+    int srcOff = off, dstOff = tmpOff;
+    for (int shift = 0; shift < 64; shift += 8) {
+      final int base = (shift >>> 3) << 8;
+      if (isSingleDigitPass(counts, base, len, (int)(((src[srcOff] ^ Long.MIN_VALUE) >>> shift) & 0xff))) {
+        continue;
+      }
+
+      prefixSum(counts, base);
+      for (int i = 0; i < len; ++i) {
+        final long v = src[srcOff + i];
+        dst[dstOff + counts[base | (int)(((v ^ Long.MIN_VALUE) >>> shift) & 0xff)]++] = v;
+      }
+
+      final long[] swap = src; src = dst; dst = swap;
+      final int swapOff = srcOff; srcOff = dstOff; dstOff = swapOff;
+    }
+
+    if (src != buf) {
+      System.arraycopy(src, srcOff, buf, off, len);
+    }
+  }
+
+  private static boolean isSingleDigitPass(final int[] counts, final int base, final int len, final int digit) {
+    return counts[base | digit] == len;
+  }
+
+  private static void prefixSum(final int[] counts, final int base) {
+    int sum = 0;
+    for (int i = 0; i < 256; ++i) {
+      final int count = counts[base | i];
+      counts[base | i] = sum;
+      sum += count;
+    }
+  }
+
+  // ================================================================================
+  //  Parallel Sort related
+  // ================================================================================
+  /**
+   * Fork-Join sort: the array is split in chunks sorted with the radix sort,
+   * and then merged back together. small arrays are sorted in the caller thread.
+   */
+  public static void parallelSort(final int[] buf, final int off, final int len) {
+    if (len < PARALLEL_SORT_MIN_LENGTH || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+      radixSort(buf, off, len);
+      return;
+    }
+    ForkJoinPool.commonPool().invoke(new IntParallelSortTask(buf, off, len, new int[len], 0));
+  }
+
+  public static void parallelSort(final long[] buf, final int off, final int len) {
+    if (len < PARALLEL_SORT_MIN_LENGTH || ForkJoinPool.getCommonPoolParallelism() <= 1) {
+      radixSort(buf, off, len);
+      return;
+    }
+    ForkJoinPool.commonPool().invoke(new LongParallelSortTask(buf, off, len, new long[len], 0));
+  }
+
+  private static final class IntParallelSortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int[] buf;
+    private final int[] tmp;
+    private final int off;
+    private final int len;
+    private final int tmpOff;
+
+    private IntParallelSortTask(final int[] buf, final int off, final int len, final int[] tmp, final int tmpOff) {
+      this.buf = buf;
+      this.off = off;
+      this.len = len;
+      this.tmp = tmp;
+      this.tmpOff = tmpOff;
+    }
+
+    @Override
+    protected void compute() {
+      if (len <= PARALLEL_SORT_CHUNK_LENGTH) {
+        radixSort(buf, off, len, tmp, tmpOff);
+        return;
+      }
+
+      final int half = len >>> 1;
+      invokeAll(new IntParallelSortTask(buf, off, half, tmp, tmpOff),
+        new IntParallelSortTask(buf, off + half, len - half, tmp, tmpOff + half));
+
+      // merge the two sorted halves into tmp, and copy them back
+      int a = off;
+      int b = off + half;
+      final int aEnd = off + half;
+      final int bEnd = off + len;
+      int k = tmpOff;
+      while (a < aEnd && b < bEnd) {
+        tmp[k++] = (buf[b] < buf[a]) ? buf[b++] : buf[a++];
+      }
+      while (a < aEnd) tmp[k++] = buf[a++];
+      while (b < bEnd) tmp[k++] = buf[b++];
+      System.arraycopy(tmp, tmpOff, buf, off, len);
+    }
+  }
+
+  private static final class LongParallelSortTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final long[] buf;
+    private final long[] tmp;
+    private final int off;
+    private final int len;
+    private final int tmpOff;
+
+    private LongParallelSortTask(final long[] buf, final int off, final int len, final long[] tmp, final int tmpOff) {
+      this.buf = buf;
+      this.off = off;
+      this.len = len;
+      this.tmp = tmp;
+      this.tmpOff = tmpOff;
+    }
+
+    @Override
+    protected void compute() {
+      if (len <= PARALLEL_SORT_CHUNK_LENGTH) {
+        radixSort(buf, off, len, tmp, tmpOff);
+        return;
+      }
+
+      final int half = len >>> 1;
+      invokeAll(new LongParallelSortTask(buf, off, half, tmp, tmpOff),
+        new LongParallelSortTask(buf, off + half, len - half, tmp, tmpOff + half));
+
+      // merge the two sorted halves into tmp, and copy them back
+      int a = off;
+      int b = off + half;
+      final int aEnd = off + half;
+      final int bEnd = off + len;
+      int k = tmpOff;
+      while (a < aEnd && b < bEnd) {
+        tmp[k++] = (buf[b] < buf[a]) ? buf[b++] : buf[a++];
+      }
+      while (a < aEnd) tmp[k++] = buf[a++];
+      while (b < bEnd) tmp[k++] = buf[b++];
+      System.arraycopy(tmp, tmpOff, buf, off, len);
+    }
+  }
+
+  // ================================================================================
+  //  Stable Merge Sort related
+  // ================================================================================
+  /**
+   * Stable sort of the indices in the range [off, off + len).
+   * Unlike sort(off, len, comparator, swapper), elements comparing equal keep their original order
+   * and no swap callback is needed: the caller can use the result to reorder its arrays.
+   *
+   * @return the sorted indices (e.g. result[0] is the index of the smallest element)
+   */
+  public static int[] sortedIndex(final int off, final int len, final ArrayIndexComparator comparator) {
+    final int[] index = new int[len];
+    for (int i = 0; i < len; ++i) {
+      index[i] = off + i;
+    }
+    mergeSort(index, 0, len, comparator);
+    return index;
+  }
+
+  /**
+   * Stable merge sort of the index array.
+   * the comparator receives the values stored in the index array, not the positions.
+   */
+  public static void mergeSort(final int[] index, final int off, final int len, final ArrayIndexComparator comparator) {
+    if (len < 2) return;
+
+    // sort small runs with insertion sort
+    final int end = off + len;
+    for (int runOff = off; runOff < end; runOff += MERGE_SORT_INSERTION_LENGTH) {
+      insertionSort(index, runOff, Math.min(end, runOff + MERGE_SORT_INSERTION_LENGTH), comparator);
+    }
+    if (len <= MERGE_SORT_INSERTION_LENGTH) return;
+
+    // bottom-up merge, ping-pong between the index and the tmp buffer
+    int[] src = index, dst = new int[len];
+    int srcOff = off, dstOff = 0;
+    for (int width = MERGE_SORT_INSERTION_LENGTH; width < len; width <<= 1) {
+      for (int lo = 0; lo < len; lo += (width << 1)) {
+        final int mid = Math.min(len, lo + width);
+        final int hi = Math.min(len, lo + (width << 1));
+        merge(src, srcOff, lo, mid, hi, dst, dstOff, comparator);
+      }
+      final int[] swap = src; src = dst; dst = swap;
+      final int swapOff = srcOff; srcOff = dstOff; dstOff = swapOff;
+    }
+
+    if (src != index) {
+      System.arraycopy(src, srcOff, index, off, len);
+    }
+  }
+
+  private static void insertionSort(final int[] index, final int start, final int end, final ArrayIndexComparator comparator) {
+    for (int i = start + 1; i < end; ++i) {
+      final int value = index[i];
+      int j = i - 1;
+      while (j >= start && comparator.compare(index[j], value) > 0) {
+        index[j + 1] = index[j];
+        j--;
+      }
+      index[j + 1] = value;
+    }
+  }
+
+  private static void merge(final int[] src, final int srcOff, final int lo, final int mid, final int hi,
+      final int[] dst, final int dstOff, final ArrayIndexComparator comparator) {
+    int a = srcOff + lo;
+    int b = srcOff + mid;
+    final int aEnd = srcOff + mid;
+    final int bEnd = srcOff + hi;
+    int k = dstOff + lo;
+
+    // already in order, just copy
+    if (a == aEnd || b == bEnd || comparator.compare(src[aEnd - 1], src[b]) <= 0) {
+      System.arraycopy(src, a, dst, k, hi - lo);
+      return;
+    }
+
+    while (a < aEnd && b < bEnd) {
+      dst[k++] = (comparator.compare(src[b], src[a]) < 0) ? src[b++] : src[a++];
+    }
+    while (a < aEnd) dst[k++] = src[a++];
+    while (b < bEnd) dst[k++] = src[b++];
+  }
 }
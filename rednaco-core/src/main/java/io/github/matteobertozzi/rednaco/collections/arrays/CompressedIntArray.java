@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.arrays;
+
+import java.util.function.IntConsumer;
+
+import io.github.matteobertozzi.rednaco.collections.arrays.ArrayUtil.IntArrayConsumer;
+
+/**
+ * Immutable compressed column of ints.
+ * Same block layout of the CompressedLongArray (delta/FOR + bit-packing, 128 values per block),
+ * the values are widened to long only while encoding/decoding a block.
+ */
+public final class CompressedIntArray {
+  public static final int BLOCK_SIZE = CompressedLongArray.BLOCK_SIZE;
+
+  private final CompressedLongArray column;
+
+  private CompressedIntArray(final CompressedLongArray column) {
+    this.column = column;
+  }
+
+  public static CompressedIntArray of(final int[] values) {
+    return of(values, 0, values.length);
+  }
+
+  public static CompressedIntArray of(final int[] values, final int off, final int len) {
+    // widen one block at a time, instead of a full long[] copy of the values
+    final CompressedLongArray.BlockEncoder encoder = new CompressedLongArray.BlockEncoder(len);
+    final long[] block = new long[BLOCK_SIZE];
+    for (int blockOff = 0; blockOff < len; blockOff += BLOCK_SIZE) {
+      final int blockLen = Math.min(BLOCK_SIZE, len - blockOff);
+      for (int i = 0; i < blockLen; ++i) {
+        block[i] = values[off + blockOff + i];
+      }
+      encoder.add(block, 0, blockLen);
+    }
+    return new CompressedIntArray(encoder.build());
+  }
+
+  public boolean isEmpty() {
+    return column.isEmpty();
+  }
+
+  public boolean isNotEmpty() {
+    return column.isNotEmpty();
+  }
+
+  public int size() {
+    return column.size();
+  }
+
+  public int blockCount() {
+    return column.blockCount();
+  }
+
+  public int blockLength(final int blockIndex) {
+    return column.blockLength(blockIndex);
+  }
+
+  public long estimatedHeapSize() {
+    return column.estimatedHeapSize();
+  }
+
+  public int get(final int index) {
+    return (int) column.get(index);
+  }
+
+  public int decodeBlock(final int blockIndex, final int[] buffer) {
+    return decodeBlock(blockIndex, buffer, new long[BLOCK_SIZE]);
+  }
+
+  private int decodeBlock(final int blockIndex, final int[] buffer, final long[] longBuffer) {
+    final int len = column.decodeBlock(blockIndex, longBuffer);
+    for (int i = 0; i < len; ++i) {
+      buffer[i] = (int) longBuffer[i];
+    }
+    return len;
+  }
+
+  public int blockMin(final int blockIndex) {
+    return (int) column.blockMin(blockIndex);
+  }
+
+  public int blockMax(final int blockIndex) {
+    return (int) column.blockMax(blockIndex);
+  }
+
+  public void forEach(final IntArrayConsumer consumer) {
+    final int[] buffer = new int[BLOCK_SIZE];
+    column.forEach((buf, off, len) -> {
+      for (int i = 0; i < len; ++i) {
+        buffer[i] = (int) buf[off + i];
+      }
+      consumer.accept(buffer, 0, len);
+    });
+  }
+
+  public void forEach(final IntConsumer consumer) {
+    column.forEach((final long value) -> consumer.accept((int) value));
+  }
+
+  public int[] toArray() {
+    final int[] result = new int[size()];
+    final int[] buffer = new int[BLOCK_SIZE];
+    final long[] longBuffer = new long[BLOCK_SIZE];
+    for (int b = 0, n = blockCount(); b < n; ++b) {
+      System.arraycopy(buffer, 0, result, b * BLOCK_SIZE, decodeBlock(b, buffer, longBuffer));
+    }
+    return result;
+  }
+
+  public int min() {
+    return (int) column.min();
+  }
+
+  public int max() {
+    return (int) column.max();
+  }
+
+  public long sum() {
+    return column.sum();
+  }
+
+  public double average() {
+    return column.average();
+  }
+
+  public double variance() {
+    return column.variance();
+  }
+
+  public double standardDeviation() {
+    return column.standardDeviation();
+  }
+
+  @Override
+  public String toString() {
+    return "CompressedIntArray [count=" + size() + ", blocks=" + blockCount() + ", heapSize=" + estimatedHeapSize() + "]";
+  }
+}
@@ -0,0 +1,396 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.arrays;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+import io.github.matteobertozzi.rednaco.collections.arrays.ArrayUtil.LongArrayConsumer;
+import io.github.matteobertozzi.rednaco.math.Statistics;
+
+/**
+ * Immutable compressed column of longs.
+ * Values are split in blocks of 128, each block is encoded as:
+ *  - Frame-Of-Reference: (value - blockMin) bit-packed
+ *  - Delta + Frame-Of-Reference: blockFirst and (delta - blockMinDelta) bit-packed,
+ *    used when it needs less bits (e.g. timestamps, ids)
+ * 128 values of N bits are always 2*N longs, so the blocks are aligned to the words.
+ * Each block keeps min/max, so min()/max() and range checks don't need to decode anything.
+ */
+public final class CompressedLongArray {
+  public static final int BLOCK_SIZE = 128;
+
+  private static final int BLOCK_SHIFT = 7;
+  private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+  private static final byte DELTA_FLAG = (byte) 0x80;
+
+  private final long[] words;
+  private final int[] blockOffsets;
+  private final byte[] blockBits;
+  private final long[] blockBase;
+  private final long[] blockMinDelta;
+  private final long[] blockMin;
+  private final long[] blockMax;
+  private final int count;
+
+  private CompressedLongArray(final long[] words, final int[] blockOffsets, final byte[] blockBits,
+      final long[] blockBase, final long[] blockMinDelta, final long[] blockMin, final long[] blockMax, final int count) {
+    this.words = words;
+    this.blockOffsets = blockOffsets;
+    this.blockBits = blockBits;
+    this.blockBase = blockBase;
+    this.blockMinDelta = blockMinDelta;
+    this.blockMin = blockMin;
+    this.blockMax = blockMax;
+    this.count = count;
+  }
+
+  public static CompressedLongArray of(final long[] values) {
+    return of(values, 0, values.length);
+  }
+
+  public static CompressedLongArray of(final long[] values, final int off, final int len) {
+    final BlockEncoder encoder = new BlockEncoder(len);
+    for (int blockOff = 0; blockOff < len; blockOff += BLOCK_SIZE) {
+      encoder.add(values, off + blockOff, Math.min(BLOCK_SIZE, len - blockOff));
+    }
+    return encoder.build();
+  }
+
+  /**
+   * Encode the column one block at a time,
+   * for sources that are not a long[] (e.g. int[]) and are widened one block at a time.
+   */
+  static final class BlockEncoder {
+    private final long[] packBuffer = new long[BLOCK_SIZE];
+    private final int[] blockOffsets;
+    private final byte[] blockBits;
+    private final long[] blockBase;
+    private final long[] blockMinDelta;
+    private final long[] blockMin;
+    private final long[] blockMax;
+    private final int count;
+    private long[] words;
+    private int wordsCount;
+    private int blocks;
+
+    BlockEncoder(final int count) {
+      final int blockCount = (count + BLOCK_MASK) >>> BLOCK_SHIFT;
+      this.blockOffsets = new int[blockCount];
+      this.blockBits = new byte[blockCount];
+      this.blockBase = new long[blockCount];
+      this.blockMinDelta = new long[blockCount];
+      this.blockMin = new long[blockCount];
+      this.blockMax = new long[blockCount];
+      this.words = new long[Math.max(16, count >>> 3)];
+      this.count = count;
+    }
+
+    /**
+     * @param blockLen BLOCK_SIZE, only the last block can be shorter
+     */
+    void add(final long[] values, final int blockOff, final int blockLen) {
+      final int b = blocks++;
+
+      // compute min/max and the delta range
+      long minValue = values[blockOff];
+      long maxValue = minValue;
+      long minDelta = 0;
+      for (int i = 1; i < blockLen; ++i) {
+        final long v = values[blockOff + i];
+        final long delta = v - values[blockOff + i - 1];
+        if (v < minValue) minValue = v;
+        if (v > maxValue) maxValue = v;
+        if (i == 1 || delta < minDelta) minDelta = delta;
+      }
+
+      long deltaBitsOr = 0;
+      for (int i = 1; i < blockLen; ++i) {
+        deltaBitsOr |= (values[blockOff + i] - values[blockOff + i - 1]) - minDelta;
+      }
+
+      final int forBits = bitsRequired(maxValue - minValue);
+      final int deltaBits = bitsRequired(deltaBitsOr);
+      Arrays.fill(packBuffer, 0);
+      if (deltaBits < forBits) {
+        // packBuffer[0] is unused, the first value is the block base
+        for (int i = 1; i < blockLen; ++i) {
+          packBuffer[i] = (values[blockOff + i] - values[blockOff + i - 1]) - minDelta;
+        }
+        blockBits[b] = (byte) (deltaBits | DELTA_FLAG);
+        blockBase[b] = values[blockOff];
+        blockMinDelta[b] = minDelta;
+      } else {
+        for (int i = 0; i < blockLen; ++i) {
+          packBuffer[i] = values[blockOff + i] - minValue;
+        }
+        blockBits[b] = (byte) forBits;
+        blockBase[b] = minValue;
+      }
+      blockMin[b] = minValue;
+      blockMax[b] = maxValue;
+
+      // 128 values * bits = (2 * bits) words
+      final int bits = Math.min(deltaBits, forBits);
+      final int blockWords = bits << 1;
+      if ((wordsCount + blockWords) > words.length) {
+        words = Arrays.copyOf(words, Math.max(wordsCount + blockWords, words.length + (words.length >> 1)));
+      }
+      blockOffsets[b] = wordsCount;
+      pack(packBuffer, bits, words, wordsCount);
+      wordsCount += blockWords;
+    }
+
+    CompressedLongArray build() {
+      if (blocks != blockBits.length) {
+        throw new IllegalStateException("expected " + blockBits.length + " blocks, got " + blocks);
+      }
+      return new CompressedLongArray(Arrays.copyOf(words, wordsCount), blockOffsets, blockBits,
+        blockBase, blockMinDelta, blockMin, blockMax, count);
+    }
+  }
+
+  private static int bitsRequired(final long value) {
+    return Long.SIZE - Long.numberOfLeadingZeros(value);
+  }
+
+  private static boolean isDeltaBlock(final byte bits) {
+    return (bits & DELTA_FLAG) != 0;
+  }
+
+  private static int bitsOf(final byte bits) {
+    return bits & 0x7f;
+  }
+
+  // ================================================================================
+  //  Bit-Packing related
+  // ================================================================================
+  private static void pack(final long[] values, final int bits, final long[] words, final int wordsOff) {
+    if (bits == 0) return;
+
+    int bitPos = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      final long v = values[i];
+      final int w = wordsOff + (bitPos >>> 6);
+      final int shift = bitPos & 63;
+      words[w] |= v << shift;
+      if (shift + bits > 64) {
+        words[w + 1] |= v >>> (64 - shift);
+      }
+      bitPos += bits;
+    }
+  }
+
+  private static void unpack(final long[] words, final int wordsOff, final int bits, final long[] values, final int len) {
+    if (bits == 0) {
+      Arrays.fill(values, 0, len, 0);
+      return;
+    }
+
+    final long mask = (bits == 64) ? -1L : ((1L << bits) - 1);
+    int bitPos = 0;
+    for (int i = 0; i < len; ++i) {
+      values[i] = extract(words, wordsOff, bitPos, bits, mask);
+      bitPos += bits;
+    }
+  }
+
+  private static long extract(final long[] words, final int wordsOff, final int bitPos, final int bits, final long mask) {
+    final int w = wordsOff + (bitPos >>> 6);
+    final int shift = bitPos & 63;
+    long v = words[w] >>> shift;
+    if (shift + bits > 64) {
+      v |= words[w + 1] << (64 - shift);
+    }
+    return v & mask;
+  }
+
+  // ================================================================================
+  //  Size related
+  // ================================================================================
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+  public boolean isNotEmpty() {
+    return count != 0;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  public int blockCount() {
+    return blockBits.length;
+  }
+
+  public int blockLength(final int blockIndex) {
+    return Math.min(BLOCK_SIZE, count - (blockIndex << BLOCK_SHIFT));
+  }
+
+  /**
+   * @return the approximate number of bytes used by the arrays of this column
+   */
+  public long estimatedHeapSize() {
+    return (words.length * 8L) + (blockOffsets.length * 4L) + blockBits.length + (blockBase.length * 32L);
+  }
+
+  // ================================================================================
+  //  Random Access related
+  // ================================================================================
+  /**
+   * Random access to a single value.
+   * Frame-Of-Reference blocks extract the value directly, while delta blocks have no checkpoints:
+   * the value is rebuilt summing the deltas from the block start, so the cost is O(index % BLOCK_SIZE).
+   * To scan the values use decodeBlock() or forEach(), that decode each block once.
+   */
+  public long get(final int index) {
+    if (index < 0 || index >= count) {
+      throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + count);
+    }
+
+    final int b = index >>> BLOCK_SHIFT;
+    final int blockIndex = index & BLOCK_MASK;
+    final int bits = bitsOf(blockBits[b]);
+    final long mask = (bits == 64) ? -1L : ((1L << bits) - 1);
+    if (!isDeltaBlock(blockBits[b])) {
+      return blockBase[b] + (bits == 0 ? 0 : extract(words, blockOffsets[b], blockIndex * bits, bits, mask));
+    }
+
+    // delta block: first value + sum of the deltas
+    long value = blockBase[b] + (blockMinDelta[b] * blockIndex);
+    if (bits == 0) return value;
+    for (int i = 1; i <= blockIndex; ++i) {
+      value += extract(words, blockOffsets[b], i * bits, bits, mask);
+    }
+    return value;
+  }
+
+  /**
+   * Decode the specified block in the buffer.
+   * @param blockIndex the block to decode
+   * @param buffer the output buffer, must be at least BLOCK_SIZE long
+   * @return the number of values decoded
+   */
+  public int decodeBlock(final int blockIndex, final long[] buffer) {
+    final int len = blockLength(blockIndex);
+    final byte bits = blockBits[blockIndex];
+    unpack(words, blockOffsets[blockIndex], bitsOf(bits), buffer, len);
+    if (isDeltaBlock(bits)) {
+      final long minDelta = blockMinDelta[blockIndex];
+      buffer[0] = blockBase[blockIndex];
+      for (int i = 1; i < len; ++i) {
+        buffer[i] = buffer[i - 1] + minDelta + buffer[i];
+      }
+    } else {
+      final long base = blockBase[blockIndex];
+      for (int i = 0; i < len; ++i) {
+        buffer[i] += base;
+      }
+    }
+    return len;
+  }
+
+  public long blockMin(final int blockIndex) {
+    return blockMin[blockIndex];
+  }
+
+  public long blockMax(final int blockIndex) {
+    return blockMax[blockIndex];
+  }
+
+  public void forEach(final LongArrayConsumer consumer) {
+    final long[] buffer = new long[BLOCK_SIZE];
+    for (int b = 0, n = blockCount(); b < n; ++b) {
+      consumer.accept(buffer, 0, decodeBlock(b, buffer));
+    }
+  }
+
+  public void forEach(final LongConsumer consumer) {
+    forEach((buf, off, len) -> {
+      for (int i = 0; i < len; ++i) {
+        consumer.accept(buf[off + i]);
+      }
+    });
+  }
+
+  public long[] toArray() {
+    final long[] result = new long[count];
+    final long[] buffer = new long[BLOCK_SIZE];
+    for (int b = 0, n = blockCount(); b < n; ++b) {
+      System.arraycopy(buffer, 0, result, b << BLOCK_SHIFT, decodeBlock(b, buffer));
+    }
+    return result;
+  }
+
+  // ================================================================================
+  //  Statistics related
+  // ================================================================================
+  public long min() {
+    if (count == 0) return 0;
+    return Statistics.min(blockMin, 0, blockMin.length);
+  }
+
+  public long max() {
+    if (count == 0) return 0;
+    return Statistics.max(blockMax, 0, blockMax.length);
+  }
+
+  public long sum() {
+    long sum = 0;
+    final long[] buffer = new long[BLOCK_SIZE];
+    for (int b = 0, n = blockCount(); b < n; ++b) {
+      sum += Statistics.sum(buffer, 0, decodeBlock(b, buffer));
+    }
+    return sum;
+  }
+
+  public double average() {
+    return Statistics.average(count, sum());
+  }
+
+  public double variance() {
+    final double[] sums = sumAndSumSquares();
+    return Statistics.variance(count, sums[0], sums[1]);
+  }
+
+  public double standardDeviation() {
+    final double[] sums = sumAndSumSquares();
+    return Statistics.standardDeviation(count, sums[0], sums[1]);
+  }
+
+  private double[] sumAndSumSquares() {
+    final long[] buffer = new long[BLOCK_SIZE];
+    double sum = 0;
+    double sumSquares = 0;
+    for (int b = 0, n = blockCount(); b < n; ++b) {
+      final int len = decodeBlock(b, buffer);
+      for (int i = 0; i < len; ++i) {
+        final double v = buffer[i];
+        sum += v;
+        sumSquares += v * v;
+      }
+    }
+    return new double[] { sum, sumSquares };
+  }
+
+  @Override
+  public String toString() {
+    return "CompressedLongArray [count=" + count + ", blocks=" + blockCount() + ", heapSize=" + estimatedHeapSize() + "]";
+  }
+}
@@ -71,6 +71,16 @@ public class IntArray {
     return result;
   }
 
+  /**
+   * Freeze the current values in an immutable compressed column, and reset the array releasing the buffer.
+   */
+  public CompressedIntArray drainCompressed() {
+    final CompressedIntArray result = CompressedIntArray.of(items, 0, count);
+    this.items = EMPTY_ARRAY;
+    this.count = 0;
+    return result;
+  }
+
   public int get(final int index) {
     return items[index];
   }
@@ -116,6 +126,14 @@ public class IntArray {
     ArrayUtil.swap(items, aIndex, bIndex);
   }
 
+  public void sort() {
+    ArraySortUtil.radixSort(items, 0, count);
+  }
+
+  public void parallelSort() {
+    ArraySortUtil.parallelSort(items, 0, count);
+  }
+
   public void fill(final int value) {
     Arrays.fill(items, value);
   }
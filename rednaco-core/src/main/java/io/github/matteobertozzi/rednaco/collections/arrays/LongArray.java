@@ -71,6 +71,16 @@ public class LongArray {
     return result;
   }
 
+  /**
+   * Freeze the current values in an immutable compressed column, and reset the array releasing the buffer.
+   */
+  public CompressedLongArray drainCompressed() {
+    final CompressedLongArray result = CompressedLongArray.of(items, 0, count);
+    this.items = EMPTY_ARRAY;
+    this.count = 0;
+    return result;
+  }
+
   public long get(final int index) {
     return items[index];
   }
@@ -116,6 +126,14 @@ public class LongArray {
     ArrayUtil.swap(items, aIndex, bIndex);
   }
 
+  public void sort() {
+    ArraySortUtil.radixSort(items, 0, count);
+  }
+
+  public void parallelSort() {
+    ArraySortUtil.parallelSort(items, 0, count);
+  }
+
   public void fill(final long value) {
     Arrays.fill(items, value);
   }
@@ -0,0 +1,683 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.cache;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import io.github.matteobertozzi.rednaco.collections.Hashing;
+import io.github.matteobertozzi.rednaco.threading.ThreadProbe;
+import io.github.matteobertozzi.rednaco.util.BitUtil;
+import io.github.matteobertozzi.rednaco.util.function.FailableFunction;
+
+/**
+ * Concurrent cache bounded by size or weight, using the W-TinyLFU policy:
+ *  - new entries go in a small LRU window (1% of the capacity)
+ *  - entries leaving the window are candidates for the main space, a segmented LRU
+ *    (probation, and protected for the entries accessed at least twice, 80% of the main space)
+ *  - when the main space is full, the candidate is admitted only if its frequency,
+ *    estimated by a FrequencySketch, is higher than the one of the probation LRU victim
+ *
+ * Reads are lock-free: the accesses are recorded in striped lossy buffers, and applied to the
+ * policy in batch by the thread that acquires the eviction lock. Writes apply the policy under the lock.
+ * The lock is a ReentrantLock, so it does not pin virtual threads.
+ *
+ * Loads are deduplicated per key: get() runs the loader in the calling thread,
+ * getAsync() runs it in the executor (a virtual thread per load by default).
+ * A loader asking the cache for the key it is loading gets an IllegalStateException, instead of waiting for itself.
+ */
+public final class BoundedCache<K, V> {
+  private static final Executor LOADER_EXECUTOR = task -> Thread.ofVirtual().name("BoundedCacheLoader").start(task);
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+  private static final byte QUEUE_NONE = 0;
+  private static final byte QUEUE_WINDOW = 1;
+  private static final byte QUEUE_PROBATION = 2;
+  private static final byte QUEUE_PROTECTED = 3;
+
+  @FunctionalInterface
+  public interface Weigher<K, V> {
+    int weigh(K key, V value);
+  }
+
+  private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<K, LoadingFuture<V>> loading = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final ReadBuffer[] readBuffers;
+
+  // policy, guarded by evictionLock
+  private final FrequencySketch sketch;
+  private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+  private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+  private final AccessOrderQueue<K, V> protectedQueue = new AccessOrderQueue<>();
+  private final WriteOrderQueue<K, V> writeQueue = new WriteOrderQueue<>();
+  private final long maximumWeight;
+  private final long windowMaxWeight;
+  private final long mainMaxWeight;
+  private final long protectedMaxWeight;
+
+  private final Weigher<? super K, ? super V> weigher;
+  private final FailableFunction<? super K, ? extends V> loader;
+  private final Executor executor;
+  private final LongSupplier ticker;
+  private final long expireAfterWriteNs;
+  private final long expireAfterAccessNs;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder loadSuccessCount = new LongAdder();
+  private final LongAdder loadFailureCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final LongAdder evictionWeight = new LongAdder();
+
+  private BoundedCache(final BoundedCacheBuilder<K, V> builder) {
+    this.maximumWeight = builder.maximumWeight;
+    this.windowMaxWeight = Math.max(1, maximumWeight / 100);
+    this.mainMaxWeight = maximumWeight - windowMaxWeight;
+    this.protectedMaxWeight = (mainMaxWeight * 80) / 100;
+    this.weigher = builder.weigher;
+    this.loader = builder.loader;
+    this.executor = builder.executor;
+    this.ticker = builder.ticker;
+    this.expireAfterWriteNs = builder.expireAfterWriteNs;
+    this.expireAfterAccessNs = builder.expireAfterAccessNs;
+    this.sketch = new FrequencySketch(builder.weigher == null ? maximumWeight : Math.min(maximumWeight, 1 << 20));
+
+    final int stripes = BitUtil.nextPow2(Math.min(64, Runtime.getRuntime().availableProcessors()));
+    this.readBuffers = new ReadBuffer[stripes];
+    for (int i = 0; i < stripes; ++i) {
+      readBuffers[i] = new ReadBuffer();
+    }
+  }
+
+  public static <K, V> BoundedCacheBuilder<K, V> newBuilder() {
+    return new BoundedCacheBuilder<>();
+  }
+
+  // ================================================================================
+  //  Lookup related
+  // ================================================================================
+  public V getIfPresent(final K key) {
+    final Node<K, V> node = data.get(key);
+    if (node == null) {
+      missCount.increment();
+      return null;
+    }
+
+    final long now = ticker.getAsLong();
+    if (isExpired(node, now)) {
+      missCount.increment();
+      return null;
+    }
+
+    if (expireAfterAccessNs > 0) node.accessTs = now;
+    hitCount.increment();
+    recordRead(node);
+    return node.value;
+  }
+
+  /**
+   * @return the cached value, or the one returned by the cache loader specified in the builder
+   */
+  public V get(final K key) {
+    return get(key, Objects.requireNonNull(loader, "no cache loader specified"));
+  }
+
+  /**
+   * @return the cached value, or the one returned by the loader (executed in the calling thread).
+   *         concurrent calls for the same key wait for the same load.
+   */
+  public V get(final K key, final FailableFunction<? super K, ? extends V> loader) {
+    final V value = getIfPresent(key);
+    if (value != null) return value;
+
+    try {
+      return load(key, loader, DIRECT_EXECUTOR).join();
+    } catch (final CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof final RuntimeException runtimeException) throw runtimeException;
+      if (cause instanceof final Error error) throw error;
+      throw new RuntimeException(cause);
+    }
+  }
+
+  public CompletableFuture<V> getAsync(final K key) {
+    return getAsync(key, Objects.requireNonNull(loader, "no cache loader specified"));
+  }
+
+  /**
+   * @return the cached value, or a future completed by the loader executed in the cache executor
+   */
+  public CompletableFuture<V> getAsync(final K key, final FailableFunction<? super K, ? extends V> loader) {
+    final V value = getIfPresent(key);
+    if (value != null) return CompletableFuture.completedFuture(value);
+    return load(key, loader, executor);
+  }
+
+  private CompletableFuture<V> load(final K key, final FailableFunction<? super K, ? extends V> loader, final Executor loadExecutor) {
+    final LoadingFuture<V> future = new LoadingFuture<>();
+    final LoadingFuture<V> inflight = loading.putIfAbsent(key, future);
+    if (inflight != null) {
+      if (inflight.loaderThread == Thread.currentThread()) {
+        throw new IllegalStateException("recursive load of the key " + key + ", the loader is waiting for itself");
+      }
+      return inflight;
+    }
+
+    try {
+      loadExecutor.execute(() -> {
+        future.loaderThread = Thread.currentThread();
+        final long startTime = ticker.getAsLong();
+        try {
+          final V value = loader.apply(key);
+          loadSuccessCount.increment();
+          totalLoadTime.add(ticker.getAsLong() - startTime);
+          if (value != null) put(key, value);
+          future.complete(value);
+        } catch (final Throwable e) {
+          loadFailureCount.increment();
+          totalLoadTime.add(ticker.getAsLong() - startTime);
+          future.completeExceptionally(e);
+        } finally {
+          future.loaderThread = null;
+          loading.remove(key, future);
+        }
+      });
+    } catch (final Throwable e) {
+      loading.remove(key, future);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private static final class LoadingFuture<V> extends CompletableFuture<V> {
+    // thread running the loader, to detect a loader asking for its own key
+    private volatile Thread loaderThread;
+  }
+
+  private boolean isExpired(final Node<K, V> node, final long now) {
+    return (expireAfterWriteNs > 0 && (now - node.writeTs) >= expireAfterWriteNs)
+        || (expireAfterAccessNs > 0 && (now - node.accessTs) >= expireAfterAccessNs);
+  }
+
+  // ================================================================================
+  //  Write related
+  // ================================================================================
+  public void put(final K key, final V value) {
+    Objects.requireNonNull(value, "cache values cannot be null");
+    final int weight = weigher != null ? weigher.weigh(key, value) : 1;
+    if (weight < 0) throw new IllegalArgumentException("expected a non-negative weight, got " + weight);
+
+    final long now = ticker.getAsLong();
+    final Node<K, V> node = data.compute(key, (k, existing) -> {
+      if (existing == null) return new Node<>(k, Hashing.hash32(k), value, weight, now);
+      existing.value = value;
+      existing.weight = weight;
+      existing.writeTs = now;
+      existing.accessTs = now;
+      return existing;
+    });
+
+    evictionLock.lock();
+    try {
+      if (!node.retired) {
+        if (node.queue == QUEUE_NONE) {
+          onAdd(node);
+        } else {
+          onUpdate(node);
+        }
+      }
+      maintenance(now);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public void invalidate(final K key) {
+    final Node<K, V> node = data.remove(key);
+    if (node == null) return;
+
+    evictionLock.lock();
+    try {
+      retire(node);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public void invalidateAll() {
+    evictionLock.lock();
+    try {
+      for (final Node<K, V> node: data.values()) {
+        if (data.remove(node.key, node)) {
+          retire(node);
+        }
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Apply the pending reads, and remove the expired entries.
+   */
+  public void cleanUp() {
+    evictionLock.lock();
+    try {
+      maintenance(ticker.getAsLong());
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  // ================================================================================
+  //  Size/Stats related
+  // ================================================================================
+  public long estimatedSize() {
+    return data.size();
+  }
+
+  public long maximumWeight() {
+    return maximumWeight;
+  }
+
+  public long weightedSize() {
+    evictionLock.lock();
+    try {
+      return currentWeight();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  public CacheStats stats() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+      totalLoadTime.sum(), evictionCount.sum(), evictionWeight.sum());
+  }
+
+  @Override
+  public String toString() {
+    return "BoundedCache [size=" + data.size() + ", maximumWeight=" + maximumWeight + ", " + stats() + "]";
+  }
+
+  // ================================================================================
+  //  Policy related (evictionLock must be held)
+  // ================================================================================
+  private void recordRead(final Node<K, V> node) {
+    final int probe = ThreadProbe.probe();
+    final int result = readBuffers[probe & (readBuffers.length - 1)].offer(node);
+    if (result == ReadBuffer.OFFER_OVERFLOW) {
+      // the stripe is filled faster than it is drained, move this thread to another one
+      ThreadProbe.advanceProbe(probe);
+    }
+    if (result != ReadBuffer.OFFER_ADDED && evictionLock.tryLock()) {
+      try {
+        maintenance(ticker.getAsLong());
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void maintenance(final long now) {
+    for (final ReadBuffer buffer: readBuffers) {
+      buffer.drain(this::onAccess);
+    }
+    expireEntries(now);
+    evictEntries();
+  }
+
+  private void onAdd(final Node<K, V> node) {
+    sketch.increment(node.hash);
+    node.policyWeight = node.weight;
+    node.queue = QUEUE_WINDOW;
+    window.addLast(node);
+    if (expireAfterWriteNs > 0) writeQueue.addLast(node);
+  }
+
+  private void onUpdate(final Node<K, V> node) {
+    final int weight = node.weight;
+    queueOf(node).weight += weight - node.policyWeight;
+    node.policyWeight = weight;
+    if (expireAfterWriteNs > 0) writeQueue.moveToLast(node);
+    onAccess(node);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void onAccess(final Object entry) {
+    final Node<K, V> node = (Node<K, V>) entry;
+    if (node.retired || node.queue == QUEUE_NONE) return;
+
+    sketch.increment(node.hash);
+    switch (node.queue) {
+      case QUEUE_WINDOW -> window.moveToLast(node);
+      case QUEUE_PROTECTED -> protectedQueue.moveToLast(node);
+      case QUEUE_PROBATION -> {
+        probation.remove(node);
+        node.queue = QUEUE_PROTECTED;
+        protectedQueue.addLast(node);
+        // demote the protected LRU entries to probation
+        while (protectedQueue.weight > protectedMaxWeight && protectedQueue.head != node) {
+          final Node<K, V> demoted = protectedQueue.head;
+          protectedQueue.remove(demoted);
+          demoted.queue = QUEUE_PROBATION;
+          probation.addLast(demoted);
+        }
+      }
+    }
+  }
+
+  private void expireEntries(final long now) {
+    if (expireAfterWriteNs > 0) {
+      while (writeQueue.head != null && (now - writeQueue.head.writeTs) >= expireAfterWriteNs) {
+        evict(writeQueue.head);
+      }
+    }
+    if (expireAfterAccessNs > 0) {
+      expireAfterAccess(window, now);
+      expireAfterAccess(probation, now);
+      expireAfterAccess(protectedQueue, now);
+    }
+  }
+
+  private void expireAfterAccess(final AccessOrderQueue<K, V> queue, final long now) {
+    while (queue.head != null && (now - queue.head.accessTs) >= expireAfterAccessNs) {
+      evict(queue.head);
+    }
+  }
+
+  private void evictEntries() {
+    // the window LRU entries are candidates for the main space
+    while (window.weight > windowMaxWeight && window.head != null) {
+      final Node<K, V> candidate = window.head;
+      window.remove(candidate);
+      candidate.queue = QUEUE_PROBATION;
+      probation.addLast(candidate);
+      admit(candidate);
+    }
+
+    // e.g. weight updates of existing entries
+    while (currentWeight() > maximumWeight) {
+      final Node<K, V> victim = firstNonNull(probation.head, protectedQueue.head, window.head);
+      if (victim == null) break;
+      evict(victim);
+    }
+  }
+
+  private void admit(final Node<K, V> candidate) {
+    while ((probation.weight + protectedQueue.weight) > mainMaxWeight) {
+      final Node<K, V> victim = (probation.head != candidate) ? probation.head : protectedQueue.head;
+      if (victim == null || victim == candidate) {
+        evict(candidate);
+        return;
+      }
+
+      if (admitCandidate(candidate.hash, victim.hash)) {
+        evict(victim);
+      } else {
+        evict(candidate);
+        return;
+      }
+    }
+  }
+
+  private boolean admitCandidate(final int candidateHash, final int victimHash) {
+    final int candidateFreq = sketch.frequency(candidateHash);
+    final int victimFreq = sketch.frequency(victimHash);
+    if (candidateFreq > victimFreq) return true;
+    if (candidateFreq <= 5) return false;
+    // warm candidate: admit randomly, so an attacker cannot keep the victim by raising its frequency
+    return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+  }
+
+  private void evict(final Node<K, V> node) {
+    data.remove(node.key, node);
+    evictionCount.increment();
+    evictionWeight.add(node.policyWeight);
+    retire(node);
+  }
+
+  private void retire(final Node<K, V> node) {
+    node.retired = true;
+    if (node.queue == QUEUE_NONE) return;
+
+    queueOf(node).remove(node);
+    if (expireAfterWriteNs > 0) writeQueue.remove(node);
+    node.queue = QUEUE_NONE;
+  }
+
+  private AccessOrderQueue<K, V> queueOf(final Node<K, V> node) {
+    return switch (node.queue) {
+      case QUEUE_WINDOW -> window;
+      case QUEUE_PROBATION -> probation;
+      case QUEUE_PROTECTED -> protectedQueue;
+      default -> throw new IllegalStateException("node not in the policy: " + node.queue);
+    };
+  }
+
+  private long currentWeight() {
+    return window.weight + probation.weight + protectedQueue.weight;
+  }
+
+  @SafeVarargs
+  private static <T> T firstNonNull(final T... values) {
+    for (final T value: values) {
+      if (value != null) return value;
+    }
+    return null;
+  }
+
+  // ================================================================================
+  //  Node/Queues related
+  // ================================================================================
+  private static final class Node<K, V> {
+    private final K key;
+    private final int hash;
+    private volatile V value;
+    private volatile int weight;
+    private volatile long writeTs;
+    private volatile long accessTs;
+
+    // guarded by evictionLock
+    private int policyWeight;
+    private byte queue = QUEUE_NONE;
+    private boolean retired;
+    private Node<K, V> prev;
+    private Node<K, V> next;
+    private Node<K, V> prevWrite;
+    private Node<K, V> nextWrite;
+
+    private Node(final K key, final int hash, final V value, final int weight, final long now) {
+      this.key = key;
+      this.hash = hash;
+      this.value = value;
+      this.weight = weight;
+      this.writeTs = now;
+      this.accessTs = now;
+    }
+  }
+
+  private static final class AccessOrderQueue<K, V> {
+    private Node<K, V> head;
+    private Node<K, V> tail;
+    private long weight;
+
+    private void addLast(final Node<K, V> node) {
+      node.prev = tail;
+      node.next = null;
+      if (tail == null) head = node; else tail.next = node;
+      tail = node;
+      weight += node.policyWeight;
+    }
+
+    private void remove(final Node<K, V> node) {
+      if (node.prev == null) head = node.next; else node.prev.next = node.next;
+      if (node.next == null) tail = node.prev; else node.next.prev = node.prev;
+      node.prev = null;
+      node.next = null;
+      weight -= node.policyWeight;
+    }
+
+    private void moveToLast(final Node<K, V> node) {
+      if (tail == node) return;
+      remove(node);
+      addLast(node);
+    }
+  }
+
+  private static final class WriteOrderQueue<K, V> {
+    private Node<K, V> head;
+    private Node<K, V> tail;
+
+    private void addLast(final Node<K, V> node) {
+      node.prevWrite = tail;
+      node.nextWrite = null;
+      if (tail == null) head = node; else tail.nextWrite = node;
+      tail = node;
+    }
+
+    private void remove(final Node<K, V> node) {
+      if (node.prevWrite == null) head = node.nextWrite; else node.prevWrite.nextWrite = node.nextWrite;
+      if (node.nextWrite == null) tail = node.prevWrite; else node.nextWrite.prevWrite = node.prevWrite;
+      node.prevWrite = null;
+      node.nextWrite = null;
+    }
+
+    private void moveToLast(final Node<K, V> node) {
+      if (tail == node) return;
+      remove(node);
+      addLast(node);
+    }
+  }
+
+  /**
+   * Lossy ring of the recent reads: when full, the old entries are overwritten.
+   * offer() returns true every DRAIN_THRESHOLD reads, to trigger the drain.
+   */
+  private static final class ReadBuffer {
+    private static final int SIZE = 64;
+    private static final int MASK = SIZE - 1;
+    private static final int DRAIN_THRESHOLD = 32;
+
+    private static final int OFFER_ADDED = 0;
+    private static final int OFFER_DRAIN = 1;
+    private static final int OFFER_OVERFLOW = 2;
+
+    private final AtomicReferenceArray<Object> buffer = new AtomicReferenceArray<>(SIZE);
+    private final AtomicLong writes = new AtomicLong();
+    private long reads; // guarded by evictionLock
+
+    /**
+     * @return OFFER_DRAIN when the drain threshold is reached,
+     *         OFFER_OVERFLOW when a read not yet drained was overwritten (lossy, the stripe is contended)
+     */
+    private int offer(final Object node) {
+      final long index = writes.getAndIncrement();
+      final int slot = (int) (index & MASK);
+      final boolean overflow = buffer.get(slot) != null;
+      buffer.lazySet(slot, node);
+      if (overflow) return OFFER_OVERFLOW;
+      return ((index + 1) % DRAIN_THRESHOLD) == 0 ? OFFER_DRAIN : OFFER_ADDED;
+    }
+
+    private void drain(final Consumer<Object> consumer) {
+      final long end = writes.get();
+      for (long i = Math.max(reads, end - SIZE); i < end; ++i) {
+        final Object node = buffer.getAndSet((int) (i & MASK), null);
+        if (node != null) consumer.accept(node);
+      }
+      reads = end;
+    }
+  }
+
+  // ================================================================================
+  //  Builder related
+  // ================================================================================
+  public static final class BoundedCacheBuilder<K, V> {
+    private FailableFunction<? super K, ? extends V> loader;
+    private Weigher<? super K, ? super V> weigher;
+    private Executor executor = LOADER_EXECUTOR;
+    private LongSupplier ticker = System::nanoTime;
+    private long maximumWeight = -1;
+    private long expireAfterWriteNs;
+    private long expireAfterAccessNs;
+
+    private BoundedCacheBuilder() {
+      // no-op
+    }
+
+    public BoundedCacheBuilder<K, V> maximumSize(final long maximumSize) {
+      if (maximumSize < 1) throw new IllegalArgumentException("expected maximumSize >= 1, got " + maximumSize);
+      this.maximumWeight = maximumSize;
+      this.weigher = null;
+      return this;
+    }
+
+    public BoundedCacheBuilder<K, V> maximumWeight(final long maximumWeight, final Weigher<? super K, ? super V> weigher) {
+      if (maximumWeight < 1) throw new IllegalArgumentException("expected maximumWeight >= 1, got " + maximumWeight);
+      this.maximumWeight = maximumWeight;
+      this.weigher = Objects.requireNonNull(weigher);
+      return this;
+    }
+
+    public BoundedCacheBuilder<K, V> expireAfterWrite(final Duration duration) {
+      this.expireAfterWriteNs = duration.toNanos();
+      return this;
+    }
+
+    public BoundedCacheBuilder<K, V> expireAfterAccess(final Duration duration) {
+      this.expireAfterAccessNs = duration.toNanos();
+      return this;
+    }
+
+    public BoundedCacheBuilder<K, V> loader(final FailableFunction<? super K, ? extends V> loader) {
+      this.loader = loader;
+      return this;
+    }
+
+    /**
+     * @param executor the executor used by getAsync() to run the loader. default is a virtual thread per load
+     */
+    public BoundedCacheBuilder<K, V> executor(final Executor executor) {
+      this.executor = Objects.requireNonNull(executor);
+      return this;
+    }
+
+    public BoundedCacheBuilder<K, V> ticker(final LongSupplier ticker) {
+      this.ticker = Objects.requireNonNull(ticker);
+      return this;
+    }
+
+    public BoundedCache<K, V> build() {
+      if (maximumWeight < 1) throw new IllegalStateException("expected maximumSize() or maximumWeight() to be set");
+      return new BoundedCache<>(this);
+    }
+  }
+}
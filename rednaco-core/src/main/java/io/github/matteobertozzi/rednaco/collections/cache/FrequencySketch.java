@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.cache;
+
+import java.util.Arrays;
+
+import io.github.matteobertozzi.rednaco.util.BitUtil;
+
+/**
+ * Count-Min sketch of 4-bit counters, used as TinyLFU admission filter.
+ * Each long holds 16 counters, each key is mapped to 4 counters (one per hash function).
+ * Once the number of increments reaches the sample size (10x the capacity),
+ * all the counters are halved, so the old frequencies age out.
+ * This class is not thread-safe.
+ */
+public final class FrequencySketch {
+  private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAX_COUNT = 15;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  public FrequencySketch(final long maximumSize) {
+    final int capacity = (int) Math.max(1, Math.min(maximumSize, 1 << 30));
+    this.table = new long[BitUtil.nextPow2(capacity)];
+    this.tableMask = table.length - 1;
+    this.sampleSize = (int) Math.min(10L * capacity, Integer.MAX_VALUE);
+  }
+
+  public int frequency(final int hash) {
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < SEEDS.length; ++i) {
+      final long h = indexHash(hash, i);
+      final int shift = counterShift(h);
+      frequency = Math.min(frequency, (int) ((table[(int) h & tableMask] >>> shift) & MAX_COUNT));
+    }
+    return frequency;
+  }
+
+  public void increment(final int hash) {
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; ++i) {
+      final long h = indexHash(hash, i);
+      final int index = (int) h & tableMask;
+      final int shift = counterShift(h);
+      if (((table[index] >>> shift) & MAX_COUNT) != MAX_COUNT) {
+        table[index] += 1L << shift;
+        added = true;
+      }
+    }
+
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(table, 0);
+    size = 0;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; ++i) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size >>>= 1;
+  }
+
+  private static long indexHash(final int hash, final int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return h;
+  }
+
+  private static int counterShift(final long h) {
+    // 16 counters of 4 bits per long
+    return ((int) (h >>> 40) & 15) << 2;
+  }
+}
@@ -15,7 +15,7 @@
  * limitations under the License.
  */
 
-package io.github.matteobertozzi.rednaco.plugins;
+package io.github.matteobertozzi.rednaco.io;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -27,13 +27,18 @@ import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * A helper class for reading and writing Services files.
+ * Shared by the annotation processors that generate META-INF/services entries.
  */
-final class ServicesFiles {
+public final class ServicesFiles {
   private static final String SERVICES_PATH = "META-INF/services";
 
   private ServicesFiles() {
@@ -41,19 +46,18 @@ final class ServicesFiles {
   }
 
   public static String getPath(final Class<?> serviceClass) {
-    return SERVICES_PATH + "/" + serviceClass.getName();
+    return getPath(serviceClass.getName());
+  }
+
+  public static String getPath(final String serviceClassName) {
+    return SERVICES_PATH + "/" + serviceClassName;
   }
 
   public static Set<String> readServiceFile(final InputStream input) throws IOException {
     try (BufferedReader r = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
       final HashSet<String> serviceClasses = new HashSet<>();
       String line;
-      while ((line = r.readLine()) != null) {
-        final int commentStart = line.indexOf('#');
-        if (commentStart >= 0) {
-          line = line.substring(0, commentStart);
-        }
-        line = line.trim();
+      while ((line = readLine(r)) != null) {
         if (!line.isEmpty()) {
           serviceClasses.add(line);
         }
@@ -62,6 +66,39 @@ final class ServicesFiles {
     }
   }
 
+  /**
+   * Mapping file format (e.g. the service plugin dependencies and index), one line per class:
+   * <pre>class.name: value1, value2</pre>
+   */
+  public static Map<String, Set<String>> readMappingFile(final InputStream input) throws IOException {
+    try (BufferedReader r = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      final HashMap<String, Set<String>> mapping = new HashMap<>();
+      String line;
+      while ((line = readLine(r)) != null) {
+        final int sep = line.indexOf(':');
+        if (sep <= 0) continue;
+
+        final Set<String> values = mapping.computeIfAbsent(line.substring(0, sep).trim(), k -> new HashSet<>());
+        for (final String value: line.substring(sep + 1).split(",")) {
+          final String name = value.trim();
+          if (!name.isEmpty()) values.add(name);
+        }
+      }
+      return mapping;
+    }
+  }
+
+  private static String readLine(final BufferedReader reader) throws IOException {
+    String line = reader.readLine();
+    if (line == null) return null;
+
+    final int commentStart = line.indexOf('#');
+    if (commentStart >= 0) {
+      line = line.substring(0, commentStart);
+    }
+    return line.trim();
+  }
+
   public static void writeServiceFile(final Collection<String> services, final OutputStream output) throws IOException {
     try (final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
       final String[] sortedServices = services.toArray(new String[0]);
@@ -73,4 +110,18 @@ final class ServicesFiles {
       writer.flush();
     }
   }
+
+  public static void writeMappingFile(final Map<String, ? extends Collection<String>> mapping, final OutputStream output) throws IOException {
+    try (final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+      for (final Map.Entry<String, ? extends Collection<String>> entry: new TreeMap<>(mapping).entrySet()) {
+        if (entry.getValue().isEmpty()) continue;
+
+        writer.write(entry.getKey());
+        writer.write(": ");
+        writer.write(String.join(", ", new TreeSet<>(entry.getValue())));
+        writer.newLine();
+      }
+      writer.flush();
+    }
+  }
 }
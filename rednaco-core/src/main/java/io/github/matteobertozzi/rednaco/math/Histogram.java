@@ -19,12 +19,16 @@ package io.github.matteobertozzi.rednaco.math;
 
 import java.util.Arrays;
 
+/**
+ * Histogram with user defined bounds, not thread-safe.
+ * See LogLinearHistogram for a concurrent histogram with O(1) bucket lookup.
+ */
 public class Histogram {
   private final long[] bounds;
   private final long[] events;
   private long minValue;
   private long maxValue;
-  private long sumSquares;
+  private double sumSquares;
   private long sum;
 
   public Histogram(final long[] bounds) {
@@ -49,17 +53,23 @@ public class Histogram {
     events[boundIndex]++;
     minValue = Math.min(minValue, value);
     maxValue = Math.max(maxValue, value);
-    sumSquares += (value * value);
+    sumSquares += ((double) value * value);
     sum += value;
   }
 
   private int findBoundIndex(final long value) {
-    for (int i = 0; i < bounds.length; ++i) {
-      if (value < bounds[i]) {
-        return i;
+    // first bound greater than the value (bounds.length if none)
+    int low = 0;
+    int high = bounds.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (value < bounds[mid]) {
+        high = mid;
+      } else {
+        low = mid + 1;
       }
     }
-    return bounds.length;
+    return low;
   }
 
   public long numEvents() {
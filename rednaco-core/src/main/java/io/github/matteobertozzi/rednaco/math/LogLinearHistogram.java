@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.math;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import io.github.matteobertozzi.rednaco.threading.ThreadProbe;
+import io.github.matteobertozzi.rednaco.util.BitUtil;
+
+/**
+ * Concurrent log-linear (HDR-style) histogram.
+ * Each power of two is split in 2^precisionBits linear sub-buckets:
+ *  - values below 2^precisionBits have one bucket each
+ *  - the other buckets have a width of at most value/2^precisionBits (e.g. 6.25% with 4 bits)
+ * The bucket index is computed in O(1) using numberOfLeadingZeros, no bounds to scan.
+ *
+ * Recording is lock-free: like LongAdder, each thread updates one of the stripes
+ * (allocated on first use) with atomic adds, and the snapshot sums the stripes.
+ * The stripe is picked by the thread probe, moved to another stripe when a CAS fails (see ThreadProbe).
+ * The snapshot is not atomic with the concurrent add(), it may miss some of the in-flight values.
+ *
+ * Each stripe is a long[4 + bucketCount]: with the default precision and no max value
+ * that is 960 buckets, ~7.7KB per stripe. There is one stripe per CPU, up to 64 (~490KB),
+ * allocated only when a thread records on it.
+ * Negative values are recorded as 0, values above maxTrackableValue go in the last bucket.
+ */
+public final class LogLinearHistogram {
+  public static final int DEFAULT_PRECISION_BITS = 4;
+
+  private static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final VarHandle STRIPE_ARRAY = MethodHandles.arrayElementVarHandle(long[][].class);
+  private static final int MAX_STRIPES = 64;
+
+  // stripe layout: [sum, sumSquares (double bits), min, max, bucket0, bucket1, ...]
+  private static final int STRIPE_SUM = 0;
+  private static final int STRIPE_SUM_SQUARES = 1;
+  private static final int STRIPE_MIN = 2;
+  private static final int STRIPE_MAX = 3;
+  private static final int STRIPE_BUCKETS = 4;
+
+  private final long[][] stripes;
+  private final long maxTrackableValue;
+  private final int precisionBits;
+  private final int bucketCount;
+
+  public LogLinearHistogram() {
+    this(DEFAULT_PRECISION_BITS, Long.MAX_VALUE);
+  }
+
+  public LogLinearHistogram(final int precisionBits, final long maxTrackableValue) {
+    if (precisionBits < 1 || precisionBits > 16) {
+      throw new IllegalArgumentException("expected precisionBits between 1 and 16, got " + precisionBits);
+    }
+    if (maxTrackableValue < 1) {
+      throw new IllegalArgumentException("expected a positive maxTrackableValue, got " + maxTrackableValue);
+    }
+    this.precisionBits = precisionBits;
+    this.maxTrackableValue = maxTrackableValue;
+    this.bucketCount = bucketIndex(maxTrackableValue, precisionBits) + 1;
+    this.stripes = new long[Math.min(MAX_STRIPES, BitUtil.nextPow2(Runtime.getRuntime().availableProcessors()))][];
+  }
+
+  public int precisionBits() {
+    return precisionBits;
+  }
+
+  public long maxTrackableValue() {
+    return maxTrackableValue;
+  }
+
+  public int bucketCount() {
+    return bucketCount;
+  }
+
+  // ================================================================================
+  //  Bucket index related
+  // ================================================================================
+  public static int bucketIndex(final long value, final int precisionBits) {
+    // value >>> shift is in [2^precisionBits, 2^(precisionBits + 1)) for the log buckets,
+    // and it is the value itself (shift = 0) for the linear buckets.
+    final int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - precisionBits);
+    return (shift << precisionBits) + (int) (value >>> shift);
+  }
+
+  public static long bucketLowerBound(final int index, final int precisionBits) {
+    final int shift = Math.max(0, (index >>> precisionBits) - 1);
+    return (long) (index - (shift << precisionBits)) << shift;
+  }
+
+  /**
+   * @return the exclusive upper bound of the bucket (Long.MAX_VALUE for the last one)
+   */
+  public static long bucketUpperBound(final int index, final int precisionBits) {
+    final long upper = bucketLowerBound(index + 1, precisionBits);
+    return upper > 0 ? upper : Long.MAX_VALUE;
+  }
+
+  // ================================================================================
+  //  Record related
+  // ================================================================================
+  public void add(final long value) {
+    final long v = Math.max(0, value);
+    final int probe = ThreadProbe.probe();
+    final long[] stripe = stripe(probe);
+    LONG_ARRAY.getAndAdd(stripe, STRIPE_BUCKETS + bucketIndex(Math.min(v, maxTrackableValue), precisionBits), 1L);
+    LONG_ARRAY.getAndAdd(stripe, STRIPE_SUM, v);
+    boolean contended = addDouble(stripe, STRIPE_SUM_SQUARES, (double) v * v);
+    contended |= updateMin(stripe, v);
+    contended |= updateMax(stripe, v);
+    if (contended) ThreadProbe.advanceProbe(probe);
+  }
+
+  /**
+   * Add the values of the other histogram to this one.
+   * The other histogram can be updated concurrently, its in-flight values may be missed.
+   */
+  public void merge(final LogLinearHistogram other) {
+    merge(other.snapshot());
+  }
+
+  public void merge(final Snapshot other) {
+    if (other.precisionBits != precisionBits) {
+      throw new IllegalArgumentException("expected precisionBits " + precisionBits + ", got " + other.precisionBits);
+    }
+    if (other.numEvents == 0) return;
+
+    final long[] stripe = stripe(ThreadProbe.probe());
+    for (int i = 0; i < other.events.length; ++i) {
+      final long count = other.events[i];
+      if (count != 0) {
+        LONG_ARRAY.getAndAdd(stripe, STRIPE_BUCKETS + Math.min(other.firstBucket + i, bucketCount - 1), count);
+      }
+    }
+    LONG_ARRAY.getAndAdd(stripe, STRIPE_SUM, other.sum);
+    addDouble(stripe, STRIPE_SUM_SQUARES, other.sumSquares);
+    updateMin(stripe, other.minValue);
+    updateMax(stripe, other.maxValue);
+  }
+
+  /**
+   * Reset the histogram. This is not atomic with the concurrent add(),
+   * use a snapshot() and a new histogram if the values must not be lost.
+   */
+  public void reset() {
+    for (final long[] stripe: stripes) {
+      if (stripe == null) continue;
+      for (int i = STRIPE_BUCKETS; i < stripe.length; ++i) {
+        LONG_ARRAY.setVolatile(stripe, i, 0L);
+      }
+      LONG_ARRAY.setVolatile(stripe, STRIPE_SUM, 0L);
+      LONG_ARRAY.setVolatile(stripe, STRIPE_SUM_SQUARES, Double.doubleToRawLongBits(0));
+      LONG_ARRAY.setVolatile(stripe, STRIPE_MIN, Long.MAX_VALUE);
+      LONG_ARRAY.setVolatile(stripe, STRIPE_MAX, Long.MIN_VALUE);
+    }
+  }
+
+  private long[] stripe(final int probe) {
+    final int index = probe & (stripes.length - 1);
+    final long[] stripe = (long[]) STRIPE_ARRAY.getAcquire(stripes, index);
+    return stripe != null ? stripe : newStripe(index);
+  }
+
+  private long[] newStripe(final int index) {
+    final long[] stripe = new long[STRIPE_BUCKETS + bucketCount];
+    stripe[STRIPE_MIN] = Long.MAX_VALUE;
+    stripe[STRIPE_MAX] = Long.MIN_VALUE;
+    final long[] witness = (long[]) STRIPE_ARRAY.compareAndExchangeRelease(stripes, index, null, stripe);
+    return witness != null ? witness : stripe;
+  }
+
+  // the CAS loops return true if they failed at least once (the stripe is contended)
+  private static boolean addDouble(final long[] stripe, final int index, final double value) {
+    long current = (long) LONG_ARRAY.getVolatile(stripe, index);
+    boolean contended = false;
+    while (true) {
+      final long next = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value);
+      final long witness = (long) LONG_ARRAY.compareAndExchange(stripe, index, current, next);
+      if (witness == current) return contended;
+      current = witness;
+      contended = true;
+    }
+  }
+
+  private static boolean updateMin(final long[] stripe, final long value) {
+    long current = (long) LONG_ARRAY.getVolatile(stripe, STRIPE_MIN);
+    boolean contended = false;
+    while (value < current) {
+      final long witness = (long) LONG_ARRAY.compareAndExchange(stripe, STRIPE_MIN, current, value);
+      if (witness == current) return contended;
+      current = witness;
+      contended = true;
+    }
+    return contended;
+  }
+
+  private static boolean updateMax(final long[] stripe, final long value) {
+    long current = (long) LONG_ARRAY.getVolatile(stripe, STRIPE_MAX);
+    boolean contended = false;
+    while (value > current) {
+      final long witness = (long) LONG_ARRAY.compareAndExchange(stripe, STRIPE_MAX, current, value);
+      if (witness == current) return contended;
+      current = witness;
+      contended = true;
+    }
+    return contended;
+  }
+
+  // ================================================================================
+  //  Snapshot related
+  // ================================================================================
+  public Snapshot snapshot() {
+    final long[] events = new long[bucketCount];
+    long sum = 0;
+    double sumSquares = 0;
+    long minValue = Long.MAX_VALUE;
+    long maxValue = Long.MIN_VALUE;
+    for (final long[] stripe: stripes) {
+      if (stripe == null) continue;
+
+      for (int i = 0; i < bucketCount; ++i) {
+        events[i] += (long) LONG_ARRAY.getVolatile(stripe, STRIPE_BUCKETS + i);
+      }
+      sum += (long) LONG_ARRAY.getVolatile(stripe, STRIPE_SUM);
+      sumSquares += Double.longBitsToDouble((long) LONG_ARRAY.getVolatile(stripe, STRIPE_SUM_SQUARES));
+      minValue = Math.min(minValue, (long) LONG_ARRAY.getVolatile(stripe, STRIPE_MIN));
+      maxValue = Math.max(maxValue, (long) LONG_ARRAY.getVolatile(stripe, STRIPE_MAX));
+    }
+    return Snapshot.of(precisionBits, 0, events, minValue, maxValue, sum, sumSquares);
+  }
+
+  @Override
+  public String toString() {
+    return "LogLinearHistogram [precisionBits=" + precisionBits + ", buckets=" + bucketCount + ", " + snapshot() + "]";
+  }
+
+  /**
+   * Immutable view of the histogram, with only the range of the non-empty buckets.
+   */
+  public static final class Snapshot {
+    private static final long[] EMPTY_EVENTS = new long[0];
+
+    private final long[] events;
+    private final int firstBucket;
+    private final int precisionBits;
+    private final long numEvents;
+    private final long minValue;
+    private final long maxValue;
+    private final long sum;
+    private final double sumSquares;
+    private long[] bounds;
+
+    private Snapshot(final int precisionBits, final int firstBucket, final long[] events, final long numEvents,
+        final long minValue, final long maxValue, final long sum, final double sumSquares) {
+      this.precisionBits = precisionBits;
+      this.firstBucket = firstBucket;
+      this.events = events;
+      this.numEvents = numEvents;
+      this.minValue = minValue;
+      this.maxValue = maxValue;
+      this.sum = sum;
+      this.sumSquares = sumSquares;
+    }
+
+    /**
+     * @return a snapshot without events, e.g. the initial value when merging snapshots
+     */
+    public static Snapshot empty(final int precisionBits) {
+      return new Snapshot(precisionBits, 0, EMPTY_EVENTS, 0, 0, 0, 0, 0);
+    }
+
+    private static Snapshot of(final int precisionBits, final int firstBucket, final long[] events,
+        final long minValue, final long maxValue, final long sum, final double sumSquares) {
+      int first = 0;
+      int last = events.length - 1;
+      while (first <= last && events[first] == 0) first++;
+      while (last >= first && events[last] == 0) last--;
+      if (first > last) return empty(precisionBits);
+
+      final long[] trimmed = (first == 0 && last == events.length - 1) ? events : Arrays.copyOfRange(events, first, last + 1);
+      final long numEvents = Statistics.sum(trimmed, 0, trimmed.length);
+      return new Snapshot(precisionBits, firstBucket + first, trimmed, numEvents, minValue, maxValue, sum, sumSquares);
+    }
+
+    /**
+     * @return a new snapshot with the values of both snapshots
+     */
+    public Snapshot merge(final Snapshot other) {
+      if (other.precisionBits != precisionBits) {
+        throw new IllegalArgumentException("expected precisionBits " + precisionBits + ", got " + other.precisionBits);
+      }
+      if (other.numEvents == 0) return this;
+      if (numEvents == 0) return other;
+
+      final int first = Math.min(firstBucket, other.firstBucket);
+      final int last = Math.max(firstBucket + events.length, other.firstBucket + other.events.length);
+      final long[] merged = new long[last - first];
+      for (int i = 0; i < events.length; ++i) merged[firstBucket - first + i] += events[i];
+      for (int i = 0; i < other.events.length; ++i) merged[other.firstBucket - first + i] += other.events[i];
+      return of(precisionBits, first, merged, Math.min(minValue, other.minValue), Math.max(maxValue, other.maxValue),
+        sum + other.sum, sumSquares + other.sumSquares);
+    }
+
+    public boolean isEmpty() { return numEvents == 0; }
+    public int precisionBits() { return precisionBits; }
+    public long numEvents() { return numEvents; }
+    public long minValue() { return minValue; }
+    public long maxValue() { return maxValue; }
+    public long sum() { return sum; }
+
+    public int bucketCount() { return events.length; }
+    public long events(final int index) { return events[index]; }
+    public long bucketLowerBound(final int index) { return LogLinearHistogram.bucketLowerBound(firstBucket + index, precisionBits); }
+    public long bucketUpperBound(final int index) { return LogLinearHistogram.bucketUpperBound(firstBucket + index, precisionBits); }
+
+    /**
+     * @return the exclusive upper bound of each bucket, in the layout expected by Statistics.percentile()
+     */
+    public long[] bounds() {
+      if (bounds == null) {
+        final long[] upperBounds = new long[events.length];
+        for (int i = 0; i < upperBounds.length; ++i) {
+          upperBounds[i] = bucketUpperBound(i);
+        }
+        bounds = upperBounds;
+      }
+      return bounds;
+    }
+
+    public double average() {
+      return Statistics.average(numEvents, sum);
+    }
+
+    public double standardDeviation() {
+      return Statistics.standardDeviation(numEvents, sum, sumSquares);
+    }
+
+    public double median() { return percentile(50.0); }
+
+    public double percentile(final double p) {
+      return Statistics.percentile(p, bounds(), minValue, maxValue, numEvents, events, 0);
+    }
+
+    @Override
+    public String toString() {
+      if (numEvents == 0) return "Snapshot [numEvents=0]";
+      return "Snapshot [numEvents=" + numEvents + ", min=" + minValue + ", max=" + maxValue
+        + ", avg=" + average() + ", p50=" + percentile(50) + ", p99=" + percentile(99) + "]";
+    }
+  }
+}
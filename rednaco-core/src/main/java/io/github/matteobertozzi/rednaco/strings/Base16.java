@@ -17,17 +17,31 @@
 
 package io.github.matteobertozzi.rednaco.strings;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
 import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
 
 public class Base16 {
+  /** minimum size of the scratch block of the ByteBuffer and ByteArrayAppender codecs, see BaseCodecUtil */
+  public static final int SCRATCH_BLOCK_SIZE = BaseCodecUtil.BLOCK_SIZE;
+
   private static final class HolderBase16 {
     private static final Base16 BASE16 = new Base16("0123456789abcdefABCDEF");
   }
 
   public static Base16 base16() { return HolderBase16.BASE16; }
 
+  private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
   private final char[] alphabet;
   private final short[] decodeTable;
+  // byte -> 2 chars
+  private final char[] encodePairs;
 
   public Base16(final String alphabet) {
     this(alphabet.toCharArray());
@@ -40,6 +54,11 @@ public class Base16 {
   public Base16(final char[] alphabet, final short[] decodeTable) {
     this.alphabet = alphabet;
     this.decodeTable = decodeTable;
+
+    this.encodePairs = new char[256];
+    for (int i = 0; i < encodePairs.length; ++i) {
+      encodePairs[i] = (char) ((alphabet[i >>> 4] << 8) | alphabet[i & 0xf]);
+    }
   }
 
   // ====================================================================================================
@@ -52,9 +71,9 @@ public class Base16 {
   public String encode(final byte[] data, final int offset, final int length) {
     if (length == 0) return "";
 
-    final StringBuilder builder = new StringBuilder(length * 2);
-    encode(builder, data, offset, length);
-    return builder.toString();
+    final byte[] buffer = new byte[length << 1];
+    encode(data, offset, length, buffer, 0);
+    return new String(buffer, StandardCharsets.ISO_8859_1);
   }
 
   public void encode(final StringBuilder builder, final byte[] data, final int offset, final int length) {
@@ -63,6 +82,49 @@ public class Base16 {
     }
   }
 
+  /**
+   * Encode the data into the specified buffer, without allocations.
+   * 4 bytes are mapped to 8 chars and stored as a single long per iteration.
+   * @param dst the output buffer, must have at least (length * 2) bytes available from dstOff
+   * @return the number of bytes written (length * 2)
+   */
+  public int encode(final byte[] data, final int offset, final int length, final byte[] dst, final int dstOff) {
+    final int end = offset + length;
+    int i = offset;
+    int dstIndex = dstOff;
+    while ((i + 4) <= end) {
+      final long chars = ((long) encodePairs[data[i] & 0xff] << 48)
+                       | ((long) encodePairs[data[i + 1] & 0xff] << 32)
+                       | ((long) encodePairs[data[i + 2] & 0xff] << 16)
+                       | encodePairs[data[i + 3] & 0xff];
+      LONG_BE.set(dst, dstIndex, chars);
+      dstIndex += 8;
+      i += 4;
+    }
+    for (; i < end; ++i) {
+      final char pair = encodePairs[data[i] & 0xff];
+      dst[dstIndex++] = (byte) (pair >>> 8);
+      dst[dstIndex++] = (byte) pair;
+    }
+    return dstIndex - dstOff;
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteBuffer dst) {
+    encode(data, offset, length, dst, null);
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteBuffer dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::encode, data, offset, length, BaseCodecUtil.BLOCK_SIZE >> 1, length << 1, dst, scratch);
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteArrayAppender dst) {
+    encode(data, offset, length, dst, null);
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteArrayAppender dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::encode, data, offset, length, BaseCodecUtil.BLOCK_SIZE >> 1, dst, scratch);
+  }
+
   public void encodeByte(final StringBuilder builder, final int value) {
     final int val = value & 0xff;
     builder.append(alphabet[(val >> 4) & 0xf]);
@@ -110,12 +172,40 @@ public class Base16 {
     if (length == 0) return null;
 
     final byte[] buffer = new byte[length >> 1];
-    for (int i = 0, off = 0; i < length; ++off, i += 2) {
-      buffer[off] = (byte) ((decodeTable[encoded[offset + i]] << 4) | decodeTable[encoded[offset + i + 1]]);
-    }
+    decode(encoded, offset, length, buffer, 0);
     return buffer;
   }
 
+  /**
+   * Decode the data into the specified buffer, without allocations.
+   * @param dst the output buffer, must have at least (length / 2) bytes available from dstOff
+   * @return the number of bytes written (length / 2)
+   */
+  public int decode(final byte[] encoded, final int offset, final int length, final byte[] dst, final int dstOff) {
+    final int count = length >> 1;
+    for (int i = 0; i < count; ++i) {
+      final int index = offset + (i << 1);
+      dst[dstOff + i] = (byte) ((decodeTable[encoded[index]] << 4) | decodeTable[encoded[index + 1]]);
+    }
+    return count;
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteBuffer dst) {
+    decode(encoded, offset, length, dst, null);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteBuffer dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::decode, encoded, offset, length, BaseCodecUtil.BLOCK_SIZE, length >> 1, dst, scratch);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteArrayAppender dst) {
+    decode(encoded, offset, length, dst, null);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteArrayAppender dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::decode, encoded, offset, length, BaseCodecUtil.BLOCK_SIZE, dst, scratch);
+  }
+
   // ====================================================================================================
   //  Decode String related
   // ====================================================================================================
@@ -127,12 +217,24 @@ public class Base16 {
     if (StringUtil.isEmpty(encoded)) return null;
 
     final byte[] buffer = new byte[length >> 1];
-    for (int i = 0, off = 0; i < length; ++off, i += 2) {
-      buffer[off] = (byte) ((decodeTable[encoded.charAt(offset + i)] << 4) | decodeTable[encoded.charAt(offset + i + 1)]);
-    }
+    decode(encoded, offset, length, buffer, 0);
     return buffer;
   }
 
+  /**
+   * Decode the data into the specified buffer, without allocations.
+   * @param dst the output buffer, must have at least (length / 2) bytes available from dstOff
+   * @return the number of bytes written (length / 2)
+   */
+  public int decode(final String encoded, final int offset, final int length, final byte[] dst, final int dstOff) {
+    final int count = length >> 1;
+    for (int i = 0; i < count; ++i) {
+      final int index = offset + (i << 1);
+      dst[dstOff + i] = (byte) ((decodeTable[encoded.charAt(index)] << 4) | decodeTable[encoded.charAt(index + 1)]);
+    }
+    return count;
+  }
+
   public int decodeInt32(final String encoded) {
     return decodeInt32(encoded, 0, StringUtil.length(encoded));
   }
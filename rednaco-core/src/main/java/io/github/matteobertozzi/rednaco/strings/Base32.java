@@ -17,6 +17,10 @@
 
 package io.github.matteobertozzi.rednaco.strings;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
 import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
 
 //  Base32
@@ -26,6 +30,9 @@ import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
 // 7 6 5 4 3 2 1 0 7 6 5 4 3 2 1 0 7 6 5 4 3 2 1 0 7 6 5 4 3 2 1 0 7 6 5 4 3 2 1 0 |
 //               1               2               3               4               5 | bytes
 public class Base32 {
+  /** minimum size of the scratch block of the ByteBuffer and ByteArrayAppender codecs, see BaseCodecUtil */
+  public static final int SCRATCH_BLOCK_SIZE = BaseCodecUtil.BLOCK_SIZE;
+
   private static final class HolderBase32 {
     private static final Base32 BASE32 = new Base32("ABCDEFGHIJKLMNOPQRSTUVWXYZ234567");
   }
@@ -63,7 +70,7 @@ public class Base32 {
   // ====================================================================================================
   //  Encode related
   // ====================================================================================================
-  private static int lengthEncoded(final int decodedLength) {
+  public static int lengthEncoded(final int decodedLength) {
     final int length = (decodedLength / 5) << 3;
     return switch (decodedLength % 5) {
       case 4 -> length + 7;
@@ -81,9 +88,9 @@ public class Base32 {
   public String encode(final byte[] data, final int offset, final int length) {
     if (length == 0) return "";
 
-    final StringBuilder builder = new StringBuilder(lengthEncoded(length));
-    encode(builder, data, offset, length);
-    return builder.toString();
+    final byte[] buffer = new byte[lengthEncoded(length)];
+    encode(data, offset, length, buffer, 0);
+    return new String(buffer, StandardCharsets.ISO_8859_1);
   }
 
   public void encode(final StringBuilder builder, final byte[] data, final int offset, int length) {
@@ -145,6 +152,88 @@ public class Base32 {
     }
   }
 
+  /**
+   * Encode the data into the specified buffer, without allocations.
+   * @param dst the output buffer, must have at least lengthEncoded(length) bytes available from dstOff
+   * @return the number of bytes written (lengthEncoded(length))
+   */
+  public int encode(final byte[] data, final int offset, int length, final byte[] dst, final int dstOff) {
+    int i = offset;
+    int dstIndex = dstOff;
+    while (length >= 5) {
+      final long x = ((long)(data[i] & 0xff) << 32)
+                    | ((long)(data[i + 1] & 0xff) << 24)
+                    | (data[i + 2] & 0xff) << 16
+                    | (data[i + 3] & 0xff) << 8
+                    | (data[i + 4] & 0xff);
+      dst[dstIndex++] = (byte) alphabet[(int)((x >> 35) & 0x1f)];
+      dst[dstIndex++] = (byte) alphabet[(int)((x >> 30) & 0x1f)];
+      dst[dstIndex++] = (byte) alphabet[(int)((x >> 25) & 0x1f)];
+      dst[dstIndex++] = (byte) alphabet[(int)((x >> 20) & 0x1f)];
+      dst[dstIndex++] = (byte) alphabet[(int)((x >> 15) & 0x1f)];
+      dst[dstIndex++] = (byte) alphabet[(int)((x >> 10) & 0x1f)];
+      dst[dstIndex++] = (byte) alphabet[(int)((x >>  5) & 0x1f)];
+      dst[dstIndex++] = (byte) alphabet[(int)((x) & 0x1f)];
+      length -= 5;
+      i += 5;
+    }
+
+    switch (length) {
+      case 4: // 7byte
+        final long x4 = ((long)(data[i] & 0xff) << 27)
+                      | (data[i + 1] & 0xff) << 19
+                      | (data[i + 2] & 0xff) << 11
+                      | (data[i + 3] & 0xff) << 3;
+        dst[dstIndex++] = (byte) alphabet[(int)((x4 >> 30) & 0x1f)];
+        dst[dstIndex++] = (byte) alphabet[(int)((x4 >> 25) & 0x1f)];
+        dst[dstIndex++] = (byte) alphabet[(int)((x4 >> 20) & 0x1f)];
+        dst[dstIndex++] = (byte) alphabet[(int)((x4 >> 15) & 0x1f)];
+        dst[dstIndex++] = (byte) alphabet[(int)((x4 >> 10) & 0x1f)];
+        dst[dstIndex++] = (byte) alphabet[(int)((x4 >>  5) & 0x1f)];
+        dst[dstIndex++] = (byte) alphabet[(int)((x4) & 0x1f)];
+        break;
+      case 3: // 5byte
+        final int x3 =  (data[i] & 0xff) << 17 |
+                        (data[i + 1] & 0xff) << 9  |
+                        (data[i + 2] & 0xff) << 1;
+        dst[dstIndex++] = (byte) alphabet[(x3 >> 20) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x3 >> 15) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x3 >> 10) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x3 >>  5) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x3) & 0x1f];
+        break;
+      case 2: // 4byte
+        final int x2 = ((data[i] & 0xff) << 12) | ((data[i + 1] & 0xff) << 4);
+        dst[dstIndex++] = (byte) alphabet[(x2 >> 15) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x2 >> 10) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x2 >>  5) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x2) & 0x1f];
+        break;
+      case 1: // 2byte
+        final int x1 = (data[i] & 0xff) << 2;
+        dst[dstIndex++] = (byte) alphabet[(x1 >>  5) & 0x1f];
+        dst[dstIndex++] = (byte) alphabet[(x1) & 0x1f];
+        break;
+    }
+    return dstIndex - dstOff;
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteBuffer dst) {
+    encode(data, offset, length, dst, null);
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteBuffer dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::encode, data, offset, length, (BaseCodecUtil.BLOCK_SIZE / 8) * 5, lengthEncoded(length), dst, scratch);
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteArrayAppender dst) {
+    encode(data, offset, length, dst, null);
+  }
+
+  public void encode(final byte[] data, final int offset, final int length, final ByteArrayAppender dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::encode, data, offset, length, (BaseCodecUtil.BLOCK_SIZE / 8) * 5, dst, scratch);
+  }
+
   // ====================================================================================================
   //  Decode byte[] related
   // ====================================================================================================
@@ -152,11 +241,21 @@ public class Base32 {
     return decode(encoded, 0, BytesUtil.length(encoded));
   }
 
-  public byte[] decode(final byte[] encoded, final int offset, int length) {
+  public byte[] decode(final byte[] encoded, final int offset, final int length) {
     if (length == 0) return null;
 
     final byte[] data = new byte[lengthDecoded(length)];
-    int dataIndex = 0;
+    decode(encoded, offset, length, data, 0);
+    return data;
+  }
+
+  /**
+   * Decode the data into the specified buffer, without allocations.
+   * @param data the output buffer, must have at least lengthDecoded(length) bytes available from dataOff
+   * @return the number of bytes written (lengthDecoded(length))
+   */
+  public int decode(final byte[] encoded, final int offset, int length, final byte[] data, final int dataOff) {
+    int dataIndex = dataOff;
 
     int i = offset;
     while (length >= 8) {
@@ -190,7 +289,7 @@ public class Base32 {
         data[dataIndex++] = (byte)((x4 >> 27) & 0xff);
         data[dataIndex++] = (byte)((x4 >> 19) & 0xff);
         data[dataIndex++] = (byte)((x4 >> 11) & 0xff);
-        data[dataIndex] = (byte)((x4 >> 3) & 0xff);
+        data[dataIndex++] = (byte)((x4 >> 3) & 0xff);
         break;
       case 5:
         final int x3 = (decodeTable[encoded[i] & 0xff]) << 20
@@ -200,7 +299,7 @@ public class Base32 {
                      | (decodeTable[encoded[i + 4] & 0xff]);
         data[dataIndex++] = (byte)((x3 >> 17) & 0xff);
         data[dataIndex++] = (byte)((x3 >> 9) & 0xff);
-        data[dataIndex] = (byte)((x3 >> 1) & 0xff);
+        data[dataIndex++] = (byte)((x3 >> 1) & 0xff);
         break;
       case 4:
         final int x2 = (decodeTable[encoded[i] & 0xff]) << 15
@@ -208,16 +307,32 @@ public class Base32 {
                      | (decodeTable[encoded[i + 2] & 0xff]) <<  5
                      | (decodeTable[encoded[i + 3] & 0xff]);
         data[dataIndex++] = (byte)((x2 >> 12) & 0xff);
-        data[dataIndex] = (byte)((x2 >> 4) & 0xff);
+        data[dataIndex++] = (byte)((x2 >> 4) & 0xff);
         break;
       case 2:
         final int x1 = (decodeTable[encoded[i] & 0xff]) << 5
                      | (decodeTable[encoded[i + 1] & 0xff]);
-        data[dataIndex] = (byte)((x1 >> 2) & 0xff);
+        data[dataIndex++] = (byte)((x1 >> 2) & 0xff);
         break;
     }
 
-    return data;
+    return dataIndex - dataOff;
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteBuffer dst) {
+    decode(encoded, offset, length, dst, null);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteBuffer dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::decode, encoded, offset, length, BaseCodecUtil.BLOCK_SIZE, lengthDecoded(length), dst, scratch);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteArrayAppender dst) {
+    decode(encoded, offset, length, dst, null);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteArrayAppender dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::decode, encoded, offset, length, BaseCodecUtil.BLOCK_SIZE, dst, scratch);
   }
 
   // ====================================================================================================
@@ -227,11 +342,21 @@ public class Base32 {
     return decode(encoded, 0, StringUtil.length(encoded));
   }
 
-  public byte[] decode(final String encoded, final int offset, int length) {
+  public byte[] decode(final String encoded, final int offset, final int length) {
     if (StringUtil.isEmpty(encoded)) return null;
 
     final byte[] data = new byte[lengthDecoded(length)];
-    int dataIndex = 0;
+    decode(encoded, offset, length, data, 0);
+    return data;
+  }
+
+  /**
+   * Decode the data into the specified buffer, without allocations.
+   * @param data the output buffer, must have at least lengthDecoded(length) bytes available from dataOff
+   * @return the number of bytes written (lengthDecoded(length))
+   */
+  public int decode(final String encoded, final int offset, int length, final byte[] data, final int dataOff) {
+    int dataIndex = dataOff;
 
     int i = offset;
     while (length >= 8) {
@@ -265,7 +390,7 @@ public class Base32 {
         data[dataIndex++] = (byte)((x4 >> 27) & 0xff);
         data[dataIndex++] = (byte)((x4 >> 19) & 0xff);
         data[dataIndex++] = (byte)((x4 >> 11) & 0xff);
-        data[dataIndex] = (byte)((x4 >> 3) & 0xff);
+        data[dataIndex++] = (byte)((x4 >> 3) & 0xff);
         break;
       case 5:
         final int x3 = (decodeTable[encoded.charAt(i)]) << 20
@@ -275,7 +400,7 @@ public class Base32 {
                      | (decodeTable[encoded.charAt(i + 4)]);
         data[dataIndex++] = (byte)((x3 >> 17) & 0xff);
         data[dataIndex++] = (byte)((x3 >> 9) & 0xff);
-        data[dataIndex] = (byte)((x3 >> 1) & 0xff);
+        data[dataIndex++] = (byte)((x3 >> 1) & 0xff);
         break;
       case 4:
         final int x2 = (decodeTable[encoded.charAt(i)]) << 15
@@ -283,19 +408,19 @@ public class Base32 {
                      | (decodeTable[encoded.charAt(i + 2)]) <<  5
                      | (decodeTable[encoded.charAt(i + 3)]);
         data[dataIndex++] = (byte)((x2 >> 12) & 0xff);
-        data[dataIndex] = (byte)((x2 >> 4) & 0xff);
+        data[dataIndex++] = (byte)((x2 >> 4) & 0xff);
         break;
       case 2:
         final int x1 = (decodeTable[encoded.charAt(i)]) << 5
                      | (decodeTable[encoded.charAt(i + 1)]);
-        data[dataIndex] = (byte)((x1 >> 2) & 0xff);
+        data[dataIndex++] = (byte)((x1 >> 2) & 0xff);
         break;
     }
 
-    return data;
+    return dataIndex - dataOff;
   }
 
-  private static int lengthDecoded(final int encodedLength) {
+  public static int lengthDecoded(final int encodedLength) {
     final int length = (encodedLength >>> 3) * 5;
     return switch (encodedLength & 7) {
       case 7 -> length + 4;
@@ -17,6 +17,14 @@
 
 package io.github.matteobertozzi.rednaco.strings;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
 import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
 
 //  Base64
@@ -25,9 +33,19 @@ import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
 // 0 1 2 3 4 5 0 1 2 3 4 5 0 1 2 3 4 5 0 1 2 3 4 5 |
 // 7 6 5 4 3 2 1 0 7 6 5 4 3 2 1 0 7 6 5 4 3 2 1 0 |
 //               1               2               3 | bytes
+//
+// The byte[] encode/decode use SWAR: 6 bytes are loaded/stored as a big-endian long,
+// each 12bit of the encoded side are mapped with a single lookup (2 chars),
+// and the 4 chars of the decoded side are mapped with 4 pre-shifted tables.
+// Two 6 bytes groups are processed per iteration (12 bytes <-> 16 chars).
+// The standard and url-safe alphabets use the java.util.Base64 intrinsics,
+// when the input and the output are whole arrays.
 public class Base64 {
+  /** minimum size of the scratch block of the ByteBuffer and ByteArrayAppender codecs, see BaseCodecUtil */
+  public static final int SCRATCH_BLOCK_SIZE = BaseCodecUtil.BLOCK_SIZE;
+
   private static final class HolderBase64 {
-    private static final Base64 BASE64 = new Base64("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/");
+    private static final Base64 BASE64 = new Base64(ALPHABET_STANDARD);
   }
   private static final class HolderBase64Hex {
     private static final Base64 BASE64_HEX = new Base64("-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz");
@@ -36,8 +54,26 @@ public class Base64 {
   public static Base64 base64() { return HolderBase64.BASE64; }
   public static Base64 base64hex() { return HolderBase64Hex.BASE64_HEX; }
 
+  private static final String ALPHABET_STANDARD = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+  private static final String ALPHABET_URL_SAFE = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+
+  private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  // any bit above the 24 of a decoded group, the sign bit makes the check a single (x < 0)
+  private static final int INVALID = 0xff000000;
+
   private final char[] alphabet;
-  private final short[] decodeTable;
+
+  // 12bit -> 2 chars
+  private final char[] encodePairs;
+  // char -> 6bit value pre-shifted at the position of the 1st, 2nd, 3rd and 4th char of the group
+  private final int[] decode0;
+  private final int[] decode1;
+  private final int[] decode2;
+  private final int[] decode3;
+  // not null for the alphabets supported by java.util.Base64
+  private final java.util.Base64.Encoder jdkEncoder;
+  private final java.util.Base64.Decoder jdkDecoder;
 
   public Base64(final String alphabet) {
     this(alphabet.toCharArray());
@@ -49,7 +85,62 @@ public class Base64 {
 
   public Base64(final char[] alphabet, final short[] decodeTable) {
     this.alphabet = alphabet;
-    this.decodeTable = decodeTable;
+
+    this.encodePairs = new char[1 << 12];
+    for (int i = 0; i < encodePairs.length; ++i) {
+      encodePairs[i] = (char) ((alphabet[i >>> 6] << 8) | alphabet[i & 0x3f]);
+    }
+
+    this.decode0 = new int[256];
+    this.decode1 = new int[256];
+    this.decode2 = new int[256];
+    this.decode3 = new int[256];
+    for (int c = 0; c < 256; ++c) {
+      final int v = c < decodeTable.length ? decodeTable[c] : -1;
+      decode0[c] = v < 0 ? INVALID : v << 18;
+      decode1[c] = v < 0 ? INVALID : v << 12;
+      decode2[c] = v < 0 ? INVALID : v << 6;
+      decode3[c] = v < 0 ? INVALID : v;
+    }
+
+    final String alphabetString = new String(alphabet);
+    if (alphabetString.equals(ALPHABET_STANDARD) && isDefaultDecodeTable(alphabet, decodeTable)) {
+      this.jdkEncoder = java.util.Base64.getEncoder().withoutPadding();
+      this.jdkDecoder = java.util.Base64.getDecoder();
+    } else if (alphabetString.equals(ALPHABET_URL_SAFE) && isDefaultDecodeTable(alphabet, decodeTable)) {
+      this.jdkEncoder = java.util.Base64.getUrlEncoder().withoutPadding();
+      this.jdkDecoder = java.util.Base64.getUrlDecoder();
+    } else {
+      this.jdkEncoder = null;
+      this.jdkDecoder = null;
+    }
+  }
+
+  private static boolean isDefaultDecodeTable(final char[] alphabet, final short[] decodeTable) {
+    return Arrays.equals(decodeTable, BaseN.buildDecodeTable(alphabet));
+  }
+
+  private boolean canUseJdkDecoder(final int lastChar, final int length) {
+    // the jdk decoder accepts the '=' padding, and rejects a trailing single char
+    return jdkDecoder != null && lastChar != '=' && (length & 3) != 1;
+  }
+
+  public static int lengthEncoded(final int decodedLength) {
+    final int length = (decodedLength / 3) << 2;
+    return switch (decodedLength % 3) {
+      case 1 -> length + 2;
+      case 2 -> length + 3;
+      default -> length;
+    };
+  }
+
+  public static int lengthDecoded(final int encodedLength) {
+    final int length = (encodedLength >>> 2) * 3;
+    return switch (encodedLength & 3) {
+      case 2 -> length + 1;
+      case 3 -> length + 2;
+      default -> length;
+    };
   }
 
   // ====================================================================================================
@@ -60,14 +151,20 @@ public class Base64 {
   }
 
   public String encode(final byte[] data, final int off, final int length) {
-    final StringBuilder builder = new StringBuilder(length * 2);
-    encode(builder, data, off, length);
-    return builder.toString();
+    if (length == 0) return "";
+    if (jdkEncoder != null && off == 0 && length == data.length) {
+      return jdkEncoder.encodeToString(data);
+    }
+
+    final byte[] buffer = new byte[lengthEncoded(length)];
+    encode(data, off, length, buffer, 0);
+    return new String(buffer, StandardCharsets.ISO_8859_1);
   }
 
   public void encode(final StringBuilder builder, final byte[] data, final int off, final int length) {
+    final int end = off + length;
     int offset = off;
-    while ((offset + 3) <= length) {
+    while ((offset + 3) <= end) {
       final int v0 = data[offset++] & 0xff;
       final int v1 = data[offset++] & 0xff;
       final int v2 = data[offset++] & 0xff;
@@ -78,7 +175,7 @@ public class Base64 {
       builder.append(alphabet[v2 & 0x3f]);
     }
 
-    switch (length - offset) {
+    switch (end - offset) {
       case 1: {
         final int v0 = data[offset] & 0xff;
         builder.append(alphabet[v0 >>> 2]);
@@ -96,6 +193,84 @@ public class Base64 {
     }
   }
 
+  /**
+   * Encode the data into the specified buffer, without allocations.
+   * @param dst the output buffer, must have at least lengthEncoded(length) bytes available from dstOff
+   * @return the number of bytes written (lengthEncoded(length))
+   */
+  public int encode(final byte[] data, final int off, final int length, final byte[] dst, final int dstOff) {
+    if (jdkEncoder != null && off == 0 && length == data.length && dstOff == 0) {
+      return jdkEncoder.encode(data, dst);
+    }
+
+    final int end = off + length;
+    int offset = off;
+    int dstIndex = dstOff;
+
+    // the 8 bytes loads use only the first 6 bytes, so we need 2 bytes of slack at the end
+    while ((offset + 14) <= end) {
+      final long a = (long) LONG_BE.get(data, offset);
+      final long b = (long) LONG_BE.get(data, offset + 6);
+      LONG_BE.set(dst, dstIndex, encode48(a));
+      LONG_BE.set(dst, dstIndex + 8, encode48(b));
+      offset += 12;
+      dstIndex += 16;
+    }
+
+    while ((offset + 3) <= end) {
+      final int v = ((data[offset] & 0xff) << 16) | ((data[offset + 1] & 0xff) << 8) | (data[offset + 2] & 0xff);
+      final char c01 = encodePairs[v >>> 12];
+      final char c23 = encodePairs[v & 0xfff];
+      dst[dstIndex++] = (byte) (c01 >>> 8);
+      dst[dstIndex++] = (byte) c01;
+      dst[dstIndex++] = (byte) (c23 >>> 8);
+      dst[dstIndex++] = (byte) c23;
+      offset += 3;
+    }
+
+    switch (end - offset) {
+      case 1: {
+        final int v0 = data[offset] & 0xff;
+        dst[dstIndex++] = (byte) alphabet[v0 >>> 2];
+        dst[dstIndex++] = (byte) alphabet[(v0 & 3) << 4];
+        break;
+      }
+      case 2: {
+        final int v0 = data[offset] & 0xff;
+        final int v1 = data[offset + 1] & 0xff;
+        dst[dstIndex++] = (byte) alphabet[v0 >>> 2];
+        dst[dstIndex++] = (byte) alphabet[((v0 & 3) << 4) | (v1 >>> 4)];
+        dst[dstIndex++] = (byte) alphabet[(v1 & 0xf) << 2];
+        break;
+      }
+    }
+    return dstIndex - dstOff;
+  }
+
+  public void encode(final byte[] data, final int off, final int length, final ByteBuffer dst) {
+    encode(data, off, length, dst, null);
+  }
+
+  public void encode(final byte[] data, final int off, final int length, final ByteBuffer dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::encode, data, off, length, (BaseCodecUtil.BLOCK_SIZE / 4) * 3, lengthEncoded(length), dst, scratch);
+  }
+
+  public void encode(final byte[] data, final int off, final int length, final ByteArrayAppender dst) {
+    encode(data, off, length, dst, null);
+  }
+
+  public void encode(final byte[] data, final int off, final int length, final ByteArrayAppender dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::encode, data, off, length, (BaseCodecUtil.BLOCK_SIZE / 4) * 3, dst, scratch);
+  }
+
+  private long encode48(final long v) {
+    // the 48 high bits of v are 4 groups of 12bit, each one mapped to 2 chars
+    return ((long) encodePairs[(int) (v >>> 52)] << 48)
+         | ((long) encodePairs[(int) (v >>> 40) & 0xfff] << 32)
+         | ((long) encodePairs[(int) (v >>> 28) & 0xfff] << 16)
+         | encodePairs[(int) (v >>> 16) & 0xfff];
+  }
+
   // ====================================================================================================
   //  Decode byte[] related
   // ====================================================================================================
@@ -105,46 +280,101 @@ public class Base64 {
 
   public byte[] decode(final byte[] encoded, final int offset, final int length) {
     if (length == 0) return null;
+    if (offset == 0 && length == encoded.length && canUseJdkDecoder(encoded[length - 1], length)) {
+      return jdkDecoder.decode(encoded);
+    }
 
     final byte[] buffer = new byte[lengthDecoded(length)];
+    decode(encoded, offset, length, buffer, 0);
+    return buffer;
+  }
+
+  /**
+   * Decode the data into the specified buffer, without allocations.
+   * @param dst the output buffer, must have at least lengthDecoded(length) bytes available from dstOff
+   * @return the number of bytes written (lengthDecoded(length))
+   */
+  public int decode(final byte[] encoded, final int offset, final int length, final byte[] dst, final int dstOff) {
+    if (offset == 0 && length == encoded.length && dstOff == 0 && length != 0 && canUseJdkDecoder(encoded[length - 1], length)) {
+      return jdkDecoder.decode(encoded, dst);
+    }
+
+    final int end = offset + length;
     int i = offset;
-    int index = 0;
-    while ((i + 4) <= length) {
-      final int v0 = decodeTable[encoded[i++] & 0xff];
-      final int v1 = decodeTable[encoded[i++] & 0xff];
-      final int v2 = decodeTable[encoded[i++] & 0xff];
-      final int v3 = decodeTable[encoded[i++] & 0xff];
-      if ((v0 | v1 | v2 | v3) < 0) {
+    int dstIndex = dstOff;
+
+    // each 8 bytes store has 6 valid bytes, the 2 extra bytes are overwritten by the next store.
+    // with at least 4 chars left after the block, the extra bytes are always inside the output.
+    while ((i + 20) <= end) {
+      final long a = decode48(encoded, i);
+      final long b = decode48(encoded, i + 8);
+      if ((a | b) < 0) {
+        throw new IllegalArgumentException("invalid encoded data: " + BytesUtil.toString(encoded, offset, length));
+      }
+      LONG_BE.set(dst, dstIndex, a << 16);
+      LONG_BE.set(dst, dstIndex + 6, b << 16);
+      i += 16;
+      dstIndex += 12;
+    }
+
+    while ((i + 4) <= end) {
+      final int v = decode0[encoded[i] & 0xff] | decode1[encoded[i + 1] & 0xff]
+                  | decode2[encoded[i + 2] & 0xff] | decode3[encoded[i + 3] & 0xff];
+      if (v < 0) {
         throw new IllegalArgumentException("invalid encoded data: " + BytesUtil.toString(encoded, offset, length));
       }
-      buffer[index++] = (byte)((v0 << 2) | v1 >> 4);
-      buffer[index++] = (byte)((v1 << 4) | v2 >> 2);
-      buffer[index++] = (byte)((v2 << 6) | v3);
+      dst[dstIndex++] = (byte) (v >>> 16);
+      dst[dstIndex++] = (byte) (v >>> 8);
+      dst[dstIndex++] = (byte) v;
+      i += 4;
     }
 
-    switch (length - i) {
+    switch (end - i) {
       case 2: {
-        final int v0 = decodeTable[encoded[i++] & 0xff];
-        final int v1 = decodeTable[encoded[i] & 0xff];
-        if ((v0 | v1) < 0) {
+        final int v = decode0[encoded[i] & 0xff] | decode1[encoded[i + 1] & 0xff];
+        if (v < 0) {
           throw new IllegalArgumentException("invalid encoded data: " + BytesUtil.toString(encoded, offset, length));
         }
-        buffer[index] = (byte)((v0 << 2) | v1 >> 4);
+        dst[dstIndex++] = (byte) (v >>> 16);
         break;
       }
       case 3: {
-        final int v0 = decodeTable[encoded[i++] & 0xff];
-        final int v1 = decodeTable[encoded[i++] & 0xff];
-        final int v2 = decodeTable[encoded[i] & 0xff];
-        if ((v0 | v1 | v2) < 0) {
+        final int v = decode0[encoded[i] & 0xff] | decode1[encoded[i + 1] & 0xff] | decode2[encoded[i + 2] & 0xff];
+        if (v < 0) {
           throw new IllegalArgumentException("invalid encoded data: " + BytesUtil.toString(encoded, offset, length));
         }
-        buffer[index++] = (byte)((v0 << 2) | v1 >> 4);
-        buffer[index] = (byte)((v1 << 4) | v2 >> 2);
+        dst[dstIndex++] = (byte) (v >>> 16);
+        dst[dstIndex++] = (byte) (v >>> 8);
         break;
       }
     }
-    return buffer;
+    return dstIndex - dstOff;
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteBuffer dst) {
+    decode(encoded, offset, length, dst, null);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteBuffer dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::decode, encoded, offset, length, BaseCodecUtil.BLOCK_SIZE, lengthDecoded(length), dst, scratch);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteArrayAppender dst) {
+    decode(encoded, offset, length, dst, null);
+  }
+
+  public void decode(final byte[] encoded, final int offset, final int length, final ByteArrayAppender dst, final byte[] scratch) {
+    BaseCodecUtil.write(this::decode, encoded, offset, length, BaseCodecUtil.BLOCK_SIZE, dst, scratch);
+  }
+
+  private long decode48(final byte[] encoded, final int offset) {
+    final long chars = (long) LONG_BE.get(encoded, offset);
+    final int hi = decode0[(int) (chars >>> 56)] | decode1[(int) (chars >>> 48) & 0xff]
+                 | decode2[(int) (chars >>> 40) & 0xff] | decode3[(int) (chars >>> 32) & 0xff];
+    final int lo = decode0[(int) (chars >>> 24) & 0xff] | decode1[(int) (chars >>> 16) & 0xff]
+                 | decode2[(int) (chars >>> 8) & 0xff] | decode3[(int) chars & 0xff];
+    // an invalid group is negative, and stays negative once combined
+    return ((long) hi << 24) | lo;
   }
 
   // ====================================================================================================
@@ -156,54 +386,60 @@ public class Base64 {
 
   public byte[] decode(final String data, final int offset, final int length) {
     if (length == 0) return BytesUtil.EMPTY_BYTES;
+    if (offset == 0 && length == data.length() && canUseJdkDecoder(data.charAt(length - 1), length)) {
+      return jdkDecoder.decode(data);
+    }
 
     final byte[] buffer = new byte[lengthDecoded(length)];
+    decode(data, offset, length, buffer, 0);
+    return buffer;
+  }
+
+  /**
+   * Decode the data into the specified buffer, without allocations.
+   * @param dst the output buffer, must have at least lengthDecoded(length) bytes available from dstOff
+   * @return the number of bytes written (lengthDecoded(length))
+   */
+  public int decode(final String data, final int offset, final int length, final byte[] dst, final int dstOff) {
+    final int end = offset + length;
     int i = offset;
-    int index = 0;
-    while ((i + 4) <= length) {
-      final int v0 = decodeTable[data.charAt(i++)];
-      final int v1 = decodeTable[data.charAt(i++)];
-      final int v2 = decodeTable[data.charAt(i++)];
-      final int v3 = decodeTable[data.charAt(i++)];
-      if ((v0 | v1 | v2 | v3) < 0) {
+    int dstIndex = dstOff;
+    while ((i + 4) <= end) {
+      final int v = decodeChar(decode0, data.charAt(i)) | decodeChar(decode1, data.charAt(i + 1))
+                  | decodeChar(decode2, data.charAt(i + 2)) | decodeChar(decode3, data.charAt(i + 3));
+      if (v < 0) {
         throw new IllegalArgumentException("invalid encoded data: " + data);
       }
-      buffer[index++] = (byte)((v0 << 2) | v1 >> 4);
-      buffer[index++] = (byte)((v1 << 4) | v2 >> 2);
-      buffer[index++] = (byte)((v2 << 6) | v3);
+      dst[dstIndex++] = (byte) (v >>> 16);
+      dst[dstIndex++] = (byte) (v >>> 8);
+      dst[dstIndex++] = (byte) v;
+      i += 4;
     }
 
-    switch (length - i) {
+    switch (end - i) {
       case 2: {
-        final int v0 = decodeTable[data.charAt(i++)];
-        final int v1 = decodeTable[data.charAt(i)];
-        if ((v0 | v1) < 0) {
+        final int v = decodeChar(decode0, data.charAt(i)) | decodeChar(decode1, data.charAt(i + 1));
+        if (v < 0) {
           throw new IllegalArgumentException("invalid encoded data: " + data);
         }
-        buffer[index] = (byte)((v0 << 2) | v1 >> 4);
+        dst[dstIndex++] = (byte) (v >>> 16);
         break;
       }
       case 3: {
-        final int v0 = decodeTable[data.charAt(i++)];
-        final int v1 = decodeTable[data.charAt(i++)];
-        final int v2 = decodeTable[data.charAt(i)];
-        if ((v0 | v1 | v2) < 0) {
+        final int v = decodeChar(decode0, data.charAt(i)) | decodeChar(decode1, data.charAt(i + 1))
+                    | decodeChar(decode2, data.charAt(i + 2));
+        if (v < 0) {
           throw new IllegalArgumentException("invalid encoded data: " + data);
         }
-        buffer[index++] = (byte)((v0 << 2) | v1 >> 4);
-        buffer[index] = (byte)((v1 << 4) | v2 >> 2);
+        dst[dstIndex++] = (byte) (v >>> 16);
+        dst[dstIndex++] = (byte) (v >>> 8);
         break;
       }
     }
-    return buffer;
+    return dstIndex - dstOff;
   }
 
-  private static int lengthDecoded(final int encodedLength) {
-    final int length = (encodedLength >>> 2) * 3;
-    return switch (encodedLength & 3) {
-      case 2 -> length + 1;
-      case 3 -> length + 2;
-      default -> length;
-    };
+  private static int decodeChar(final int[] table, final char c) {
+    return c < 256 ? table[c] : INVALID;
   }
 }
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.strings;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
+
+/**
+ * Adapts the {@code (src, off, len) -> (dst, dstOff)} encoders/decoders of Base16/Base32/Base64
+ * to ByteBuffer and ByteArrayAppender destinations.
+ * Each destination has two public overloads:
+ *  - without scratch block: heap buffers are written in place, direct buffers and appenders
+ *    go through a BLOCK_SIZE block allocated by each call.
+ *  - with a scratch block: the output of direct buffers and appenders is staged in the caller block,
+ *    of at least BLOCK_SIZE bytes (the public SCRATCH_BLOCK_SIZE), that can be reused across calls.
+ *    It can be null for heap buffers, and for the other destinations it is allocated as above.
+ */
+final class BaseCodecUtil {
+  static final int BLOCK_SIZE = 1024;
+
+  @FunctionalInterface
+  interface ArrayCodec {
+    int apply(byte[] src, int off, int len, byte[] dst, int dstOff);
+  }
+
+  private BaseCodecUtil() {
+    // no-op
+  }
+
+  /**
+   * @param srcBlockSize the number of input bytes producing at most BLOCK_SIZE output bytes,
+   *                     must be aligned to the codec group size (e.g. 3 bytes for base64 encode)
+   * @param scratch the block used for direct buffers, a new one is allocated only if null and needed
+   */
+  static void write(final ArrayCodec codec, final byte[] src, final int off, final int len,
+      final int srcBlockSize, final int outLength, final ByteBuffer dst, final byte[] scratch) {
+    if (dst.remaining() < outLength) throw new BufferOverflowException();
+
+    if (dst.hasArray()) {
+      final int n = codec.apply(src, off, len, dst.array(), dst.arrayOffset() + dst.position());
+      dst.position(dst.position() + n);
+      return;
+    }
+
+    final byte[] block = scratchBlock(scratch);
+    for (int i = 0; i < len; i += srcBlockSize) {
+      final int n = codec.apply(src, off + i, Math.min(srcBlockSize, len - i), block, 0);
+      dst.put(block, 0, n);
+    }
+  }
+
+  /**
+   * @param scratch the block used to stage the output, a new one is allocated only if null
+   */
+  static void write(final ArrayCodec codec, final byte[] src, final int off, final int len,
+      final int srcBlockSize, final ByteArrayAppender dst, final byte[] scratch) {
+    final byte[] block = scratchBlock(scratch);
+    for (int i = 0; i < len; i += srcBlockSize) {
+      final int n = codec.apply(src, off + i, Math.min(srcBlockSize, len - i), block, 0);
+      dst.add(block, 0, n);
+    }
+  }
+
+  private static byte[] scratchBlock(final byte[] scratch) {
+    if (scratch == null) return new byte[BLOCK_SIZE];
+    if (scratch.length < BLOCK_SIZE) {
+      throw new IllegalArgumentException("expected a scratch block of at least " + BLOCK_SIZE + " bytes, got " + scratch.length);
+    }
+    return scratch;
+  }
+}
@@ -17,8 +17,10 @@
 
 package io.github.matteobertozzi.rednaco.strings;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
+import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
 import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
 
 public class BaseN {
@@ -74,35 +76,86 @@ public class BaseN {
     return builder.reverse().toString();
   }
 
+  /**
+   * Encode the value into the specified buffer, without allocations.
+   * @param dst the output buffer, must have at least 64 bytes (or the exact encoded length) available from dstOff
+   * @return the number of bytes written
+   */
+  public int encode(final long value, final byte[] dst, final int dstOff) {
+    final int base = alphabet.length;
+    int digits = 0;
+    long remaining = value;
+    do {
+      remaining = Long.divideUnsigned(remaining, base);
+      digits++;
+    } while (remaining != 0);
+
+    remaining = value;
+    for (int i = dstOff + digits - 1; i >= dstOff; --i) {
+      dst[i] = (byte) alphabet[(int) Long.remainderUnsigned(remaining, base)];
+      remaining = Long.divideUnsigned(remaining, base);
+    }
+    return digits;
+  }
+
+  /**
+   * @return the max number of chars needed to encode length bytes
+   */
+  public int maxLengthEncoded(final int length) {
+    return (int) Math.ceil(length * 8 / (Math.log(alphabet.length) / Math.log(2))) + 1;
+  }
+
   public String encode(final byte[] input) {
-    if (input.length == 0) {
+    return encode(input, 0, BytesUtil.length(input));
+  }
+
+  public String encode(final byte[] input, final int off, final int len) {
+    if (len == 0) {
       return "";
     }
 
+    final byte[] encoded = new byte[maxLengthEncoded(len)];
+    final int n = encode(input, off, len, encoded, 0);
+    return new String(encoded, 0, n, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Encode the data into the specified buffer.
+   * The only allocation is the copy of the input used as working number for the divisions.
+   * @param dst the output buffer, must have at least maxLengthEncoded(len) bytes available from dstOff
+   * @return the number of bytes written
+   */
+  public int encode(final byte[] input, final int off, final int len, final byte[] dst, final int dstOff) {
     int zeros = 0;
-    while (zeros < input.length && input[zeros] == 0) {
+    while (zeros < len && input[off + zeros] == 0) {
       ++zeros;
     }
 
+    // digits are produced from the least significant one, reversed at the end
     final int base = alphabet.length;
-    final byte[] numbers = Arrays.copyOf(input, input.length);
-    final char[] encoded = new char[numbers.length * 2];
-    int outputStart = encoded.length;
+    final byte[] numbers = Arrays.copyOfRange(input, off, off + len);
+    int dstIndex = dstOff;
     for (int inputStart = zeros; inputStart < numbers.length;) {
-      encoded[--outputStart] = alphabet[divmod(numbers, inputStart, base)];
+      dst[dstIndex++] = (byte) alphabet[divmod(numbers, inputStart, base)];
       if (numbers[inputStart] == 0) {
         ++inputStart;
       }
     }
 
-    while (outputStart < encoded.length && encoded[outputStart] == alphabet[0]) {
-      ++outputStart;
+    while (dstIndex > dstOff && dst[dstIndex - 1] == alphabet[0]) {
+      --dstIndex;
     }
     while (--zeros >= 0) {
-      encoded[--outputStart] = alphabet[0];
+      dst[dstIndex++] = (byte) alphabet[0];
     }
 
-    return new String(encoded, outputStart, encoded.length - outputStart);
+    reverse(dst, dstOff, dstIndex);
+    return dstIndex - dstOff;
+  }
+
+  public void encode(final byte[] input, final int off, final int len, final ByteArrayAppender dst) {
+    final byte[] encoded = new byte[maxLengthEncoded(len)];
+    dst.add(encoded, 0, encode(input, off, len, encoded, 0));
   }
 
   public byte[] decode(final String input) {
@@ -114,39 +167,57 @@ public class BaseN {
       return BytesUtil.EMPTY_BYTES;
     }
 
-    final byte[] numbers = mapInput(input, off, len);
+    final byte[] decoded = new byte[len];
+    final int n = decodeNumbers(mapInput(input, off, len), decoded, 0);
+    return n == decoded.length ? decoded : Arrays.copyOf(decoded, n);
+  }
 
+  /**
+   * Decode the data into the specified buffer.
+   * The only allocation is the digits array used as working number for the divisions.
+   * @param dst the output buffer, must have at least len bytes available from dstOff
+   * @return the number of bytes written
+   */
+  public int decode(final String input, final int off, final int len, final byte[] dst, final int dstOff) {
+    return decodeNumbers(mapInput(input, off, len), dst, dstOff);
+  }
+
+  public int decode(final byte[] input, final int off, final int len, final byte[] dst, final int dstOff) {
+    return decodeNumbers(mapInput(input, off, len), dst, dstOff);
+  }
+
+  private int decodeNumbers(final byte[] numbers, final byte[] dst, final int dstOff) {
     int zeros = 0;
     while (zeros < numbers.length && numbers[zeros] == 0) {
       ++zeros;
     }
 
+    // bytes are produced from the least significant one, reversed at the end
     final int base = alphabet.length;
-    final byte[] decoded = new byte[numbers.length];
-    int outputStart = decoded.length;
+    int dstIndex = dstOff;
     for (int inputStart = zeros; inputStart < numbers.length;) {
-      decoded[--outputStart] = divmod256(numbers, inputStart, base);
+      dst[dstIndex++] = divmod256(numbers, inputStart, base);
       if (numbers[inputStart] == 0) {
         ++inputStart;
       }
     }
 
-    while (outputStart < decoded.length && decoded[outputStart] == 0) {
-      ++outputStart;
+    while (dstIndex > dstOff && dst[dstIndex - 1] == 0) {
+      --dstIndex;
     }
-
-    final int offset = outputStart - zeros;
-    if (offset == 0) {
-      return decoded;
+    while (--zeros >= 0) {
+      dst[dstIndex++] = 0;
     }
-    return Arrays.copyOfRange(decoded, offset, decoded.length);
+
+    reverse(dst, dstOff, dstIndex);
+    return dstIndex - dstOff;
   }
 
   private byte[] mapInput(final String input, final int off, final int len) {
     final byte[] numbers = new byte[len];
     for (int i = 0; i < len; ++i) {
       final char c = input.charAt(off + i);
-      final int digit = c < 128 ? decodeTable[c] & 0xff : -1;
+      final int digit = c < 128 ? decodeTable[c] : -1;
       if (digit < 0) {
         throw new IllegalArgumentException(String.format("Invalid character: 0x%04x", (int) c));
       }
@@ -155,6 +226,27 @@ public class BaseN {
     return numbers;
   }
 
+  private byte[] mapInput(final byte[] input, final int off, final int len) {
+    final byte[] numbers = new byte[len];
+    for (int i = 0; i < len; ++i) {
+      final int c = input[off + i] & 0xff;
+      final int digit = c < 128 ? decodeTable[c] : -1;
+      if (digit < 0) {
+        throw new IllegalArgumentException(String.format("Invalid character: 0x%04x", c));
+      }
+      numbers[i] = (byte) digit;
+    }
+    return numbers;
+  }
+
+  private static void reverse(final byte[] buf, final int start, final int end) {
+    for (int i = start, j = end - 1; i < j; ++i, --j) {
+      final byte tmp = buf[i];
+      buf[i] = buf[j];
+      buf[j] = tmp;
+    }
+  }
+
   private static byte divmod(final byte[] number, final int firstDigit, final int divisor) {
     int remainder = 0;
     for (int i = firstDigit; i < number.length; i++) {
@@ -0,0 +1,186 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.strings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+
+/**
+ * application/x-www-form-urlencoded (and query-string) decoder.
+ * The fields are split on '&' and '=' and passed to the consumer in order (duplicates included),
+ * a field without '=' has an empty value. Keys/values without '%' or '+' are not decoded,
+ * the string is created directly from the input. Invalid escapes throw IllegalArgumentException, like URLDecoder.
+ */
+public final class FormUrlDecoder {
+  private FormUrlDecoder() {
+    // no-op
+  }
+
+  // ================================================================================
+  //  UTF-8 bytes decode
+  // ================================================================================
+  public static int decode(final byte[] data, final BiConsumer<String, String> consumer) {
+    return decode(data, 0, data.length, consumer);
+  }
+
+  /**
+   * @param consumer called with each decoded key/value
+   * @return the number of fields passed to the consumer
+   */
+  public static int decode(final byte[] data, final int off, final int len, final BiConsumer<String, String> consumer) {
+    final int end = off + len;
+    byte[] scratch = null;
+    int fields = 0;
+    int index = off;
+    while (index < end) {
+      int fieldEnd = index;
+      int keyEnd = -1;
+      boolean keyEncoded = false;
+      boolean valueEncoded = false;
+      for (; fieldEnd < end; ++fieldEnd) {
+        final byte c = data[fieldEnd];
+        if (c == '&') break;
+        if (c == '=' && keyEnd < 0) {
+          keyEnd = fieldEnd;
+        } else if (c == '%' || c == '+') {
+          if (keyEnd < 0) keyEncoded = true; else valueEncoded = true;
+        }
+      }
+
+      if (fieldEnd != index) {
+        if (keyEnd < 0) keyEnd = fieldEnd;
+        if ((keyEncoded || valueEncoded) && (scratch == null || scratch.length < (fieldEnd - index))) {
+          scratch = new byte[fieldEnd - index];
+        }
+        final String key = decodeComponent(data, index, keyEnd, keyEncoded, scratch);
+        final String value = (keyEnd == fieldEnd) ? "" : decodeComponent(data, keyEnd + 1, fieldEnd, valueEncoded, scratch);
+        consumer.accept(key, value);
+        fields++;
+      }
+      index = fieldEnd + 1;
+    }
+    return fields;
+  }
+
+  private static String decodeComponent(final byte[] data, final int start, final int end,
+      final boolean encoded, final byte[] scratch) {
+    if (!encoded) return new String(data, start, end - start, StandardCharsets.UTF_8);
+
+    int length = 0;
+    for (int i = start; i < end; ++i) {
+      final byte c = data[i];
+      if (c == '+') {
+        scratch[length++] = ' ';
+      } else if (c == '%') {
+        if ((i + 2) >= end) throw new IllegalArgumentException("incomplete trailing escape (%) pattern");
+        scratch[length++] = (byte) ((hexValue(data[i + 1]) << 4) | hexValue(data[i + 2]));
+        i += 2;
+      } else {
+        scratch[length++] = c;
+      }
+    }
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  // ================================================================================
+  //  String decode
+  // ================================================================================
+  public static int decode(final String data, final BiConsumer<String, String> consumer) {
+    return decode(data, 0, data.length(), consumer);
+  }
+
+  /**
+   * @param consumer called with each decoded key/value
+   * @return the number of fields passed to the consumer
+   */
+  public static int decode(final String data, final int off, final int len, final BiConsumer<String, String> consumer) {
+    final int end = off + len;
+    byte[] scratch = null;
+    int fields = 0;
+    int index = off;
+    while (index < end) {
+      int fieldEnd = index;
+      int keyEnd = -1;
+      boolean keyEncoded = false;
+      boolean valueEncoded = false;
+      for (; fieldEnd < end; ++fieldEnd) {
+        final char c = data.charAt(fieldEnd);
+        if (c == '&') break;
+        if (c == '=' && keyEnd < 0) {
+          keyEnd = fieldEnd;
+        } else if (c == '%' || c == '+') {
+          if (keyEnd < 0) keyEncoded = true; else valueEncoded = true;
+        }
+      }
+
+      if (fieldEnd != index) {
+        if (keyEnd < 0) keyEnd = fieldEnd;
+        if ((keyEncoded || valueEncoded) && (scratch == null || scratch.length < (fieldEnd - index) * 3)) {
+          // a non-ascii char takes up to 3 utf-8 bytes
+          scratch = new byte[(fieldEnd - index) * 3];
+        }
+        final String key = decodeComponent(data, index, keyEnd, keyEncoded, scratch);
+        final String value = (keyEnd == fieldEnd) ? "" : decodeComponent(data, keyEnd + 1, fieldEnd, valueEncoded, scratch);
+        consumer.accept(key, value);
+        fields++;
+      }
+      index = fieldEnd + 1;
+    }
+    return fields;
+  }
+
+  private static String decodeComponent(final String data, final int start, final int end,
+      final boolean encoded, final byte[] scratch) {
+    if (!encoded) return data.substring(start, end);
+
+    int length = 0;
+    for (int i = start; i < end; ++i) {
+      final char c = data.charAt(i);
+      if (c == '+') {
+        scratch[length++] = ' ';
+      } else if (c == '%') {
+        if ((i + 2) >= end) throw new IllegalArgumentException("incomplete trailing escape (%) pattern");
+        scratch[length++] = (byte) ((hexValue(data.charAt(i + 1)) << 4) | hexValue(data.charAt(i + 2)));
+        i += 2;
+      } else if (c < 0x80) {
+        scratch[length++] = (byte) c;
+      } else if (c < 0x800) {
+        scratch[length++] = (byte) (0xc0 | (c >> 6));
+        scratch[length++] = (byte) (0x80 | (c & 0x3f));
+      } else if (Character.isHighSurrogate(c) && (i + 1) < end && Character.isLowSurrogate(data.charAt(i + 1))) {
+        final int cp = Character.toCodePoint(c, data.charAt(++i));
+        scratch[length++] = (byte) (0xf0 | (cp >> 18));
+        scratch[length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        scratch[length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        scratch[length++] = (byte) (0x80 | (cp & 0x3f));
+      } else {
+        scratch[length++] = (byte) (0xe0 | (c >> 12));
+        scratch[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+        scratch[length++] = (byte) (0x80 | (c & 0x3f));
+      }
+    }
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private static int hexValue(final int c) {
+    if (c >= '0' && c <= '9') return c - '0';
+    if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+    if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+    throw new IllegalArgumentException("invalid hex char in escape (%) pattern: " + (char) c);
+  }
+}
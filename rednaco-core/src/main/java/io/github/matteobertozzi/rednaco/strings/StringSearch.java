@@ -17,11 +17,15 @@
 
 package io.github.matteobertozzi.rednaco.strings;
 
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.BitSet;
 
 import io.github.matteobertozzi.rednaco.strings.StringSearch.LikePattern.MatchType;
 
 public final class StringSearch {
+  /** escape char of the LIKE patterns, e.g. "100\\%" matches the literal "100%" */
+  private static final char ESCAPE_CHAR = '\\';
+
   private StringSearch() {
     // no-op
   }
@@ -45,64 +49,37 @@ public final class StringSearch {
     if (patternString == null) return LikeWithNoMatch.INSTANCE;
     if (patternString.isEmpty()) return new LikeWithStringEquals("");
 
-    final char ESCAPE_CHAR = '\\';
     int anythingWildcards = 0;
     int singleWildcards = 0;
 
-    final StringBuilder regex = new StringBuilder(patternString.length() * 2);
-    regex.append('^');
+    // split the pattern in segments separated by '%', '_' are kept as segment wildcards
+    final ArrayList<LikeSegment> segments = new ArrayList<>();
+    final StringBuilder segment = new StringBuilder(patternString.length());
+    final BitSet segmentWildcards = new BitSet();
     boolean escaped = false;
     for (int i = 0, n = patternString.length(); i < n; ++i) {
       final char currentChar = patternString.charAt(i);
       if (!(!escaped || currentChar == '%' || currentChar == '_' || currentChar == ESCAPE_CHAR)) {
         throw new IllegalArgumentException("Escape character must be followed by '%%', '_' or the escape character itself");
       }
-      //if (shouldEscape && !escaped && (currentChar == escapeChar)) {
       if (!escaped && (currentChar == ESCAPE_CHAR)) {
         escaped = true;
+      } else if (!escaped && currentChar == '%') {
+        addLikeSegment(segments, segment, segmentWildcards);
+        anythingWildcards++;
       } else {
-        switch (currentChar) {
-          case '%':
-            regex.append(escaped ? "%" : ".*");
-            escaped = false;
-            anythingWildcards++;
-            break;
-          case '_':
-            regex.append(escaped ? '_' : '.');
-            escaped = false;
-            singleWildcards++;
-            break;
-          default:
-            // escape special regex characters
-            // [-[\]{}()*+?.,\\^$|#\s]/g, '\\$&
-            switch (currentChar) {
-              case '\\':
-              case '^':
-              case '$':
-              case '.':
-              case '*':
-              case '+':
-              case '?':
-              case '|':
-              case '(':
-              case ')':
-              case '[':
-              case ']':
-              case '{':
-              case '}':
-                regex.append('\\');
-                break;
-            }
-            regex.append(currentChar);
-            escaped = false;
-            break;
+        if (!escaped && currentChar == '_') {
+          segmentWildcards.set(segment.length());
+          singleWildcards++;
         }
+        segment.append(currentChar);
+        escaped = false;
       }
     }
     if (escaped) {
       throw new IllegalArgumentException("Escape character must be followed by '%%', '_' or the escape character itself");
     }
-    regex.append('$');
+    addLikeSegment(segments, segment, segmentWildcards);
 
     if (anythingWildcards == patternString.length()) {
       return LikeMatchingEverything.INSTANCE;
@@ -110,9 +87,40 @@ public final class StringSearch {
       // if (singleWildcards == patternString.length()) return new LikeWithStringLengthEquals(singleWildCards);
       final char firstChar = patternString.charAt(0);
       final boolean prefixMatch = (firstChar != '%' && firstChar != '_');
-      return new RegexLikePattern(Pattern.compile(regex.toString()), prefixMatch);
+      final boolean anchoredStart = (firstChar != '%');
+      final boolean anchoredEnd = anythingWildcards == 0 || !isUnescapedWildcardAtEnd(patternString);
+      return new SegmentsLikePattern(segments.toArray(new LikeSegment[0]), anchoredStart, anchoredEnd, prefixMatch);
+    }
+    return new LikeWithStringEquals(segments.get(0).text());
+  }
+
+  private static void addLikeSegment(final ArrayList<LikeSegment> segments, final StringBuilder segment, final BitSet wildcards) {
+    if (segment.isEmpty()) return;
+
+    final boolean[] wildcardsMap;
+    if (wildcards.isEmpty()) {
+      wildcardsMap = null;
+    } else {
+      wildcardsMap = new boolean[segment.length()];
+      for (int i = wildcards.nextSetBit(0); i >= 0; i = wildcards.nextSetBit(i + 1)) {
+        wildcardsMap[i] = true;
+      }
+    }
+    segments.add(new LikeSegment(segment.toString(), wildcardsMap));
+    segment.setLength(0);
+    wildcards.clear();
+  }
+
+  private static boolean isUnescapedWildcardAtEnd(final String pattern) {
+    final int lastIndex = pattern.length() - 1;
+    if (pattern.charAt(lastIndex) != '%') return false;
+
+    // count the escape chars before the trailing '%'
+    int escapes = 0;
+    for (int i = lastIndex - 1; i >= 0 && pattern.charAt(i) == ESCAPE_CHAR; --i) {
+      escapes++;
     }
-    return new LikeWithStringEquals(patternString);
+    return (escapes & 1) == 0;
   }
 
   public interface LikePattern {
@@ -145,13 +153,47 @@ public final class StringSearch {
     }
   }
 
-  private record RegexLikePattern(Pattern pattern, MatchType matchType) implements LikePattern {
-    private RegexLikePattern(final String pattern) {
-      this(Pattern.compile(pattern), false);
+  private record LikeSegment(String text, boolean[] wildcards) {
+    private int length() {
+      return text.length();
+    }
+
+    private boolean matchesAt(final String input, final int offset) {
+      if (wildcards == null) {
+        return input.startsWith(text, offset);
+      }
+
+      for (int i = 0, n = text.length(); i < n; ++i) {
+        if (!wildcards[i] && input.charAt(offset + i) != text.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private int indexOf(final String input, final int fromIndex, final int maxIndex) {
+      if (wildcards == null) {
+        final int index = input.indexOf(text, fromIndex);
+        return (index <= maxIndex) ? index : -1;
+      }
+
+      for (int i = fromIndex; i <= maxIndex; ++i) {
+        if (matchesAt(input, i)) {
+          return i;
+        }
+      }
+      return -1;
     }
+  }
 
-    private RegexLikePattern(final Pattern pattern, final boolean prefixMatch) {
-      this(pattern, prefixMatch ? MatchType.PREFIX : MatchType.RANDOM);
+  /**
+   * LIKE matcher without regex: the segments between '%' are searched left to right
+   * using String.indexOf()/startsWith(), which are intrinsics in the JDK.
+   * the first segment is anchored to the start and the last one to the end, unless there is a '%'.
+   */
+  private record SegmentsLikePattern(LikeSegment[] segments, boolean anchoredStart, boolean anchoredEnd, MatchType matchType) implements LikePattern {
+    private SegmentsLikePattern(final LikeSegment[] segments, final boolean anchoredStart, final boolean anchoredEnd, final boolean prefixMatch) {
+      this(segments, anchoredStart, anchoredEnd, prefixMatch ? MatchType.PREFIX : MatchType.RANDOM);
     }
 
     @Override
@@ -161,7 +203,36 @@ public final class StringSearch {
 
     @Override
     public boolean matches(final String input) {
-      return pattern.matcher(input).matches();
+      final int inputLength = input.length();
+      int segStart = 0;
+      int segEnd = segments.length;
+      int offset = 0;
+      int limit = inputLength;
+
+      if (anchoredStart && anchoredEnd && segments.length == 1) {
+        final LikeSegment segment = segments[0];
+        return segment.length() == inputLength && segment.matchesAt(input, 0);
+      }
+
+      if (anchoredStart) {
+        final LikeSegment segment = segments[segStart++];
+        if (segment.length() > inputLength || !segment.matchesAt(input, 0)) return false;
+        offset = segment.length();
+      }
+
+      if (anchoredEnd) {
+        final LikeSegment segment = segments[--segEnd];
+        limit = inputLength - segment.length();
+        if (limit < offset || !segment.matchesAt(input, limit)) return false;
+      }
+
+      for (int i = segStart; i < segEnd; ++i) {
+        final LikeSegment segment = segments[i];
+        final int index = segment.indexOf(input, offset, limit - segment.length());
+        if (index < 0) return false;
+        offset = index + segment.length();
+      }
+      return true;
     }
   }
 }
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.threading;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import io.github.matteobertozzi.rednaco.threading.CachedValue.RevalidatingCachedValue;
+import io.github.matteobertozzi.rednaco.time.RetryUtil.RetryLogic;
+import io.github.matteobertozzi.rednaco.util.function.FailableFunction;
+
+/**
+ * Bounded keyed variant of CachedValue.newStaleWhileRevalidate().
+ * Each key is loaded synchronously only the first time, then the stale value is returned
+ * while a single background refresh runs. When the map grows above maxSize,
+ * the least recently accessed entries are evicted in batch (down to 7/8 of maxSize).
+ */
+public final class CachedMap<K, V> {
+  private static final long ACCESS_RESOLUTION_NS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final FailableFunction<K, V> loader;
+  private final Supplier<RetryLogic> failureBackoff;
+  private final Executor executor;
+  private final Duration cachePeriod;
+  private final Duration jitter;
+  private final int maxSize;
+
+  private static final class Entry<V> {
+    private final RevalidatingCachedValue<V> value;
+    private volatile long lastAccessTs;
+
+    private Entry(final RevalidatingCachedValue<V> value) {
+      this.value = value;
+      this.lastAccessTs = System.nanoTime();
+    }
+
+    private V get() {
+      final long now = System.nanoTime();
+      // avoid a write on every access of hot keys
+      if ((now - lastAccessTs) > ACCESS_RESOLUTION_NS) {
+        lastAccessTs = now;
+      }
+      return value.get();
+    }
+  }
+
+  public CachedMap(final int maxSize, final Duration cachePeriod, final FailableFunction<K, V> loader) {
+    this(maxSize, cachePeriod, cachePeriod.dividedBy(10), () -> CachedValue.defaultFailureBackoff(cachePeriod),
+      CachedValue.REFRESH_EXECUTOR, loader);
+  }
+
+  public CachedMap(final int maxSize, final Duration cachePeriod, final Duration jitter,
+      final Supplier<RetryLogic> failureBackoff, final Executor executor, final FailableFunction<K, V> loader) {
+    if (maxSize < 1) throw new IllegalArgumentException("expected maxSize >= 1, got " + maxSize);
+    this.maxSize = maxSize;
+    this.cachePeriod = cachePeriod;
+    this.jitter = jitter;
+    this.failureBackoff = failureBackoff;
+    this.executor = executor;
+    this.loader = loader;
+  }
+
+  public int maxSize() {
+    return maxSize;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public V get(final K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      entry = entries.computeIfAbsent(key, this::newEntry);
+      if (entries.size() > maxSize) evict();
+    }
+    return entry.get();
+  }
+
+  /**
+   * @return the cached value (even if stale) without loading or refreshing it. null if not cached
+   */
+  public V getIfPresent(final K key) {
+    final Entry<V> entry = entries.get(key);
+    return entry != null ? entry.value.peek() : null;
+  }
+
+  public void invalidate(final K key) {
+    entries.remove(key);
+  }
+
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  private Entry<V> newEntry(final K key) {
+    return new Entry<>(new RevalidatingCachedValue<>(cachePeriod, jitter, failureBackoff.get(), executor, () -> loader.apply(key)));
+  }
+
+  private void evict() {
+    // a single thread evicts, the others can proceed
+    if (!evictionLock.tryLock()) return;
+    try {
+      final int size = entries.size();
+      if (size <= maxSize) return;
+
+      long[] accessTs = new long[size];
+      int count = 0;
+      for (final Entry<V> entry: entries.values()) {
+        if (count == accessTs.length) accessTs = Arrays.copyOf(accessTs, count + (count >> 1) + 1);
+        accessTs[count++] = entry.lastAccessTs;
+      }
+
+      final int toEvict = count - (maxSize - (maxSize >> 3));
+      if (toEvict <= 0) return;
+
+      Arrays.sort(accessTs, 0, count);
+      final long threshold = accessTs[toEvict - 1];
+      entries.values().removeIf(entry -> entry.lastAccessTs <= threshold);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CachedMap [size=" + entries.size() + ", maxSize=" + maxSize + ", cachePeriod=" + cachePeriod + "]";
+  }
+}
@@ -1,13 +1,23 @@
 package io.github.matteobertozzi.rednaco.threading;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.github.matteobertozzi.easerinsights.logging.Logger;
+import io.github.matteobertozzi.rednaco.time.RetryUtil;
+import io.github.matteobertozzi.rednaco.time.RetryUtil.RetryLogic;
 import io.github.matteobertozzi.rednaco.util.function.FailableSupplier;
 
 public abstract class CachedValue<T> {
+  static final Executor REFRESH_EXECUTOR = task -> Thread.ofVirtual().name("CachedValueRefresh").start(task);
+
   protected final FailableSupplier<T> supplier;
   protected final long cacheNs;
 
@@ -27,6 +37,41 @@ public abstract class CachedValue<T> {
     return new AtomicCachedValue<>(Duration.ofNanos(Long.MAX_VALUE - 1), supplier);
   }
 
+  /**
+   * Only the first get() loads the value synchronously. Once the cache period (+/- 10% jitter) is expired,
+   * the stale value is still returned while a single refresh runs in background on a virtual thread.
+   * If the refresh fails, the last good value is kept and the refresh is retried with an exponential backoff.
+   */
+  public static <T> CachedValue<T> newStaleWhileRevalidate(final Duration cachePeriod, final FailableSupplier<T> supplier) {
+    return newStaleWhileRevalidate(cachePeriod, cachePeriod.dividedBy(10), defaultFailureBackoff(cachePeriod), REFRESH_EXECUTOR, supplier);
+  }
+
+  /**
+   * @param cachePeriod how long the value is considered fresh
+   * @param jitter the expiry is randomized in [cachePeriod - jitter, cachePeriod + jitter], to spread the refreshes
+   * @param failureBackoff the wait before the next refresh attempt, after a failure
+   * @param executor the executor used to run the background refresh
+   * @param supplier the value supplier
+   */
+  public static <T> CachedValue<T> newStaleWhileRevalidate(final Duration cachePeriod, final Duration jitter,
+      final RetryLogic failureBackoff, final Executor executor, final FailableSupplier<T> supplier) {
+    return new RevalidatingCachedValue<>(cachePeriod, jitter, failureBackoff, executor, supplier);
+  }
+
+  static RetryLogic defaultFailureBackoff(final Duration cachePeriod) {
+    final int maxWaitMillis = (int) Math.max(100, Math.min(cachePeriod.toMillis(), 60_000));
+    return RetryUtil.newExponentialRetry(100, maxWaitMillis, 100);
+  }
+
+  static long deadline(final long now, final long delayNs) {
+    final long deadline = now + delayNs;
+    // saturate on overflow, staticValue() uses ~Long.MAX_VALUE as period
+    if (((now ^ deadline) & (delayNs ^ deadline)) < 0) {
+      return delayNs > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+    return deadline;
+  }
+
   private static final class AtomicCachedValue<T> extends CachedValue<T> {
     private final AtomicReference<T> cachedValue = new AtomicReference<>(null);
     private final AtomicLong nextRefreshTs = new AtomicLong(0);
@@ -57,7 +102,7 @@ public abstract class CachedValue<T> {
       try {
         final T value = supplier.get();
         cachedValue.set(value);
-        nextRefreshTs.set(System.nanoTime() + cacheNs);
+        nextRefreshTs.set(deadline(System.nanoTime(), cacheNs));
         return value;
       } catch (final Exception e) {
         Logger.error(e, "unable to refresh cached value");
@@ -65,4 +110,101 @@ public abstract class CachedValue<T> {
       }
     }
   }
+
+  static final class RevalidatingCachedValue<T> extends CachedValue<T> {
+    private static final Object NOT_LOADED = new Object();
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final RetryLogic failureBackoff;
+    private final Executor executor;
+    private final long jitterNs;
+
+    // NOT_LOADED until the first load, null is a valid loaded value
+    private volatile Object cachedValue = NOT_LOADED;
+    private volatile long nextRefreshTs;
+
+    RevalidatingCachedValue(final Duration cachePeriod, final Duration jitter,
+        final RetryLogic failureBackoff, final Executor executor, final FailableSupplier<T> supplier) {
+      super(cachePeriod, supplier);
+      this.jitterNs = Math.min(jitter.toNanos(), cacheNs);
+      this.failureBackoff = failureBackoff;
+      this.executor = executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get() {
+      final Object value = cachedValue;
+      if (value == NOT_LOADED) {
+        return loadValue();
+      }
+
+      if (System.nanoTime() > nextRefreshTs && refreshing.compareAndSet(false, true)) {
+        scheduleRefresh();
+      }
+      return (T) value;
+    }
+
+    /**
+     * @return the cached value, even if stale. null if the value was never loaded (or the loaded value is null)
+     */
+    @SuppressWarnings("unchecked")
+    T peek() {
+      final Object value = cachedValue;
+      return value != NOT_LOADED ? (T) value : null;
+    }
+
+    public CachedValue<T> invalidate() {
+      nextRefreshTs = 0;
+      cachedValue = NOT_LOADED;
+      return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T loadValue() {
+      // only one caller loads the value, the others wait for it
+      loadLock.lock();
+      try {
+        final Object cached = cachedValue;
+        if (cached != NOT_LOADED) return (T) cached;
+
+        final T value = supplier.get();
+        setValue(value);
+        return value;
+      } catch (final Exception e) {
+        Logger.error(e, "unable to load cached value");
+        throw new RuntimeException(e);
+      } finally {
+        loadLock.unlock();
+      }
+    }
+
+    private void scheduleRefresh() {
+      try {
+        executor.execute(this::refreshValue);
+      } catch (final RejectedExecutionException e) {
+        Logger.warn(e, "unable to schedule the cached value refresh");
+        refreshing.set(false);
+      }
+    }
+
+    private void refreshValue() {
+      try {
+        setValue(supplier.get());
+        failureBackoff.reset();
+      } catch (final Throwable e) {
+        final int waitMillis = failureBackoff.nextWaitIntervalMillis();
+        Logger.warn(e, "unable to refresh cached value, keeping the last value and retrying in {}ms", waitMillis);
+        nextRefreshTs = deadline(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(waitMillis));
+      } finally {
+        refreshing.set(false);
+      }
+    }
+
+    private void setValue(final T value) {
+      final long jitter = jitterNs > 0 ? ThreadLocalRandom.current().nextLong(-jitterNs, jitterNs + 1) : 0;
+      nextRefreshTs = deadline(deadline(System.nanoTime(), cacheNs), jitter);
+      cachedValue = value;
+    }
+  }
 }
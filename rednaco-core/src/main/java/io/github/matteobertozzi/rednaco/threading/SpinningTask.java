@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.threading;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import io.github.matteobertozzi.rednaco.threading.ShutdownUtil.StopSignal;
+
+/**
+ * Virtual thread alternative to SpinningThread.
+ * The loop runs on a virtual thread, and waitFor() spins for a while before parking.
+ * The spin budget adapts: it grows when the wake() arrives while spinning, and shrinks when it doesn't.
+ * Parking uses LockSupport instead of a Lock/Condition pair, so the waiting task unmounts
+ * from the carrier, and a wake() sent while the loop is busy is not lost (it is kept as a permit).
+ */
+public abstract class SpinningTask implements StopSignal, Runnable {
+  private static final int MIN_SPINS = 16;
+  private static final int MAX_SPINS = 1 << 10;
+
+  private final AtomicBoolean signaled = new AtomicBoolean(false);
+  private final AtomicBoolean running;
+  private final String name;
+  private volatile Thread thread;
+  // accessed only by the loop thread
+  private int spins = MIN_SPINS;
+
+  protected SpinningTask(final String name) {
+    this(name, new AtomicBoolean(true));
+  }
+
+  protected SpinningTask(final String name, final AtomicBoolean running) {
+    this.name = name;
+    this.running = running;
+  }
+
+  public String name() {
+    return name;
+  }
+
+  public Thread thread() {
+    return thread;
+  }
+
+  public Thread start() {
+    if (thread != null) {
+      throw new IllegalStateException("task " + name + " already started");
+    }
+    final Thread vthread = Thread.ofVirtual().name(name).unstarted(this);
+    this.thread = vthread;
+    vthread.start();
+    return vthread;
+  }
+
+  public boolean isRunning() {
+    final Thread vthread = thread;
+    return running.get() && vthread != null && vthread.isAlive();
+  }
+
+  public void wake() {
+    if (!signaled.getAndSet(true)) {
+      final Thread vthread = thread;
+      if (vthread != null) LockSupport.unpark(vthread);
+    }
+  }
+
+  @Override
+  public boolean sendStopSignal() {
+    running.set(false);
+    wake();
+    return true;
+  }
+
+  @Override
+  public void run() {
+    runLoop();
+  }
+
+  protected void runLoop() {
+    while (isRunning()) {
+      process();
+    }
+  }
+
+  /**
+   * Wait for a wake() or a stop signal.
+   * @return true if woken up, false if the time elapsed or the thread was interrupted
+   */
+  protected boolean waitFor(final long time, final TimeUnit unit) {
+    if (signaled.getAndSet(false)) return true;
+
+    for (int i = 0; i < spins; ++i) {
+      Thread.onSpinWait();
+      if (signaled.get() && signaled.getAndSet(false)) {
+        spins = Math.min(MAX_SPINS, spins << 1);
+        return true;
+      }
+    }
+    spins = Math.max(MIN_SPINS, spins >>> 1);
+
+    final long deadline = System.nanoTime() + unit.toNanos(time);
+    while (!signaled.getAndSet(false)) {
+      final long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) return false;
+
+      LockSupport.parkNanos(this, remaining);
+      if (Thread.interrupted()) return false;
+    }
+    return true;
+  }
+
+  protected abstract void process();
+}
@@ -26,6 +26,11 @@ import java.util.function.Supplier;
 import io.github.matteobertozzi.rednaco.collections.Hashing;
 import io.github.matteobertozzi.rednaco.util.BitUtil;
 
+/**
+ * Set of lock+data stripes.
+ * get() picks the stripe from the stable thread hash, lockAny() from the thread probe
+ * that is re-hashed when the stripe is found contended (see ThreadProbe).
+ */
 public class StripedLock<T> {
   private final Cell<T>[] cells;
 
@@ -41,11 +46,14 @@ public class StripedLock<T> {
     return this.cells.length;
   }
 
+  /**
+   * Return the stripe of the current thread, without locking it.
+   * The result is stable for the thread, so get().lock() followed by get().unlock() is fine,
+   * (lockAny() calls in between, on this or other instances, don't move it),
+   * but it is not re-hashed on contention: use lockAny() when any stripe is good.
+   */
   public Cell<T> get() {
-    final Thread thread = Thread.currentThread();
-    //final int index = (int) (Hashing.keyHashCode(thread.threadId()) & (cells.length - 1));
-    final int index = Hashing.keyHashCode(thread.hashCode()) & (cells.length - 1);
-    return cells[index];
+    return cells[ThreadProbe.hash() & (cells.length - 1)];
   }
 
   public Cell<T> get(final Object key) {
@@ -57,6 +65,28 @@ public class StripedLock<T> {
     return cells[index];
   }
 
+  /**
+   * Lock and return one of the stripes, for data where any stripe is good (e.g. counters, buffers).
+   * It starts from the thread probe stripe, if that is contended it tries the next stripes
+   * and re-hashes the probe of platform threads, so their next call starts from a different stripe.
+   * If all the stripes are contended, it blocks on the probe stripe.
+   * @return the locked cell, the caller must unlock() it
+   */
+  public Cell<T> lockAny() {
+    final int mask = cells.length - 1;
+    final int probe = ThreadProbe.probe();
+    final Cell<T> cell = cells[probe & mask];
+    if (cell.tryLock()) return cell;
+
+    ThreadProbe.advanceProbe(probe);
+    for (int i = 1; i < cells.length; ++i) {
+      final Cell<T> other = cells[(probe + i) & mask];
+      if (other.tryLock()) return other;
+    }
+    cell.lock();
+    return cell;
+  }
+
   public static final class Cell<T> implements Lock {
     private final ReentrantLock lock = new ReentrantLock();
     private final T data;
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.rednaco.threading;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.github.matteobertozzi.rednaco.collections.Hashing;
+
+/**
+ * Per-thread values to pick a stripe (lock, counter, histogram, ...), like the LongAdder cells.
+ *  - hash() is stable for the thread and never changes: use it when the same stripe must be found twice (e.g. lock/unlock).
+ *  - probe() is re-hashed with advanceProbe() when the stripe is found contended, so the next call starts from another stripe.
+ *    Virtual threads are short-lived and many, so they don't get a ThreadLocal:
+ *    their probe is the stable hash, and advanceProbe() only returns the next value without storing it.
+ */
+public final class ThreadProbe {
+  private static final ThreadLocal<int[]> PLATFORM_PROBE = ThreadLocal.withInitial(() -> new int[] { newProbe() });
+
+  private ThreadProbe() {
+    // no-op
+  }
+
+  /**
+   * @return the hashed thread id, stable for the current thread
+   */
+  public static int hash() {
+    return (int) Hashing.keyHashCode(Thread.currentThread().threadId());
+  }
+
+  /**
+   * @return the current probe of the thread, it changes only after advanceProbe()
+   */
+  public static int probe() {
+    final Thread thread = Thread.currentThread();
+    return thread.isVirtual() ? (int) Hashing.keyHashCode(thread.threadId()) : PLATFORM_PROBE.get()[0];
+  }
+
+  /**
+   * Re-hash the probe after a contention (lock held, CAS failed).
+   * @return the new probe, for the caller retry loop
+   */
+  public static int advanceProbe(int probe) {
+    // xorshift, same as Striped64
+    probe ^= probe << 13;
+    probe ^= probe >>> 17;
+    probe ^= probe << 5;
+    if (!Thread.currentThread().isVirtual()) {
+      PLATFORM_PROBE.get()[0] = probe;
+    }
+    return probe;
+  }
+
+  private static int newProbe() {
+    final int probe = ThreadLocalRandom.current().nextInt();
+    return probe != 0 ? probe : 1;
+  }
+}
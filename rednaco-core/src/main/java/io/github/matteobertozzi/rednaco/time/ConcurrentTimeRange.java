@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.time;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free ring of time slots, the concurrent counterpart of TimeRange.
+ * Each slot is an immutable (epoch, value) pair, where epoch = timestamp / window.
+ * When a timestamp maps to a slot holding an older epoch, the slot is rotated
+ * by CAS-replacing it with a new pair. There are no locks and no reset of shared state:
+ * a thread that loaded the old slot right before the rotation may add its value to the old
+ * window, which is no longer visible (the same tolerance of a LongAdder reset).
+ *
+ * For slot values that are expensive to allocate (e.g. histograms), a slotReset can be specified:
+ * the rotation reuses the value of the expired slot, and the thread that rotated it resets it.
+ * The values added to the new window while the reset is running may be lost.
+ *
+ * Timestamps are in milliseconds, TimeUtil.currentEpochMillis() is used when not specified.
+ */
+public final class ConcurrentTimeRange<T> {
+  private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Slot[].class);
+
+  private record Slot<T>(long epoch, T value) {}
+
+  @FunctionalInterface
+  public interface SlotConsumer<T> {
+    void accept(long slotTimestamp, T value);
+  }
+
+  private final Slot<T>[] slots;
+  private final Supplier<T> slotFactory;
+  private final Consumer<? super T> slotReset;
+  private final long windowMillis;
+
+  public ConcurrentTimeRange(final int slotsCount, final long window, final TimeUnit unit, final Supplier<T> slotFactory) {
+    this(slotsCount, window, unit, slotFactory, null);
+  }
+
+  /**
+   * @param slotReset called on the value of an expired slot to reuse it, or null to always use the slotFactory
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public ConcurrentTimeRange(final int slotsCount, final long window, final TimeUnit unit,
+      final Supplier<T> slotFactory, final Consumer<? super T> slotReset) {
+    if (slotsCount < 1) throw new IllegalArgumentException("expected at least one slot, got " + slotsCount);
+    this.windowMillis = unit.toMillis(window);
+    if (windowMillis < 1) throw new IllegalArgumentException("expected a window of at least 1ms, got " + window + unit);
+    this.slots = new Slot[slotsCount];
+    this.slotFactory = slotFactory;
+    this.slotReset = slotReset;
+  }
+
+  public int slotsCount() {
+    return slots.length;
+  }
+
+  public long windowMillis() {
+    return windowMillis;
+  }
+
+  /**
+   * @return the value of the slot containing the timestamp, rotating the slot if needed.
+   *         null if the timestamp is older than the slot's window (the slot was already reused).
+   */
+  public T get(final long timestamp) {
+    final long epoch = Math.floorDiv(timestamp, windowMillis);
+    final int index = Math.floorMod(epoch, slots.length);
+
+    @SuppressWarnings("unchecked")
+    Slot<T> current = (Slot<T>) SLOTS.getAcquire(slots, index);
+    T newValue = null;
+    while (true) {
+      if (current != null) {
+        if (current.epoch == epoch) return current.value;
+        if (current.epoch > epoch) return null;
+      }
+
+      final boolean reuse = slotReset != null && current != null;
+      if (!reuse && newValue == null) newValue = slotFactory.get();
+      final Slot<T> newSlot = new Slot<>(epoch, reuse ? current.value : newValue);
+      @SuppressWarnings("unchecked")
+      final Slot<T> witness = (Slot<T>) SLOTS.compareAndExchangeRelease(slots, index, current, newSlot);
+      if (witness == current) {
+        // only the thread that won the rotation resets the reused value
+        if (reuse) slotReset.accept(newSlot.value);
+        return newSlot.value;
+      }
+      current = witness;
+    }
+  }
+
+  public T get() {
+    return get(TimeUtil.currentEpochMillis());
+  }
+
+  /**
+   * @return the value of the slot containing the timestamp, without rotating. null if the slot is not there.
+   */
+  public T peek(final long timestamp) {
+    final long epoch = Math.floorDiv(timestamp, windowMillis);
+    @SuppressWarnings("unchecked")
+    final Slot<T> slot = (Slot<T>) SLOTS.getAcquire(slots, Math.floorMod(epoch, slots.length));
+    return (slot != null && slot.epoch == epoch) ? slot.value : null;
+  }
+
+  /**
+   * Visit the slots in the window ending at the timestamp, from the oldest to the newest.
+   * The slots never updated (or expired) are skipped.
+   */
+  public void forEach(final long timestamp, final SlotConsumer<? super T> consumer) {
+    final long lastEpoch = Math.floorDiv(timestamp, windowMillis);
+    for (long epoch = lastEpoch - slots.length + 1; epoch <= lastEpoch; ++epoch) {
+      @SuppressWarnings("unchecked")
+      final Slot<T> slot = (Slot<T>) SLOTS.getAcquire(slots, Math.floorMod(epoch, slots.length));
+      if (slot != null && slot.epoch == epoch) {
+        consumer.accept(epoch * windowMillis, slot.value);
+      }
+    }
+  }
+
+  public void forEach(final SlotConsumer<? super T> consumer) {
+    forEach(TimeUtil.currentEpochMillis(), consumer);
+  }
+
+  public void clear() {
+    for (int i = 0; i < slots.length; ++i) {
+      SLOTS.setRelease(slots, i, null);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.time;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counter over a sliding window (e.g. 60 slots of 1 second),
+ * usable for rate limiting and per-route request rates.
+ */
+public final class WindowedCounter {
+  private final ConcurrentTimeRange<LongAdder> range;
+
+  public WindowedCounter(final int slotsCount, final long window, final TimeUnit unit) {
+    this.range = new ConcurrentTimeRange<>(slotsCount, window, unit, LongAdder::new);
+  }
+
+  public void increment() {
+    add(TimeUtil.currentEpochMillis(), 1);
+  }
+
+  public void add(final long delta) {
+    add(TimeUtil.currentEpochMillis(), delta);
+  }
+
+  public void add(final long timestamp, final long delta) {
+    final LongAdder slot = range.get(timestamp);
+    if (slot != null) slot.add(delta);
+  }
+
+  /**
+   * @return the sum of the slots in the window ending now
+   */
+  public long sum() {
+    return sum(TimeUtil.currentEpochMillis());
+  }
+
+  public long sum(final long timestamp) {
+    final long[] sum = new long[1];
+    range.forEach(timestamp, (slotTs, slot) -> sum[0] += slot.sum());
+    return sum[0];
+  }
+
+  /**
+   * @return the value of the slot containing the timestamp (0 if the slot was never updated)
+   */
+  public long slotValue(final long timestamp) {
+    final LongAdder slot = range.peek(timestamp);
+    return slot != null ? slot.sum() : 0;
+  }
+
+  /**
+   * @return the per-slot values of the window ending at the timestamp, from the oldest to the newest
+   */
+  public long[] toArray(final long timestamp) {
+    final long[] values = new long[range.slotsCount()];
+    final long firstSlotTs = (Math.floorDiv(timestamp, range.windowMillis()) - values.length + 1) * range.windowMillis();
+    range.forEach(timestamp, (slotTs, slot) -> values[(int) ((slotTs - firstSlotTs) / range.windowMillis())] = slot.sum());
+    return values;
+  }
+
+  public void clear() {
+    range.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "WindowedCounter [slots=" + range.slotsCount() + ", window=" + range.windowMillis() + "ms, sum=" + sum() + "]";
+  }
+}
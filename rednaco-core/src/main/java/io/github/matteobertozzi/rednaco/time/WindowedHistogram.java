@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.time;
+
+import java.util.concurrent.TimeUnit;
+
+import io.github.matteobertozzi.rednaco.math.LogLinearHistogram;
+
+/**
+ * Lock-free histogram over a sliding window (e.g. per-route latencies of the last minutes).
+ * Each slot is a LogLinearHistogram, the snapshot merges the slots of the window.
+ * The slot histograms are allocated once and reset when their slot is rotated.
+ */
+public final class WindowedHistogram {
+  private final ConcurrentTimeRange<LogLinearHistogram> range;
+  private final int precisionBits;
+
+  public WindowedHistogram(final int slotsCount, final long window, final TimeUnit unit) {
+    this(slotsCount, window, unit, LogLinearHistogram.DEFAULT_PRECISION_BITS, Long.MAX_VALUE);
+  }
+
+  public WindowedHistogram(final int slotsCount, final long window, final TimeUnit unit,
+      final int precisionBits, final long maxTrackableValue) {
+    this.precisionBits = precisionBits;
+    this.range = new ConcurrentTimeRange<>(slotsCount, window, unit,
+      () -> new LogLinearHistogram(precisionBits, maxTrackableValue), LogLinearHistogram::reset);
+  }
+
+  public void add(final long value) {
+    add(TimeUtil.currentEpochMillis(), value);
+  }
+
+  public void add(final long timestamp, final long value) {
+    final LogLinearHistogram slot = range.get(timestamp);
+    if (slot != null) slot.add(value);
+  }
+
+  public LogLinearHistogram.Snapshot snapshot() {
+    return snapshot(TimeUtil.currentEpochMillis());
+  }
+
+  /**
+   * @return the merged snapshot of the slots in the window ending at the timestamp
+   */
+  public LogLinearHistogram.Snapshot snapshot(final long timestamp) {
+    final LogLinearHistogram.Snapshot[] snapshot = new LogLinearHistogram.Snapshot[] { LogLinearHistogram.Snapshot.empty(precisionBits) };
+    range.forEach(timestamp, (slotTs, slot) -> snapshot[0] = snapshot[0].merge(slot.snapshot()));
+    return snapshot[0];
+  }
+
+  public void clear() {
+    range.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "WindowedHistogram [slots=" + range.slotsCount() + ", window=" + range.windowMillis() + "ms, " + snapshot() + "]";
+  }
+}
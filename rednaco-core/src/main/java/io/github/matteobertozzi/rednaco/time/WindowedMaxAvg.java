@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.time;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.github.matteobertozzi.rednaco.math.Statistics;
+
+/**
+ * Lock-free max/avg over a sliding window (e.g. execution time, queue length).
+ */
+public final class WindowedMaxAvg {
+  private static final class MaxAvgSlot {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    private void add(final long value) {
+      count.increment();
+      sum.add(value);
+      long current = max.get();
+      while (value > current) {
+        final long witness = max.compareAndExchange(current, value);
+        if (witness == current) return;
+        current = witness;
+      }
+    }
+  }
+
+  private final ConcurrentTimeRange<MaxAvgSlot> range;
+
+  public WindowedMaxAvg(final int slotsCount, final long window, final TimeUnit unit) {
+    this.range = new ConcurrentTimeRange<>(slotsCount, window, unit, MaxAvgSlot::new);
+  }
+
+  public void add(final long value) {
+    add(TimeUtil.currentEpochMillis(), value);
+  }
+
+  public void add(final long timestamp, final long value) {
+    final MaxAvgSlot slot = range.get(timestamp);
+    if (slot != null) slot.add(value);
+  }
+
+  public long count() {
+    return count(TimeUtil.currentEpochMillis());
+  }
+
+  public long count(final long timestamp) {
+    final long[] count = new long[1];
+    range.forEach(timestamp, (slotTs, slot) -> count[0] += slot.count.sum());
+    return count[0];
+  }
+
+  /**
+   * @return the max value of the window ending at the timestamp (0 if no values were recorded)
+   */
+  public long max() {
+    return max(TimeUtil.currentEpochMillis());
+  }
+
+  public long max(final long timestamp) {
+    final long[] max = new long[] { Long.MIN_VALUE };
+    range.forEach(timestamp, (slotTs, slot) -> max[0] = Math.max(max[0], slot.max.get()));
+    return max[0] == Long.MIN_VALUE ? 0 : max[0];
+  }
+
+  public double average() {
+    return average(TimeUtil.currentEpochMillis());
+  }
+
+  public double average(final long timestamp) {
+    final long[] countSum = new long[2];
+    range.forEach(timestamp, (slotTs, slot) -> {
+      countSum[0] += slot.count.sum();
+      countSum[1] += slot.sum.sum();
+    });
+    return Statistics.average(countSum[0], countSum[1]);
+  }
+
+  /**
+   * @return the per-slot max of the window ending at the timestamp, from the oldest to the newest
+   */
+  public long[] maxValues(final long timestamp) {
+    final long[] values = new long[range.slotsCount()];
+    final long firstSlotTs = (Math.floorDiv(timestamp, range.windowMillis()) - values.length + 1) * range.windowMillis();
+    range.forEach(timestamp, (slotTs, slot) -> values[(int) ((slotTs - firstSlotTs) / range.windowMillis())] = slot.max.get());
+    return values;
+  }
+
+  public void clear() {
+    range.clear();
+  }
+
+  @Override
+  public String toString() {
+    final long now = TimeUtil.currentEpochMillis();
+    return "WindowedMaxAvg [slots=" + range.slotsCount() + ", window=" + range.windowMillis() + "ms"
+      + ", count=" + count(now) + ", max=" + max(now) + ", avg=" + average(now) + "]";
+  }
+}
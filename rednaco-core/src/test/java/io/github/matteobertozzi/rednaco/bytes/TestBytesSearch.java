@@ -17,6 +17,9 @@
 
 package io.github.matteobertozzi.rednaco.bytes;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -58,4 +61,60 @@ public class TestBytesSearch {
     Assertions.assertEquals(6, BytesSearch.suffix(full, prefixC));
     Assertions.assertEquals(0, BytesSearch.suffix(full, prefixD));
   }
+
+  @Test
+  public void testIndexOf() {
+    final byte[] text = "hello world, hello bytes search".getBytes();
+    Assertions.assertEquals(0, BytesSearch.indexOf(text, (byte) 'h'));
+    Assertions.assertEquals(13, BytesSearch.indexOf(text, 1, (byte) 'h'));
+    Assertions.assertEquals(-1, BytesSearch.indexOf(text, (byte) 'z'));
+    Assertions.assertEquals(30, BytesSearch.lastIndexOf(text, (byte) 'h'));
+    Assertions.assertEquals(-1, BytesSearch.lastIndexOf(text, (byte) 'z'));
+
+    Assertions.assertEquals(0, BytesSearch.indexOf(text, "hello".getBytes()));
+    Assertions.assertEquals(13, BytesSearch.indexOf(text, 1, "hello".getBytes()));
+    Assertions.assertEquals(13, BytesSearch.lastIndexOf(text, "hello".getBytes()));
+    Assertions.assertEquals(25, BytesSearch.indexOf(text, "search".getBytes()));
+    Assertions.assertEquals(-1, BytesSearch.indexOf(text, "searching".getBytes()));
+    Assertions.assertEquals(-1, BytesSearch.indexOf(text, new byte[0]));
+  }
+
+  @Test
+  public void testRandIndexOf() {
+    final Random rand = new Random();
+    for (int k = 0; k < 1000; ++k) {
+      final byte[] haystack = new byte[rand.nextInt(1, 300)];
+      for (int i = 0; i < haystack.length; ++i) haystack[i] = (byte) rand.nextInt('a', 'e');
+
+      final int needleLen = rand.nextInt(1, 6);
+      final int needleOff = rand.nextInt(0, Math.max(1, haystack.length - needleLen));
+      final byte[] needle = (needleOff + needleLen <= haystack.length)
+        ? Arrays.copyOfRange(haystack, needleOff, needleOff + needleLen)
+        : new byte[] { 'z' };
+
+      Assertions.assertEquals(naiveIndexOf(haystack, needle), BytesSearch.indexOf(haystack, needle));
+      Assertions.assertEquals(naiveLastIndexOf(haystack, needle), BytesSearch.lastIndexOf(haystack, needle));
+      Assertions.assertEquals(naiveIndexOf(haystack, new byte[] { needle[0] }), BytesSearch.indexOf(haystack, needle[0]));
+      Assertions.assertEquals(naiveLastIndexOf(haystack, new byte[] { needle[0] }), BytesSearch.lastIndexOf(haystack, needle[0]));
+
+      final byte[] other = haystack.clone();
+      final int mismatch = rand.nextInt(0, other.length + 1);
+      if (mismatch < other.length) other[mismatch] = 'z';
+      Assertions.assertEquals(mismatch, BytesSearch.prefix(haystack, other));
+    }
+  }
+
+  private static int naiveIndexOf(final byte[] haystack, final byte[] needle) {
+    for (int i = 0; i <= haystack.length - needle.length; ++i) {
+      if (Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) return i;
+    }
+    return -1;
+  }
+
+  private static int naiveLastIndexOf(final byte[] haystack, final byte[] needle) {
+    for (int i = haystack.length - needle.length; i >= 0; --i) {
+      if (Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) return i;
+    }
+    return -1;
+  }
 }
@@ -17,6 +17,9 @@
 
 package io.github.matteobertozzi.rednaco.bytes;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
@@ -53,4 +56,51 @@ public class TestPagedByteArray {
       });
     }
   }
+
+  @Test
+  public void testPages() {
+    final PagedByteArray buffer = new PagedByteArray(16);
+    Assertions.assertEquals(1, buffer.pageCount());
+    Assertions.assertEquals(0, buffer.pageLength(0));
+    for (int i = 0; i < 40; ++i) buffer.add(i);
+
+    Assertions.assertEquals(16, buffer.pageSize());
+    Assertions.assertEquals(3, buffer.pageCount());
+    Assertions.assertEquals(16, buffer.pageLength(0));
+    Assertions.assertEquals(16, buffer.pageLength(1));
+    Assertions.assertEquals(8, buffer.pageLength(2));
+    for (int p = 0; p < buffer.pageCount(); ++p) {
+      for (int i = 0; i < buffer.pageLength(p); ++i) {
+        Assertions.assertEquals((p * 16) + i, buffer.page(p)[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testReader() throws IOException {
+    final byte[] data = new byte[1000];
+    new Random(1000).nextBytes(data);
+    final PagedByteArray buffer = new PagedByteArray(64);
+    buffer.add(data);
+
+    try (PagedByteArrayReader reader = new PagedByteArrayReader(buffer)) {
+      Assertions.assertEquals(data.length, reader.length());
+      Assertions.assertEquals(data[0] & 0xff, reader.read());
+      final byte[] block = new byte[100];
+      Assertions.assertEquals(100, reader.read(block, 0, 100));
+      Assertions.assertArrayEquals(Arrays.copyOfRange(data, 1, 101), block);
+      Assertions.assertEquals(99, reader.skip(99));
+      Assertions.assertEquals(800, reader.available());
+
+      final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      reader.copyTo(300, stream);
+      Assertions.assertArrayEquals(Arrays.copyOfRange(data, 200, 500), stream.toByteArray());
+      Assertions.assertArrayEquals(Arrays.copyOfRange(data, 500, 1000), reader.readAllBytes());
+      Assertions.assertEquals(-1, reader.read());
+      Assertions.assertEquals(-1, reader.read(block, 0, 10));
+
+      reader.reset();
+      Assertions.assertArrayEquals(data, reader.readAllBytes());
+    }
+  }
 }
@@ -23,6 +23,9 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import io.github.matteobertozzi.rednaco.bytes.ByteArray;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+import io.github.matteobertozzi.rednaco.collections.arrays.IntArray;
+import io.github.matteobertozzi.rednaco.collections.arrays.LongArray;
 
 public class TestGroupVarInt {
   @Test
@@ -43,4 +46,109 @@ public class TestGroupVarInt {
       Assertions.assertArrayEquals(input, result);
     }
   }
+
+  @Test
+  public void randEncodeDecode32BigEndian() {
+    final ByteArray buf = new ByteArray(32);
+    final Random rand = new Random();
+    for (int k = 0; k < 10_000; ++k) {
+      final int[] input = new int[rand.nextInt(1, 64)];
+      for (int i = 0; i < input.length; ++i) {
+        input[i] = rand.nextInt() >>> rand.nextInt(32);
+      }
+
+      buf.reset();
+      GroupVarInt.encode32(buf, IntEncoder.BIG_ENDIAN, input, 0, input.length);
+
+      final int[] result = new int[input.length];
+      final int endOff = GroupVarInt.decode32(buf.buffer(), 0, IntDecoder.BIG_ENDIAN, result, 0, input.length);
+      Assertions.assertArrayEquals(input, result);
+      Assertions.assertEquals(buf.size(), endOff);
+    }
+  }
+
+  @Test
+  public void randEncodeDecode64() {
+    final ByteArray buf = new ByteArray(32);
+    final Random rand = new Random();
+    for (final IntEncoder encoder: new IntEncoder[] { IntEncoder.LITTLE_ENDIAN, IntEncoder.BIG_ENDIAN }) {
+      final IntDecoder decoder = (encoder == IntEncoder.LITTLE_ENDIAN) ? IntDecoder.LITTLE_ENDIAN : IntDecoder.BIG_ENDIAN;
+      for (int k = 0; k < 10_000; ++k) {
+        final long[] input = new long[rand.nextInt(1, 64)];
+        for (int i = 0; i < input.length; ++i) {
+          input[i] = rand.nextLong() >>> rand.nextInt(64);
+        }
+
+        buf.reset();
+        GroupVarInt.encode64(buf, encoder, input, 0, input.length);
+
+        final long[] result = new long[input.length];
+        final int endOff = GroupVarInt.decode64(buf.buffer(), 0, decoder, result, 0, input.length);
+        Assertions.assertArrayEquals(input, result);
+        Assertions.assertEquals(buf.size(), endOff);
+      }
+    }
+  }
+
+  @Test
+  public void testEncodeBlock64() {
+    final long[] input = new long[] { 0, 1, 0xff, 0x100, Long.MAX_VALUE, -1, Long.MIN_VALUE };
+    final ByteArray buf = new ByteArray(32);
+    GroupVarInt.encodeBlock64(buf, IntEncoder.LITTLE_ENDIAN, input, 0, input.length);
+    // head + 1 + 1 + 1 + 2 + 8 + 8 + 8
+    Assertions.assertEquals(3 + 29, buf.size());
+
+    final long[] result = new long[input.length];
+    GroupVarInt.decode64(buf.buffer(), 0, IntDecoder.LITTLE_ENDIAN, result, 0, input.length);
+    Assertions.assertArrayEquals(input, result);
+  }
+
+  @Test
+  public void testArrays() {
+    final Random rand = new Random();
+    final IntArray ints = new IntArray(16);
+    final LongArray longs = new LongArray(16);
+    for (int i = 0; i < 1000; ++i) {
+      ints.add(rand.nextInt(100_000));
+      longs.add(rand.nextLong(1L << 40));
+    }
+
+    final ByteArray buf = new ByteArray(32);
+    GroupVarInt.encode32(buf, IntEncoder.LITTLE_ENDIAN, ints);
+    final int longsOff = buf.size();
+    GroupVarInt.encode64(buf, IntEncoder.LITTLE_ENDIAN, longs);
+
+    final IntArray intResult = new IntArray(16);
+    Assertions.assertEquals(longsOff, GroupVarInt.decode32(buf.buffer(), 0, IntDecoder.LITTLE_ENDIAN, intResult, ints.size()));
+    Assertions.assertArrayEquals(ints.buffer(), intResult.buffer());
+
+    final LongArray longResult = new LongArray(16);
+    Assertions.assertEquals(buf.size(), GroupVarInt.decode64(buf.buffer(), longsOff, IntDecoder.LITTLE_ENDIAN, longResult, longs.size()));
+    Assertions.assertArrayEquals(longs.buffer(), longResult.buffer());
+  }
+
+  @Test
+  public void testPagedByteArray() {
+    final Random rand = new Random();
+    final int[] ints = new int[999];
+    final long[] longs = new long[999];
+    for (int i = 0; i < ints.length; ++i) {
+      ints[i] = rand.nextInt();
+      longs[i] = rand.nextLong() >>> rand.nextInt(64);
+    }
+
+    // small pages, to have groups across page boundaries
+    final PagedByteArray buf = new PagedByteArray(16);
+    GroupVarInt.encode32(buf, IntEncoder.LITTLE_ENDIAN, ints, 0, ints.length);
+    final int longsOff = buf.size();
+    GroupVarInt.encode64(buf, IntEncoder.LITTLE_ENDIAN, longs, 0, longs.length);
+
+    final int[] intResult = new int[ints.length];
+    Assertions.assertEquals(longsOff, GroupVarInt.decode32(buf, 0, IntDecoder.LITTLE_ENDIAN, intResult, 0, ints.length));
+    Assertions.assertArrayEquals(ints, intResult);
+
+    final long[] longResult = new long[longs.length];
+    Assertions.assertEquals(buf.size(), GroupVarInt.decode64(buf, longsOff, IntDecoder.LITTLE_ENDIAN, longResult, 0, longs.length));
+    Assertions.assertArrayEquals(longs, longResult);
+  }
 }
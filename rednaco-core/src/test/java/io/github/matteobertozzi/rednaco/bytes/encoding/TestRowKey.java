@@ -291,4 +291,100 @@ public class TestRowKey {
       assertEquals(rec.c(), key.getVarInt(2));
     }
   }
+
+  @Test
+  public void testReader() {
+    final byte[] bytesValue = new byte[] { 0, 1, 0, 0, 2, 0 };
+    final byte[] key = RowKey.newKeyBuilder()
+      .add("abc").addInt32(0).add(bytesValue).addVarInt(123456).addInt64(-1).add("").add("zzz")
+      .drain();
+
+    final RowKeyReader reader = new RowKeyReader(key);
+    Assertions.assertTrue(reader.next());
+    Assertions.assertEquals(0, reader.partIndex());
+    Assertions.assertEquals("abc", reader.getString());
+    Assertions.assertTrue(reader.next());
+    Assertions.assertEquals(0, reader.getInt32());
+    Assertions.assertTrue(reader.next());
+    Assertions.assertEquals(bytesValue.length, reader.partLength());
+    Assertions.assertTrue(reader.partEquals(bytesValue, 0, bytesValue.length));
+    Assertions.assertEquals(new ByteArraySlice(bytesValue), reader.slice());
+    Assertions.assertTrue(reader.next());
+    Assertions.assertEquals(123456, reader.getVarInt());
+    Assertions.assertTrue(reader.next());
+    Assertions.assertEquals(-1, reader.getInt64());
+    // the empty part is written as a separator only
+    Assertions.assertTrue(reader.next());
+    Assertions.assertEquals(0, reader.partLength());
+    Assertions.assertTrue(reader.next());
+    Assertions.assertEquals("zzz", reader.getString());
+    Assertions.assertFalse(reader.hasNext());
+    Assertions.assertFalse(reader.next());
+
+    // reuse the reader, and compare with RowKey
+    final RowKey rowKey = new RowKey(key);
+    reader.reset(key);
+    Assertions.assertTrue(reader.skip(3));
+    Assertions.assertEquals(rowKey.get(2), reader.slice());
+    Assertions.assertFalse(reader.skip(10));
+  }
+
+  @Test
+  public void testReaderRandom() {
+    final RowKeyReader reader = new RowKeyReader();
+    for (int k = 0; k < 1000; ++k) {
+      final RowKey.RowKeyBuilder builder = RowKey.newKeyBuilder();
+      final byte[][] parts = new byte[RandData.generateInt(1, 8)][];
+      for (int i = 0; i < parts.length; ++i) {
+        parts[i] = RandData.generateBytes(RandData.generateInt(1, 32));
+        // add some zeros to escape
+        for (int z = 0; z < parts[i].length; z += RandData.generateInt(1, 4)) parts[i][z] = 0;
+        builder.add(parts[i]);
+      }
+
+      final byte[] key = builder.drain();
+      final RowKey rowKey = new RowKey(key);
+      reader.reset(key);
+      for (int i = 0; i < parts.length; ++i) {
+        Assertions.assertTrue(reader.next());
+        Assertions.assertTrue(reader.partEquals(parts[i], 0, parts[i].length));
+        Assertions.assertEquals(new ByteArraySlice(parts[i]), rowKey.get(i));
+      }
+      Assertions.assertFalse(reader.next());
+      Assertions.assertEquals(parts.length, RowKey.decodeKey(key).size());
+    }
+  }
+
+  @Test
+  public void testReaderInvalidEscape() {
+    final RowKeyReader reader = new RowKeyReader(new byte[] { 1, 0, 2 });
+    Assertions.assertTrue(reader.next());
+    Assertions.assertThrows(IllegalArgumentException.class, reader::partLength);
+  }
+
+  @Test
+  public void testCompareEncoded() {
+    final byte[][] keys = new byte[][] {
+      RowKey.newKeyBuilder().add("x").drain(),
+      RowKey.newKeyBuilder().add("x").add("y").drain(),
+      RowKey.newKeyBuilder().add(new byte[] { 'x', 0 }).drain(),
+      RowKey.newKeyBuilder().add(new byte[] { 'x', 0 }).add("a").drain(),
+      RowKey.newKeyBuilder().add(new byte[] { 'x', 0, 0 }).drain(),
+      RowKey.newKeyBuilder().add(new byte[] { 'x', 1 }).drain(),
+      RowKey.newKeyBuilder().add("y").drain(),
+    };
+    for (int i = 1; i < keys.length; ++i) {
+      Assertions.assertTrue(RowKey.compare(keys[i - 1], keys[i]) < 0, "key " + i);
+      Assertions.assertTrue(RowKey.COMPARATOR.compare(keys[i], keys[i - 1]) > 0, "key " + i);
+    }
+
+    final byte[] a = RowKey.newKeyBuilder().add("aaa").addInt32(0).add("c").drain();
+    final byte[] b = RowKey.newKeyBuilder().add("aaa").addInt32(0).add("d").drain();
+    Assertions.assertEquals(0, RowKey.compareParts(a, b, 1));
+    Assertions.assertEquals(0, RowKey.compareParts(a, b, 2));
+    Assertions.assertTrue(RowKey.compareParts(a, b, 3) < 0);
+    Assertions.assertTrue(RowKey.compareParts(a, b, 10) < 0);
+    Assertions.assertEquals(0, RowKey.compareParts(a, b, 0));
+    Assertions.assertEquals(3, RowKey.partsLength(a, 0, a.length, 1));
+  }
 }
@@ -17,6 +17,9 @@
 
 package io.github.matteobertozzi.rednaco.collections.arrays;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -87,4 +90,109 @@ public class TestArraySortUtil {
     Assertions.assertArrayEquals(new int[] { 10, 20, 30, 50 }, col1);
     Assertions.assertArrayEquals(new int[] { 11, 22, 33, 51 }, col2);
   }
+
+  @Test
+  public void testRadixSortInt() {
+    final Random rand = new Random();
+    for (final int length: new int[] { 0, 1, 10, 255, 256, 1000, 100_000 }) {
+      final int[] values = new int[length];
+      for (int i = 0; i < length; ++i) values[i] = rand.nextInt();
+      assertRadixSort(values);
+
+      // small positive values, most of the passes are skipped
+      for (int i = 0; i < length; ++i) values[i] = rand.nextInt(1000);
+      assertRadixSort(values);
+    }
+    assertRadixSort(new int[] { Integer.MAX_VALUE, -1, 0, Integer.MIN_VALUE, 1, -2, 2 });
+  }
+
+  private static void assertRadixSort(final int[] values) {
+    final int[] expected = values.clone();
+    Arrays.sort(expected);
+
+    final int[] radixSorted = values.clone();
+    ArraySortUtil.radixSort(radixSorted, 0, radixSorted.length);
+    Assertions.assertArrayEquals(expected, radixSorted);
+
+    final int[] parallelSorted = values.clone();
+    ArraySortUtil.parallelSort(parallelSorted, 0, parallelSorted.length);
+    Assertions.assertArrayEquals(expected, parallelSorted);
+  }
+
+  @Test
+  public void testRadixSortLong() {
+    final Random rand = new Random();
+    for (final int length: new int[] { 0, 1, 10, 255, 256, 1000, 300_000 }) {
+      final long[] values = new long[length];
+      for (int i = 0; i < length; ++i) values[i] = rand.nextLong();
+      assertRadixSort(values);
+
+      for (int i = 0; i < length; ++i) values[i] = System.currentTimeMillis() + rand.nextInt(100_000);
+      assertRadixSort(values);
+    }
+    assertRadixSort(new long[] { Long.MAX_VALUE, -1, 0, Long.MIN_VALUE, 1, -2, 2 });
+  }
+
+  private static void assertRadixSort(final long[] values) {
+    final long[] expected = values.clone();
+    Arrays.sort(expected);
+
+    final long[] radixSorted = values.clone();
+    ArraySortUtil.radixSort(radixSorted, 0, radixSorted.length);
+    Assertions.assertArrayEquals(expected, radixSorted);
+
+    final long[] parallelSorted = values.clone();
+    ArraySortUtil.parallelSort(parallelSorted, 0, parallelSorted.length);
+    Assertions.assertArrayEquals(expected, parallelSorted);
+  }
+
+  @Test
+  public void testRadixSortPairs() {
+    final Random rand = new Random();
+    final int[] intKeys = new int[10_000];
+    final long[] longKeys = new long[intKeys.length];
+    final int[] intIndex = new int[intKeys.length];
+    final int[] longIndex = new int[intKeys.length];
+    for (int i = 0; i < intKeys.length; ++i) {
+      intKeys[i] = rand.nextInt(-500, 500);
+      longKeys[i] = intKeys[i] * 1_000_000_000L;
+      intIndex[i] = i;
+      longIndex[i] = i;
+    }
+    final int[] origKeys = intKeys.clone();
+
+    ArraySortUtil.radixSort(intKeys, intIndex, 0, intKeys.length);
+    ArraySortUtil.radixSort(longKeys, longIndex, 0, longKeys.length);
+    Assertions.assertArrayEquals(intIndex, longIndex);
+    for (int i = 1; i < intKeys.length; ++i) {
+      Assertions.assertEquals(origKeys[intIndex[i]], intKeys[i]);
+      Assertions.assertTrue(intKeys[i - 1] <= intKeys[i]);
+      // stable: same keys keep the insertion order
+      if (intKeys[i - 1] == intKeys[i]) {
+        Assertions.assertTrue(intIndex[i - 1] < intIndex[i]);
+      }
+    }
+  }
+
+  @Test
+  public void testStableMergeSort() {
+    final Random rand = new Random();
+    for (final int length: new int[] { 0, 1, 31, 32, 33, 1000, 10_000 }) {
+      final int[] keys = new int[length];
+      for (int i = 0; i < length; ++i) keys[i] = rand.nextInt(100);
+
+      final int[] index = ArraySortUtil.sortedIndex(0, length, (a, b) -> Integer.compare(keys[a], keys[b]));
+      Assertions.assertEquals(length, index.length);
+      for (int i = 1; i < length; ++i) {
+        Assertions.assertTrue(keys[index[i - 1]] <= keys[index[i]]);
+        if (keys[index[i - 1]] == keys[index[i]]) {
+          Assertions.assertTrue(index[i - 1] < index[i]);
+        }
+      }
+    }
+
+    final String[] aliases = { "b", "x1", "a", "x2", "b", "x3", "a", "x4" };
+    final int[] index = ArraySortUtil.sortedIndex(0, aliases.length / 2, (a, b) -> aliases[a * 2].compareTo(aliases[b * 2]));
+    Assertions.assertArrayEquals(new int[] { 1, 3, 0, 2 }, index);
+  }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.arrays;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.math.Statistics;
+
+public class TestCompressedIntArray {
+  @Test
+  public void testEmpty() {
+    final CompressedIntArray column = CompressedIntArray.of(new int[0]);
+    Assertions.assertTrue(column.isEmpty());
+    Assertions.assertEquals(0, column.size());
+    Assertions.assertArrayEquals(new int[0], column.toArray());
+    Assertions.assertEquals(0, column.min());
+    Assertions.assertEquals(0, column.max());
+    Assertions.assertEquals(0, column.sum());
+    Assertions.assertEquals(0, column.standardDeviation());
+  }
+
+  @Test
+  public void testRandom() {
+    final long seed = System.nanoTime();
+    final Random rand = new Random(seed);
+    for (final int length: new int[] { 0, 1, 127, 128, 129, 1000 }) {
+      final int[] values = new int[length];
+      for (int i = 0; i < length; ++i) values[i] = rand.nextInt();
+      assertColumn(values, "seed " + seed);
+    }
+  }
+
+  @Test
+  public void testExtremes() {
+    final int[] values = new int[260];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = (i & 1) == 0 ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+    }
+    assertColumn(values, "extremes");
+  }
+
+  @Test
+  public void testDrainCompressed() {
+    final IntArray array = new IntArray(16);
+    for (int i = 0; i < 1000; ++i) array.add(i);
+    final int[] expected = array.buffer();
+
+    final CompressedIntArray column = array.drainCompressed();
+    Assertions.assertTrue(array.isEmpty());
+    Assertions.assertArrayEquals(expected, column.toArray());
+
+    // the drained array releases its buffer, and can be reused
+    Assertions.assertEquals(0, array.rawBuffer().length);
+    array.add(7);
+    Assertions.assertArrayEquals(new int[] { 7 }, array.drain());
+    Assertions.assertTrue(column.estimatedHeapSize() < (expected.length * 4L) / 4, column.toString());
+  }
+
+  private static void assertColumn(final int[] values, final String message) {
+    final CompressedIntArray column = CompressedIntArray.of(values);
+    Assertions.assertEquals(values.length, column.size(), message);
+    Assertions.assertArrayEquals(values, column.toArray(), message);
+    for (int i = 0; i < values.length; ++i) {
+      Assertions.assertEquals(values[i], column.get(i), message);
+    }
+    if (values.length == 0) return;
+
+    Assertions.assertEquals(Statistics.min(values, 0, values.length), column.min(), message);
+    Assertions.assertEquals(Statistics.max(values, 0, values.length), column.max(), message);
+    Assertions.assertEquals(Statistics.sum(values, 0, values.length), column.sum(), message);
+  }
+}
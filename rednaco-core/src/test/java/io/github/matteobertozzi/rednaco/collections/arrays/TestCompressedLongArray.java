@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.arrays;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.math.Statistics;
+
+public class TestCompressedLongArray {
+  @Test
+  public void testEmpty() {
+    final CompressedLongArray column = CompressedLongArray.of(new long[0]);
+    Assertions.assertTrue(column.isEmpty());
+    Assertions.assertFalse(column.isNotEmpty());
+    Assertions.assertEquals(0, column.size());
+    Assertions.assertEquals(0, column.blockCount());
+    Assertions.assertArrayEquals(new long[0], column.toArray());
+    Assertions.assertEquals(0, column.min());
+    Assertions.assertEquals(0, column.max());
+    Assertions.assertEquals(0, column.sum());
+    Assertions.assertEquals(0, column.variance());
+    Assertions.assertEquals(0, column.standardDeviation());
+  }
+
+  @Test
+  public void testRandom() {
+    final long seed = System.nanoTime();
+    final Random rand = new Random(seed);
+    for (final int length: new int[] { 1, 7, 127, 128, 129, 1000, 4096 }) {
+      final long[] values = new long[length];
+      for (int i = 0; i < length; ++i) values[i] = rand.nextLong();
+      assertColumn(values, "seed " + seed);
+
+      for (int i = 0; i < length; ++i) values[i] = rand.nextInt(1000) - 500;
+      assertColumn(values, "seed " + seed);
+    }
+  }
+
+  @Test
+  public void testExtremes() {
+    final long[] values = new long[300];
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = switch (i % 3) {
+        case 0 -> Long.MIN_VALUE;
+        case 1 -> Long.MAX_VALUE;
+        default -> 0;
+      };
+    }
+    assertColumn(values, "extremes");
+  }
+
+  @Test
+  public void testConstant() {
+    final long[] values = new long[1000];
+    java.util.Arrays.fill(values, 123456789L);
+    final CompressedLongArray column = assertColumn(values, "constant");
+    // 0 bits per value, only the block headers are stored
+    Assertions.assertTrue(column.estimatedHeapSize() < 512, column.toString());
+  }
+
+  @Test
+  public void testSequential() {
+    final long[] values = new long[10_000];
+    for (int i = 0; i < values.length; ++i) values[i] = 1_000_000 + (i * 3L);
+    final CompressedLongArray column = assertColumn(values, "sequential");
+    // constant delta, 0 bits per value
+    Assertions.assertTrue(column.estimatedHeapSize() < (values.length * 8L) / 20, column.toString());
+  }
+
+  @Test
+  public void testTimestamps() {
+    final Random rand = new Random(42);
+    final long[] values = new long[100_000];
+    long ts = 1_700_000_000_000L;
+    for (int i = 0; i < values.length; ++i) {
+      ts += rand.nextInt(1000);
+      values[i] = ts;
+    }
+    final CompressedLongArray column = assertColumn(values, "timestamps");
+    // deltas are < 1000, 10bits per value instead of 64
+    final long rawSize = values.length * 8L;
+    Assertions.assertTrue(column.estimatedHeapSize() * 5 < rawSize, column + " vs raw " + rawSize);
+  }
+
+  @Test
+  public void testBlockZoneMaps() {
+    final long[] values = new long[500];
+    for (int i = 0; i < values.length; ++i) values[i] = (i % 128) * ((i >>> 7) + 1);
+    final CompressedLongArray column = assertColumn(values, "zone-maps");
+    final long[] buffer = new long[CompressedLongArray.BLOCK_SIZE];
+    for (int b = 0; b < column.blockCount(); ++b) {
+      final int len = column.decodeBlock(b, buffer);
+      Assertions.assertEquals(column.blockLength(b), len);
+      Assertions.assertEquals(Statistics.min(buffer, 0, len), column.blockMin(b));
+      Assertions.assertEquals(Statistics.max(buffer, 0, len), column.blockMax(b));
+    }
+  }
+
+  @Test
+  public void testDrainCompressed() {
+    final LongArray array = new LongArray(16);
+    for (int i = 0; i < 1000; ++i) array.add(i * 10L);
+    final long[] expected = array.buffer();
+
+    final CompressedLongArray column = array.drainCompressed();
+    Assertions.assertTrue(array.isEmpty());
+    Assertions.assertArrayEquals(expected, column.toArray());
+
+    // the drained array releases its buffer, and can be reused
+    Assertions.assertEquals(0, array.rawBuffer().length);
+    array.add(7L);
+    Assertions.assertArrayEquals(new long[] { 7 }, array.drain());
+  }
+
+  private static CompressedLongArray assertColumn(final long[] values, final String message) {
+    final CompressedLongArray column = CompressedLongArray.of(values);
+    Assertions.assertEquals(values.length, column.size(), message);
+    Assertions.assertArrayEquals(values, column.toArray(), message);
+    for (int i = 0; i < values.length; ++i) {
+      Assertions.assertEquals(values[i], column.get(i), message);
+    }
+
+    final int[] index = new int[1];
+    column.forEach((final long v) -> Assertions.assertEquals(values[index[0]++], v, message));
+    Assertions.assertEquals(values.length, index[0]);
+
+    Assertions.assertEquals(Statistics.min(values, 0, values.length), column.min(), message);
+    Assertions.assertEquals(Statistics.max(values, 0, values.length), column.max(), message);
+    Assertions.assertEquals(Statistics.sum(values, 0, values.length), column.sum(), message);
+    return column;
+  }
+}
@@ -17,6 +17,7 @@
 
 package io.github.matteobertozzi.rednaco.collections.arrays;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
@@ -57,4 +58,18 @@ public class TestLongArray {
       });
     }
   }
+
+  @Test
+  public void testSort() {
+    final Random rand = new Random();
+    final LongArray items = new LongArray(16);
+    for (int i = 0; i < 10_000; ++i) {
+      items.add(rand.nextLong());
+    }
+
+    final long[] expected = items.buffer();
+    Arrays.sort(expected);
+    items.sort();
+    Assertions.assertArrayEquals(expected, items.buffer());
+  }
 }
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.collections.cache;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import io.github.matteobertozzi.rednaco.threading.ThreadUtil;
+
+public class TestBoundedCache {
+  @Test
+  public void testFrequencySketch() {
+    final FrequencySketch sketch = new FrequencySketch(512);
+    for (int i = 0; i < 10; ++i) sketch.increment(1);
+    sketch.increment(2);
+    Assertions.assertEquals(10, sketch.frequency(1));
+    Assertions.assertEquals(1, sketch.frequency(2));
+    Assertions.assertEquals(0, sketch.frequency(3));
+
+    // counters are 4 bits
+    for (int i = 0; i < 100; ++i) sketch.increment(1);
+    Assertions.assertEquals(15, sketch.frequency(1));
+
+    // aging: after the sample size all the counters are halved
+    for (int i = 0; i < 10 * 512; ++i) sketch.increment(1000 + i);
+    Assertions.assertTrue(sketch.frequency(1) <= 7, () -> "freq " + sketch.frequency(1));
+  }
+
+  @Test
+  public void testPutGet() {
+    final BoundedCache<String, Integer> cache = BoundedCache.<String, Integer>newBuilder().maximumSize(10).build();
+    Assertions.assertNull(cache.getIfPresent("a"));
+    cache.put("a", 1);
+    cache.put("b", 2);
+    Assertions.assertEquals(1, cache.getIfPresent("a"));
+    Assertions.assertEquals(2, cache.getIfPresent("b"));
+    cache.put("a", 10);
+    Assertions.assertEquals(10, cache.getIfPresent("a"));
+    Assertions.assertEquals(2, cache.estimatedSize());
+
+    cache.invalidate("a");
+    Assertions.assertNull(cache.getIfPresent("a"));
+    cache.invalidateAll();
+    Assertions.assertEquals(0, cache.estimatedSize());
+    Assertions.assertEquals(0, cache.weightedSize());
+
+    final CacheStats stats = cache.stats();
+    Assertions.assertEquals(3, stats.hitCount());
+    Assertions.assertEquals(2, stats.missCount());
+  }
+
+  @Test
+  public void testSizeBound() {
+    final BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>newBuilder().maximumSize(100).build();
+    for (int i = 0; i < 10_000; ++i) {
+      cache.put(i, i);
+      Assertions.assertTrue(cache.estimatedSize() <= 100);
+    }
+    Assertions.assertEquals(100, cache.weightedSize());
+    Assertions.assertEquals(9_900, cache.stats().evictionCount());
+  }
+
+  @Test
+  public void testFrequentKeysAreRetained() {
+    final BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>newBuilder().maximumSize(100).build();
+    // hot keys, accessed many times
+    for (int round = 0; round < 20; ++round) {
+      for (int i = 0; i < 50; ++i) {
+        cache.get(i, k -> k);
+      }
+    }
+    // scan of one-hit keys, should not flush the hot keys
+    for (int i = 1000; i < 20_000; ++i) {
+      cache.get(i, k -> k);
+    }
+    cache.cleanUp();
+
+    int retained = 0;
+    for (int i = 0; i < 50; ++i) {
+      if (cache.getIfPresent(i) != null) retained++;
+    }
+    Assertions.assertTrue(retained >= 45, () -> "retained " + cache);
+  }
+
+  @Test
+  public void testWeightBound() {
+    final BoundedCache<String, String> cache = BoundedCache.<String, String>newBuilder()
+      .maximumWeight(100, (k, v) -> v.length())
+      .build();
+    cache.put("a", "x".repeat(40));
+    cache.put("b", "x".repeat(40));
+    Assertions.assertEquals(80, cache.weightedSize());
+    cache.put("c", "x".repeat(40));
+    Assertions.assertTrue(cache.weightedSize() <= 100);
+    Assertions.assertEquals(2, cache.estimatedSize());
+
+    // larger than the cache
+    cache.put("d", "x".repeat(200));
+    Assertions.assertNull(cache.getIfPresent("d"));
+    Assertions.assertTrue(cache.weightedSize() <= 100);
+  }
+
+  @Test
+  public void testExpireAfterWrite() {
+    final AtomicLong ticker = new AtomicLong();
+    final BoundedCache<String, Integer> cache = BoundedCache.<String, Integer>newBuilder()
+      .maximumSize(10)
+      .expireAfterWrite(Duration.ofSeconds(10))
+      .ticker(ticker::get)
+      .build();
+    cache.put("a", 1);
+    ticker.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    cache.put("b", 2);
+    Assertions.assertEquals(1, cache.getIfPresent("a"));
+
+    ticker.addAndGet(TimeUnit.SECONDS.toNanos(5));
+    Assertions.assertNull(cache.getIfPresent("a"));
+    Assertions.assertEquals(2, cache.getIfPresent("b"));
+    cache.cleanUp();
+    Assertions.assertEquals(1, cache.estimatedSize());
+
+    // the write resets the expiration
+    cache.put("b", 3);
+    ticker.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    Assertions.assertEquals(3, cache.getIfPresent("b"));
+  }
+
+  @Test
+  public void testExpireAfterAccess() {
+    final AtomicLong ticker = new AtomicLong();
+    final BoundedCache<String, Integer> cache = BoundedCache.<String, Integer>newBuilder()
+      .maximumSize(10)
+      .expireAfterAccess(Duration.ofSeconds(10))
+      .ticker(ticker::get)
+      .build();
+    cache.put("a", 1);
+    cache.put("b", 2);
+    for (int i = 0; i < 3; ++i) {
+      ticker.addAndGet(TimeUnit.SECONDS.toNanos(6));
+      Assertions.assertEquals(1, cache.getIfPresent("a"));
+    }
+    Assertions.assertNull(cache.getIfPresent("b"));
+  }
+
+  @Test
+  public void testLoader() {
+    final AtomicInteger loads = new AtomicInteger();
+    final BoundedCache<String, Integer> cache = BoundedCache.<String, Integer>newBuilder()
+      .maximumSize(10)
+      .loader(k -> {
+        loads.incrementAndGet();
+        return k.length();
+      })
+      .build();
+    Assertions.assertEquals(3, cache.get("abc"));
+    Assertions.assertEquals(3, cache.get("abc"));
+    Assertions.assertEquals(1, loads.get());
+    Assertions.assertEquals(1, cache.stats().loadSuccessCount());
+
+    // null values are not cached
+    Assertions.assertNull(cache.get("x", k -> null));
+    Assertions.assertNull(cache.getIfPresent("x"));
+
+    final IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+      () -> cache.get("fail", k -> { throw new IllegalStateException("load failure"); }));
+    Assertions.assertEquals("load failure", e.getMessage());
+    Assertions.assertThrows(RuntimeException.class, () -> cache.get("io", k -> { throw new IOException("io failure"); }));
+    Assertions.assertEquals(2, cache.stats().loadFailureCount());
+  }
+
+  @Test
+  @Timeout(value = 5, unit = TimeUnit.SECONDS)
+  public void testAsyncLoadIsDeduplicated() throws Exception {
+    final AtomicInteger loads = new AtomicInteger();
+    final BoundedCache<String, Integer> cache = BoundedCache.<String, Integer>newBuilder()
+      .maximumSize(10)
+      .loader(k -> {
+        ThreadUtil.sleep(50);
+        return loads.incrementAndGet();
+      })
+      .build();
+
+    final CompletableFuture<?>[] futures = new CompletableFuture<?>[16];
+    for (int i = 0; i < futures.length; ++i) {
+      futures[i] = cache.getAsync("a");
+    }
+    CompletableFuture.allOf(futures).get();
+    for (final CompletableFuture<?> future: futures) {
+      Assertions.assertEquals(1, future.get());
+    }
+    Assertions.assertEquals(1, loads.get());
+    Assertions.assertEquals(1, cache.getAsync("a").get());
+  }
+
+  @Test
+  @Timeout(value = 5, unit = TimeUnit.SECONDS)
+  public void testRecursiveLoad() {
+    final BoundedCache<String, Integer> cache = BoundedCache.<String, Integer>newBuilder().maximumSize(10).build();
+    final IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> cache.get("a", k -> cache.get(k, k2 -> 1)));
+    Assertions.assertTrue(e.getMessage().contains("recursive load"), e.getMessage());
+
+    // loading other keys from a loader is fine
+    Assertions.assertEquals(3, cache.get("b", k -> cache.get("c", k2 -> 2) + 1));
+
+    final ExecutionException asyncError = Assertions.assertThrows(ExecutionException.class,
+      () -> cache.getAsync("d", k -> cache.get(k, k2 -> 1)).get());
+    Assertions.assertInstanceOf(IllegalStateException.class, asyncError.getCause());
+  }
+
+  @Test
+  @Timeout(value = 10, unit = TimeUnit.SECONDS)
+  public void testConcurrentAccess() throws Throwable {
+    final BoundedCache<Integer, Integer> cache = BoundedCache.<Integer, Integer>newBuilder().maximumSize(500).build();
+    final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    final Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; ++t) {
+      final int seed = t;
+      threads[t] = Thread.ofPlatform().start(() -> {
+        try {
+          for (int i = 0; i < 50_000; ++i) {
+            final int key = (i * 31 + seed) % 2000;
+            final Integer value = cache.get(key, k -> k * 2);
+            Assertions.assertEquals(key * 2, value);
+            if ((i & 1023) == 0) cache.invalidate(key);
+          }
+        } catch (final Throwable e) {
+          failures.add(e);
+        }
+      });
+    }
+    for (final Thread thread: threads) thread.join();
+    if (!failures.isEmpty()) throw failures.peek();
+    cache.cleanUp();
+    Assertions.assertTrue(cache.weightedSize() <= 500);
+    Assertions.assertEquals(cache.weightedSize(), cache.estimatedSize());
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.math;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestLogLinearHistogram {
+  @Test
+  public void testBucketIndex() {
+    for (int bits = 1; bits <= 8; ++bits) {
+      // linear buckets
+      for (int i = 0; i < (1 << bits); ++i) {
+        Assertions.assertEquals(i, LogLinearHistogram.bucketIndex(i, bits));
+        Assertions.assertEquals(i, LogLinearHistogram.bucketLowerBound(i, bits));
+      }
+
+      // buckets are contiguous
+      final int lastBucket = LogLinearHistogram.bucketIndex(Long.MAX_VALUE, bits);
+      for (int i = 0; i < lastBucket; ++i) {
+        final long lower = LogLinearHistogram.bucketLowerBound(i, bits);
+        final long upper = LogLinearHistogram.bucketUpperBound(i, bits);
+        Assertions.assertTrue(lower < upper, "bucket " + i);
+        Assertions.assertEquals(i, LogLinearHistogram.bucketIndex(lower, bits));
+        Assertions.assertEquals(i, LogLinearHistogram.bucketIndex(upper - 1, bits));
+        Assertions.assertEquals(i + 1, LogLinearHistogram.bucketIndex(upper, bits));
+        // relative width is bounded by the precision
+        Assertions.assertTrue((upper - lower) <= Math.max(1, lower >> bits), "bucket " + i);
+      }
+      Assertions.assertEquals(Long.MAX_VALUE, LogLinearHistogram.bucketUpperBound(lastBucket, bits));
+    }
+
+    final Random rand = new Random();
+    for (int i = 0; i < 10_000; ++i) {
+      final long value = rand.nextLong() >>> rand.nextInt(64);
+      final int index = LogLinearHistogram.bucketIndex(value, 5);
+      Assertions.assertTrue(value >= LogLinearHistogram.bucketLowerBound(index, 5));
+      Assertions.assertTrue(value < LogLinearHistogram.bucketUpperBound(index, 5) || index == LogLinearHistogram.bucketIndex(Long.MAX_VALUE, 5));
+    }
+  }
+
+  @Test
+  public void testPercentiles() {
+    final LogLinearHistogram histo = new LogLinearHistogram(5, TimeUnit.HOURS.toNanos(1));
+    Assertions.assertTrue(histo.snapshot().isEmpty());
+    Assertions.assertEquals(0, histo.snapshot().percentile(99));
+
+    for (int i = 1; i <= 100_000; ++i) {
+      histo.add(i);
+    }
+
+    final LogLinearHistogram.Snapshot snapshot = histo.snapshot();
+    Assertions.assertEquals(100_000, snapshot.numEvents());
+    Assertions.assertEquals(1, snapshot.minValue());
+    Assertions.assertEquals(100_000, snapshot.maxValue());
+    Assertions.assertEquals(5_000_050_000L, snapshot.sum());
+    Assertions.assertEquals(50_000.5, snapshot.average(), 0.0001);
+    Assertions.assertEquals(28867.5, snapshot.standardDeviation(), 1.0);
+    for (final double p: new double[] { 1, 10, 25, 50, 75, 90, 99, 99.9 }) {
+      final double expected = p * 1000;
+      Assertions.assertEquals(expected, snapshot.percentile(p), expected / 32, "p" + p);
+    }
+    Assertions.assertEquals(100_000, snapshot.percentile(100));
+    Assertions.assertEquals(snapshot.percentile(50), snapshot.median());
+
+    // same result computed from the bounds
+    Assertions.assertEquals(snapshot.percentile(90), Statistics.percentile(90, snapshot.bounds(),
+      snapshot.minValue(), snapshot.maxValue(), snapshot.numEvents(), eventsOf(snapshot), 0));
+
+    histo.reset();
+    Assertions.assertTrue(histo.snapshot().isEmpty());
+  }
+
+  @Test
+  public void testLargeValues() {
+    final LogLinearHistogram histo = new LogLinearHistogram();
+    final long value = TimeUnit.DAYS.toNanos(30);
+    for (int i = 0; i < 1000; ++i) {
+      histo.add(value);
+    }
+    histo.add(-5);
+    histo.add(Long.MAX_VALUE);
+
+    final LogLinearHistogram.Snapshot snapshot = histo.snapshot();
+    Assertions.assertEquals(1002, snapshot.numEvents());
+    Assertions.assertEquals(0, snapshot.minValue());
+    Assertions.assertEquals(Long.MAX_VALUE, snapshot.maxValue());
+    Assertions.assertEquals(value, snapshot.percentile(50), value / 16.0);
+
+    // default precision and max value: 960 buckets per stripe (the class doc footprint)
+    Assertions.assertEquals(960, new LogLinearHistogram().bucketCount());
+
+    // values above the max trackable value go in the last bucket
+    final LogLinearHistogram bounded = new LogLinearHistogram(3, 1000);
+    bounded.add(1_000_000);
+    Assertions.assertEquals(LogLinearHistogram.bucketIndex(1000, 3) + 1, bounded.bucketCount());
+    Assertions.assertEquals(LogLinearHistogram.bucketLowerBound(bounded.bucketCount() - 1, 3), bounded.snapshot().bucketLowerBound(0));
+    Assertions.assertEquals(1_000_000, bounded.snapshot().maxValue());
+  }
+
+  @Test
+  public void testMerge() {
+    final LogLinearHistogram a = new LogLinearHistogram();
+    final LogLinearHistogram b = new LogLinearHistogram();
+    final LogLinearHistogram all = new LogLinearHistogram();
+    final Random rand = new Random();
+    for (int i = 0; i < 10_000; ++i) {
+      final long value = rand.nextLong(1, 1_000_000_000L);
+      ((i & 1) == 0 ? a : b).add(value);
+      all.add(value);
+    }
+
+    final LogLinearHistogram.Snapshot expected = all.snapshot();
+    final LogLinearHistogram.Snapshot merged = a.snapshot().merge(b.snapshot());
+    assertSameSnapshot(expected, merged);
+
+    final LogLinearHistogram target = new LogLinearHistogram();
+    target.merge(a);
+    target.merge(b.snapshot());
+    assertSameSnapshot(expected, target.snapshot());
+
+    Assertions.assertSame(merged, merged.merge(new LogLinearHistogram().snapshot()));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> target.merge(new LogLinearHistogram(2, 100)));
+  }
+
+  @Test
+  public void testConcurrentAdd() throws InterruptedException {
+    final LogLinearHistogram histo = new LogLinearHistogram();
+    final int nThreads = 8;
+    final int nValues = 100_000;
+    final ArrayList<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < nThreads; ++t) {
+      final int threadId = t;
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int i = 1; i <= nValues; ++i) {
+          histo.add(threadId * 1000L + i);
+        }
+      }));
+    }
+    for (final Thread thread: threads) {
+      thread.join();
+    }
+
+    final LogLinearHistogram.Snapshot snapshot = histo.snapshot();
+    Assertions.assertEquals(nThreads * (long) nValues, snapshot.numEvents());
+    Assertions.assertEquals(1, snapshot.minValue());
+    Assertions.assertEquals((nThreads - 1) * 1000L + nValues, snapshot.maxValue());
+    long expectedSum = 0;
+    for (int t = 0; t < nThreads; ++t) {
+      expectedSum += t * 1000L * nValues + (nValues * (nValues + 1L)) / 2;
+    }
+    Assertions.assertEquals(expectedSum, snapshot.sum());
+  }
+
+  private static void assertSameSnapshot(final LogLinearHistogram.Snapshot expected, final LogLinearHistogram.Snapshot actual) {
+    Assertions.assertEquals(expected.numEvents(), actual.numEvents());
+    Assertions.assertEquals(expected.minValue(), actual.minValue());
+    Assertions.assertEquals(expected.maxValue(), actual.maxValue());
+    Assertions.assertEquals(expected.sum(), actual.sum());
+    Assertions.assertEquals(expected.standardDeviation(), actual.standardDeviation(), 0.001);
+    Assertions.assertArrayEquals(expected.bounds(), actual.bounds());
+    Assertions.assertArrayEquals(eventsOf(expected), eventsOf(actual));
+    Assertions.assertEquals(expected.percentile(99), actual.percentile(99));
+  }
+
+  private static long[] eventsOf(final LogLinearHistogram.Snapshot snapshot) {
+    final long[] events = new long[snapshot.bucketCount()];
+    for (int i = 0; i < events.length; ++i) {
+      events[i] = snapshot.events(i);
+    }
+    return events;
+  }
+}
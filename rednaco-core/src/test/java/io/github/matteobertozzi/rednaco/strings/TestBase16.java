@@ -17,12 +17,16 @@
 
 package io.github.matteobertozzi.rednaco.strings;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import io.github.matteobertozzi.rednaco.bytes.ByteArray;
+
 public class TestBase16 {
   @Test
   public void testBase16() {
@@ -51,6 +55,41 @@ public class TestBase16 {
     testEncodeDecode(Base16.base16(), "ff563412f7abcdef", 0xff563412F7ABCDEFL);
   }
 
+  @Test
+  public void testEncodeDecodeInto() {
+    final Random rand = new Random();
+    for (int len = 0; len < 3000; len += 1 + (len >> 3)) {
+      final byte[] data = new byte[len + 3];
+      rand.nextBytes(data);
+      final byte[] input = Arrays.copyOfRange(data, 3, 3 + len);
+      final byte[] expected = Base16.base16().encode(input).getBytes(StandardCharsets.US_ASCII);
+
+      final byte[] encoded = new byte[expected.length + 2];
+      Assertions.assertEquals(expected.length, Base16.base16().encode(data, 3, len, encoded, 2));
+      Assertions.assertArrayEquals(expected, Arrays.copyOfRange(encoded, 2, encoded.length));
+
+      final byte[] decoded = new byte[len + 1];
+      Assertions.assertEquals(len, Base16.base16().decode(encoded, 2, expected.length, decoded, 1));
+      Assertions.assertArrayEquals(input, Arrays.copyOfRange(decoded, 1, decoded.length));
+      Assertions.assertEquals(len, Base16.base16().decode(new String(expected, StandardCharsets.US_ASCII), 0, expected.length, decoded, 0));
+      Assertions.assertArrayEquals(input, Arrays.copyOf(decoded, len));
+
+      final ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+      Base16.base16().encode(data, 3, len, direct);
+      Assertions.assertEquals(ByteBuffer.wrap(expected), direct.flip());
+      final ByteBuffer heap = ByteBuffer.allocate(len);
+      Base16.base16().decode(expected, 0, expected.length, heap);
+      Assertions.assertEquals(ByteBuffer.wrap(input), heap.flip());
+
+      final ByteArray appender = new ByteArray(16);
+      Base16.base16().encode(data, 3, len, appender);
+      Assertions.assertArrayEquals(expected, appender.buffer());
+      appender.reset();
+      Base16.base16().decode(expected, 0, expected.length, appender);
+      Assertions.assertArrayEquals(input, appender.buffer());
+    }
+  }
+
   private static void testEncodeDecode(final Base16 base16, final String expected, final String input) {
     testEncodeDecode(base16, expected, input.getBytes(StandardCharsets.UTF_8));
     Assertions.assertEquals(input, new String(base16.decode(expected)));
@@ -17,12 +17,16 @@
 
 package io.github.matteobertozzi.rednaco.strings;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import io.github.matteobertozzi.rednaco.bytes.ByteArray;
+
 public class TestBase64 {
   @Test
   public void testBase64() {
@@ -48,6 +52,98 @@ public class TestBase64 {
     testRand(Base64.base64hex());
   }
 
+  @Test
+  public void testJdkCompatibility() {
+    final java.util.Base64.Encoder jdkEncoder = java.util.Base64.getEncoder().withoutPadding();
+    final java.util.Base64.Decoder jdkDecoder = java.util.Base64.getDecoder();
+    final Random rand = new Random();
+    for (int len = 0; len < 200; ++len) {
+      final byte[] data = new byte[len];
+      rand.nextBytes(data);
+      final String expected = jdkEncoder.encodeToString(data);
+      Assertions.assertEquals(expected, Base64.base64().encode(data));
+      Assertions.assertEquals(expected.length(), Base64.lengthEncoded(len));
+      Assertions.assertArrayEquals(data, jdkDecoder.decode(Base64.base64().encode(data)));
+      if (len > 0) {
+        Assertions.assertArrayEquals(data, Base64.base64().decode(expected.getBytes(StandardCharsets.US_ASCII)));
+      }
+      Assertions.assertArrayEquals(data, Base64.base64().decode(expected));
+    }
+  }
+
+  @Test
+  public void testEncodeDecodeInto() {
+    final Random rand = new Random();
+    for (int len = 0; len < 300; len += 1 + (len >> 4)) {
+      final byte[] data = new byte[len + 7];
+      rand.nextBytes(data);
+      final byte[] expected = Base64.base64().encode(data, 5, len).getBytes(StandardCharsets.US_ASCII);
+      Assertions.assertArrayEquals(expected, Base64.base64().encode(Arrays.copyOfRange(data, 5, 5 + len)).getBytes(StandardCharsets.US_ASCII));
+
+      // byte[] with offsets, the bytes around the output must not be touched
+      final byte[] encoded = new byte[expected.length + 6];
+      Arrays.fill(encoded, (byte) '#');
+      Assertions.assertEquals(expected.length, Base64.base64().encode(data, 5, len, encoded, 3));
+      Assertions.assertArrayEquals(expected, Arrays.copyOfRange(encoded, 3, 3 + expected.length));
+      Assertions.assertEquals('#', encoded[2]);
+      Assertions.assertEquals('#', encoded[3 + expected.length]);
+
+      final byte[] decoded = new byte[len + 4];
+      Arrays.fill(decoded, (byte) 0x7f);
+      Assertions.assertEquals(len, Base64.base64().decode(encoded, 3, expected.length, decoded, 2));
+      Assertions.assertArrayEquals(Arrays.copyOfRange(data, 5, 5 + len), Arrays.copyOfRange(decoded, 2, 2 + len));
+      Assertions.assertEquals(0x7f, decoded[1]);
+      Assertions.assertEquals(0x7f, decoded[2 + len]);
+
+      final String encodedString = "xx" + new String(expected, StandardCharsets.US_ASCII);
+      Assertions.assertEquals(len, Base64.base64().decode(encodedString, 2, expected.length, decoded, 0));
+      Assertions.assertArrayEquals(Arrays.copyOfRange(data, 5, 5 + len), Arrays.copyOf(decoded, len));
+
+      // heap and direct ByteBuffer
+      for (final ByteBuffer buffer: new ByteBuffer[] { ByteBuffer.allocate(expected.length + 1), ByteBuffer.allocateDirect(expected.length + 1) }) {
+        buffer.put((byte) '#');
+        Base64.base64().encode(data, 5, len, buffer);
+        Assertions.assertEquals(expected.length + 1, buffer.position());
+        final byte[] bufferData = new byte[expected.length];
+        buffer.get(1, bufferData);
+        Assertions.assertArrayEquals(expected, bufferData);
+
+        final ByteBuffer decodedBuffer = buffer.isDirect() ? ByteBuffer.allocateDirect(len) : ByteBuffer.allocate(len);
+        Base64.base64().decode(expected, 0, expected.length, decodedBuffer);
+        Assertions.assertEquals(len, decodedBuffer.position());
+        final byte[] decodedData = new byte[len];
+        decodedBuffer.get(0, decodedData);
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, 5, 5 + len), decodedData);
+      }
+
+      // appender
+      final ByteArray appender = new ByteArray(16);
+      Base64.base64().encode(data, 5, len, appender);
+      Assertions.assertArrayEquals(expected, appender.buffer());
+      appender.reset();
+      Base64.base64().decode(expected, 0, expected.length, appender);
+      Assertions.assertArrayEquals(Arrays.copyOfRange(data, 5, 5 + len), appender.buffer());
+    }
+  }
+
+  @Test
+  public void testInvalidData() {
+    for (final Base64 base64: new Base64[] { Base64.base64(), Base64.base64hex() }) {
+      final byte[] encoded = base64.encode(new byte[100]).getBytes(StandardCharsets.US_ASCII);
+      for (final int index: new int[] { 0, 7, 15, 40, encoded.length - 5, encoded.length - 1 }) {
+        for (final byte invalid: new byte[] { '=', '*', (byte) 0xe8 }) {
+          final byte[] data = encoded.clone();
+          data[index] = invalid;
+          Assertions.assertThrows(IllegalArgumentException.class, () -> base64.decode(data));
+          Assertions.assertThrows(IllegalArgumentException.class, () -> base64.decode(data, 0, data.length, new byte[100], 0));
+          final String dataString = new String(data, StandardCharsets.ISO_8859_1);
+          Assertions.assertThrows(IllegalArgumentException.class, () -> base64.decode(dataString));
+        }
+      }
+      Assertions.assertThrows(IllegalArgumentException.class, () -> base64.decode("AA\u4e2dA"));
+    }
+  }
+
   private static void testEncodeDecode(final Base64 base64, final String expected, final String input) {
     Assertions.assertEquals(expected, base64.encode(input.getBytes(StandardCharsets.UTF_8)));
     Assertions.assertEquals(input, new String(base64.decode(expected.getBytes(StandardCharsets.UTF_8))));
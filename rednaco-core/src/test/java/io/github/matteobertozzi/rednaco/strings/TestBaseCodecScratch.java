@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.rednaco.strings;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArray;
+import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
+
+public class TestBaseCodecScratch {
+  @FunctionalInterface
+  private interface BlockWriter<T> {
+    void write(byte[] src, int off, int len, T dst, byte[] scratch);
+  }
+
+  private record ScratchCodec(String name, int scratchBlockSize, Function<byte[], String> encoder,
+      BlockWriter<ByteBuffer> encodeBuffer, BlockWriter<ByteArrayAppender> encodeAppender,
+      BlockWriter<ByteBuffer> decodeBuffer, BlockWriter<ByteArrayAppender> decodeAppender) {
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private static Stream<ScratchCodec> codecs() {
+    final Base16 base16 = Base16.base16();
+    final Base32 base32 = Base32.base32();
+    final Base64 base64 = Base64.base64();
+    return Stream.of(
+      new ScratchCodec("base16", Base16.SCRATCH_BLOCK_SIZE, base16::encode, base16::encode, base16::encode, base16::decode, base16::decode),
+      new ScratchCodec("base32", Base32.SCRATCH_BLOCK_SIZE, base32::encode, base32::encode, base32::encode, base32::decode, base32::decode),
+      new ScratchCodec("base64", Base64.SCRATCH_BLOCK_SIZE, base64::encode, base64::encode, base64::encode, base64::decode, base64::decode)
+    );
+  }
+
+  @ParameterizedTest
+  @MethodSource("codecs")
+  public void testScratchBlock(final ScratchCodec codec) {
+    final byte[] scratch = new byte[codec.scratchBlockSize()];
+    final byte[] data = new byte[5000];
+    new Random().nextBytes(data);
+    final byte[] expected = codec.encoder().apply(data).getBytes(StandardCharsets.US_ASCII);
+
+    // the same scratch block is reused across calls and blocks
+    for (int i = 0; i < 3; ++i) {
+      final ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+      codec.encodeBuffer().write(data, 0, data.length, direct, scratch);
+      Assertions.assertEquals(ByteBuffer.wrap(expected), direct.flip());
+
+      final ByteArray encoded = new ByteArray(16);
+      codec.encodeAppender().write(data, 0, data.length, encoded, scratch);
+      Assertions.assertArrayEquals(expected, encoded.buffer());
+
+      final ByteBuffer directDecoded = ByteBuffer.allocateDirect(data.length);
+      codec.decodeBuffer().write(expected, 0, expected.length, directDecoded, scratch);
+      Assertions.assertEquals(ByteBuffer.wrap(data), directDecoded.flip());
+
+      final ByteArray decoded = new ByteArray(16);
+      codec.decodeAppender().write(expected, 0, expected.length, decoded, scratch);
+      Assertions.assertArrayEquals(data, decoded.buffer());
+    }
+
+    // heap buffers are written in place, no scratch needed
+    final ByteBuffer heap = ByteBuffer.allocate(data.length);
+    codec.decodeBuffer().write(expected, 0, expected.length, heap, null);
+    Assertions.assertArrayEquals(data, heap.array());
+
+    final byte[] smallScratch = new byte[codec.scratchBlockSize() - 1];
+    Assertions.assertThrows(IllegalArgumentException.class,
+      () -> codec.encodeBuffer().write(data, 0, data.length, ByteBuffer.allocateDirect(expected.length), smallScratch));
+    Assertions.assertThrows(IllegalArgumentException.class,
+      () -> codec.encodeAppender().write(data, 0, data.length, new ByteArray(16), smallScratch));
+  }
+}
@@ -18,11 +18,13 @@
 package io.github.matteobertozzi.rednaco.strings;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import io.github.matteobertozzi.rednaco.bytes.ByteArray;
 import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
 
 public class TestBaseN {
@@ -50,6 +52,44 @@ public class TestBaseN {
     testRand(BaseN.base62());
   }
 
+  @Test
+  public void testEncodeDecodeInto() {
+    final Random rand = new Random();
+    for (final BaseN baseN: new BaseN[] { BaseN.base58(), BaseN.base62() }) {
+      for (int len = 0; len < 200; len += 1 + (len >> 3)) {
+        final byte[] data = new byte[len + 2];
+        rand.nextBytes(data);
+        if (len > 2) data[2] = data[3] = 0;
+        final byte[] input = Arrays.copyOfRange(data, 2, 2 + len);
+        final byte[] expected = baseN.encode(input).getBytes(StandardCharsets.US_ASCII);
+
+        final byte[] encoded = new byte[baseN.maxLengthEncoded(len) + 1];
+        Assertions.assertEquals(expected.length, baseN.encode(data, 2, len, encoded, 1));
+        Assertions.assertArrayEquals(expected, Arrays.copyOfRange(encoded, 1, 1 + expected.length));
+
+        final byte[] decoded = new byte[expected.length + 1];
+        Assertions.assertEquals(len, baseN.decode(encoded, 1, expected.length, decoded, 1));
+        Assertions.assertArrayEquals(input, Arrays.copyOfRange(decoded, 1, 1 + len));
+        Assertions.assertArrayEquals(input, baseN.decode(new String(expected, StandardCharsets.US_ASCII)));
+
+        final ByteArray appender = new ByteArray(16);
+        baseN.encode(data, 2, len, appender);
+        Assertions.assertArrayEquals(expected, appender.buffer());
+      }
+    }
+  }
+
+  @Test
+  public void testEncodeLongInto() {
+    final byte[] buffer = new byte[64];
+    for (final long value: new long[] { 0, 1, 57, 58, 61, 62, 1234567890L, Long.MAX_VALUE, -1L }) {
+      for (final BaseN baseN: new BaseN[] { BaseN.base58(), BaseN.base62() }) {
+        final int n = baseN.encode(value, buffer, 3);
+        Assertions.assertEquals(baseN.encode(value), new String(buffer, 3, n, StandardCharsets.US_ASCII));
+      }
+    }
+  }
+
   private static void testEncodeDecode(final BaseN baseN, final String expected, final String input) {
     Assertions.assertEquals(expected, baseN.encode(input.getBytes(StandardCharsets.UTF_8)));
     //Assertions.assertEquals(input, new String(baseN.decode(expected.getBytes(StandardCharsets.UTF_8))));
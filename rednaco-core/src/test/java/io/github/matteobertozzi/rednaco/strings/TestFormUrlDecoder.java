@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.strings;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestFormUrlDecoder {
+  private static List<Map.Entry<String, String>> decodeBytes(final String data) {
+    final ArrayList<Map.Entry<String, String>> fields = new ArrayList<>();
+    final byte[] buf = ("xx" + data + "yy").getBytes(StandardCharsets.UTF_8);
+    FormUrlDecoder.decode(buf, 2, buf.length - 4, (k, v) -> fields.add(Map.entry(k, v)));
+    return fields;
+  }
+
+  private static List<Map.Entry<String, String>> decodeString(final String data) {
+    final ArrayList<Map.Entry<String, String>> fields = new ArrayList<>();
+    FormUrlDecoder.decode(data, (k, v) -> fields.add(Map.entry(k, v)));
+    return fields;
+  }
+
+  private static void assertDecode(final List<Map.Entry<String, String>> expected, final String data) {
+    Assertions.assertEquals(expected, decodeBytes(data));
+    Assertions.assertEquals(expected, decodeString(data));
+  }
+
+  @Test
+  public void testPlain() {
+    assertDecode(List.of(), "");
+    assertDecode(List.of(Map.entry("a", "10")), "a=10");
+    assertDecode(List.of(Map.entry("c", "20"), Map.entry("a", "10"), Map.entry("c", "30")), "c=20&a=10&c=30");
+    assertDecode(List.of(Map.entry("a", ""), Map.entry("b", ""), Map.entry("c", "x=y")), "a&&b=&c=x=y&");
+    assertDecode(List.of(Map.entry("", "v")), "=v");
+  }
+
+  @Test
+  public void testEncoded() {
+    assertDecode(List.of(Map.entry("a b", "c+d"), Map.entry("k", "x&y=z")), "a+b=c%2Bd&k=x%26y%3Dz");
+    assertDecode(List.of(Map.entry("name", "caffè € 😀")), "name=caff%C3%A8+%E2%82%AC%20%F0%9F%98%80");
+    // non-ascii chars mixed with escapes in the query string
+    Assertions.assertEquals(List.of(Map.entry("q", "è è 😀")), decodeString("q=è+%C3%A8+😀"));
+  }
+
+  @Test
+  public void testSameAsUrlDecoder() {
+    final String[] values = { "abc", "a b&c=d", "100%", "àèìòù", "x+y", "中文" };
+    for (final String value: values) {
+      final String encoded = URLEncoder.encode(value, StandardCharsets.UTF_8);
+      final List<Map.Entry<String, String>> expected = List.of(Map.entry("k", URLDecoder.decode(encoded, StandardCharsets.UTF_8)));
+      assertDecode(expected, "k=" + encoded);
+    }
+  }
+
+  @Test
+  public void testInvalidEscape() {
+    Assertions.assertThrows(IllegalArgumentException.class, () -> decodeBytes("a=%2"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> decodeString("a=%zz"));
+  }
+}
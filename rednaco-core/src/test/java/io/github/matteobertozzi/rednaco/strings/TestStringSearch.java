@@ -94,6 +94,17 @@ public class TestStringSearch {
     Assertions.assertTrue(StringSearch.like("a + b>d + c", "%b>d%"));
     Assertions.assertTrue(StringSearch.like("a + b<d + c", "%b<d%"));
     Assertions.assertTrue(StringSearch.like("a + b/d + c", "%b/d%"));
+
+    // segments and single char wildcards
+    Assertions.assertTrue(StringSearch.like("GET /api/v1/users/10", "GET /api/v_/users/%"));
+    Assertions.assertTrue(StringSearch.like("GET /api/v1/users/10", "%/users/__"));
+    Assertions.assertFalse(StringSearch.like("GET /api/v1/users/10", "%/users/_"));
+    Assertions.assertTrue(StringSearch.like("aXbXc", "a%b%c"));
+    Assertions.assertFalse(StringSearch.like("abc", "a%b%bc"));
+    Assertions.assertTrue(StringSearch.like("abcbc", "a%b%bc"));
+    Assertions.assertTrue(StringSearch.like("abc%", "abc\\%"));
+    Assertions.assertTrue(StringSearch.like("100%", "%\\%"));
+    Assertions.assertFalse(StringSearch.like("100", "%\\%"));
   }
 
   @Test
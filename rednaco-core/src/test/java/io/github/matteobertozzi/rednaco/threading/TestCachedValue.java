@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.threading;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import io.github.matteobertozzi.rednaco.time.RetryUtil;
+
+public class TestCachedValue {
+  @Test
+  public void testStaticValue() {
+    final AtomicInteger loads = new AtomicInteger();
+    final CachedValue<Integer> value = CachedValue.staticValue(loads::incrementAndGet);
+    for (int i = 0; i < 10; ++i) {
+      Assertions.assertEquals(1, value.get());
+    }
+    Assertions.assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testStaleWhileRevalidate() {
+    final ArrayList<Runnable> pendingRefresh = new ArrayList<>();
+    final AtomicInteger loads = new AtomicInteger();
+    final CachedValue<Integer> value = CachedValue.newStaleWhileRevalidate(Duration.ofMillis(20), Duration.ZERO,
+      RetryUtil.newFixedRetry(0, 0), pendingRefresh::add, loads::incrementAndGet);
+
+    Assertions.assertEquals(1, value.get());
+    Assertions.assertEquals(1, value.get());
+    Assertions.assertTrue(pendingRefresh.isEmpty());
+
+    // expired: the stale value is returned, and only one refresh is scheduled
+    ThreadUtil.sleep(30);
+    for (int i = 0; i < 5; ++i) {
+      Assertions.assertEquals(1, value.get());
+    }
+    Assertions.assertEquals(1, pendingRefresh.size());
+    Assertions.assertEquals(1, loads.get());
+
+    pendingRefresh.removeFirst().run();
+    Assertions.assertEquals(2, value.get());
+    Assertions.assertTrue(pendingRefresh.isEmpty());
+
+    // invalidate drops the value, the next get() loads it synchronously
+    value.invalidate();
+    Assertions.assertEquals(3, value.get());
+  }
+
+  @Test
+  public void testRefreshFailureKeepsLastValue() {
+    final ArrayList<Runnable> pendingRefresh = new ArrayList<>();
+    final AtomicBoolean failing = new AtomicBoolean(false);
+    final AtomicInteger loads = new AtomicInteger();
+    final CachedValue<Integer> value = CachedValue.newStaleWhileRevalidate(Duration.ofMillis(10), Duration.ZERO,
+      RetryUtil.newFixedRetry(200, 0), pendingRefresh::add, () -> {
+        if (failing.get()) throw new IOException("refresh failure");
+        return loads.incrementAndGet();
+      });
+
+    Assertions.assertEquals(1, value.get());
+    failing.set(true);
+    ThreadUtil.sleep(20);
+    Assertions.assertEquals(1, value.get());
+    pendingRefresh.removeFirst().run();
+
+    // the last good value is kept, and no refresh is scheduled until the backoff is expired
+    Assertions.assertEquals(1, value.get());
+    Assertions.assertTrue(pendingRefresh.isEmpty());
+
+    failing.set(false);
+    ThreadUtil.sleep(250);
+    Assertions.assertEquals(1, value.get());
+    pendingRefresh.removeFirst().run();
+    Assertions.assertEquals(2, value.get());
+  }
+
+  @Test
+  public void testNullValueIsCached() {
+    final ArrayList<Runnable> pendingRefresh = new ArrayList<>();
+    final AtomicInteger loads = new AtomicInteger();
+    final CachedValue<Integer> value = CachedValue.newStaleWhileRevalidate(Duration.ofMinutes(1), Duration.ZERO,
+      RetryUtil.newFixedRetry(0, 0), pendingRefresh::add, () -> {
+        loads.incrementAndGet();
+        return null;
+      });
+
+    // null is a loaded value, not a reason to load again on every get()
+    for (int i = 0; i < 5; ++i) {
+      Assertions.assertNull(value.get());
+    }
+    Assertions.assertEquals(1, loads.get());
+    Assertions.assertTrue(pendingRefresh.isEmpty());
+
+    value.invalidate();
+    Assertions.assertNull(value.get());
+    Assertions.assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testFirstLoadFailure() {
+    final CachedValue<Integer> value = CachedValue.newStaleWhileRevalidate(Duration.ofMinutes(1), () -> {
+      throw new IOException("load failure");
+    });
+    Assertions.assertThrows(RuntimeException.class, value::get);
+  }
+
+  @Test
+  @Timeout(value = 5, unit = TimeUnit.SECONDS)
+  public void testSingleLoadUnderContention() throws InterruptedException {
+    final AtomicInteger loads = new AtomicInteger();
+    final CachedValue<Integer> value = CachedValue.newStaleWhileRevalidate(Duration.ofMinutes(1), () -> {
+      ThreadUtil.sleep(50);
+      return loads.incrementAndGet();
+    });
+
+    final Thread[] threads = new Thread[16];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = Thread.ofVirtual().start(() -> Assertions.assertEquals(1, value.get()));
+    }
+    for (final Thread thread: threads) thread.join();
+    Assertions.assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testCachedMap() {
+    final AtomicInteger loads = new AtomicInteger();
+    final CachedMap<String, String> map = new CachedMap<>(8, Duration.ofMinutes(1), key -> {
+      loads.incrementAndGet();
+      return key.toUpperCase();
+    });
+
+    Assertions.assertNull(map.getIfPresent("a"));
+    Assertions.assertEquals("A", map.get("a"));
+    Assertions.assertEquals("A", map.get("a"));
+    Assertions.assertEquals("A", map.getIfPresent("a"));
+    Assertions.assertEquals(1, loads.get());
+
+    map.invalidate("a");
+    Assertions.assertNull(map.getIfPresent("a"));
+    Assertions.assertEquals("A", map.get("a"));
+    Assertions.assertEquals(2, loads.get());
+
+    // bounded: the least recently accessed keys are evicted
+    for (int i = 0; i < 100; ++i) {
+      ThreadUtil.sleep(2);
+      map.get("a");
+      map.get("k" + i);
+      Assertions.assertTrue(map.size() <= map.maxSize(), () -> "size " + map.size());
+    }
+    Assertions.assertEquals("A", map.getIfPresent("a"));
+    Assertions.assertEquals("K99", map.getIfPresent("k99"));
+    Assertions.assertNull(map.getIfPresent("k0"));
+
+    map.invalidateAll();
+    Assertions.assertEquals(0, map.size());
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.threading;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+public class TestSpinningTask {
+  @Test
+  @Timeout(value = 5, unit = TimeUnit.SECONDS)
+  public void testSpinningTask() throws Exception {
+    final ConsumerTask task = new ConsumerTask("TestSpinningTask");
+    final Thread thread = task.start();
+    Assertions.assertTrue(thread.isVirtual());
+    Assertions.assertEquals("TestSpinningTask", thread.getName());
+    Assertions.assertThrows(IllegalStateException.class, task::start);
+    try {
+      for (int i = 0; i < 1000; ++i) {
+        task.add(i);
+        if ((i & 63) == 0) Thread.sleep(1);
+      }
+      task.processed.await();
+      Assertions.assertEquals(1000, task.count.get());
+    } finally {
+      task.sendStopSignal();
+      ThreadUtil.shutdown(thread);
+    }
+    Assertions.assertFalse(task.isRunning());
+    Assertions.assertFalse(thread.isAlive());
+  }
+
+  @Test
+  @Timeout(value = 5, unit = TimeUnit.SECONDS)
+  public void testWaitTimeout() throws Exception {
+    final AtomicInteger timeouts = new AtomicInteger();
+    final SpinningTask task = new SpinningTask("TestWaitTimeout") {
+      @Override
+      protected void process() {
+        if (!waitFor(5, TimeUnit.MILLISECONDS)) {
+          timeouts.incrementAndGet();
+        }
+      }
+    };
+    final Thread thread = task.start();
+    while (timeouts.get() < 3) {
+      Thread.sleep(5);
+    }
+    task.sendStopSignal();
+    thread.join();
+  }
+
+  private static final class ConsumerTask extends SpinningTask {
+    private final ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+    private final CountDownLatch processed = new CountDownLatch(1000);
+    private final AtomicInteger count = new AtomicInteger();
+
+    public ConsumerTask(final String name) {
+      super(name);
+    }
+
+    public void add(final int value) {
+      queue.add(value);
+      wake();
+    }
+
+    @Override
+    protected void process() {
+      Integer value;
+      while ((value = queue.poll()) != null) {
+        Assertions.assertNotNull(value);
+        count.incrementAndGet();
+        processed.countDown();
+      }
+      waitFor(1, TimeUnit.SECONDS);
+    }
+  }
+}
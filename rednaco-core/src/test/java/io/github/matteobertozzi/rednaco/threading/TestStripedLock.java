@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.threading;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import io.github.matteobertozzi.rednaco.threading.StripedLock.Cell;
+
+public class TestStripedLock {
+  private static final class Counter {
+    private long value;
+  }
+
+  @Test
+  public void testStripes() {
+    final StripedLock<Counter> striped = new StripedLock<>(5, Counter::new);
+    Assertions.assertEquals(8, striped.stripes());
+    for (int i = 0; i < striped.stripes(); ++i) {
+      Assertions.assertEquals(i, striped.get(i).index());
+    }
+    // platform threads keep the same stripe
+    Assertions.assertSame(striped.get(), striped.get());
+    Assertions.assertSame(striped.get("key"), striped.get("key"));
+  }
+
+  @Test
+  @Timeout(value = 10, unit = TimeUnit.SECONDS)
+  public void testGetStableAcrossLockAny() throws Exception {
+    final StripedLock<Counter> a = new StripedLock<>(64, Counter::new);
+    final StripedLock<Counter> b = new StripedLock<>(2, Counter::new);
+
+    // another thread holds the b stripe of our probe, so b.lockAny() is contended and re-hashes the probe
+    final Cell<Counter> contended = b.get(ThreadProbe.probe() & 1);
+    final CountDownLatch locked = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(1);
+    final Thread holder = Thread.ofPlatform().start(() -> {
+      contended.lock();
+      try {
+        locked.countDown();
+        done.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        contended.unlock();
+      }
+    });
+    locked.await();
+
+    final Cell<Counter> cell = a.get();
+    a.get().lock();
+    try {
+      final Cell<Counter> other = b.lockAny();
+      Assertions.assertNotSame(contended, other);
+      other.unlock();
+      Assertions.assertSame(cell, a.get());
+    } finally {
+      a.get().unlock();
+      done.countDown();
+      holder.join();
+    }
+  }
+
+  @Test
+  public void testGetFromVirtualThreads() throws Exception {
+    final StripedLock<Counter> striped = new StripedLock<>(8, Counter::new);
+    final Set<Cell<Counter>> usedCells = ConcurrentHashMap.newKeySet();
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final ArrayList<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 64; ++t) {
+        futures.add(executor.submit(() -> {
+          // the stripe is stable for the thread, so lock/unlock can go through get() twice
+          final Cell<Counter> cell = striped.get();
+          Assertions.assertSame(cell, striped.get());
+          striped.get().lock();
+          try {
+            striped.get().data().value++;
+          } finally {
+            striped.get().unlock();
+          }
+          usedCells.add(cell);
+        }));
+      }
+      for (final Future<?> future: futures) {
+        future.get();
+      }
+    }
+    Assertions.assertTrue(usedCells.size() > 1, "virtual threads should be spread over the stripes");
+
+    long total = 0;
+    for (int i = 0; i < striped.stripes(); ++i) {
+      total += striped.get(i).data().value;
+    }
+    Assertions.assertEquals(64, total);
+  }
+
+  @Test
+  public void testLockAnyRehashOnContention() throws Exception {
+    final StripedLock<Counter> striped = new StripedLock<>(4, Counter::new);
+    final Cell<Counter> first = striped.lockAny();
+    final AtomicReference<Cell<Counter>> otherCell = new AtomicReference<>();
+    try {
+      final Thread thread = Thread.ofPlatform().start(() -> {
+        // the current thread owns "first", lockAny() from another thread must pick another stripe
+        final Cell<Counter> cell = striped.lockAny();
+        otherCell.set(cell);
+        cell.unlock();
+      });
+      thread.join();
+    } finally {
+      first.unlock();
+    }
+    Assertions.assertNotNull(otherCell.get());
+    Assertions.assertNotSame(first, otherCell.get());
+  }
+
+  @Test
+  @Timeout(value = 10, unit = TimeUnit.SECONDS)
+  public void testLockAnyFromVirtualThreads() throws Exception {
+    final StripedLock<Counter> striped = new StripedLock<>(8, Counter::new);
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < 1000; ++t) {
+        executor.submit(() -> {
+          for (int i = 0; i < 100; ++i) {
+            final Cell<Counter> cell = striped.lockAny();
+            try {
+              cell.data().value++;
+            } finally {
+              cell.unlock();
+            }
+          }
+        });
+      }
+    }
+
+    long total = 0;
+    for (int i = 0; i < striped.stripes(); ++i) {
+      total += striped.get(i).data().value;
+    }
+    Assertions.assertEquals(100_000, total);
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.time;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.math.LogLinearHistogram;
+
+public class TestWindowedCounter {
+  @Test
+  public void testTimeRangeRotation() {
+    final ConcurrentTimeRange<LongAdder> range = new ConcurrentTimeRange<>(4, 1, TimeUnit.SECONDS, LongAdder::new);
+    range.get(1000).add(1);
+    range.get(1999).add(2);
+    range.get(2000).add(10);
+    Assertions.assertEquals(3, range.peek(1500).sum());
+    Assertions.assertEquals(10, range.peek(2000).sum());
+    Assertions.assertNull(range.peek(3000));
+
+    // 5000 maps to the slot of 1000, the old value is replaced
+    range.get(5000).add(7);
+    Assertions.assertNull(range.peek(1000));
+    Assertions.assertEquals(7, range.peek(5000).sum());
+    // too old, the slot was already reused
+    Assertions.assertNull(range.get(1000));
+
+    final ArrayList<Long> timestamps = new ArrayList<>();
+    range.forEach(5000, (ts, value) -> timestamps.add(ts));
+    Assertions.assertEquals(List.of(2000L, 5000L), timestamps);
+
+    range.clear();
+    Assertions.assertNull(range.peek(5000));
+  }
+
+  @Test
+  public void testTimeRangeSlotReuse() {
+    final ConcurrentTimeRange<LongAdder> range = new ConcurrentTimeRange<>(2, 1, TimeUnit.SECONDS, LongAdder::new, LongAdder::reset);
+    final LongAdder first = range.get(0);
+    first.add(5);
+    Assertions.assertSame(first, range.get(999));
+
+    // 2000 maps to the slot of 0: the expired value is reset and reused
+    final LongAdder rotated = range.get(2000);
+    Assertions.assertSame(first, rotated);
+    Assertions.assertEquals(0, rotated.sum());
+    Assertions.assertNull(range.peek(0));
+    Assertions.assertNotSame(first, range.get(1000));
+  }
+
+  @Test
+  public void testCounter() {
+    final WindowedCounter counter = new WindowedCounter(3, 100, TimeUnit.MILLISECONDS);
+    counter.add(0, 1);
+    counter.add(50, 1);
+    counter.add(150, 5);
+    counter.add(250, 10);
+    Assertions.assertEquals(17, counter.sum(250));
+    Assertions.assertArrayEquals(new long[] { 2, 5, 10 }, counter.toArray(250));
+    Assertions.assertEquals(15, counter.sum(350));
+    Assertions.assertArrayEquals(new long[] { 5, 10, 0 }, counter.toArray(350));
+    Assertions.assertEquals(0, counter.sum(1000));
+    Assertions.assertEquals(10, counter.slotValue(299));
+    Assertions.assertEquals(0, counter.slotValue(300));
+  }
+
+  @Test
+  public void testConcurrentAdd() throws InterruptedException {
+    final WindowedCounter counter = new WindowedCounter(60, 1, TimeUnit.SECONDS);
+    final WindowedMaxAvg maxAvg = new WindowedMaxAvg(60, 1, TimeUnit.SECONDS);
+    final Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; ++t) {
+      final int threadId = t;
+      threads[t] = Thread.ofPlatform().start(() -> {
+        for (int i = 0; i < 10_000; ++i) {
+          final long ts = 1_000L * (i % 10);
+          counter.add(ts, 1);
+          maxAvg.add(ts, threadId);
+        }
+      });
+    }
+    for (final Thread thread: threads) thread.join();
+
+    Assertions.assertEquals(80_000, counter.sum(9_999));
+    Assertions.assertEquals(8_000, counter.slotValue(5_000));
+    Assertions.assertEquals(80_000, maxAvg.count(9_999));
+    Assertions.assertEquals(7, maxAvg.max(9_999));
+    Assertions.assertEquals(3.5, maxAvg.average(9_999), 0.0001);
+  }
+
+  @Test
+  public void testMaxAvg() {
+    final WindowedMaxAvg maxAvg = new WindowedMaxAvg(2, 10, TimeUnit.MILLISECONDS);
+    Assertions.assertEquals(0, maxAvg.max(0));
+    Assertions.assertEquals(0, maxAvg.average(0));
+    maxAvg.add(0, 10);
+    maxAvg.add(5, 30);
+    maxAvg.add(10, 20);
+    Assertions.assertEquals(30, maxAvg.max(10));
+    Assertions.assertEquals(20.0, maxAvg.average(10));
+    Assertions.assertArrayEquals(new long[] { 30, 20 }, maxAvg.maxValues(10));
+    Assertions.assertEquals(20, maxAvg.max(20));
+    Assertions.assertEquals(1, maxAvg.count(20));
+  }
+
+  @Test
+  public void testHistogram() {
+    final WindowedHistogram histo = new WindowedHistogram(2, 1, TimeUnit.SECONDS);
+    Assertions.assertTrue(histo.snapshot(0).isEmpty());
+    for (int i = 1; i <= 100; ++i) {
+      histo.add(0, i);
+      histo.add(1000, 1000 + i);
+    }
+    final LogLinearHistogram.Snapshot snapshot = histo.snapshot(1000);
+    Assertions.assertEquals(200, snapshot.numEvents());
+    Assertions.assertEquals(1, snapshot.minValue());
+    Assertions.assertEquals(1100, snapshot.maxValue());
+
+    final LogLinearHistogram.Snapshot lastSlot = histo.snapshot(2000);
+    Assertions.assertEquals(100, lastSlot.numEvents());
+    Assertions.assertEquals(1001, lastSlot.minValue());
+
+    // the slot of 0 is reused for 2000, without the old values
+    histo.add(2000, 7);
+    final LogLinearHistogram.Snapshot rotated = histo.snapshot(2000);
+    Assertions.assertEquals(101, rotated.numEvents());
+    Assertions.assertEquals(7, rotated.minValue());
+    Assertions.assertEquals(1100, rotated.maxValue());
+
+    Assertions.assertTrue(LogLinearHistogram.Snapshot.empty(LogLinearHistogram.DEFAULT_PRECISION_BITS).isEmpty());
+  }
+}
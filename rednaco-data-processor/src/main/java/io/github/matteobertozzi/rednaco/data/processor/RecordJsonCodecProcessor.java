@@ -0,0 +1,647 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.NoSuchFileException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import io.github.matteobertozzi.easerinsights.logging.LogUtil;
+import io.github.matteobertozzi.rednaco.io.ServicesFiles;
+import io.github.matteobertozzi.rednaco.strings.StringFormat;
+import io.github.matteobertozzi.rednaco.strings.TemplateUtil;
+import io.github.matteobertozzi.rednaco.util.Serialization.SerializationName;
+import io.github.matteobertozzi.rednaco.util.Serialization.SerializeWithSnakeCase;
+
+/**
+ * Generates ${ns}.autogen.${Record}JsonCodec for each @RecordJsonCodec record.
+ * The codec is a module with a serializer writing the fields in declaration order
+ * with pre-encoded names and a deserializer calling the canonical constructor.
+ * All the codecs are listed in the AutoWiredDataMapperModule service file,
+ * so DataMapperModules registers them in every DataFormat mapper.
+ */
+public class RecordJsonCodecProcessor extends AbstractProcessor {
+  private static final String MODULE_SERVICE_CLASS = "io.github.matteobertozzi.rednaco.data.modules.AutoWiredDataMapperModule";
+  private static final String JACKSON_ANNOTATIONS_PREFIX = "com.fasterxml.jackson.";
+  private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+  private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+
+  private final HashSet<String> codecs = new HashSet<>();
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(RecordJsonCodec.class.getName());
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      if (!codecs.isEmpty()) saveServices();
+      return false;
+    }
+
+    final Set<? extends Element> elements = roundEnv.getElementsAnnotatedWith(RecordJsonCodec.class);
+    if (elements.isEmpty()) return false;
+
+    for (final Element element: elements) {
+      if (element.getKind() != ElementKind.RECORD) {
+        fatalError("unexpected @RecordJsonCodec on a non record type: {}", element);
+        return false;
+      }
+
+      final TypeElement recordElement = (TypeElement) element;
+      if (!recordElement.getTypeParameters().isEmpty()) {
+        error("@RecordJsonCodec does not support generic records", recordElement);
+        continue;
+      }
+      if (!isPublic(recordElement)) {
+        error("@RecordJsonCodec records must be public", recordElement);
+        continue;
+      }
+      processRecord(recordElement);
+    }
+    return false;
+  }
+
+  // ====================================================================================================
+  //  Record Fields related
+  // ====================================================================================================
+  private enum FieldKind {
+    BOOLEAN, CHAR, NUMBER,
+    BOXED_BOOLEAN, BOXED_CHAR, BOXED_NUMBER, STRING,
+    FINAL_OBJECT, OBJECT,
+  }
+
+  private record CodecField(int index, String name, String jsonName, String type, String rawType, FieldKind kind) {
+    boolean isPrimitive() {
+      return kind == FieldKind.BOOLEAN || kind == FieldKind.CHAR || kind == FieldKind.NUMBER;
+    }
+
+    boolean isGeneric() {
+      return !type.equals(rawType);
+    }
+  }
+
+  private List<CodecField> collectFields(final TypeElement recordElement) {
+    boolean hasErrors = checkJacksonAnnotations(recordElement, recordElement.getAnnotationMirrors(), Set.of());
+    final boolean snakeCase = hasAnnotation(recordElement, SerializeWithSnakeCase.class.getCanonicalName());
+
+    final List<? extends RecordComponentElement> recordComponents = recordElement.getRecordComponents();
+    final ArrayList<CodecField> fields = new ArrayList<>(recordComponents.size());
+    final HashSet<String> jsonNames = new HashSet<>(recordComponents.size());
+    for (final RecordComponentElement component: recordComponents) {
+      final ExecutableElement accessor = component.getAccessor();
+      final Set<String> supported = Set.of(JSON_PROPERTY, JSON_IGNORE);
+      hasErrors |= checkJacksonAnnotations(component, component.getAnnotationMirrors(), supported);
+      hasErrors |= checkJacksonAnnotations(accessor, accessor.getAnnotationMirrors(), supported);
+
+      final String name = component.getSimpleName().toString();
+      final boolean ignored = hasAnnotation(component, JSON_IGNORE) || hasAnnotation(accessor, JSON_IGNORE);
+      final String jsonName = ignored ? null : jsonName(component, accessor, name, snakeCase);
+      if (jsonName != null && !jsonNames.add(jsonName)) {
+        error("duplicate json field name: " + jsonName, component);
+        hasErrors = true;
+      }
+
+      final TypeMirror type = component.asType();
+      final String rawType = processingEnv.getTypeUtils().erasure(type).toString();
+      fields.add(new CodecField(fields.size(), name, jsonName, type.toString(), rawType, fieldKind(type)));
+    }
+    return hasErrors ? null : fields;
+  }
+
+  private FieldKind fieldKind(final TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN: return FieldKind.BOOLEAN;
+      case CHAR: return FieldKind.CHAR;
+      case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE: return FieldKind.NUMBER;
+      case DECLARED: break;
+      default: return FieldKind.OBJECT;
+    }
+
+    final DeclaredType declaredType = (DeclaredType) type;
+    final TypeElement typeElement = (TypeElement) declaredType.asElement();
+    switch (typeElement.getQualifiedName().toString()) {
+      case "java.lang.Boolean": return FieldKind.BOXED_BOOLEAN;
+      case "java.lang.Character": return FieldKind.BOXED_CHAR;
+      case "java.lang.Byte", "java.lang.Short", "java.lang.Integer",
+           "java.lang.Long", "java.lang.Float", "java.lang.Double": return FieldKind.BOXED_NUMBER;
+      case "java.lang.String": return FieldKind.STRING;
+      default: break;
+    }
+
+    // the serializer of a final type can be resolved once, everything else is looked up by runtime class
+    final boolean isFinal = typeElement.getModifiers().contains(Modifier.FINAL)
+      || typeElement.getKind() == ElementKind.RECORD || typeElement.getKind() == ElementKind.ENUM;
+    return (isFinal && declaredType.getTypeArguments().isEmpty()) ? FieldKind.FINAL_OBJECT : FieldKind.OBJECT;
+  }
+
+  private static String jsonName(final RecordComponentElement component, final ExecutableElement accessor,
+      final String name, final boolean snakeCase) {
+    for (final Element element: List.of(component, accessor)) {
+      String explicitName = annotationValue(element, JSON_PROPERTY);
+      if (explicitName == null) explicitName = annotationValue(element, SerializationName.class.getCanonicalName());
+      if (explicitName != null && !explicitName.isEmpty()) {
+        return explicitName;
+      }
+    }
+    return snakeCase ? toSnakeCase(name) : name;
+  }
+
+  /**
+   * Same conversion as Jackson PropertyNamingStrategies.SNAKE_CASE
+   */
+  static String toSnakeCase(final String name) {
+    final StringBuilder result = new StringBuilder(name.length() * 2);
+    boolean wasPrevTranslated = false;
+    for (int i = 0; i < name.length(); ++i) {
+      char c = name.charAt(i);
+      if (i == 0 && c == '_') continue;
+
+      if (Character.isUpperCase(c)) {
+        if (!wasPrevTranslated && !result.isEmpty() && result.charAt(result.length() - 1) != '_') {
+          result.append('_');
+        }
+        c = Character.toLowerCase(c);
+        wasPrevTranslated = true;
+      } else {
+        wasPrevTranslated = false;
+      }
+      result.append(c);
+    }
+    return result.isEmpty() ? name : result.toString();
+  }
+
+  /**
+   * Escape the name to be used inside a java string literal of the generated code.
+   * Control chars use octal escapes, unicode escapes are translated before lexing.
+   */
+  static String escapeJavaString(final String value) {
+    final StringBuilder result = new StringBuilder(value.length() + 8);
+    for (int i = 0; i < value.length(); ++i) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '"' -> result.append("\\\"");
+        case '\\' -> result.append("\\\\");
+        case '\n' -> result.append("\\n");
+        case '\r' -> result.append("\\r");
+        case '\t' -> result.append("\\t");
+        default -> {
+          if (c < 0x20 || c == 0x7f) {
+            result.append('\\').append(Integer.toOctalString(0x200 | c), 1, 4);
+          } else {
+            result.append(c);
+          }
+        }
+      }
+    }
+    return result.toString();
+  }
+
+  private boolean checkJacksonAnnotations(final Element element, final List<? extends AnnotationMirror> annotations,
+      final Set<String> supported) {
+    boolean hasErrors = false;
+    for (final AnnotationMirror annotation: annotations) {
+      final String annotationName = annotationName(annotation);
+      if (annotationName.startsWith(JACKSON_ANNOTATIONS_PREFIX) && !supported.contains(annotationName)) {
+        error("@RecordJsonCodec does not support " + annotationName, element, annotation);
+        hasErrors = true;
+      }
+    }
+    return hasErrors;
+  }
+
+  private static boolean hasAnnotation(final Element element, final String annotationName) {
+    for (final AnnotationMirror annotation: element.getAnnotationMirrors()) {
+      if (annotationName(annotation).equals(annotationName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String annotationValue(final Element element, final String annotationName) {
+    for (final AnnotationMirror annotation: element.getAnnotationMirrors()) {
+      if (!annotationName(annotation).equals(annotationName)) continue;
+
+      for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: annotation.getElementValues().entrySet()) {
+        if (entry.getKey().getSimpleName().contentEquals("value")) {
+          return String.valueOf(entry.getValue().getValue());
+        }
+      }
+      return null;
+    }
+    return null;
+  }
+
+  private static String annotationName(final AnnotationMirror annotation) {
+    return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+  }
+
+  private static boolean isPublic(final TypeElement typeElement) {
+    for (Element element = typeElement; element.getKind() != ElementKind.PACKAGE; element = element.getEnclosingElement()) {
+      if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // ====================================================================================================
+  //  Code Generation related
+  // ====================================================================================================
+  private void processRecord(final TypeElement recordElement) {
+    final List<CodecField> fields = collectFields(recordElement);
+    if (fields == null) return;
+
+    final String ns = processingEnv.getElementUtils().getPackageOf(recordElement).getQualifiedName().toString();
+    final String recordType = recordElement.getQualifiedName().toString();
+    final String recordName = (ns.isEmpty() ? recordType : recordType.substring(ns.length() + 1)).replace('.', '_');
+    final String codecClassName = recordName + "JsonCodec";
+    final String codecNs = ns.isEmpty() ? "autogen" : ns + ".autogen";
+
+    final Map<String, String> vars = Map.of(
+      "now", ZonedDateTime.now().toString(),
+      "ns", codecNs,
+      "recordType", recordType,
+      "recordName", recordName,
+      "codecClassName", codecClassName
+    );
+
+    final StringBuilder code = new StringBuilder();
+    TemplateUtil.appendTemplate(code, """
+    // autogen on ${now}
+    package ${ns};
+
+    import java.io.IOException;
+    import java.lang.reflect.Type;
+    import java.util.List;
+
+    import com.fasterxml.jackson.core.JsonGenerator;
+    import com.fasterxml.jackson.core.JsonParser;
+    import com.fasterxml.jackson.core.JsonToken;
+    import com.fasterxml.jackson.core.io.SerializedString;
+    import com.fasterxml.jackson.core.type.TypeReference;
+    import com.fasterxml.jackson.databind.DeserializationContext;
+    import com.fasterxml.jackson.databind.JsonDeserializer;
+    import com.fasterxml.jackson.databind.JsonMappingException;
+    import com.fasterxml.jackson.databind.JsonSerializer;
+    import com.fasterxml.jackson.databind.SerializerProvider;
+    import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+    import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+    import com.fasterxml.jackson.databind.module.SimpleDeserializers;
+    import com.fasterxml.jackson.databind.module.SimpleSerializers;
+    import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+    import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+    import io.github.matteobertozzi.rednaco.data.modules.AutoWiredDataMapperModule;
+
+    @SuppressWarnings({ "serial", "unchecked", "cast" })
+    public final class ${codecClassName} extends AutoWiredDataMapperModule {
+      public ${codecClassName}() {
+        super("${recordType}JsonCodec");
+      }
+
+      @Override
+      public void setupModule(final SetupContext context) {
+        super.setupModule(context);
+        // serializers/deserializers are resolved against the mapper, so each mapper gets its own instance
+        context.addSerializers(new SimpleSerializers(List.of(new ${recordName}Serializer())));
+        final SimpleDeserializers deserializers = new SimpleDeserializers();
+        deserializers.addDeserializer(${recordType}.class, new ${recordName}Deserializer());
+        context.addDeserializers(deserializers);
+      }
+
+    """, vars);
+
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null) continue;
+      code.append("  private static final SerializedString FIELD_").append(field.name())
+        .append(" = new SerializedString(\"").append(escapeJavaString(field.jsonName())).append("\");").append(System.lineSeparator());
+    }
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null || field.isPrimitive() || !field.isGeneric()) continue;
+      code.append("  private static final Type TYPE_").append(field.name())
+        .append(" = new TypeReference<").append(field.type()).append(">() {}.getType();").append(System.lineSeparator());
+    }
+    code.append(System.lineSeparator());
+
+    appendSerializer(code, vars, fields);
+    appendDeserializer(code, vars, fields);
+
+    TemplateUtil.appendTemplate(code, """
+      private static Object readValue(final JsonParser parser, final DeserializationContext ctxt,
+          final JsonDeserializer<Object> deserializer) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+          return deserializer.getNullValue(ctxt);
+        }
+        return deserializer.deserialize(parser, ctxt);
+      }
+    }
+
+    """, Map.of());
+
+    writeJavaFile(codecNs, codecClassName, code.toString());
+    codecs.add(codecNs + "." + codecClassName);
+  }
+
+  private void appendSerializer(final StringBuilder code, final Map<String, String> vars, final List<CodecField> fields) {
+    TemplateUtil.appendTemplate(code, """
+      private static final class ${recordName}Serializer extends StdSerializer<${recordType}> implements ResolvableSerializer {
+    """, vars);
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null || field.kind() != FieldKind.FINAL_OBJECT) continue;
+      code.append("    private JsonSerializer<Object> ").append(field.name()).append("Serializer;").append(System.lineSeparator());
+    }
+    TemplateUtil.appendTemplate(code, """
+
+        private ${recordName}Serializer() {
+          super(${recordType}.class);
+        }
+
+        @Override
+        public void resolve(final SerializerProvider provider) throws JsonMappingException {
+    """, vars);
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null || field.kind() != FieldKind.FINAL_OBJECT) continue;
+      code.append("      this.").append(field.name()).append("Serializer = provider.findValueSerializer(")
+        .append(field.rawType()).append(".class);").append(System.lineSeparator());
+    }
+    TemplateUtil.appendTemplate(code, """
+        }
+
+        @Override
+        public void serialize(final ${recordType} value, final JsonGenerator gen, final SerializerProvider provider) throws IOException {
+          gen.writeStartObject(value);
+    """, vars);
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null) continue;
+
+      final Map<String, String> fieldVars = Map.of("name", field.name(), "type", field.type(), "var", "v" + field.index());
+      switch (field.kind()) {
+        case BOOLEAN -> TemplateUtil.appendTemplate(code, """
+              gen.writeFieldName(FIELD_${name});
+              gen.writeBoolean(value.${name}());
+        """, fieldVars);
+        case CHAR -> TemplateUtil.appendTemplate(code, """
+              gen.writeFieldName(FIELD_${name});
+              gen.writeString(String.valueOf(value.${name}()));
+        """, fieldVars);
+        case NUMBER -> TemplateUtil.appendTemplate(code, """
+              gen.writeFieldName(FIELD_${name});
+              gen.writeNumber(value.${name}());
+        """, fieldVars);
+        default -> {
+          TemplateUtil.appendTemplate(code, """
+                final ${type} ${var} = value.${name}();
+                if (${var} != null) {
+                  gen.writeFieldName(FIELD_${name});
+          """, fieldVars);
+          TemplateUtil.appendTemplate(code, switch (field.kind()) {
+            case BOXED_BOOLEAN -> "        gen.writeBoolean(${var});\n";
+            case BOXED_CHAR -> "        gen.writeString(String.valueOf(${var}));\n";
+            case BOXED_NUMBER -> "        gen.writeNumber(${var});\n";
+            case STRING -> "        gen.writeString(${var});\n";
+            case FINAL_OBJECT -> "        ${name}Serializer.serialize(${var}, gen, provider);\n";
+            default -> "        provider.defaultSerializeValue(${var}, gen);\n";
+          }, fieldVars);
+          code.append("      }").append(System.lineSeparator());
+        }
+      }
+    }
+    TemplateUtil.appendTemplate(code, """
+          gen.writeEndObject();
+        }
+      }
+
+    """, vars);
+  }
+
+  private void appendDeserializer(final StringBuilder code, final Map<String, String> vars, final List<CodecField> fields) {
+    TemplateUtil.appendTemplate(code, """
+      private static final class ${recordName}Deserializer extends StdDeserializer<${recordType}> implements ResolvableDeserializer {
+    """, vars);
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null || field.kind() == FieldKind.BOOLEAN || field.kind() == FieldKind.NUMBER) continue;
+      code.append("    private JsonDeserializer<Object> ").append(field.name()).append("Deserializer;").append(System.lineSeparator());
+    }
+    TemplateUtil.appendTemplate(code, """
+
+        private ${recordName}Deserializer() {
+          super(${recordType}.class);
+        }
+
+        @Override
+        public boolean isCachable() {
+          return true;
+        }
+
+        @Override
+        public void resolve(final DeserializationContext ctxt) throws JsonMappingException {
+    """, vars);
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null || field.kind() == FieldKind.BOOLEAN || field.kind() == FieldKind.NUMBER) continue;
+      final String type = field.kind() == FieldKind.CHAR ? "Character.class"
+        : field.isGeneric() ? "TYPE_" + field.name() : field.rawType() + ".class";
+      code.append("      this.").append(field.name()).append("Deserializer = ctxt.findRootValueDeserializer(ctxt.constructType(")
+        .append(type).append("));").append(System.lineSeparator());
+    }
+    TemplateUtil.appendTemplate(code, """
+        }
+
+        @Override
+        public ${recordType} deserialize(final JsonParser parser, final DeserializationContext ctxt) throws IOException {
+          JsonToken token = parser.currentToken();
+          if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+          } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (${recordType}) ctxt.handleUnexpectedToken(${recordType}.class, parser);
+          }
+
+    """, vars);
+    for (final CodecField field: fields) {
+      code.append("      ").append(field.type()).append(" v").append(field.index()).append(" = ")
+        .append(defaultValue(field)).append(';').append(System.lineSeparator());
+    }
+    TemplateUtil.appendTemplate(code, """
+          for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            final String fieldName = parser.currentName();
+            token = parser.nextToken();
+            switch (fieldName) {
+    """, vars);
+    for (final CodecField field: fields) {
+      if (field.jsonName() == null) continue;
+
+      final Map<String, String> fieldVars = Map.of("name", field.name(), "type", field.type(),
+        "jsonName", escapeJavaString(field.jsonName()), "var", "v" + field.index());
+      TemplateUtil.appendTemplate(code, switch (field.kind()) {
+        case BOOLEAN -> "          case \"${jsonName}\" -> ${var} = _parseBooleanPrimitive(parser, ctxt);\n";
+        case NUMBER -> "          case \"${jsonName}\" -> ${var} = _parse" + primitiveParserName(field.type()) + "Primitive(parser, ctxt);\n";
+        case CHAR -> """
+                    case "${jsonName}" -> {
+                      final Character ch = (Character) readValue(parser, ctxt, ${name}Deserializer);
+                      ${var} = (ch != null) ? ch : '\\0';
+                    }
+          """;
+        case STRING -> """
+                    case "${jsonName}" -> ${var} = (token == JsonToken.VALUE_STRING) ? parser.getText() : (String) readValue(parser, ctxt, ${name}Deserializer);
+          """;
+        default -> "          case \"${jsonName}\" -> ${var} = (${type}) readValue(parser, ctxt, ${name}Deserializer);\n";
+      }, fieldVars);
+    }
+    TemplateUtil.appendTemplate(code, """
+              default -> handleUnknownProperty(parser, ctxt, ${recordType}.class, fieldName);
+            }
+          }
+    """, vars);
+
+    code.append("      return new ").append(vars.get("recordType")).append('(');
+    for (int i = 0; i < fields.size(); ++i) {
+      if (i != 0) code.append(", ");
+      code.append('v').append(i);
+    }
+    code.append(");").append(System.lineSeparator());
+    TemplateUtil.appendTemplate(code, """
+        }
+      }
+
+    """, vars);
+  }
+
+  private static String defaultValue(final CodecField field) {
+    return switch (field.kind()) {
+      case BOOLEAN -> "false";
+      case CHAR -> "'\\0'";
+      case NUMBER -> "0";
+      default -> "null";
+    };
+  }
+
+  private static String primitiveParserName(final String type) {
+    return switch (type) {
+      case "byte" -> "Byte";
+      case "short" -> "Short";
+      case "int" -> "Int";
+      case "long" -> "Long";
+      case "float" -> "Float";
+      case "double" -> "Double";
+      default -> throw new IllegalArgumentException("unexpected primitive type: " + type);
+    };
+  }
+
+  private void writeJavaFile(final String ns, final String className, final String code) {
+    try {
+      final JavaFileObject fileObject = processingEnv.getFiler().createSourceFile(ns + "." + className);
+      try (Writer writer = fileObject.openWriter()) {
+        writer.write(code);
+      }
+    } catch (final Throwable e) {
+      fatalError(e, "unable to write {} class", className);
+    }
+  }
+
+  // ====================================================================================================
+  //  Services File related
+  // ====================================================================================================
+  private void saveServices() {
+    final String resourceFile = ServicesFiles.getPath(MODULE_SERVICE_CLASS);
+    final Filer filer = processingEnv.getFiler();
+    final HashSet<String> services = new HashSet<>(codecs);
+    services.addAll(loadExistingServices(filer, resourceFile));
+    try {
+      final FileObject fileObject = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceFile);
+      try (OutputStream stream = fileObject.openOutputStream()) {
+        ServicesFiles.writeServiceFile(services, stream);
+      }
+      log("service file written: {}", services);
+    } catch (final IOException e) {
+      fatalError(e, "unable to write service file: {}", resourceFile);
+    }
+  }
+
+  private Set<String> loadExistingServices(final Filer filer, final String resourceName) {
+    try {
+      final FileObject serviceFile = filer.getResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+      try (InputStream stream = serviceFile.openInputStream()) {
+        return ServicesFiles.readServiceFile(stream);
+      }
+    } catch (final NoSuchFileException e) {
+      return Collections.emptySet();
+    } catch (final IOException e) {
+      log("unable to read {}: {}", resourceName, e.getMessage());
+      return Collections.emptySet();
+    }
+  }
+
+  // ====================================================================================================
+  //  Logging helpers
+  // ====================================================================================================
+  protected void log(final String msg, final Object... args) {
+    processingEnv.getMessager().printMessage(Kind.NOTE, StringFormat.namedFormat(msg, args));
+  }
+
+  protected void error(final String msg, final Element element) {
+    processingEnv.getMessager().printMessage(Kind.ERROR, msg, element);
+  }
+
+  protected void error(final String msg, final Element element, final AnnotationMirror annotation) {
+    processingEnv.getMessager().printMessage(Kind.ERROR, msg, element, annotation);
+  }
+
+  protected void fatalError(final String msg, final Object... args) {
+    processingEnv.getMessager().printMessage(Kind.ERROR, "FATAL ERROR: " + StringFormat.namedFormat(msg, args));
+  }
+
+  protected void fatalError(final Throwable exception, final String msg, final Object... args) {
+    processingEnv.getMessager().printMessage(Kind.ERROR, "FATAL ERROR: " + StringFormat.namedFormat(msg, args) + " - " + exception.getMessage() + "\n" + LogUtil.stackTraceToString(exception));
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.rednaco.data.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.github.matteobertozzi.rednaco.data.modules.AutoWiredDataMapperModule;
+import io.github.matteobertozzi.rednaco.io.ServicesFiles;
+import io.github.matteobertozzi.rednaco.util.Serialization;
+
+public class TestRecordJsonCodecProcessor {
+  @TempDir
+  private Path tempDir;
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final ClassLoader classLoader = compile("test.codec.Order", """
+      package test.codec;
+
+      import java.util.List;
+      import java.util.Map;
+
+      import com.fasterxml.jackson.annotation.JsonIgnore;
+      import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+      import io.github.matteobertozzi.rednaco.data.processor.RecordJsonCodec;
+
+      @RecordJsonCodec
+      public record Order(long id, boolean paid, char grade, Integer quantity, String customer,
+          List<String> tags, Map<String, Long> totals, Item item,
+          @JsonProperty("order_notes") String notes, @JsonIgnore String internal) {
+        public record Item(String name, double price) {}
+      }
+      """);
+
+    final Class<?> orderClass = classLoader.loadClass("test.codec.Order");
+    final Class<?> itemClass = classLoader.loadClass("test.codec.Order$Item");
+    final Object item = newRecord(itemClass, "book", 12.5);
+    final Object order = newRecord(orderClass, 10L, true, 'A', 3, "bob", List.of("a", "b"),
+      Map.of("eur", 25L), item, "fragile", "secret");
+
+    final ObjectMapper mapper = newMapper(classLoader, "test.codec.autogen.OrderJsonCodec");
+    assertGeneratedSerializer(mapper, orderClass);
+
+    final String json = mapper.writeValueAsString(order);
+    Assertions.assertEquals("{\"id\":10,\"paid\":true,\"grade\":\"A\",\"quantity\":3,\"customer\":\"bob\","
+      + "\"tags\":[\"a\",\"b\"],\"totals\":{\"eur\":25},\"item\":{\"name\":\"book\",\"price\":12.5},"
+      + "\"order_notes\":\"fragile\"}", json);
+
+    final Object expected = newRecord(orderClass, 10L, true, 'A', 3, "bob", List.of("a", "b"),
+      Map.of("eur", 25L), item, "fragile", null);
+    Assertions.assertEquals(expected, mapper.readValue(json, orderClass));
+  }
+
+  @Test
+  public void testNullsAndMissingFields() throws Exception {
+    final ClassLoader classLoader = compile("test.codec.Entry", """
+      package test.codec;
+
+      import io.github.matteobertozzi.rednaco.data.processor.RecordJsonCodec;
+
+      @RecordJsonCodec
+      public record Entry(int count, String name, Long total) {}
+      """);
+
+    final Class<?> entryClass = classLoader.loadClass("test.codec.Entry");
+    final ObjectMapper mapper = newMapper(classLoader, "test.codec.autogen.EntryJsonCodec");
+    assertGeneratedSerializer(mapper, entryClass);
+
+    Assertions.assertEquals("{\"count\":0}", mapper.writeValueAsString(newRecord(entryClass, 0, null, null)));
+    Assertions.assertEquals(newRecord(entryClass, 0, null, null), mapper.readValue("{}", entryClass));
+    Assertions.assertEquals(newRecord(entryClass, 7, null, 5L),
+      mapper.readValue("{\"unknown\":[1,2],\"total\":5,\"name\":null,\"count\":7}", entryClass));
+  }
+
+  @Test
+  public void testFieldNames() throws Exception {
+    final ClassLoader classLoader = compile("test.codec.Names", """
+      package test.codec;
+
+      import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+      import io.github.matteobertozzi.rednaco.data.processor.RecordJsonCodec;
+      import io.github.matteobertozzi.rednaco.util.Serialization.SerializationName;
+      import io.github.matteobertozzi.rednaco.util.Serialization.SerializeWithSnakeCase;
+
+      @RecordJsonCodec
+      @SerializeWithSnakeCase
+      public record Names(String firstName, @SerializationName("LAST") String lastName,
+          @JsonProperty("q\\"uo\\\\te\\n1") int quoted) {}
+      """);
+
+    final Class<?> namesClass = classLoader.loadClass("test.codec.Names");
+    final ObjectMapper mapper = newMapper(classLoader, "test.codec.autogen.NamesJsonCodec");
+    assertGeneratedSerializer(mapper, namesClass);
+
+    final Object names = newRecord(namesClass, "Foo", "Bar", 1);
+    final String json = mapper.writeValueAsString(names);
+    Assertions.assertEquals("{\"first_name\":\"Foo\",\"LAST\":\"Bar\",\"q\\\"uo\\\\te\\n1\":1}", json);
+    Assertions.assertEquals(names, mapper.readValue(json, namesClass));
+  }
+
+  @Test
+  public void testServiceFile() throws Exception {
+    compile("test.codec.Service", """
+      package test.codec;
+
+      import io.github.matteobertozzi.rednaco.data.processor.RecordJsonCodec;
+
+      public final class Service {
+        @RecordJsonCodec
+        public record Request(String id) {}
+
+        @RecordJsonCodec
+        public record Response(String id, int status) {}
+      }
+      """);
+
+    final Path serviceFile = tempDir.resolve("classes").resolve(ServicesFiles.getPath(AutoWiredDataMapperModule.class));
+    Assertions.assertEquals(List.of("test.codec.autogen.Service_RequestJsonCodec", "test.codec.autogen.Service_ResponseJsonCodec"),
+      Files.readAllLines(serviceFile, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testUnsupportedRecords() throws Exception {
+    final List<String> errors = compileWithErrors("test.codec.Hidden", """
+      package test.codec;
+
+      import com.fasterxml.jackson.annotation.JsonFormat;
+      import io.github.matteobertozzi.rednaco.data.processor.RecordJsonCodec;
+
+      public final class Hidden {
+        @RecordJsonCodec
+        record PackagePrivate(String id) {}
+
+        @RecordJsonCodec
+        public record Generic<T>(T value) {}
+
+        @RecordJsonCodec
+        public record Formatted(@JsonFormat(pattern = "yyyy") String year) {}
+      }
+      """);
+    assertContainsError(errors, "@RecordJsonCodec records must be public");
+    assertContainsError(errors, "@RecordJsonCodec does not support generic records");
+    assertContainsError(errors, "@RecordJsonCodec does not support com.fasterxml.jackson.annotation.JsonFormat");
+  }
+
+  @Test
+  public void testEscapeJavaString() {
+    Assertions.assertEquals("plain_name", RecordJsonCodecProcessor.escapeJavaString("plain_name"));
+    Assertions.assertEquals("a\\\"b\\\\c", RecordJsonCodecProcessor.escapeJavaString("a\"b\\c"));
+    Assertions.assertEquals("\\n\\r\\t\\0001\\177", RecordJsonCodecProcessor.escapeJavaString("\n\r\t\u00001\u007f"));
+    Assertions.assertEquals("\\\\u0041", RecordJsonCodecProcessor.escapeJavaString("\\u0041"));
+  }
+
+  // ====================================================================================================
+  //  Compile helpers
+  // ====================================================================================================
+  private ClassLoader compile(final String className, final String source) throws IOException {
+    final List<String> errors = compileWithErrors(className, source);
+    Assertions.assertEquals(List.of(), errors);
+    return new URLClassLoader(new URL[] { tempDir.resolve("classes").toUri().toURL() }, getClass().getClassLoader());
+  }
+
+  private List<String> compileWithErrors(final String className, final String source) throws IOException {
+    final Path sourceFile = tempDir.resolve("src").resolve(className.replace('.', File.separatorChar) + ".java");
+    final Path classesDir = tempDir.resolve("classes");
+    final Path generatedDir = tempDir.resolve("generated");
+    Files.createDirectories(sourceFile.getParent());
+    Files.createDirectories(classesDir);
+    Files.createDirectories(generatedDir);
+    Files.writeString(sourceFile, source, StandardCharsets.UTF_8);
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+      final List<String> options = List.of(
+        "-d", classesDir.toString(),
+        "-s", generatedDir.toString(),
+        "-classpath", classPathOf(RecordJsonCodec.class, AutoWiredDataMapperModule.class, Serialization.class,
+          ObjectMapper.class, JsonGenerator.class, JsonProperty.class)
+      );
+      final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+        fileManager.getJavaFileObjects(sourceFile));
+      task.setProcessors(List.of(new RecordJsonCodecProcessor()));
+      task.call();
+    }
+
+    final ArrayList<String> errors = new ArrayList<>();
+    for (final Diagnostic<? extends JavaFileObject> diagnostic: diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.add(diagnostic.getMessage(Locale.ROOT));
+      }
+    }
+    return errors;
+  }
+
+  private static void assertContainsError(final List<String> errors, final String message) {
+    for (final String error: errors) {
+      if (error.contains(message)) return;
+    }
+    Assertions.fail("missing error '" + message + "' in " + errors);
+  }
+
+  private static String classPathOf(final Class<?>... classes) {
+    final ArrayList<String> paths = new ArrayList<>(classes.length);
+    for (final Class<?> classRef: classes) {
+      try {
+        final String path = Path.of(classRef.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        if (!paths.contains(path)) paths.add(path);
+      } catch (final URISyntaxException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return String.join(File.pathSeparator, paths);
+  }
+
+  private static ObjectMapper newMapper(final ClassLoader classLoader, final String codecClassName) throws Exception {
+    final Object codec = classLoader.loadClass(codecClassName).getConstructor().newInstance();
+    Assertions.assertInstanceOf(AutoWiredDataMapperModule.class, codec);
+    // same unknown fields handling of the DataFormatMapperJackson
+    return new ObjectMapper().registerModule((AutoWiredDataMapperModule) codec)
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  private static void assertGeneratedSerializer(final ObjectMapper mapper, final Class<?> recordClass) throws Exception {
+    final JsonSerializer<Object> serializer = mapper.getSerializerProviderInstance().findValueSerializer(recordClass);
+    Assertions.assertTrue(serializer.getClass().getName().contains("JsonCodec$"), serializer.getClass().getName());
+  }
+
+  private static Object newRecord(final Class<?> recordClass, final Object... args) throws Exception {
+    final Constructor<?> constructor = recordClass.getDeclaredConstructors()[0];
+    return constructor.newInstance(args);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.util.function.Consumer;
+
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+
+/**
+ * Fallback decoder for the codecs without an incremental parser:
+ * the chunks are kept in a PagedByteArray and the value is decoded on endOfInput().
+ */
+final class BufferedDataFormatDecoder<T> implements DataFormatDecoder<T> {
+  private final DataFormatCodec<T> codec;
+  private final Consumer<? super T> consumer;
+  private PagedByteArray buffer;
+  private long count;
+
+  BufferedDataFormatDecoder(final DataFormatCodec<T> codec, final Consumer<? super T> consumer) {
+    this.codec = codec;
+    this.consumer = consumer;
+    this.buffer = new PagedByteArray();
+    this.count = 0;
+  }
+
+  @Override
+  public void add(final byte[] buf, final int off, final int len) {
+    if (buffer == null) throw new IllegalStateException("decoder already completed");
+    buffer.add(buf, off, len);
+  }
+
+  @Override
+  public void endOfInput() {
+    if (buffer == null) return;
+
+    final T value = codec.fromBytes(buffer);
+    buffer = null;
+    if (value != null) {
+      consumer.accept(value);
+      count++;
+    }
+  }
+
+  @Override
+  public long decodedCount() {
+    return count;
+  }
+
+  @Override
+  public void close() {
+    buffer = null;
+  }
+}
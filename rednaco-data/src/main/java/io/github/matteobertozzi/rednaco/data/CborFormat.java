@@ -17,12 +17,13 @@
 
 package io.github.matteobertozzi.rednaco.data;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
 import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 
 public final class CborFormat extends DataFormat {
   public static final CborFormat INSTANCE = new CborFormat();
 
-  private final CborFormatMapper mapper = new CborFormatMapper();
+  private final DataFormatMapper mapper = DataFormatMapperProvider.load("CBOR", new CborFormatMapper());
 
   private CborFormat() {
     // no-op
@@ -44,7 +45,12 @@ public final class CborFormat extends DataFormat {
   }
 
   @Override
-  protected DataFormatMapperJackson get() {
+  public boolean supportsFieldNameDictionary() {
+    return true;
+  }
+
+  @Override
+  protected DataFormatMapper get() {
     return mapper;
   }
 
@@ -52,5 +58,21 @@ public final class CborFormat extends DataFormat {
     private CborFormatMapper() {
       super(new CBORMapper());
     }
+
+    private CborFormatMapper(final CBORMapper mapper) {
+      super(mapper);
+    }
+
+    @Override
+    public <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType, final FieldNameDictionary dictionary) {
+      // CBOR has no pre-shared tables: stringref writes each repeated name/value once per message.
+      // stringref is a generator factory feature, so it needs its own mapper. The parser handles it anyway.
+      return StringRefHolder.MAPPER.newCodec(format, valueType);
+    }
+  }
+
+  private static final class StringRefHolder {
+    private static final CborFormatMapper MAPPER = new CborFormatMapper(
+      CBORMapper.builder().enable(CBORGenerator.Feature.STRINGREF).build());
   }
 }
@@ -22,15 +22,17 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.github.matteobertozzi.rednaco.bytes.ByteArrayAppender;
-import io.github.matteobertozzi.rednaco.bytes.ByteArrayReader;
 import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
 import io.github.matteobertozzi.rednaco.bytes.BytesAppenderOutputStream;
 import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
@@ -40,6 +42,14 @@ import io.github.matteobertozzi.rednaco.io.LimitedInputStream;
 import io.github.matteobertozzi.rednaco.strings.StringUtil;
 
 public abstract class DataFormat {
+  private final ClassValue<DataFormatCodec<?>> codecs = new ClassValue<>() {
+    @Override
+    protected DataFormatCodec<?> computeValue(final Class<?> type) {
+      return DataFormat.this.get().newCodec(DataFormat.this, type);
+    }
+  };
+  private final ConcurrentHashMap<DictionaryCodecKey, DataFormatCodec<?>> dictionaryCodecs = new ConcurrentHashMap<>();
+
   protected DataFormat() {
     // no-op
   }
@@ -50,6 +60,39 @@ public abstract class DataFormat {
 
   protected abstract DataFormatMapper get();
 
+  /**
+   * @return true if the codecs can use a FieldNameDictionary, see codec(Class, FieldNameDictionary)
+   */
+  public boolean supportsFieldNameDictionary() {
+    return false;
+  }
+
+  // ===============================================================================================
+  //  Typed codecs
+  // ===============================================================================================
+  /**
+   * @return the codec for the specified type, created on the first call and then cached.
+   *         Keep the returned reference (e.g. in a static field) to skip the lookup entirely.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> DataFormatCodec<T> codec(final Class<T> valueType) {
+    return (DataFormatCodec<T>) codecs.get(valueType);
+  }
+
+  /**
+   * @return the codec for the specified type using the field name dictionary,
+   *         the plain codec if the dictionary is null or the format does not support it.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> DataFormatCodec<T> codec(final Class<T> valueType, final FieldNameDictionary dictionary) {
+    if (dictionary == null || !supportsFieldNameDictionary()) return codec(valueType);
+
+    return (DataFormatCodec<T>) dictionaryCodecs.computeIfAbsent(new DictionaryCodecKey(valueType, dictionary),
+      key -> get().newCodec(this, key.valueType(), key.dictionary()));
+  }
+
+  private record DictionaryCodecKey(Class<?> valueType, FieldNameDictionary dictionary) {}
+
   // ===============================================================================================
   //  JsonNode conversions
   // ===============================================================================================
@@ -100,7 +143,7 @@ public abstract class DataFormat {
   }
 
   public <T> T fromStream(final InputStream stream, final Class<T> valueType) throws IOException {
-    return get().fromStream(stream, valueType);
+    return codec(valueType).fromStream(stream);
   }
 
   public <T> T fromStream(final InputStream stream, final TypeReference<T> valueType) throws IOException {
@@ -109,7 +152,7 @@ public abstract class DataFormat {
 
   public <T> T fromStream(final InputStream stream, final int length, final Class<T> valueType) throws IOException {
     try (LimitedInputStream limitedStream = new LimitedInputStream(stream, length, false)) {
-      return get().fromStream(limitedStream, valueType);
+      return codec(valueType).fromStream(limitedStream);
     }
   }
 
@@ -120,7 +163,7 @@ public abstract class DataFormat {
   }
 
   public <T> T fromBytes(final byte[] data, final Class<T> valueType) {
-    return BytesUtil.isEmpty(data) ? null : get().fromBytes(data, valueType);
+    return codec(valueType).fromBytes(data);
   }
 
   public <T> T fromBytes(final byte[] data, final TypeReference<T> valueType) {
@@ -128,26 +171,40 @@ public abstract class DataFormat {
   }
 
   public <T> T fromBytes(final byte[] data, final int off, final int len, final Class<T> valueType) {
-    return (len == 0) ? null : get().fromBytes(data, off, len, valueType);
+    return codec(valueType).fromBytes(data, off, len);
   }
 
   public <T> T fromBytes(final ByteArraySlice data, final Class<T> valueType) {
-    if (data.isEmpty()) return null;
-    try (ByteArrayReader reader = new ByteArrayReader(data)) {
-      return fromStream(reader, valueType);
-    } catch (final Exception e) {
-      throw new DataFormatException(e);
-    }
+    return codec(valueType).fromBytes(data);
+  }
+
+  public <T> T fromBytes(final PagedByteArray data, final Class<T> valueType) {
+    return codec(valueType).fromBytes(data);
+  }
+
+  public <T> T fromBytes(final ByteBuffer data, final Class<T> valueType) {
+    return codec(valueType).fromBytes(data);
   }
 
   public <T> T fromString(final String data, final Class<T> valueType) {
-    return StringUtil.isEmpty(data) ? null : get().fromString(data, valueType);
+    return codec(valueType).fromString(data);
   }
 
   public <T> T fromString(final String data, final TypeReference<T> valueType) {
     return StringUtil.isEmpty(data) ? null : get().fromString(data, valueType);
   }
 
+  // ===============================================================================================
+  //  Incremental decoding
+  // ===============================================================================================
+  /**
+   * The body chunks are added to the decoder as they arrive,
+   * each value (or each element of a top-level array) is passed to the consumer once complete.
+   */
+  public <T> DataFormatDecoder<T> newDecoder(final Class<T> valueType, final Consumer<? super T> consumer) {
+    return codec(valueType).newDecoder(consumer);
+  }
+
   // ===============================================================================================
   //  To file/stream/byte[]/string/... conversions
   // ===============================================================================================
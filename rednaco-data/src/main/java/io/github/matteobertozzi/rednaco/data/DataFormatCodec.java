@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+
+/**
+ * Typed reader/writer of a DataFormat, see DataFormat.codec(Class).
+ * The codec is resolved once per type, so the read/write calls skip the per-call type lookups.
+ * The from*() methods return null on empty input, like the DataFormat ones.
+ */
+public interface DataFormatCodec<T> {
+  DataFormat format();
+  Class<T> valueType();
+
+  // ===============================================================================================
+  //  From stream/byte[]/string/... conversions
+  // ===============================================================================================
+  T fromStream(InputStream stream) throws IOException;
+  T fromBytes(byte[] data);
+  T fromBytes(byte[] data, int off, int len);
+  T fromString(String data);
+
+  // the data is parsed in place, without concatenating the pages. The ByteBuffer position is not modified.
+  T fromBytes(ByteArraySlice data);
+  T fromBytes(PagedByteArray data);
+  T fromBytes(ByteBuffer data);
+
+  /**
+   * @param consumer called with each decoded value (or each element of a top-level array)
+   * @return a new incremental decoder, the input is added as it arrives. See DataFormatDecoder.
+   */
+  default DataFormatDecoder<T> newDecoder(final Consumer<? super T> consumer) {
+    return new BufferedDataFormatDecoder<>(this, consumer);
+  }
+
+  // ===============================================================================================
+  //  To stream/byte[]/string/... conversions
+  // ===============================================================================================
+  void addToStream(OutputStream stream, T value) throws IOException;
+  String asString(T value);
+  byte[] asBytes(T value);
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental decoder, see DataFormatCodec.newDecoder(Consumer).
+ * The input is added chunk by chunk (e.g. as it arrives from the network)
+ * and the values are passed to the consumer as soon as they are complete:
+ *  - a top-level array emits each element, one at the time
+ *  - a top-level object/value (or a sequence of them, e.g. ndjson) emits each value
+ * Formats without a non-blocking parser buffer the chunks and decode on endOfInput(),
+ * in that case only the first top-level value is read.
+ * The chunk can be reused by the caller once add() returns.
+ */
+public interface DataFormatDecoder<T> extends AutoCloseable {
+  default void add(final byte[] buf) {
+    add(buf, 0, buf.length);
+  }
+
+  void add(byte[] buf, int off, int len);
+
+  default void add(final ByteBuffer buf) {
+    if (buf.hasArray()) {
+      add(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
+    } else {
+      final byte[] chunk = new byte[buf.remaining()];
+      buf.get(buf.position(), chunk);
+      add(chunk, 0, chunk.length);
+    }
+  }
+
+  /**
+   * Signal that there is no more input, the remaining values are emitted.
+   * A truncated input results in a DataFormatException.
+   */
+  void endOfInput();
+
+  /**
+   * @return the number of values passed to the consumer
+   */
+  long decodedCount();
+
+  @Override
+  void close();
+}
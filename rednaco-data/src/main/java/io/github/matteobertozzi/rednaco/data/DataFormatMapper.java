@@ -20,11 +20,18 @@ package io.github.matteobertozzi.rednaco.data;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
+import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArrayReader;
+import io.github.matteobertozzi.rednaco.strings.StringUtil;
+
 public interface DataFormatMapper {
 // ===============================================================================================
   //  JsonNode conversions
@@ -59,4 +66,85 @@ public interface DataFormatMapper {
   String asPrettyPrintString(Object value);
   String asString(Object value);
   byte[] asBytes(Object value);
+
+  // ===============================================================================================
+  //  Typed codecs
+  // ===============================================================================================
+  default <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType) {
+    return new DataFormatMapperCodec<>(this, format, valueType);
+  }
+
+  /**
+   * @return the codec using the field name dictionary, or the plain one if the format does not support it
+   */
+  default <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType, final FieldNameDictionary dictionary) {
+    return newCodec(format, valueType);
+  }
+
+  /**
+   * Codec for mappers without a typed reader/writer, it just delegates to the mapper.
+   */
+  record DataFormatMapperCodec<T>(DataFormatMapper mapper, DataFormat format, Class<T> valueType) implements DataFormatCodec<T> {
+    @Override
+    public T fromStream(final InputStream stream) throws IOException {
+      return mapper.fromStream(stream, valueType);
+    }
+
+    @Override
+    public T fromBytes(final byte[] data) {
+      return BytesUtil.isEmpty(data) ? null : mapper.fromBytes(data, valueType);
+    }
+
+    @Override
+    public T fromBytes(final byte[] data, final int off, final int len) {
+      return (len == 0) ? null : mapper.fromBytes(data, off, len, valueType);
+    }
+
+    @Override
+    public T fromString(final String data) {
+      return StringUtil.isEmpty(data) ? null : mapper.fromString(data, valueType);
+    }
+
+    @Override
+    public T fromBytes(final ByteArraySlice data) {
+      return fromBytes(data.rawBuffer(), data.offset(), data.length());
+    }
+
+    @Override
+    public T fromBytes(final PagedByteArray data) {
+      if (data.pageCount() == 1) {
+        return fromBytes(data.page(0), 0, data.pageLength(0));
+      }
+      try (PagedByteArrayReader reader = new PagedByteArrayReader(data)) {
+        return fromStream(reader);
+      } catch (final IOException e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public T fromBytes(final ByteBuffer data) {
+      if (data.hasArray()) {
+        return fromBytes(data.array(), data.arrayOffset() + data.position(), data.remaining());
+      }
+      final byte[] buf = new byte[data.remaining()];
+      data.get(data.position(), buf);
+      return fromBytes(buf);
+    }
+
+    @Override
+    public void addToStream(final OutputStream stream, final T value) throws IOException {
+      mapper.addToStream(stream, value);
+    }
+
+    @Override
+    public String asString(final T value) {
+      return mapper.asString(value);
+    }
+
+    @Override
+    public byte[] asBytes(final T value) {
+      return mapper.asBytes(value);
+    }
+  }
 }
@@ -17,34 +17,52 @@
 
 package io.github.matteobertozzi.rednaco.data;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serial;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.time.ZoneOffset;
 import java.util.TimeZone;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.Module;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.PropertyName;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.introspect.Annotated;
 import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
 import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
+import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
+import io.github.matteobertozzi.rednaco.bytes.BytesUtil;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArrayReader;
 import io.github.matteobertozzi.rednaco.data.json.JsonElementModule;
 import io.github.matteobertozzi.rednaco.data.modules.DataMapperModules;
 import io.github.matteobertozzi.rednaco.data.modules.TraceIdsModule;
+import io.github.matteobertozzi.rednaco.strings.StringUtil;
 import io.github.matteobertozzi.rednaco.util.Serialization.SerializationName;
 import io.github.matteobertozzi.rednaco.util.Serialization.SerializeWithSnakeCase;
 
@@ -160,6 +178,9 @@ public class DataFormatMapperJackson implements DataFormatMapper {
   @Override
   public <T> T fromBytes(final byte[] data, final int off, final int len, final Class<T> valueType) {
     try {
+      if (off != 0 && !canParseArrayOffset()) {
+        return mapper.readValue(new ByteArrayInputStream(data, off, len), valueType);
+      }
       return mapper.readValue(data, off, len, valueType);
     } catch (final Exception e) {
       throw new DataFormatException(e);
@@ -224,6 +245,384 @@ public class DataFormatMapperJackson implements DataFormatMapper {
     }
   }
 
+  // ===============================================================================================
+  //  Typed codecs
+  // ===============================================================================================
+  @Override
+  public <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType) {
+    return newCodec(format, valueType, UnaryOperator.identity(), UnaryOperator.identity());
+  }
+
+  protected <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType,
+      final UnaryOperator<ObjectReader> readerConfig, final UnaryOperator<ObjectWriter> writerConfig) {
+    // the writer is bound to the type only when no subclass can show up,
+    // otherwise the value serializer is looked up by runtime class (like mapper.writeValue())
+    final boolean isFinalType = valueType.isPrimitive() || valueType.isArray() || Modifier.isFinal(valueType.getModifiers());
+    final ObjectWriter writer = isFinalType ? mapper.writerFor(valueType) : mapper.writer();
+    return new JacksonCodec<>(format, valueType, readerConfig.apply(mapper.readerFor(valueType)), writerConfig.apply(writer),
+      mapper.getFactory().canParseAsync(), canParseArrayOffset());
+  }
+
+  /**
+   * @return false if the parser does not handle byte[] inputs starting at an offset other than zero,
+   *         in that case the slice is read through a stream.
+   */
+  protected boolean canParseArrayOffset() {
+    return true;
+  }
+
+  private record JacksonCodec<T>(DataFormat format, Class<T> valueType, ObjectReader reader, ObjectWriter writer,
+      boolean canParseAsync, boolean canParseArrayOffset) implements DataFormatCodec<T> {
+    @Override
+    public T fromStream(final InputStream stream) throws IOException {
+      return reader.readValue(stream);
+    }
+
+    @Override
+    public T fromBytes(final byte[] data) {
+      if (BytesUtil.isEmpty(data)) return null;
+      try {
+        return reader.readValue(data);
+      } catch (final Exception e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public T fromBytes(final byte[] data, final int off, final int len) {
+      if (len == 0) return null;
+      try {
+        if (off != 0 && !canParseArrayOffset) {
+          return reader.readValue(new ByteArrayInputStream(data, off, len));
+        }
+        return reader.readValue(data, off, len);
+      } catch (final Exception e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public T fromString(final String data) {
+      if (StringUtil.isEmpty(data)) return null;
+      try {
+        return reader.readValue(data);
+      } catch (final Exception e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public T fromBytes(final ByteArraySlice data) {
+      return fromBytes(data.rawBuffer(), data.offset(), data.length());
+    }
+
+    @Override
+    public T fromBytes(final PagedByteArray data) {
+      if (data.isEmpty()) return null;
+      if (data.pageCount() == 1) {
+        return fromBytes(data.page(0), 0, data.pageLength(0));
+      }
+
+      try {
+        if (canParseAsync) {
+          // the non-blocking parser is fed one page at the time, so nothing gets copied
+          final JsonParser parser = reader.createNonBlockingByteArrayParser();
+          try (PagedFeedParser feedParser = new PagedFeedParser(parser, data)) {
+            return reader.readValue(feedParser);
+          }
+        }
+        try (PagedByteArrayReader stream = new PagedByteArrayReader(data)) {
+          return reader.readValue(stream);
+        }
+      } catch (final Exception e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public T fromBytes(final ByteBuffer data) {
+      if (!data.hasRemaining()) return null;
+      if (data.hasArray()) {
+        return fromBytes(data.array(), data.arrayOffset() + data.position(), data.remaining());
+      }
+
+      try {
+        if (canParseAsync) {
+          final JsonParser parser = reader.getFactory().createNonBlockingByteBufferParser();
+          try (ByteBufferFeedParser feedParser = new ByteBufferFeedParser(parser, data.duplicate())) {
+            return reader.readValue(feedParser);
+          }
+        }
+        final byte[] buf = new byte[data.remaining()];
+        data.get(data.position(), buf);
+        return reader.readValue(buf);
+      } catch (final Exception e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public void addToStream(final OutputStream stream, final T value) throws IOException {
+      writer.writeValue(stream, value);
+    }
+
+    @Override
+    public String asString(final T value) {
+      try {
+        return writer.writeValueAsString(value);
+      } catch (final JsonProcessingException e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public DataFormatDecoder<T> newDecoder(final Consumer<? super T> consumer) {
+      try {
+        return new JacksonDecoder<>(this, consumer);
+      } catch (final IOException e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public byte[] asBytes(final T value) {
+      try {
+        return writer.writeValueAsBytes(value);
+      } catch (final JsonProcessingException e) {
+        throw new DataFormatException(e);
+      }
+    }
+  }
+
+  /**
+   * Splits the token stream in values: each top-level value (or each element of a top-level array)
+   * is copied in a TokenBuffer and bound once complete, so the parser can stop at any byte.
+   * The formats without a non-blocking parser (e.g. cbor, yajbe) keep the chunks in a PagedByteArray
+   * and run the same loop on a blocking parser on endOfInput().
+   */
+  private static final class JacksonDecoder<T> implements DataFormatDecoder<T> {
+    private final ObjectReader reader;
+    private final Consumer<? super T> consumer;
+    private final boolean splitArrays;
+    private final JsonParser asyncParser;
+    private final ByteArrayFeeder feeder;
+    private PagedByteArray buffer;
+    private TokenBuffer tokens;
+    private boolean inArray;
+    private boolean completed;
+    private int depth;
+    private long count;
+
+    private JacksonDecoder(final JacksonCodec<T> codec, final Consumer<? super T> consumer) throws IOException {
+      this.reader = codec.reader();
+      this.consumer = consumer;
+      // the array/collection types are bound as a whole
+      final Class<T> valueType = codec.valueType();
+      this.splitArrays = !valueType.isArray() && !Iterable.class.isAssignableFrom(valueType);
+      if (codec.canParseAsync()) {
+        this.asyncParser = reader.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) asyncParser.getNonBlockingInputFeeder();
+      } else {
+        this.asyncParser = null;
+        this.feeder = null;
+        this.buffer = new PagedByteArray();
+      }
+    }
+
+    @Override
+    public void add(final byte[] buf, final int off, final int len) {
+      if (completed) throw new IllegalStateException("decoder already completed");
+      if (len == 0) return;
+
+      if (feeder == null) {
+        buffer.add(buf, off, len);
+        return;
+      }
+
+      try {
+        feeder.feedInput(buf, off, off + len);
+        drain(asyncParser, true);
+      } catch (final IOException e) {
+        throw new DataFormatException(e);
+      }
+    }
+
+    @Override
+    public void endOfInput() {
+      if (completed) return;
+      completed = true;
+
+      try {
+        if (feeder != null) {
+          feeder.endOfInput();
+          drain(asyncParser, true);
+        } else if (buffer.isNotEmpty()) {
+          // only the first root value is read, some parsers (e.g. yajbe) fail reading past the end
+          try (JsonParser parser = reader.createParser(new PagedByteArrayReader(buffer))) {
+            drain(parser, false);
+          }
+          buffer = null;
+        }
+      } catch (final IOException e) {
+        throw new DataFormatException(e);
+      }
+
+      if (tokens != null || inArray) {
+        throw new DataFormatException("unexpected end of input");
+      }
+    }
+
+    private void drain(final JsonParser parser, final boolean multipleRoots) throws IOException {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+        if (tokens == null) {
+          if (splitArrays && !inArray && token == JsonToken.START_ARRAY) {
+            inArray = true;
+            continue;
+          }
+          if (inArray && token == JsonToken.END_ARRAY) {
+            inArray = false;
+            if (!multipleRoots) return;
+            continue;
+          }
+          tokens = new TokenBuffer(parser);
+        }
+
+        tokens.copyCurrentEvent(parser);
+        if (token.isStructStart()) {
+          depth++;
+        } else if (token.isStructEnd()) {
+          depth--;
+        }
+
+        if (depth == 0) {
+          final TokenBuffer value = tokens;
+          tokens = null;
+          try (JsonParser valueParser = value.asParser()) {
+            consumer.accept(reader.readValue(valueParser));
+          }
+          count++;
+          if (!multipleRoots && !inArray) return;
+        }
+      }
+    }
+
+    @Override
+    public long decodedCount() {
+      return count;
+    }
+
+    @Override
+    public void close() {
+      completed = true;
+      buffer = null;
+      tokens = null;
+      if (asyncParser != null) {
+        try {
+          asyncParser.close();
+        } catch (final IOException e) {
+          // no-op, nothing to release
+        }
+      }
+    }
+  }
+
+  /**
+   * Exposes a non-blocking parser as a regular blocking one, for the databind.
+   * When the parser runs out of input (NOT_AVAILABLE) the next chunk is fed
+   * and the parsing resumes. Once there is no more input, endOfInput() is signaled.
+   */
+  private abstract static class FeedParser extends JsonParserDelegate {
+    protected FeedParser(final JsonParser parser) {
+      super(parser);
+    }
+
+    protected abstract void feedNext() throws IOException;
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+      JsonToken token = delegate.nextToken();
+      while (token == JsonToken.NOT_AVAILABLE) {
+        feedNext();
+        token = delegate.nextToken();
+      }
+      return token;
+    }
+
+    @Override
+    public JsonToken nextValue() throws IOException {
+      final JsonToken token = nextToken();
+      return (token == JsonToken.FIELD_NAME) ? nextToken() : token;
+    }
+
+    @Override
+    public JsonParser skipChildren() throws IOException {
+      // the delegate skipChildren() would loop forever on NOT_AVAILABLE
+      final JsonToken current = currentToken();
+      if (current != JsonToken.START_OBJECT && current != JsonToken.START_ARRAY) {
+        return this;
+      }
+
+      int open = 1;
+      while (true) {
+        final JsonToken token = nextToken();
+        if (token == null) return this;
+        if (token.isStructStart()) {
+          ++open;
+        } else if (token.isStructEnd() && --open == 0) {
+          return this;
+        }
+      }
+    }
+  }
+
+  private static final class PagedFeedParser extends FeedParser {
+    private final ByteArrayFeeder feeder;
+    private final PagedByteArray data;
+    private int pageIndex;
+
+    private PagedFeedParser(final JsonParser parser, final PagedByteArray data) {
+      super(parser);
+      this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+      this.data = data;
+      this.pageIndex = 0;
+    }
+
+    @Override
+    protected void feedNext() throws IOException {
+      while (pageIndex < data.pageCount()) {
+        final int index = pageIndex++;
+        final int length = data.pageLength(index);
+        if (length > 0) {
+          feeder.feedInput(data.page(index), 0, length);
+          return;
+        }
+      }
+      feeder.endOfInput();
+    }
+  }
+
+  private static final class ByteBufferFeedParser extends FeedParser {
+    private final ByteBufferFeeder feeder;
+    private ByteBuffer data;
+
+    private ByteBufferFeedParser(final JsonParser parser, final ByteBuffer data) {
+      super(parser);
+      this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+      this.data = data;
+    }
+
+    @Override
+    protected void feedNext() throws IOException {
+      if (data != null) {
+        feeder.feedInput(data);
+        data = null;
+      } else {
+        feeder.endOfInput();
+      }
+    }
+  }
+
   private static final class ExtentedAnnotationIntrospector extends JacksonAnnotationIntrospector {
     @Serial
     private static final long serialVersionUID = 1L;
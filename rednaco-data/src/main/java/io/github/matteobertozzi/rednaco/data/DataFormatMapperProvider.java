@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import io.github.matteobertozzi.easerinsights.logging.Logger;
+
+/**
+ * Alternative DataFormatMapper implementation for a format, discovered through ServiceLoader
+ * (META-INF/services/io.github.matteobertozzi.rednaco.data.DataFormatMapperProvider).
+ * When more than one provider is available for the same format, the one with the highest priority is used.
+ */
+public interface DataFormatMapperProvider {
+  /**
+   * @return the name of the format (DataFormat.name(), e.g. "JSON")
+   */
+  String formatName();
+
+  default int priority() {
+    return 0;
+  }
+
+  /**
+   * @param defaultMapper the built-in mapper of the format, to delegate what the new mapper does not handle
+   */
+  DataFormatMapper newMapper(DataFormatMapper defaultMapper);
+
+  static DataFormatMapper load(final String formatName, final DataFormatMapper defaultMapper) {
+    DataFormatMapperProvider selected = null;
+    try {
+      for (final DataFormatMapperProvider provider: ServiceLoader.load(DataFormatMapperProvider.class)) {
+        if (formatName.equals(provider.formatName()) && (selected == null || provider.priority() > selected.priority())) {
+          selected = provider;
+        }
+      }
+    } catch (final ServiceConfigurationError e) {
+      Logger.error(e, "unable to load the {} data format mapper providers", formatName);
+    }
+    return selected != null ? selected.newMapper(defaultMapper) : defaultMapper;
+  }
+}
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import io.github.matteobertozzi.rednaco.data.json.JsonElement;
 import io.github.matteobertozzi.rednaco.data.json.JsonObject;
 
 public abstract class DataFormatMapperString implements DataFormatMapper {
@@ -62,22 +63,30 @@ public abstract class DataFormatMapperString implements DataFormatMapper {
 
   @Override
   public <T> T fromBytes(final byte[] data, final Class<T> valueType) {
-    return fromString(new String(data), valueType);
+    return fromBytes(data, 0, data.length, valueType);
   }
 
   @Override
   public <T> T fromBytes(final byte[] data, final TypeReference<T> valueType) {
-    return fromString(new String(data), valueType);
+    return JsonFormat.INSTANCE.convert(parseFormatBytes(data, 0, data.length), valueType);
   }
 
   @Override
   public <T> T fromBytes(final byte[] data, final int off, final int len, final Class<T> valueType) {
-    return fromString(new String(data, off, len), valueType);
+    return convertFormatObject(parseFormatBytes(data, off, len), valueType);
   }
 
   @Override
   public <T> T fromString(final String data, final Class<T> valueType) {
-    return JsonFormat.INSTANCE.convert(parseFormatString(data), valueType);
+    return convertFormatObject(parseFormatString(data), valueType);
+  }
+
+  protected <T> T convertFormatObject(final JsonObject object, final Class<T> valueType) {
+    // the parsed object is already the requested type, skip the conversion
+    if (valueType == JsonObject.class || valueType == JsonElement.class) {
+      return valueType.cast(object);
+    }
+    return JsonFormat.INSTANCE.convert(object, valueType);
   }
 
   @Override
@@ -110,6 +119,10 @@ public abstract class DataFormatMapperString implements DataFormatMapper {
     return asString(value).getBytes(StandardCharsets.UTF_8);
   }
 
+  protected JsonObject parseFormatBytes(final byte[] data, final int off, final int len) {
+    return parseFormatString(new String(data, off, len, StandardCharsets.UTF_8));
+  }
+
   protected abstract JsonObject parseFormatString(String data);
   protected abstract String toFormatString(JsonObject object);
 }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+/**
+ * Field names shared by client and server, negotiated by id (e.g. through a header).
+ * The binary formats supporting it (see DataFormat.supportsFieldNameDictionary())
+ * can reference the field names instead of writing them on every message:
+ *  - YAJBE: the names are pre-registered as indexed field names, both on write and on read
+ *  - CBOR: the dictionary enables stringref, repeated names/values are written once per message
+ *    (CBOR has no pre-shared tables, the names are not used and the content is self-describing)
+ * The order of the names is part of the dictionary, changing it requires a new id.
+ */
+public final class FieldNameDictionary {
+  private static final ConcurrentHashMap<String, FieldNameDictionary> dictionaries = new ConcurrentHashMap<>();
+
+  private final String id;
+  private final String[] fieldNames;
+
+  private FieldNameDictionary(final String id, final String[] fieldNames) {
+    this.id = id;
+    this.fieldNames = fieldNames;
+  }
+
+  public static FieldNameDictionary register(final String id, final String... fieldNames) {
+    final FieldNameDictionary dictionary = new FieldNameDictionary(id, fieldNames.clone());
+    final FieldNameDictionary other = dictionaries.putIfAbsent(id, dictionary);
+    if (other != null && !Arrays.equals(other.fieldNames, dictionary.fieldNames)) {
+      throw new IllegalArgumentException("a different field name dictionary is already registered as " + id);
+    }
+    return other != null ? other : dictionary;
+  }
+
+  /**
+   * Register the serialized property names of the specified types, in declaration order.
+   * Nested types are not scanned, they must be passed explicitly.
+   */
+  public static FieldNameDictionary register(final String id, final Class<?>... types) {
+    final ObjectMapper mapper = JsonFormat.INSTANCE.jacksonMapper().getObjectMapper();
+    final LinkedHashSet<String> names = new LinkedHashSet<>();
+    for (final Class<?> type: types) {
+      final JavaType javaType = mapper.constructType(type);
+      for (final BeanPropertyDefinition property: mapper.getSerializationConfig().introspect(javaType).findProperties()) {
+        if (property.couldSerialize()) names.add(property.getName());
+      }
+    }
+    return register(id, names.toArray(new String[0]));
+  }
+
+  public static FieldNameDictionary get(final String id) {
+    return id != null ? dictionaries.get(id) : null;
+  }
+
+  public String id() {
+    return id;
+  }
+
+  /**
+   * @return the field names (not a copy), do not modify it
+   */
+  public String[] fieldNames() {
+    return fieldNames;
+  }
+
+  @Override
+  public String toString() {
+    return "FieldNameDictionary [id=" + id + ", fieldNames=" + fieldNames.length + "]";
+  }
+}
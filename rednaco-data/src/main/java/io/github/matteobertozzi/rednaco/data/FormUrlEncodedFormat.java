@@ -17,14 +17,14 @@
 
 package io.github.matteobertozzi.rednaco.data;
 
-import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
-import io.github.matteobertozzi.rednaco.data.json.JsonElement;
 import io.github.matteobertozzi.rednaco.data.json.JsonObject;
 import io.github.matteobertozzi.rednaco.data.json.JsonPrimitive;
+import io.github.matteobertozzi.rednaco.strings.FormUrlDecoder;
 
 public final class FormUrlEncodedFormat extends DataFormat {
   public static final FormUrlEncodedFormat INSTANCE = new FormUrlEncodedFormat();
@@ -57,59 +57,47 @@ public final class FormUrlEncodedFormat extends DataFormat {
     }
 
     @Override
-    protected JsonObject parseFormatString(final String data) {
-      final StringBuilder key = new StringBuilder();
-      final StringBuilder value = new StringBuilder();
-      boolean isKey = true;
+    public <T> T fromBytes(final byte[] data, final int off, final int len, final Class<T> valueType) {
+      if (valueType != Map.class) return super.fromBytes(data, off, len, valueType);
+
+      // fields written straight into the map, no intermediate object
+      final LinkedHashMap<String, String> map = new LinkedHashMap<>();
+      FormUrlDecoder.decode(data, off, len, map::put);
+      return valueType.cast(map);
+    }
+
+    @Override
+    public <T> T fromString(final String data, final Class<T> valueType) {
+      if (valueType != Map.class) return super.fromString(data, valueType);
+
+      final LinkedHashMap<String, String> map = new LinkedHashMap<>();
+      FormUrlDecoder.decode(data, map::put);
+      return valueType.cast(map);
+    }
 
+    @Override
+    protected JsonObject parseFormatBytes(final byte[] data, final int off, final int len) {
       final JsonObject json = new JsonObject();
-      for (int i = 0; i < data.length(); i++) {
-        final char c = data.charAt(i);
-        switch (c) {
-          case '=':
-            if (isKey) {
-              isKey = false;
-            } else {
-              value.append(c);
-            }
-            break;
-          case '&':
-            json.add(
-              URLDecoder.decode(key.toString(), StandardCharsets.UTF_8),
-              URLDecoder.decode(value.toString(), StandardCharsets.UTF_8)
-            );
-            key.setLength(0);
-            value.setLength(0);
-            isKey = true;
-            break;
-          default:
-            if (isKey) {
-              key.append(c);
-            } else {
-              value.append(c);
-            }
-            break;
-        }
-      }
-
-      if (!key.isEmpty()) {
-        json.add(
-          URLDecoder.decode(key.toString(), StandardCharsets.UTF_8),
-          URLDecoder.decode(value.toString(), StandardCharsets.UTF_8)
-        );
-      }
+      FormUrlDecoder.decode(data, off, len, json::add);
+      return json;
+    }
+
+    @Override
+    protected JsonObject parseFormatString(final String data) {
+      final JsonObject json = new JsonObject();
+      FormUrlDecoder.decode(data, json::add);
       return json;
     }
 
     @Override
     protected String toFormatString(final JsonObject object) {
       final StringBuilder result = new StringBuilder();
-      for (final Map.Entry<String, JsonElement> entry: object.entrySet()) {
+      object.forEach((key, value) -> {
         if (!result.isEmpty()) result.append('&');
-        result.append(URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8));
+        result.append(URLEncoder.encode(key, StandardCharsets.UTF_8));
         result.append('=');
-        if (entry.getValue().isJsonPrimitive()) {
-          final JsonPrimitive primitive = entry.getValue().getAsJsonPrimitive();
+        if (value.isJsonPrimitive()) {
+          final JsonPrimitive primitive = value.getAsJsonPrimitive();
           if (primitive.isString()) {
             result.append(URLEncoder.encode(primitive.getAsString(), StandardCharsets.UTF_8));
           } else if (primitive.isBoolean()) {
@@ -120,9 +108,9 @@ public final class FormUrlEncodedFormat extends DataFormat {
             throw new UnsupportedOperationException();
           }
         } else {
-          result.append(URLEncoder.encode(entry.getValue().toString(), StandardCharsets.UTF_8));
+          result.append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
         }
-      }
+      });
       return result.toString();
     }
   }
@@ -22,7 +22,8 @@ import com.fasterxml.jackson.databind.json.JsonMapper;
 public final class JsonFormat extends DataFormat {
   public static final JsonFormat INSTANCE = new JsonFormat();
 
-  private final JsonFormatMapper mapper = new JsonFormatMapper();
+  private final JsonFormatMapper jacksonMapper = new JsonFormatMapper();
+  private final DataFormatMapper mapper = DataFormatMapperProvider.load("JSON", jacksonMapper);
 
   private JsonFormat() {
     // no-op
@@ -44,10 +45,14 @@ public final class JsonFormat extends DataFormat {
   }
 
   @Override
-  protected DataFormatMapperJackson get() {
+  protected DataFormatMapper get() {
     return mapper;
   }
 
+  DataFormatMapperJackson jacksonMapper() {
+    return jacksonMapper;
+  }
+
   private static final class JsonFormatMapper extends DataFormatMapperJackson {
     private JsonFormatMapper() {
       super(new JsonMapper());
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+import io.github.matteobertozzi.rednaco.data.json.JsonElement;
+import io.github.matteobertozzi.rednaco.data.json.JsonTreeWriter;
+
+/**
+ * JSON mapper writing the untyped trees (JsonElement, and Map/Collection/Object[] of primitives and trees)
+ * with the JsonTreeWriter. Everything else (parsing, typed objects and collections of typed objects,
+ * pretty print) goes to the default mapper as a whole.
+ * <p>The provider is opt-in: applications enable it by listing
+ * {@code io.github.matteobertozzi.rednaco.data.JsonTreeMapperProvider} in their own
+ * META-INF/services/io.github.matteobertozzi.rednaco.data.DataFormatMapperProvider.
+ */
+public final class JsonTreeMapperProvider implements DataFormatMapperProvider {
+  @Override
+  public String formatName() {
+    return "JSON";
+  }
+
+  @Override
+  public DataFormatMapper newMapper(final DataFormatMapper defaultMapper) {
+    return new JsonTreeMapper(defaultMapper);
+  }
+
+  /**
+   * @return true if the values of this type may be trees, the check on the value is done when writing
+   */
+  private static boolean isTreeType(final Class<?> valueType) {
+    if (valueType.isArray()) {
+      final Class<?> componentType = valueType.getComponentType();
+      return componentType.isArray() ? isTreeType(componentType) : isTreeComponentType(componentType);
+    }
+    return valueType == Object.class || Map.class.isAssignableFrom(valueType)
+        || Collection.class.isAssignableFrom(valueType) || JsonElement.class.isAssignableFrom(valueType);
+  }
+
+  private static boolean isTreeComponentType(final Class<?> componentType) {
+    // e.g. Item[] is never a tree, Object[] or Map[] may be
+    return componentType == Object.class || componentType == String.class
+        || Map.class.isAssignableFrom(componentType) || Collection.class.isAssignableFrom(componentType)
+        || JsonElement.class.isAssignableFrom(componentType);
+  }
+
+  private record JsonTreeMapper(DataFormatMapper mapper) implements DataFormatMapper {
+    private byte[] writeTree(final Object value) {
+      return new JsonTreeWriter(mapper::asBytes).writeValue(value).toByteArray();
+    }
+
+    // ===============================================================================================
+    //  To stream/byte[]/string conversions
+    // ===============================================================================================
+    @Override
+    public void addToStream(final OutputStream stream, final Object obj) throws IOException {
+      if (JsonTreeWriter.isTreeContainer(obj)) {
+        new JsonTreeWriter(mapper::asBytes).writeValue(obj).writeTo(stream);
+      } else {
+        mapper.addToStream(stream, obj);
+      }
+    }
+
+    @Override
+    public String asString(final Object value) {
+      if (!JsonTreeWriter.isTreeContainer(value)) return mapper.asString(value);
+      // the jackson string writer keeps the supplementary characters as they are, while the utf-8 one escapes them
+      final JsonTreeWriter writer = new JsonTreeWriter(v -> mapper.asString(v).getBytes(StandardCharsets.UTF_8), 256, false);
+      return writer.writeValue(value).toString();
+    }
+
+    @Override
+    public byte[] asBytes(final Object value) {
+      return JsonTreeWriter.isTreeContainer(value) ? writeTree(value) : mapper.asBytes(value);
+    }
+
+    @Override
+    public <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType) {
+      final DataFormatCodec<T> codec = mapper.newCodec(format, valueType);
+      return isTreeType(valueType) ? new JsonTreeCodec<>(codec, this) : codec;
+    }
+
+    @Override
+    public <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType, final FieldNameDictionary dictionary) {
+      return newCodec(format, valueType);
+    }
+
+    // ===============================================================================================
+    //  Delegated to the default mapper
+    // ===============================================================================================
+    @Override public JsonNode toTreeNode(final Object value) { return mapper.toTreeNode(value); }
+
+    @Override
+    public <T> T fromTreeNode(final JsonNode node, final Class<T> valueType) throws JsonProcessingException, IllegalArgumentException {
+      return mapper.fromTreeNode(node, valueType);
+    }
+
+    @Override public <T> T convert(final Object value, final Class<T> valueType) { return mapper.convert(value, valueType); }
+    @Override public <T> T convert(final Object value, final TypeReference<T> valueType) { return mapper.convert(value, valueType); }
+
+    @Override
+    public <T> T fromStream(final InputStream stream, final Class<T> valueType) throws IOException {
+      return mapper.fromStream(stream, valueType);
+    }
+
+    @Override
+    public <T> T fromStream(final InputStream stream, final TypeReference<T> valueType) throws IOException {
+      return mapper.fromStream(stream, valueType);
+    }
+
+    @Override public <T> T fromBytes(final byte[] data, final Class<T> valueType) { return mapper.fromBytes(data, valueType); }
+    @Override public <T> T fromBytes(final byte[] data, final TypeReference<T> valueType) { return mapper.fromBytes(data, valueType); }
+
+    @Override
+    public <T> T fromBytes(final byte[] data, final int off, final int len, final Class<T> valueType) {
+      return mapper.fromBytes(data, off, len, valueType);
+    }
+
+    @Override public <T> T fromString(final String data, final Class<T> valueType) { return mapper.fromString(data, valueType); }
+    @Override public <T> T fromString(final String data, final TypeReference<T> valueType) { return mapper.fromString(data, valueType); }
+
+    @Override
+    public void addToPrettyPrintStream(final OutputStream stream, final Object obj) throws IOException {
+      mapper.addToPrettyPrintStream(stream, obj);
+    }
+
+    @Override public String asPrettyPrintString(final Object value) { return mapper.asPrettyPrintString(value); }
+  }
+
+  private record JsonTreeCodec<T>(DataFormatCodec<T> codec, JsonTreeMapper mapper) implements DataFormatCodec<T> {
+    @Override public DataFormat format() { return codec.format(); }
+    @Override public Class<T> valueType() { return codec.valueType(); }
+
+    @Override public T fromStream(final InputStream stream) throws IOException { return codec.fromStream(stream); }
+    @Override public T fromBytes(final byte[] data) { return codec.fromBytes(data); }
+    @Override public T fromBytes(final byte[] data, final int off, final int len) { return codec.fromBytes(data, off, len); }
+    @Override public T fromString(final String data) { return codec.fromString(data); }
+    @Override public T fromBytes(final ByteArraySlice data) { return codec.fromBytes(data); }
+    @Override public T fromBytes(final PagedByteArray data) { return codec.fromBytes(data); }
+    @Override public T fromBytes(final ByteBuffer data) { return codec.fromBytes(data); }
+    @Override public DataFormatDecoder<T> newDecoder(final Consumer<? super T> consumer) { return codec.newDecoder(consumer); }
+
+    @Override
+    public void addToStream(final OutputStream stream, final T value) throws IOException {
+      mapper.addToStream(stream, value);
+    }
+
+    @Override
+    public String asString(final T value) {
+      return mapper.asString(value);
+    }
+
+    @Override
+    public byte[] asBytes(final T value) {
+      return mapper.asBytes(value);
+    }
+  }
+}
@@ -22,7 +22,7 @@ import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 public final class XmlFormat extends DataFormat {
   public static final XmlFormat INSTANCE = new XmlFormat();
 
-  private final XmlFormatMapper mapper = new XmlFormatMapper();
+  private final DataFormatMapper mapper = DataFormatMapperProvider.load("XML", new XmlFormatMapper());
 
   private XmlFormat() {
     // no-op
@@ -44,7 +44,7 @@ public final class XmlFormat extends DataFormat {
   }
 
   @Override
-  protected DataFormatMapperJackson get() {
+  protected DataFormatMapper get() {
     return mapper;
   }
 
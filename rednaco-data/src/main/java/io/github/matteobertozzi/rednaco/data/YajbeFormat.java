@@ -22,7 +22,7 @@ import io.github.matteobertozzi.yajbe.YajbeMapper;
 public class YajbeFormat extends DataFormat {
   public static final YajbeFormat INSTANCE = new YajbeFormat();
 
-  private final YajbeFormatMapper mapper = new YajbeFormatMapper();
+  private final DataFormatMapper mapper = DataFormatMapperProvider.load("YAJBE", new YajbeFormatMapper());
 
   private YajbeFormat() {
     // no-op
@@ -44,7 +44,12 @@ public class YajbeFormat extends DataFormat {
   }
 
   @Override
-  protected DataFormatMapperJackson get() {
+  public boolean supportsFieldNameDictionary() {
+    return true;
+  }
+
+  @Override
+  protected DataFormatMapper get() {
     return mapper;
   }
 
@@ -52,5 +57,19 @@ public class YajbeFormat extends DataFormat {
     private YajbeFormatMapper() {
       super(new YajbeMapper());
     }
+
+    @Override
+    public <T> DataFormatCodec<T> newCodec(final DataFormat format, final Class<T> valueType, final FieldNameDictionary dictionary) {
+      // the dictionary names are the initial indexed field names, of both the generator and the parser
+      return newCodec(format, valueType,
+        reader -> reader.withAttribute(YajbeMapper.CONFIG_MAP_FIELD_NAMES, dictionary.fieldNames()),
+        writer -> writer.withAttribute(YajbeMapper.CONFIG_MAP_FIELD_NAMES, dictionary.fieldNames()));
+    }
+
+    @Override
+    protected boolean canParseArrayOffset() {
+      // the yajbe byte[] parser indexes the buffer from zero, slices are read as streams
+      return false;
+    }
   }
 }
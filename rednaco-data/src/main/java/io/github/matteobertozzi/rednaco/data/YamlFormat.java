@@ -22,7 +22,7 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 public class YamlFormat extends DataFormat {
   public static final YamlFormat INSTANCE = new YamlFormat();
 
-  private final YamlFormatMapper mapper = new YamlFormatMapper();
+  private final DataFormatMapper mapper = DataFormatMapperProvider.load("YAML", new YamlFormatMapper());
 
   private YamlFormat() {
     // no-op
@@ -44,7 +44,7 @@ public class YamlFormat extends DataFormat {
   }
 
   @Override
-  protected DataFormatMapperJackson get() {
+  protected DataFormatMapper get() {
     return mapper;
   }
 
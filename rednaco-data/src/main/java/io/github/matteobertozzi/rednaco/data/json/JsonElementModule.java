@@ -19,18 +19,20 @@ package io.github.matteobertozzi.rednaco.data.json;
 
 import java.io.IOException;
 import java.io.Serial;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadCapability;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.node.POJONode;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
 
@@ -83,8 +85,10 @@ public final class JsonElementModule {
 
 	  @Override
     public JsonObject deserialize(final JsonParser parser, final DeserializationContext ctx) throws IOException {
-      final JsonNode node = parser.getCodec().readTree(parser);
-      return (JsonObject) fromJsonNode(node);
+      return switch (parser.currentToken()) {
+        case START_OBJECT, FIELD_NAME, END_OBJECT -> new JsonElementReader(ctx).readObject(parser);
+        default -> (JsonObject) ctx.handleUnexpectedToken(JsonObject.class, parser);
+      };
     }
   }
 
@@ -98,8 +102,10 @@ public final class JsonElementModule {
 
 	  @Override
     public JsonArray deserialize(final JsonParser parser, final DeserializationContext ctx) throws IOException {
-      final JsonNode node = parser.getCodec().readTree(parser);
-      return (JsonArray) fromJsonNode(node);
+      if (parser.currentToken() != JsonToken.START_ARRAY) {
+        return (JsonArray) ctx.handleUnexpectedToken(JsonArray.class, parser);
+      }
+      return new JsonElementReader(ctx).readArray(parser);
     }
   }
 
@@ -113,8 +119,10 @@ public final class JsonElementModule {
 
 	  @Override
     public JsonPrimitive deserialize(final JsonParser parser, final DeserializationContext ctx) throws IOException {
-      final JsonNode node = parser.getCodec().readTree(parser);
-      return (JsonPrimitive) fromJsonNode(node);
+      if (!parser.currentToken().isScalarValue()) {
+        return (JsonPrimitive) ctx.handleUnexpectedToken(JsonPrimitive.class, parser);
+      }
+      return (JsonPrimitive) JsonElementReader.readScalar(parser, ctx);
     }
   }
 
@@ -128,48 +136,181 @@ public final class JsonElementModule {
 
 	  @Override
     public JsonElement deserialize(final JsonParser parser, final DeserializationContext ctx) throws IOException {
-      final JsonNode node = parser.getCodec().readTree(parser);
-      return fromJsonNode(node);
+      return new JsonElementReader(ctx).read(parser);
     }
   }
 
-  private static JsonElement fromJsonNode(final JsonNode node) throws IOException {
-    if (node.isNull()) return JsonNull.INSTANCE;
+  /**
+   * Builds the JsonElement tree directly from the parser tokens, without the intermediate JsonNode tree.
+   * The values of the open containers are collected on a shared stack, and the JsonObject/JsonArray
+   * are created only at the end of the container, when the exact size is known.
+   * The object keys are deduplicated within the document, so arrays of objects share the key instances
+   * even when the parser does not canonicalize the names (e.g. yaml, xml).
+   * Small objects with the same keys of the previous object at the same depth share the keys array
+   * (see JsonObjectShape), so arrays of uniform objects store only the values of each row.
+   */
+  private static final class JsonElementReader {
+    private static final int MAX_CACHED_KEYS = 1024;
+
+    private final ArrayList<Object> stack = new ArrayList<>(32);
+    private final HashMap<String, String> keys = new HashMap<>();
+    private final ArrayList<String[]> shapes = new ArrayList<>();
+    private final DeserializationContext ctx;
+    private final boolean mergeDuplicates;
+    private int depth;
+
+    private JsonElementReader(final DeserializationContext ctx) {
+      this.ctx = ctx;
+      // xml repeated elements are exposed as duplicated properties, merge them in an array like the JsonNode does
+      this.mergeDuplicates = ctx.isEnabled(StreamReadCapability.DUPLICATE_PROPERTIES);
+    }
+
+    private JsonElement read(final JsonParser parser) throws IOException {
+      return switch (parser.currentToken()) {
+        case START_OBJECT, FIELD_NAME, END_OBJECT -> readObject(parser);
+        case START_ARRAY -> readArray(parser);
+        default -> readScalar(parser, ctx);
+      };
+    }
+
+    private JsonObject readObject(final JsonParser parser) throws IOException {
+      final int base = stack.size();
+      String name = switch (parser.currentToken()) {
+        case FIELD_NAME -> parser.currentName();
+        case END_OBJECT -> null;
+        default -> parser.nextFieldName();
+      };
+      depth++;
+      while (name != null) {
+        stack.add(internKey(name));
+        parser.nextToken();
+        stack.add(read(parser));
+        name = parser.nextFieldName();
+      }
+      depth--;
 
-    if (node.isObject()) {
-      final JsonObject jsonObject = new JsonObject(node.size());
-      final Iterator<Map.Entry<String, JsonNode>> it = node.fields();
-      while (it.hasNext()) {
-        final Map.Entry<String, JsonNode> entry = it.next();
-        jsonObject.add(entry.getKey(), fromJsonNode(entry.getValue()));
+      final int count = (stack.size() - base) >> 1;
+      final JsonObject object;
+      final String[] shape = (count != 0 && count <= JsonObject.INLINE_MAX_SIZE) ? lookupShape(base, count) : null;
+      if (shape != null) {
+        final JsonElement[] values = new JsonElement[count];
+        for (int i = 0; i < count; ++i) {
+          values[i] = (JsonElement) stack.get(base + (i << 1) + 1);
+        }
+        object = JsonObjectShape.newObject(shape, values);
+      } else {
+        object = new JsonObject(count);
+        for (int i = base, n = stack.size(); i < n; i += 2) {
+          final String key = (String) stack.get(i);
+          final JsonElement value = (JsonElement) stack.get(i + 1);
+          if (mergeDuplicates && object.has(key)) {
+            mergeDuplicate(object, key, value);
+          } else {
+            object.add(key, value);
+          }
+        }
       }
-      return jsonObject;
+      truncateStack(base);
+      return object;
     }
 
-    if (node.isArray()) {
-      final JsonArray jsonArray = new JsonArray(node.size());
-      for (final JsonNode item: node) {
-        jsonArray.add(fromJsonNode(item));
+    /**
+     * @return the keys of the previous object at this depth if they are the same,
+     *         or a new shape if the keys are unique. null if the object has duplicated keys.
+     */
+    private String[] lookupShape(final int base, final int count) {
+      while (shapes.size() <= depth) shapes.add(null);
+
+      final String[] lastShape = shapes.get(depth);
+      if (lastShape != null && lastShape.length == count && hasKeys(lastShape, base)) {
+        return lastShape;
       }
-      return jsonArray;
-    }
-
-    if (node.isValueNode()) {
-      if (node.isTextual()) return new JsonPrimitive(node.textValue());
-      if (node.isFloat()) return new JsonPrimitive(node.floatValue());
-      if (node.isDouble()) return new JsonPrimitive(node.doubleValue());
-      if (node.isLong()) return new JsonPrimitive(node.longValue());
-      if (node.isInt()) return new JsonPrimitive(node.intValue());
-      if (node.isBoolean()) return new JsonPrimitive(node.booleanValue());
-      if (node.isBinary()) return new JsonPrimitive(node.binaryValue());
-      if (node.isBigInteger()) return new JsonPrimitive(node.bigIntegerValue());
-      if (node.isBigDecimal()) return new JsonPrimitive(node.decimalValue());
-      if (node.isPojo()) {
-        final POJONode pojoNode = (POJONode)node;
-        throw new IOException(pojoNode + ": " + pojoNode.getPojo().getClass() + " " + pojoNode.getPojo());
+
+      final String[] shape = new String[count];
+      for (int i = 0; i < count; ++i) {
+        final String key = (String) stack.get(base + (i << 1));
+        for (int k = 0; k < i; ++k) {
+          if (shape[k].equals(key)) return null;
+        }
+        shape[i] = key;
+      }
+      shapes.set(depth, shape);
+      return shape;
+    }
+
+    private boolean hasKeys(final String[] shape, final int base) {
+      for (int i = 0; i < shape.length; ++i) {
+        final String key = (String) stack.get(base + (i << 1));
+        if (shape[i] != key && !shape[i].equals(key)) return false;
       }
+      return true;
     }
 
-    throw new IOException(node.getNodeType() + ": " + node);
+    private JsonArray readArray(final JsonParser parser) throws IOException {
+      final int base = stack.size();
+      depth++;
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        stack.add(read(parser));
+      }
+      depth--;
+
+      final JsonArray array = new JsonArray(stack.size() - base);
+      for (int i = base, n = stack.size(); i < n; ++i) {
+        array.add((JsonElement) stack.get(i));
+      }
+      truncateStack(base);
+      return array;
+    }
+
+    private static JsonElement readScalar(final JsonParser parser, final DeserializationContext ctx) throws IOException {
+      return switch (parser.currentToken()) {
+        case VALUE_STRING -> new JsonPrimitive(parser.getText());
+        case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+          case INT -> new JsonPrimitive(parser.getIntValue());
+          case LONG -> new JsonPrimitive(parser.getLongValue());
+          default -> new JsonPrimitive(parser.getBigIntegerValue());
+        };
+        case VALUE_NUMBER_FLOAT -> switch (parser.getNumberType()) {
+          case BIG_DECIMAL -> new JsonPrimitive(parser.getDecimalValue());
+          case FLOAT -> new JsonPrimitive(parser.getFloatValue());
+          default -> ctx.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            ? new JsonPrimitive(parser.getDecimalValue())
+            : new JsonPrimitive(parser.getDoubleValue());
+        };
+        case VALUE_TRUE -> new JsonPrimitive(true);
+        case VALUE_FALSE -> new JsonPrimitive(false);
+        case VALUE_NULL -> JsonNull.INSTANCE;
+        case VALUE_EMBEDDED_OBJECT -> {
+          final Object value = parser.getEmbeddedObject();
+          if (value == null) yield JsonNull.INSTANCE;
+          if (value instanceof final byte[] bytes) yield new JsonPrimitive(bytes);
+          throw new IOException("unsupported embedded object: " + value.getClass() + " " + value);
+        }
+        default -> throw new IOException("unexpected token " + parser.currentToken() + " at " + parser.currentLocation());
+      };
+    }
+
+    private static void mergeDuplicate(final JsonObject object, final String key, final JsonElement value) {
+      final JsonElement current = object.get(key);
+      if (current.isJsonArray()) {
+        current.getAsJsonArray().add(value);
+      } else {
+        object.add(key, new JsonArray(2).add(current).add(value));
+      }
+    }
+
+    private String internKey(final String key) {
+      final String cached = keys.get(key);
+      if (cached != null) return cached;
+
+      if (keys.size() < MAX_CACHED_KEYS) {
+        keys.put(key, key);
+      }
+      return key;
+    }
+
+    private void truncateStack(final int size) {
+      stack.subList(size, stack.size()).clear();
+    }
   }
 }
@@ -17,84 +17,146 @@
 
 package io.github.matteobertozzi.rednaco.data.json;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
-
+import java.util.function.BiConsumer;
+
+/**
+ * JSON Object, the members are kept in insertion order.
+ * Small objects (up to INLINE_MAX_SIZE members) are stored in two arrays and searched linearly,
+ * objects above the threshold are moved to a LinkedHashMap.
+ * The keys array can be shared between objects with the same keys (see JsonObjectShape),
+ * and it is copied only when a key is added or removed.
+ */
 public class JsonObject extends JsonElement {
-  private final Map<String, JsonElement> members;
+  public static final int INLINE_MAX_SIZE = 12;
+
+  private static final String[] EMPTY_KEYS = new String[0];
+  private static final JsonElement[] EMPTY_VALUES = new JsonElement[0];
+
+  private String[] keys;
+  private JsonElement[] values;
+  private int size;
+  private boolean sharedKeys;
+  private LinkedHashMap<String, JsonElement> members;
 
   public JsonObject() {
-    this.members = new HashMap<>();
+    this.keys = EMPTY_KEYS;
+    this.values = EMPTY_VALUES;
   }
 
   public JsonObject(final int length) {
-    this.members = HashMap.newHashMap(length);
+    if (length > INLINE_MAX_SIZE) {
+      this.keys = EMPTY_KEYS;
+      this.values = EMPTY_VALUES;
+      this.members = LinkedHashMap.newLinkedHashMap(length);
+    } else {
+      this.keys = length == 0 ? EMPTY_KEYS : new String[length];
+      this.values = length == 0 ? EMPTY_VALUES : new JsonElement[length];
+    }
   }
 
   public JsonObject(final JsonObject other) {
-    this.members = new HashMap<>(other.members);
+    if (other.members != null) {
+      this.keys = EMPTY_KEYS;
+      this.values = EMPTY_VALUES;
+      this.members = new LinkedHashMap<>(other.members);
+    } else {
+      // keys already shared (e.g. from a JsonObjectShape) are copy-on-write for everyone,
+      // the other keys are owned by the source object and must not be touched by the copy
+      this.keys = other.sharedKeys ? other.keys : Arrays.copyOf(other.keys, other.size);
+      this.values = Arrays.copyOf(other.values, other.size);
+      this.size = other.size;
+      this.sharedKeys = other.sharedKeys;
+    }
   }
 
   public JsonObject(final String key, final JsonElement value) {
-    this.members = Map.of(key, value);
+    this.keys = new String[] { key };
+    this.values = new JsonElement[] { value == null ? JsonNull.INSTANCE : value };
+    this.size = 1;
+  }
+
+  JsonObject(final String[] keys, final JsonElement[] values, final int size, final boolean sharedKeys) {
+    this.keys = keys;
+    this.values = values;
+    this.size = size;
+    this.sharedKeys = sharedKeys;
   }
 
   public boolean isEmpty() {
-    return members.isEmpty();
+    return size() == 0;
   }
 
   public boolean isNotEmpty() {
-    return !members.isEmpty();
+    return size() != 0;
   }
 
   public int size() {
-    return members.size();
+    return members != null ? members.size() : size;
   }
 
   protected Map<String, JsonElement> getMembers() {
-    return members;
+    return new MembersView();
   }
 
   public Set<String> keySet() {
-    return members.keySet();
+    return getMembers().keySet();
   }
 
   public Set<Map.Entry<String, JsonElement>> entrySet() {
-    return members.entrySet();
+    return getMembers().entrySet();
+  }
+
+  public void forEach(final BiConsumer<String, JsonElement> consumer) {
+    if (members != null) {
+      members.forEach(consumer);
+    } else {
+      for (int i = 0; i < size; ++i) {
+        consumer.accept(keys[i], values[i]);
+      }
+    }
   }
 
   public boolean has(final String memberName) {
-    return members.containsKey(memberName);
+    return members != null ? members.containsKey(memberName) : indexOf(memberName) >= 0;
   }
 
   public boolean hasObject(final String memberName) {
-    final JsonElement element = members.get(memberName);
+    final JsonElement element = get(memberName);
     return element != null && element.isJsonObject();
   }
 
   public boolean hasArray(final String memberName) {
-    final JsonElement element = members.get(memberName);
+    final JsonElement element = get(memberName);
     return element != null && element.isJsonArray();
   }
 
   public JsonElement get(final String memberName) {
-    return members.get(memberName);
+    if (members != null) return members.get(memberName);
+
+    final int index = indexOf(memberName);
+    return index < 0 ? null : values[index];
   }
 
   public JsonObject addNull(final String property) {
-    members.put(property, JsonNull.INSTANCE);
-    return this;
+    return put(property, JsonNull.INSTANCE);
   }
 
   public JsonObject addAll(final JsonObject other) {
-    members.putAll(other.members);
+    other.forEach(this::put);
     return this;
   }
 
   public JsonObject add(final String property, final JsonElement value) {
-    members.put(property, value == null ? JsonNull.INSTANCE : value);
-    return this;
+    return put(property, value == null ? JsonNull.INSTANCE : value);
   }
 
   public JsonObject add(final String property, final boolean value) {
@@ -138,32 +200,260 @@ public class JsonObject extends JsonElement {
   }
 
   public void clear() {
-    members.clear();
+    this.keys = EMPTY_KEYS;
+    this.values = EMPTY_VALUES;
+    this.size = 0;
+    this.sharedKeys = false;
+    this.members = null;
   }
 
   public JsonElement remove(final String key) {
-    return members.remove(key);
+    if (members != null) return members.remove(key);
+
+    final int index = indexOf(key);
+    if (index < 0) return null;
+
+    final JsonElement oldValue = values[index];
+    ensureOwnKeys(keys.length);
+    final int moveLen = size - index - 1;
+    System.arraycopy(keys, index + 1, keys, index, moveLen);
+    System.arraycopy(values, index + 1, values, index, moveLen);
+    keys[--size] = null;
+    values[size] = null;
+    return oldValue;
   }
 
   public JsonObject getAsJsonObject(final String memberName) {
-    return (JsonObject) members.get(memberName);
+    return (JsonObject) get(memberName);
   }
 
   public JsonArray getAsJsonArray(final String memberName) {
-    return (JsonArray) members.get(memberName);
+    return (JsonArray) get(memberName);
   }
 
   public JsonPrimitive getAsJsonPrimitive(final String memberName) {
-    return (JsonPrimitive) members.get(memberName);
+    return (JsonPrimitive) get(memberName);
+  }
+
+  // ================================================================================
+  //  Inline storage related
+  // ================================================================================
+  private int indexOf(final String key) {
+    for (int i = 0; i < size; ++i) {
+      final String k = keys[i];
+      // keys coming from the parser are deduplicated, try the identity first
+      if (k == key || k.equals(key)) return i;
+    }
+    return -1;
+  }
+
+  private JsonObject put(final String key, final JsonElement value) {
+    if (members != null) {
+      members.put(key, value);
+      return this;
+    }
+
+    final int index = indexOf(key);
+    if (index >= 0) {
+      values[index] = value;
+      return this;
+    }
+
+    if (size == INLINE_MAX_SIZE) {
+      members = LinkedHashMap.newLinkedHashMap(INLINE_MAX_SIZE << 1);
+      for (int i = 0; i < size; ++i) {
+        members.put(keys[i], values[i]);
+      }
+      members.put(key, value);
+      this.keys = EMPTY_KEYS;
+      this.values = EMPTY_VALUES;
+      this.size = 0;
+      this.sharedKeys = false;
+      return this;
+    }
+
+    if (size == values.length) {
+      final int newCapacity = Math.min(INLINE_MAX_SIZE, Math.max(4, size << 1));
+      values = Arrays.copyOf(values, newCapacity);
+      ensureOwnKeys(newCapacity);
+    } else {
+      ensureOwnKeys(values.length);
+    }
+    keys[size] = key;
+    values[size++] = value;
+    return this;
+  }
+
+  private void ensureOwnKeys(final int capacity) {
+    if (sharedKeys || keys.length < capacity) {
+      keys = Arrays.copyOf(keys, capacity);
+      sharedKeys = false;
+    }
+  }
+
+  /**
+   * Live Map view of the members, backed by the inline arrays or by the LinkedHashMap.
+   * The storage is checked on every call, so the view stays valid when the object moves to the map.
+   */
+  private final class MembersView extends AbstractMap<String, JsonElement> {
+    @Override
+    public int size() {
+      return JsonObject.this.size();
+    }
+
+    @Override
+    public JsonElement get(final Object key) {
+      return (key instanceof final String strKey) ? JsonObject.this.get(strKey) : null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+      return (key instanceof final String strKey) && has(strKey);
+    }
+
+    @Override
+    public JsonElement put(final String key, final JsonElement value) {
+      final JsonElement oldValue = JsonObject.this.get(key);
+      add(key, value);
+      return oldValue;
+    }
+
+    @Override
+    public JsonElement remove(final Object key) {
+      return (key instanceof final String strKey) ? JsonObject.this.remove(strKey) : null;
+    }
+
+    @Override
+    public void clear() {
+      JsonObject.this.clear();
+    }
+
+    @Override
+    public Set<Entry<String, JsonElement>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public int size() {
+          return JsonObject.this.size();
+        }
+
+        @Override
+        public Iterator<Entry<String, JsonElement>> iterator() {
+          return members != null ? members.entrySet().iterator() : new InlineIterator();
+        }
+      };
+    }
+  }
+
+  private final class InlineIterator implements Iterator<Map.Entry<String, JsonElement>> {
+    private int index = 0;
+    private int lastIndex = -1;
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @Override
+    public Map.Entry<String, JsonElement> next() {
+      if (index >= size) throw new NoSuchElementException();
+      lastIndex = index++;
+      return new InlineEntry(lastIndex);
+    }
+
+    @Override
+    public void remove() {
+      if (lastIndex < 0) throw new IllegalStateException();
+      JsonObject.this.remove(keys[lastIndex]);
+      index = lastIndex;
+      lastIndex = -1;
+    }
+  }
+
+  private final class InlineEntry implements Map.Entry<String, JsonElement> {
+    private final String key;
+    private final int index;
+
+    private InlineEntry(final int index) {
+      this.key = keys[index];
+      this.index = index;
+    }
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public JsonElement getValue() {
+      final int currentIndex = currentIndex();
+      return currentIndex >= 0 ? values[currentIndex] : JsonObject.this.get(key);
+    }
+
+    @Override
+    public JsonElement setValue(final JsonElement value) {
+      final JsonElement newValue = value == null ? JsonNull.INSTANCE : value;
+      final int currentIndex = currentIndex();
+      if (currentIndex < 0) {
+        final JsonElement oldValue = JsonObject.this.get(key);
+        put(key, newValue);
+        return oldValue;
+      }
+
+      final JsonElement oldValue = values[currentIndex];
+      values[currentIndex] = newValue;
+      return oldValue;
+    }
+
+    private int currentIndex() {
+      if (members != null) return -1;
+      // the entry index is still valid unless a member before it was removed
+      return (index < size && keys[index] == key) ? index : indexOf(key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof final Map.Entry<?, ?> other
+        && Objects.equals(key, other.getKey()) && Objects.equals(getValue(), other.getValue());
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + getValue();
+    }
   }
 
   @Override
   public int hashCode() {
-    return members.hashCode();
+    if (members != null) return members.hashCode();
+
+    // same as Map.hashCode()
+    int hash = 0;
+    for (int i = 0; i < size; ++i) {
+      hash += keys[i].hashCode() ^ values[i].hashCode();
+    }
+    return hash;
   }
 
   @Override
   public boolean equals(final Object o) {
-    return (o == this) || (o instanceof final JsonObject other) && other.members.equals(members);
+    if (o == this) return true;
+    if (!(o instanceof final JsonObject other)) return false;
+    if (other.size() != size()) return false;
+
+    if (members != null) {
+      for (final Map.Entry<String, JsonElement> entry: members.entrySet()) {
+        if (!Objects.equals(entry.getValue(), other.get(entry.getKey()))) return false;
+      }
+    } else {
+      for (int i = 0; i < size; ++i) {
+        if (!Objects.equals(values[i], other.get(keys[i]))) return false;
+      }
+    }
+    return true;
   }
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data.json;
+
+import java.util.Arrays;
+
+/**
+ * Shared key table for objects with the same keys (e.g. the rows of an array of uniform objects).
+ * The objects created from a shape reference the same keys array and store only their values.
+ * <pre>
+ *   final JsonObjectShape shape = JsonObjectShape.of("id", "name");
+ *   rows.add(shape.newObject(new JsonPrimitive(1), new JsonPrimitive("foo")));
+ * </pre>
+ */
+public final class JsonObjectShape {
+  private final String[] keys;
+
+  private JsonObjectShape(final String[] keys) {
+    this.keys = keys;
+  }
+
+  public static JsonObjectShape of(final String... keys) {
+    if (keys.length > JsonObject.INLINE_MAX_SIZE) {
+      throw new IllegalArgumentException("expected at most " + JsonObject.INLINE_MAX_SIZE + " keys, got " + keys.length);
+    }
+    for (int i = 0; i < keys.length; ++i) {
+      for (int j = i + 1; j < keys.length; ++j) {
+        if (keys[i].equals(keys[j])) {
+          throw new IllegalArgumentException("duplicated key " + keys[i]);
+        }
+      }
+    }
+    return new JsonObjectShape(keys.clone());
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  public String key(final int index) {
+    return keys[index];
+  }
+
+  public int indexOf(final String key) {
+    for (int i = 0; i < keys.length; ++i) {
+      if (keys[i].equals(key)) return i;
+    }
+    return -1;
+  }
+
+  public JsonObject newObject() {
+    final JsonElement[] values = new JsonElement[keys.length];
+    Arrays.fill(values, JsonNull.INSTANCE);
+    return new JsonObject(keys, values, keys.length, true);
+  }
+
+  public JsonObject newObject(final JsonElement... values) {
+    if (values.length != keys.length) {
+      throw new IllegalArgumentException("expected " + keys.length + " values, got " + values.length);
+    }
+
+    final JsonElement[] objValues = new JsonElement[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      objValues[i] = values[i] != null ? values[i] : JsonNull.INSTANCE;
+    }
+    return new JsonObject(keys, objValues, keys.length, true);
+  }
+
+  /**
+   * Used by the parser, the arrays are not copied.
+   */
+  static JsonObject newObject(final String[] keys, final JsonElement[] values) {
+    return new JsonObject(keys, values, keys.length, true);
+  }
+
+  @Override
+  public String toString() {
+    return "JsonObjectShape " + Arrays.toString(keys);
+  }
+}
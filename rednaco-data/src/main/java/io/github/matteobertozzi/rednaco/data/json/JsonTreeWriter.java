@@ -0,0 +1,392 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Hand-written JSON writer for the untyped trees: JsonElement, Map, Collection, Object[] and primitives.
+ * The output is the same of the Jackson mapper (null map values are skipped, NaN/Infinity are quoted),
+ * without going through the generic Map/Collection serializers.
+ * The values not handled (e.g. records, dates, enums) are written by the fallback writer.
+ */
+public final class JsonTreeWriter {
+  private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int STRING_CHUNK_SIZE = 1024;
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+  private final Function<Object, byte[]> fallback;
+  private final boolean escapeSurrogatePairs;
+  private byte[] buf;
+  private int length;
+
+  public JsonTreeWriter(final Function<Object, byte[]> fallback) {
+    this(fallback, 256);
+  }
+
+  public JsonTreeWriter(final Function<Object, byte[]> fallback, final int initialCapacity) {
+    this(fallback, initialCapacity, true);
+  }
+
+  /**
+   * @param fallback writer used for the values that are not part of the tree (records, beans, ...)
+   * @param initialCapacity initial size of the output buffer
+   * @param escapeSurrogatePairs true to write the supplementary characters as escaped utf-16 pairs,
+   *                             like the jackson utf-8 generator does. false to write them as 4 bytes utf-8,
+   *                             like the jackson string writer does.
+   */
+  public JsonTreeWriter(final Function<Object, byte[]> fallback, final int initialCapacity, final boolean escapeSurrogatePairs) {
+    this.fallback = fallback;
+    this.escapeSurrogatePairs = escapeSurrogatePairs;
+    this.buf = new byte[Math.max(16, initialCapacity)];
+    this.length = 0;
+  }
+
+  /**
+   * A tree is a JsonElement, or a Map with String keys, a Collection or an Object[]
+   * containing only trees, nulls, strings, booleans and numbers.
+   * The elements are checked while writing: on the first typed value (e.g. a List of records)
+   * the whole value goes to the fallback writer, since a single Jackson call is faster
+   * than falling back to Jackson for each element.
+   * @return true if the value is a container that may be written as a tree
+   */
+  public static boolean isTreeContainer(final Object value) {
+    return value instanceof JsonElement || value instanceof Map<?, ?>
+        || value instanceof Collection<?> || value instanceof Object[];
+  }
+
+  public void reset() {
+    length = 0;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public byte[] toByteArray() {
+    return Arrays.copyOf(buf, length);
+  }
+
+  public void writeTo(final OutputStream stream) throws IOException {
+    stream.write(buf, 0, length);
+  }
+
+  @Override
+  public String toString() {
+    return new String(buf, 0, length, StandardCharsets.UTF_8);
+  }
+
+  // ================================================================================
+  //  Value writers
+  // ================================================================================
+  public JsonTreeWriter writeValue(final Object value) {
+    final int startLength = length;
+    try {
+      writeTreeValue(value);
+    } catch (final NotATreeException e) {
+      length = startLength;
+      writeRaw(fallback.apply(value));
+    }
+    return this;
+  }
+
+  private void writeTreeValue(final Object value) {
+    switch (value) {
+      case null -> writeRaw(NULL);
+      case final String s -> writeString(s);
+      case final Boolean b -> writeRaw(b ? TRUE : FALSE);
+      case final Integer i -> writeLong(i);
+      case final Long l -> writeLong(l);
+      case final Short s -> writeLong(s);
+      case final Byte b -> writeLong(b);
+      case final Double d -> writeDouble(d);
+      case final Float f -> writeFloat(f);
+      case final BigInteger i -> writeAscii(i.toString());
+      case final BigDecimal d -> writeAscii(d.toString());
+      case final JsonElement e -> writeElement(e);
+      case final Map<?, ?> map -> writeMap(map);
+      case final Collection<?> items -> writeCollection(items);
+      case final Object[] items -> writeArray(items);
+      default -> throw NotATreeException.INSTANCE;
+    }
+  }
+
+  private void writeElement(final JsonElement element) {
+    switch (element) {
+      case final JsonObject object -> writeObject(object);
+      case final JsonArray array -> {
+        writeByte('[');
+        for (int i = 0, n = array.size(); i < n; ++i) {
+          if (i > 0) writeByte(',');
+          writeTreeValue(array.get(i));
+        }
+        writeByte(']');
+      }
+      case final JsonPrimitive primitive -> writePrimitive(primitive.getValue());
+      default -> writeRaw(NULL);
+    }
+  }
+
+  private void writePrimitive(final Object value) {
+    if (value instanceof final byte[] bytes) {
+      // base64 in the format of the fallback writer
+      writeRaw(fallback.apply(bytes));
+    } else {
+      writeTreeValue(value);
+    }
+  }
+
+  private void writeObject(final JsonObject object) {
+    writeByte('{');
+    final int startLength = length;
+    object.forEach((key, value) -> {
+      if (value == null) return;
+      if (length != startLength) writeByte(',');
+      writeString(key);
+      writeByte(':');
+      writeTreeValue(value);
+    });
+    writeByte('}');
+  }
+
+  private void writeMap(final Map<?, ?> map) {
+    writeByte('{');
+    boolean first = true;
+    for (final Map.Entry<?, ?> entry: map.entrySet()) {
+      if (!(entry.getKey() instanceof final String key)) {
+        // keep the Jackson key serializers (enums, numbers, dates, ...)
+        throw NotATreeException.INSTANCE;
+      }
+
+      final Object value = entry.getValue();
+      if (value == null) continue;
+      if (!first) writeByte(',');
+      writeString(key);
+      writeByte(':');
+      writeTreeValue(value);
+      first = false;
+    }
+    writeByte('}');
+  }
+
+  private void writeCollection(final Collection<?> items) {
+    writeByte('[');
+    boolean first = true;
+    for (final Object item: items) {
+      if (!first) writeByte(',');
+      writeTreeValue(item);
+      first = false;
+    }
+    writeByte(']');
+  }
+
+  private void writeArray(final Object[] items) {
+    writeByte('[');
+    for (int i = 0; i < items.length; ++i) {
+      if (i > 0) writeByte(',');
+      writeTreeValue(items[i]);
+    }
+    writeByte(']');
+  }
+
+  // ================================================================================
+  //  Number writers
+  // ================================================================================
+  private void writeLong(final long value) {
+    if (value == Long.MIN_VALUE) {
+      writeAscii("-9223372036854775808");
+      return;
+    }
+
+    ensureCapacity(20);
+    long v = value;
+    if (v < 0) {
+      buf[length++] = '-';
+      v = -v;
+    }
+
+    final int digits = digitCount(v);
+    int pos = length + digits;
+    do {
+      buf[--pos] = (byte) ('0' + (v % 10));
+      v /= 10;
+    } while (v != 0);
+    length += digits;
+  }
+
+  private static int digitCount(final long v) {
+    long limit = 10;
+    for (int i = 1; i < 19; ++i) {
+      if (v < limit) return i;
+      limit *= 10;
+    }
+    return 19;
+  }
+
+  private void writeDouble(final double value) {
+    if (Double.isFinite(value)) {
+      writeAscii(Double.toString(value));
+    } else {
+      // like Jackson QUOTE_NON_NUMERIC_NUMBERS
+      writeByte('"');
+      writeAscii(Double.toString(value));
+      writeByte('"');
+    }
+  }
+
+  private void writeFloat(final float value) {
+    if (Float.isFinite(value)) {
+      writeAscii(Float.toString(value));
+    } else {
+      writeByte('"');
+      writeAscii(Float.toString(value));
+      writeByte('"');
+    }
+  }
+
+  // ================================================================================
+  //  String writers
+  // ================================================================================
+  private void writeString(final String value) {
+    final int strLen = value.length();
+    final int startLength = length;
+    writeByte('"');
+    int i = 0;
+    while (i < strLen) {
+      // worst case: 6 bytes per char (\\u00XX) or 3 bytes utf-8, +1 char for a surrogate pair crossing the chunk end
+      final int chunkEnd = Math.min(strLen, i + STRING_CHUNK_SIZE);
+      ensureCapacity((chunkEnd - i + 1) * 6);
+      for (; i < chunkEnd; ++i) {
+        final char c = value.charAt(i);
+        if (c < 0x80) {
+          if (c >= 0x20 && c != '"' && c != '\\') {
+            buf[length++] = (byte) c;
+          } else {
+            writeEscape(c);
+          }
+        } else if (c < 0x800) {
+          buf[length++] = (byte) (0xc0 | (c >> 6));
+          buf[length++] = (byte) (0x80 | (c & 0x3f));
+        } else if (!Character.isSurrogate(c)) {
+          buf[length++] = (byte) (0xe0 | (c >> 12));
+          buf[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+          buf[length++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && (i + 1) < strLen && Character.isLowSurrogate(value.charAt(i + 1))) {
+          if (escapeSurrogatePairs) {
+            writeUnicodeEscape(c);
+            writeUnicodeEscape(value.charAt(++i));
+            continue;
+          }
+          final int cp = Character.toCodePoint(c, value.charAt(++i));
+          buf[length++] = (byte) (0xf0 | (cp >> 18));
+          buf[length++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+          buf[length++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+          buf[length++] = (byte) (0x80 | (cp & 0x3f));
+        } else {
+          // broken surrogate pair, let the fallback writer handle (or reject) it
+          length = startLength;
+          writeRaw(fallback.apply(value));
+          return;
+        }
+      }
+    }
+    writeByte('"');
+  }
+
+  private void writeUnicodeEscape(final char c) {
+    buf[length++] = '\\';
+    buf[length++] = 'u';
+    buf[length++] = HEX[(c >> 12) & 0xf];
+    buf[length++] = HEX[(c >> 8) & 0xf];
+    buf[length++] = HEX[(c >> 4) & 0xf];
+    buf[length++] = HEX[c & 0xf];
+  }
+
+  private void writeEscape(final char c) {
+    buf[length++] = '\\';
+    switch (c) {
+      case '"' -> buf[length++] = '"';
+      case '\\' -> buf[length++] = '\\';
+      case '\n' -> buf[length++] = 'n';
+      case '\r' -> buf[length++] = 'r';
+      case '\t' -> buf[length++] = 't';
+      case '\b' -> buf[length++] = 'b';
+      case '\f' -> buf[length++] = 'f';
+      default -> {
+        buf[length++] = 'u';
+        buf[length++] = '0';
+        buf[length++] = '0';
+        buf[length++] = HEX[(c >> 4) & 0xf];
+        buf[length++] = HEX[c & 0xf];
+      }
+    }
+  }
+
+  private void writeAscii(final String value) {
+    final int strLen = value.length();
+    ensureCapacity(strLen);
+    for (int i = 0; i < strLen; ++i) {
+      buf[length++] = (byte) value.charAt(i);
+    }
+  }
+
+  private void writeRaw(final byte[] data) {
+    ensureCapacity(data.length);
+    System.arraycopy(data, 0, buf, length, data.length);
+    length += data.length;
+  }
+
+  private void writeByte(final int b) {
+    ensureCapacity(1);
+    buf[length++] = (byte) b;
+  }
+
+  private void ensureCapacity(final int size) {
+    final int minCapacity = length + size;
+    if (minCapacity > buf.length) {
+      if (minCapacity < 0) throw new OutOfMemoryError("json tree larger than " + Integer.MAX_VALUE + " bytes");
+      buf = Arrays.copyOf(buf, (int) Math.min(MAX_CAPACITY, Math.max(minCapacity, (long) buf.length << 1)));
+    }
+  }
+
+  /**
+   * Thrown (without stack trace) on the first value that is not part of a tree,
+   * to stop writing and give the whole value to the fallback writer.
+   */
+  private static final class NotATreeException extends RuntimeException {
+    private static final long serialVersionUID = 4176620837405722129L;
+
+    private static final NotATreeException INSTANCE = new NotATreeException();
+
+    private NotATreeException() {
+      super(null, null, false, false);
+    }
+  }
+}
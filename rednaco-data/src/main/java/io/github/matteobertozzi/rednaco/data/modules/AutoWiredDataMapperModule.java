@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data.modules;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Modules discovered at startup by DataMapperModules using the ServiceLoader.
+ * The @RecordJsonCodec processor generates one of these for each annotated record
+ * and lists it in META-INF/services/io.github.matteobertozzi.rednaco.data.modules.AutoWiredDataMapperModule
+ */
+public abstract class AutoWiredDataMapperModule extends SimpleModule {
+  private static final long serialVersionUID = 4620022244844133147L;
+
+  protected AutoWiredDataMapperModule(final String name) {
+    super(name);
+  }
+}
@@ -17,18 +17,32 @@
 
 package io.github.matteobertozzi.rednaco.data.modules;
 
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.databind.Module;
 
+import io.github.matteobertozzi.easerinsights.logging.Logger;
+
 public final class DataMapperModules {
   public static final DataMapperModules INSTANCE = new DataMapperModules();
 
   private final Set<Module> modules = ConcurrentHashMap.newKeySet();
 
   private DataMapperModules() {
-    // no-op
+    loadAutoWiredModules();
+  }
+
+  private void loadAutoWiredModules() {
+    try {
+      for (final AutoWiredDataMapperModule module: ServiceLoader.load(AutoWiredDataMapperModule.class)) {
+        modules.add(module);
+      }
+    } catch (final ServiceConfigurationError e) {
+      Logger.error(e, "unable to load the auto-wired data mapper modules");
+    }
   }
 
   public void registerModule(final Module module) {
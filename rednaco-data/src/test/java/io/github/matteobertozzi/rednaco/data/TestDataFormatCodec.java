@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.bytes.ByteArraySlice;
+import io.github.matteobertozzi.rednaco.bytes.PagedByteArray;
+import io.github.matteobertozzi.rednaco.data.json.JsonObject;
+
+public class TestDataFormatCodec {
+  record Foo(String a, int b) {}
+  record Bar(String name, List<Foo> items, Map<String, Object> extra) {}
+
+  static class Base {
+    String a;
+  }
+
+  static class Child extends Base {
+    int b;
+  }
+
+  @Test
+  public void testCodecIsCached() {
+    final DataFormatCodec<Foo> codec = JsonFormat.INSTANCE.codec(Foo.class);
+    Assertions.assertSame(codec, JsonFormat.INSTANCE.codec(Foo.class));
+    Assertions.assertSame(JsonFormat.INSTANCE, codec.format());
+    Assertions.assertEquals(Foo.class, codec.valueType());
+    Assertions.assertNotSame(codec, CborFormat.INSTANCE.codec(Foo.class));
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    final Foo foo = new Foo("abc", 10);
+    for (final DataFormat format: new DataFormat[] { JsonFormat.INSTANCE, CborFormat.INSTANCE, YamlFormat.INSTANCE }) {
+      final DataFormatCodec<Foo> codec = format.codec(Foo.class);
+      final byte[] data = codec.asBytes(foo);
+      Assertions.assertArrayEquals(format.asBytes(foo), data);
+      Assertions.assertEquals(foo, codec.fromBytes(data));
+      Assertions.assertEquals(foo, codec.fromStream(new ByteArrayInputStream(data)));
+      Assertions.assertEquals(foo, format.fromBytes(data, Foo.class));
+
+      final byte[] padded = new byte[data.length + 4];
+      System.arraycopy(data, 0, padded, 2, data.length);
+      Assertions.assertEquals(foo, codec.fromBytes(padded, 2, data.length));
+
+      final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      codec.addToStream(stream, foo);
+      Assertions.assertArrayEquals(data, stream.toByteArray());
+    }
+
+    final DataFormatCodec<Foo> codec = JsonFormat.INSTANCE.codec(Foo.class);
+    Assertions.assertEquals("{\"a\":\"abc\",\"b\":10}", codec.asString(foo));
+    Assertions.assertEquals(foo, codec.fromString("{\"a\":\"abc\",\"b\":10,\"c\":true}"));
+  }
+
+  @Test
+  public void testEmptyInput() {
+    final DataFormatCodec<Foo> codec = JsonFormat.INSTANCE.codec(Foo.class);
+    Assertions.assertNull(codec.fromBytes((byte[]) null));
+    Assertions.assertNull(codec.fromBytes(new byte[0]));
+    Assertions.assertNull(codec.fromBytes(new byte[4], 2, 0));
+    Assertions.assertNull(codec.fromString(""));
+    Assertions.assertNull(JsonFormat.INSTANCE.fromBytes(new byte[0], Foo.class));
+  }
+
+  @Test
+  public void testDecodeErrorsAreWrapped() {
+    final DataFormatCodec<Foo> codec = JsonFormat.INSTANCE.codec(Foo.class);
+    // jackson rejects the bad range with an IllegalArgumentException
+    final DataFormatException e = Assertions.assertThrows(DataFormatException.class, () -> codec.fromBytes(new byte[4], 2, 100));
+    Assertions.assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    Assertions.assertThrows(DataFormatException.class, () -> codec.fromString("{\"a\":"));
+  }
+
+  @Test
+  public void testNonFinalTypeUsesRuntimeClass() {
+    final Child child = new Child();
+    child.a = "x";
+    child.b = 5;
+    Assertions.assertEquals("{\"a\":\"x\",\"b\":5}", JsonFormat.INSTANCE.codec(Base.class).asString(child));
+    Assertions.assertEquals("{\"a\":\"x\",\"b\":5}", JsonFormat.INSTANCE.codec(Object.class).asString(child));
+  }
+
+  @Test
+  public void testStringFormatCodec() {
+    final DataFormatCodec<Foo> codec = FormUrlEncodedFormat.INSTANCE.codec(Foo.class);
+    Assertions.assertEquals(new Foo("a b", 3), codec.fromString("a=a+b&b=3"));
+    Assertions.assertEquals(new Foo("a b", 3), codec.fromBytes("a=a+b&b=3".getBytes(StandardCharsets.UTF_8)));
+    Assertions.assertEquals("a=x&b=1", codec.asString(new Foo("x", 1)));
+
+    final Map<?, ?> map = FormUrlEncodedFormat.INSTANCE.codec(Map.class).fromString("k=v");
+    Assertions.assertEquals(Map.of("k", "v"), map);
+    Assertions.assertEquals(Map.of("k", "v w", "x", ""), FormUrlEncodedFormat.INSTANCE.fromBytes("k=v%20w&x".getBytes(StandardCharsets.UTF_8), Map.class));
+
+    final JsonObject json = FormUrlEncodedFormat.INSTANCE.fromString("a=%C3%A8&b=1", JsonObject.class);
+    Assertions.assertEquals("è", json.get("a").getAsString());
+    Assertions.assertEquals("1", json.get("b").getAsString());
+  }
+
+  @Test
+  public void testZeroCopyInputs() {
+    final ArrayList<Foo> items = new ArrayList<>();
+    for (int i = 0; i < 100; ++i) {
+      items.add(new Foo("item-\u00e8-" + "x".repeat(i), i));
+    }
+    final Bar bar = new Bar("bar", items, Map.of("k", List.of(1, Map.of("z", "w"))));
+
+    for (final DataFormat format: new DataFormat[] { JsonFormat.INSTANCE, CborFormat.INSTANCE, YajbeFormat.INSTANCE }) {
+      final byte[] data = format.asBytes(bar);
+
+      // pages smaller than the tokens, to split strings and numbers
+      for (final int pageSize: new int[] { 16, 64, 1 << 20 }) {
+        final PagedByteArray paged = new PagedByteArray(pageSize);
+        paged.add(data);
+        Assertions.assertEquals(bar, format.fromBytes(paged, Bar.class));
+      }
+
+      final byte[] padded = new byte[data.length + 10];
+      System.arraycopy(data, 0, padded, 5, data.length);
+      Assertions.assertEquals(bar, format.fromBytes(new ByteArraySlice(padded, 5, data.length), Bar.class));
+      Assertions.assertEquals(bar, format.fromBytes(ByteBuffer.wrap(padded, 5, data.length), Bar.class));
+
+      final ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 3);
+      direct.position(3);
+      direct.put(data);
+      direct.position(3);
+      Assertions.assertEquals(bar, format.fromBytes(direct, Bar.class));
+      Assertions.assertEquals(3, direct.position());
+    }
+
+    Assertions.assertNull(JsonFormat.INSTANCE.fromBytes(new PagedByteArray(), Bar.class));
+    Assertions.assertNull(JsonFormat.INSTANCE.fromBytes(ByteBuffer.allocateDirect(0), Bar.class));
+  }
+
+  @Test
+  public void testPagedSkipUnknownFields() {
+    final String json = "{\"unknown\":{\"a\":[1,2,{\"b\":\"" + "y".repeat(100) + "\"}],\"c\":{}},\"a\":\"abc\",\"b\":10}";
+    final PagedByteArray paged = new PagedByteArray(8);
+    paged.add(json.getBytes(StandardCharsets.UTF_8));
+    Assertions.assertEquals(new Foo("abc", 10), JsonFormat.INSTANCE.fromBytes(paged, Foo.class));
+
+    final PagedByteArray truncated = new PagedByteArray(8);
+    truncated.add(json.substring(0, 50).getBytes(StandardCharsets.UTF_8));
+    Assertions.assertThrows(DataFormatException.class, () -> JsonFormat.INSTANCE.fromBytes(truncated, Foo.class));
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TestDataFormatDecoder {
+  record Foo(String a, int b) {}
+
+  private static List<Foo> newItems(final int count) {
+    final ArrayList<Foo> items = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      items.add(new Foo("item-è-" + i, i));
+    }
+    return items;
+  }
+
+  @Test
+  public void testArrayElementsEmittedIncrementally() {
+    final List<Foo> items = newItems(50);
+    final byte[] data = JsonFormat.INSTANCE.asBytes(items);
+
+    final ArrayList<Foo> decoded = new ArrayList<>();
+    try (DataFormatDecoder<Foo> decoder = JsonFormat.INSTANCE.newDecoder(Foo.class, decoded::add)) {
+      // one byte at the time, to split every token
+      for (int i = 0; i < data.length; ++i) {
+        decoder.add(data, i, 1);
+        if (i == data.length / 2) {
+          Assertions.assertTrue(decoded.size() > 0 && decoded.size() < items.size());
+        }
+      }
+      Assertions.assertEquals(items.size(), decoded.size());
+      decoder.endOfInput();
+      Assertions.assertEquals(items.size(), decoder.decodedCount());
+    }
+    Assertions.assertEquals(items, decoded);
+  }
+
+  @Test
+  public void testBinaryFormats() {
+    final List<Foo> items = newItems(20);
+    for (final DataFormat format: new DataFormat[] { CborFormat.INSTANCE, YajbeFormat.INSTANCE, XmlFormat.INSTANCE }) {
+      final byte[] data = format.asBytes(new Foo("single", 1));
+      final ArrayList<Foo> decoded = new ArrayList<>();
+      try (DataFormatDecoder<Foo> decoder = format.newDecoder(Foo.class, decoded::add)) {
+        for (int i = 0; i < data.length; i += 7) {
+          decoder.add(data, i, Math.min(7, data.length - i));
+        }
+        decoder.endOfInput();
+      }
+      Assertions.assertEquals(List.of(new Foo("single", 1)), decoded);
+    }
+
+    for (final DataFormat format: new DataFormat[] { CborFormat.INSTANCE, YajbeFormat.INSTANCE }) {
+      final byte[] data = format.asBytes(items);
+      final ArrayList<Foo> decoded = new ArrayList<>();
+      try (DataFormatDecoder<Foo> decoder = format.newDecoder(Foo.class, decoded::add)) {
+        decoder.add(ByteBuffer.wrap(data));
+        decoder.endOfInput();
+      }
+      Assertions.assertEquals(items, decoded);
+    }
+  }
+
+  @Test
+  public void testValueSequence() {
+    final String ndjson = "{\"a\":\"x\",\"b\":1}\n{\"a\":\"y\",\"b\":2}\n[{\"a\":\"z\",\"b\":3}]";
+    final ArrayList<Foo> decoded = new ArrayList<>();
+    try (DataFormatDecoder<Foo> decoder = JsonFormat.INSTANCE.newDecoder(Foo.class, decoded::add)) {
+      decoder.add(ndjson.getBytes(StandardCharsets.UTF_8));
+      decoder.endOfInput();
+    }
+    Assertions.assertEquals(List.of(new Foo("x", 1), new Foo("y", 2), new Foo("z", 3)), decoded);
+  }
+
+  @Test
+  public void testCollectionTypeIsNotSplit() {
+    final ArrayList<List<?>> decoded = new ArrayList<>();
+    try (DataFormatDecoder<?> decoder = JsonFormat.INSTANCE.newDecoder(List.class, decoded::add)) {
+      decoder.add("[1,[2,3],{\"k\":4}]".getBytes(StandardCharsets.UTF_8));
+      decoder.endOfInput();
+    }
+    Assertions.assertEquals(List.of(List.of(1, List.of(2, 3), Map.of("k", 4))), decoded);
+  }
+
+  @Test
+  public void testTruncatedInput() {
+    for (final DataFormat format: new DataFormat[] { JsonFormat.INSTANCE, CborFormat.INSTANCE }) {
+      final byte[] data = format.asBytes(newItems(10));
+      final ArrayList<Foo> decoded = new ArrayList<>();
+      try (DataFormatDecoder<Foo> decoder = format.newDecoder(Foo.class, decoded::add)) {
+        decoder.add(data, 0, data.length - 3);
+        Assertions.assertThrows(DataFormatException.class, decoder::endOfInput);
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyInput() {
+    try (DataFormatDecoder<Foo> decoder = JsonFormat.INSTANCE.newDecoder(Foo.class, v -> Assertions.fail())) {
+      decoder.endOfInput();
+      Assertions.assertEquals(0, decoder.decodedCount());
+    }
+  }
+}
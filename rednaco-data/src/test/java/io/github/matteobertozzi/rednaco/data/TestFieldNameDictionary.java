@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.util.Serialization.SerializeWithSnakeCase;
+
+public class TestFieldNameDictionary {
+  @SerializeWithSnakeCase
+  public record Item(String itemName, long itemValue, List<String> itemTags) {}
+  public record Page(List<Item> items, String nextPageToken) {}
+
+  private static Page newPage(final int count) {
+    final ArrayList<Item> items = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      items.add(new Item("name-" + i, i, List.of("tag-" + (i & 3))));
+    }
+    return new Page(items, "next");
+  }
+
+  @Test
+  public void testRegister() {
+    final FieldNameDictionary dictionary = FieldNameDictionary.register("test-register", Page.class, Item.class);
+    Assertions.assertArrayEquals(new String[] { "items", "nextPageToken", "item_name", "item_value", "item_tags" }, dictionary.fieldNames());
+    Assertions.assertSame(dictionary, FieldNameDictionary.get("test-register"));
+    Assertions.assertSame(dictionary, FieldNameDictionary.register("test-register", "items", "nextPageToken", "item_name", "item_value", "item_tags"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> FieldNameDictionary.register("test-register", "a", "b"));
+    Assertions.assertNull(FieldNameDictionary.get("test-missing"));
+    Assertions.assertNull(FieldNameDictionary.get(null));
+  }
+
+  @Test
+  public void testYajbeDictionary() {
+    final FieldNameDictionary dictionary = FieldNameDictionary.register("test-yajbe", Page.class, Item.class);
+    final DataFormatCodec<Page> plainCodec = YajbeFormat.INSTANCE.codec(Page.class);
+    final DataFormatCodec<Page> dictCodec = YajbeFormat.INSTANCE.codec(Page.class, dictionary);
+    Assertions.assertSame(dictCodec, YajbeFormat.INSTANCE.codec(Page.class, dictionary));
+    Assertions.assertNotSame(plainCodec, dictCodec);
+
+    final Page page = newPage(1);
+    final byte[] plain = plainCodec.asBytes(page);
+    final byte[] encoded = dictCodec.asBytes(page);
+    // every field name is written as an index
+    Assertions.assertTrue(encoded.length < plain.length - 30, "plain " + plain.length + " dict " + encoded.length);
+    Assertions.assertEquals(page, dictCodec.fromBytes(encoded));
+    Assertions.assertEquals(page, plainCodec.fromBytes(plain));
+
+    final Page bigPage = newPage(100);
+    Assertions.assertEquals(bigPage, dictCodec.fromBytes(dictCodec.asBytes(bigPage)));
+  }
+
+  @Test
+  public void testCborStringRef() {
+    final FieldNameDictionary dictionary = FieldNameDictionary.register("test-cbor", Page.class, Item.class);
+    final DataFormatCodec<Page> plainCodec = CborFormat.INSTANCE.codec(Page.class);
+    final DataFormatCodec<Page> dictCodec = CborFormat.INSTANCE.codec(Page.class, dictionary);
+
+    final Page page = newPage(100);
+    final byte[] plain = plainCodec.asBytes(page);
+    final byte[] encoded = dictCodec.asBytes(page);
+    Assertions.assertTrue(encoded.length < (plain.length * 2) / 3, "plain " + plain.length + " dict " + encoded.length);
+    // the stringref content is self-describing, the plain codec can read it
+    Assertions.assertEquals(page, plainCodec.fromBytes(encoded));
+    Assertions.assertEquals(page, dictCodec.fromBytes(encoded));
+  }
+
+  @Test
+  public void testUnsupportedFormat() {
+    final FieldNameDictionary dictionary = FieldNameDictionary.register("test-json", Page.class, Item.class);
+    Assertions.assertFalse(JsonFormat.INSTANCE.supportsFieldNameDictionary());
+    Assertions.assertSame(JsonFormat.INSTANCE.codec(Page.class), JsonFormat.INSTANCE.codec(Page.class, dictionary));
+    Assertions.assertSame(YajbeFormat.INSTANCE.codec(Page.class), YajbeFormat.INSTANCE.codec(Page.class, null));
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.data.json.JsonArray;
+import io.github.matteobertozzi.rednaco.data.json.JsonNull;
+import io.github.matteobertozzi.rednaco.data.json.JsonObject;
+import io.github.matteobertozzi.rednaco.data.json.JsonTreeWriter;
+
+public class TestJsonTreeMapperProvider {
+  record Foo(String a, int b) {}
+
+  private static final DataFormatMapper TREE_MAPPER = new JsonTreeMapperProvider().newMapper(JsonFormat.INSTANCE.jacksonMapper());
+
+  @Test
+  public void testProviderIsOptIn() {
+    Assertions.assertSame(JsonFormat.INSTANCE.jacksonMapper(), JsonFormat.INSTANCE.get());
+    Assertions.assertSame(JsonFormat.INSTANCE.jacksonMapper(), DataFormatMapperProvider.load("NOT-A-FORMAT", JsonFormat.INSTANCE.jacksonMapper()));
+  }
+
+  @Test
+  public void testJacksonParity() throws IOException {
+    final ArrayList<Object> values = new ArrayList<>();
+    values.add("simple");
+    values.add("quotes \" back\\slash / \n\r\t\b\f \u0001 \u001f \u007f");
+    values.add("unicode: è 中 😀");
+    values.add("broken surrogate: \ud83d");
+    values.add(List.of(Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, (short) -7, (byte) 3, 0));
+    values.add(List.of(0.0, -0.0, 1.5, 1e20, 1e-7, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY));
+    values.add(List.of(1.5f, Float.NaN, 3.0f, Float.MAX_VALUE));
+    values.add(List.of(new BigInteger("123456789012345678901234567890"), new BigDecimal("1.50"), new BigDecimal("1E+3")));
+    values.add(new Object[] { "a", 1, true, null, new int[] { 1, 2 }, new Foo("x", 2) });
+    values.add(Set.of());
+    values.add(new LinkedHashMap<>());
+    values.add(new JsonArray());
+    values.add(new JsonObject());
+
+    final LinkedHashMap<String, Object> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("skipped", null);
+    map.put("nested", Map.of("list", List.of(Map.of("k", "v")), "foo", new Foo("y", 3)));
+    map.put("unit", TimeUnit.SECONDS);
+    map.put("k\"e\u0001y", false);
+    values.add(map);
+
+    final HashMap<Object, Object> enumKeys = new HashMap<>();
+    enumKeys.put(TimeUnit.SECONDS, "s");
+    values.add(enumKeys);
+    values.add(Map.of(1, "int-key"));
+
+    final JsonObject json = new JsonObject();
+    json.add("s", "vè");
+    json.add("l", 10);
+    json.add("d", 1.25);
+    json.add("b", true);
+    json.addNull("n");
+    json.add("big", new BigDecimal("123.4500"));
+    json.add("arr", new JsonArray().add(1).add("x").add(JsonNull.INSTANCE).add(new JsonObject().add("z", false)));
+    values.add(json);
+    values.add(List.of(json, map));
+
+    final DataFormatMapperJackson jackson = JsonFormat.INSTANCE.jacksonMapper();
+    for (final Object value: values) {
+      // the utf-8 output escapes the supplementary characters, the string output does not
+      final String expected = jackson.asString(value);
+      final String expectedUtf8 = new String(jackson.asBytes(value), StandardCharsets.UTF_8);
+      Assertions.assertEquals(expected, TREE_MAPPER.asString(value));
+      Assertions.assertEquals(expectedUtf8, new String(TREE_MAPPER.asBytes(value), StandardCharsets.UTF_8));
+      Assertions.assertEquals(expectedUtf8, new JsonTreeWriter(jackson::asBytes).writeValue(value).toString());
+
+      final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      TREE_MAPPER.addToStream(stream, value);
+      Assertions.assertEquals(expectedUtf8, stream.toString(StandardCharsets.UTF_8));
+
+      final DataFormatCodec<Object> codec = TREE_MAPPER.newCodec(JsonFormat.INSTANCE, Object.class);
+      Assertions.assertEquals(expected, codec.asString(value));
+      Assertions.assertEquals(expectedUtf8, new String(codec.asBytes(value), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testCodecs() {
+    final DataFormatCodec<LinkedHashMap<?, ?>> mapCodec = TREE_MAPPER.newCodec(JsonFormat.INSTANCE, mapType());
+    final LinkedHashMap<?, ?> map = mapCodec.fromString("{\"a\":[1,2],\"b\":{\"c\":null}}");
+    Assertions.assertEquals("{\"a\":[1,2],\"b\":{}}", mapCodec.asString(map));
+    Assertions.assertSame(JsonFormat.INSTANCE, mapCodec.format());
+
+    final DataFormatCodec<JsonObject> jsonCodec = TREE_MAPPER.newCodec(JsonFormat.INSTANCE, JsonObject.class);
+    final JsonObject json = jsonCodec.fromString("{\"a\":[1,2.5,\"x\"],\"b\":null}");
+    Assertions.assertEquals("{\"a\":[1,2.5,\"x\"],\"b\":null}", jsonCodec.asString(json));
+
+    // typed codecs are not wrapped
+    final DataFormatCodec<Foo> fooCodec = TREE_MAPPER.newCodec(JsonFormat.INSTANCE, Foo.class);
+    Assertions.assertEquals("{\"a\":\"x\",\"b\":1}", fooCodec.asString(new Foo("x", 1)));
+    Assertions.assertEquals(new Foo("x", 1), fooCodec.fromString("{\"a\":\"x\",\"b\":1}"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Class<LinkedHashMap<?, ?>> mapType() {
+    return (Class<LinkedHashMap<?, ?>>) (Class<?>) LinkedHashMap.class;
+  }
+
+  @Test
+  public void testWriterReuse() {
+    final JsonTreeWriter writer = new JsonTreeWriter(JsonFormat.INSTANCE::asBytes, 4);
+    writer.writeValue(Map.of("k", "x".repeat(100)));
+    Assertions.assertEquals(108, writer.length());
+    writer.reset();
+    Assertions.assertEquals(0, writer.length());
+    writer.writeValue(List.of(1, 2));
+    Assertions.assertEquals("[1,2]", writer.toString());
+    Assertions.assertTrue(JsonTreeWriter.isTreeContainer(Map.of()));
+    Assertions.assertTrue(JsonTreeWriter.isTreeContainer(new JsonObject()));
+    Assertions.assertFalse(JsonTreeWriter.isTreeContainer(new Foo("a", 1)));
+  }
+
+  @Test
+  public void testLongStrings() {
+    final DataFormatMapperJackson jackson = JsonFormat.INSTANCE.jacksonMapper();
+    final String value = "a\u0001\u00e8\ud83d\ude00".repeat(1000) + "\ud83d\ude00";
+    for (int i = 1020; i < 1030; ++i) {
+      // surrogate pairs and escapes crossing the chunk boundaries
+      final List<String> items = List.of("x".repeat(i) + value, "\u0001".repeat(i));
+      Assertions.assertEquals(new String(jackson.asBytes(items), StandardCharsets.UTF_8), new JsonTreeWriter(jackson::asBytes, 16).writeValue(items).toString());
+    }
+  }
+
+  @Test
+  public void testTypedCollectionsAreNotTrees() {
+    final AtomicInteger fallbackCalls = new AtomicInteger();
+    final DataFormatMapperJackson jackson = JsonFormat.INSTANCE.jacksonMapper();
+    final JsonTreeWriter writer = new JsonTreeWriter(value -> {
+      fallbackCalls.incrementAndGet();
+      return jackson.asBytes(value);
+    });
+
+    Assertions.assertEquals("[1,\"a\",{\"k\":[true]}]", writer.writeValue(List.of(1, "a", Map.of("k", List.of(true)))).toString());
+    Assertions.assertEquals(0, fallbackCalls.get());
+
+    // typed collections go to jackson as a whole, with a single fallback call and the same output
+    final List<Foo> items = List.of(new Foo("a", 1), new Foo("b", 2));
+    final Object[] values = { items, new Foo[] { new Foo("a", 1) }, Map.of("k", List.of(new Foo("a", 1))), Map.of(1, "a"), List.of(1, "a", new Foo("c", 3)) };
+    for (final Object value: values) {
+      writer.reset();
+      fallbackCalls.set(0);
+      Assertions.assertEquals(new String(jackson.asBytes(value), StandardCharsets.UTF_8), writer.writeValue(value).toString());
+      Assertions.assertEquals(1, fallbackCalls.get());
+    }
+
+    Assertions.assertEquals("[{\"a\":\"a\",\"b\":1},{\"a\":\"b\",\"b\":2}]", TREE_MAPPER.asString(items));
+    Assertions.assertEquals("[{\"a\":\"a\",\"b\":1}]", TREE_MAPPER.newCodec(JsonFormat.INSTANCE, Foo[].class).asString(new Foo[] { new Foo("a", 1) }));
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data.json;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.github.matteobertozzi.rednaco.data.CborFormat;
+import io.github.matteobertozzi.rednaco.data.JsonFormat;
+import io.github.matteobertozzi.rednaco.data.XmlFormat;
+import io.github.matteobertozzi.rednaco.data.YamlFormat;
+
+public class TestJsonElementModule {
+  private static final String JSON = """
+    {
+      "str": "hello",
+      "int": 10,
+      "long": 1099511627776,
+      "big": 123456789012345678901234567890,
+      "double": 1.5,
+      "bool": true,
+      "null": null,
+      "empty_obj": {},
+      "empty_arr": [],
+      "items": [
+        { "id": 1, "name": "a", "tags": ["x", "y"] },
+        { "id": 2, "name": "b", "tags": [] }
+      ]
+    }
+    """;
+
+  @Test
+  public void testJsonObject() throws Exception {
+    final JsonObject obj = JsonFormat.INSTANCE.fromString(JSON, JsonObject.class);
+    Assertions.assertEquals(10, obj.size());
+    Assertions.assertEquals("hello", obj.get("str").getAsString());
+    Assertions.assertEquals(10, obj.get("int").getAsInt());
+    Assertions.assertEquals(1L << 40, obj.get("long").getAsLong());
+    Assertions.assertEquals(new BigInteger("123456789012345678901234567890"), obj.getAsJsonPrimitive("big").getAsNumber());
+    Assertions.assertEquals(1.5, obj.get("double").getAsDouble());
+    Assertions.assertTrue(obj.get("bool").getAsBoolean());
+    Assertions.assertTrue(obj.get("null").isJsonNull());
+    Assertions.assertTrue(obj.getAsJsonObject("empty_obj").isEmpty());
+    Assertions.assertTrue(obj.getAsJsonArray("empty_arr").isEmpty());
+
+    final JsonArray items = obj.getAsJsonArray("items");
+    Assertions.assertEquals(2, items.size());
+    Assertions.assertEquals(2, items.get(1).getAsJsonObject().get("id").getAsInt());
+    Assertions.assertEquals("y", items.get(0).getAsJsonObject().getAsJsonArray("tags").get(1).getAsString());
+
+    // same result of the JsonNode conversion
+    Assertions.assertEquals(obj, JsonFormat.INSTANCE.fromTreeNode(JsonFormat.INSTANCE.fromString(JSON, JsonNode.class), JsonObject.class));
+    Assertions.assertEquals(obj, JsonFormat.INSTANCE.fromString(JsonFormat.INSTANCE.asString(obj), JsonElement.class));
+  }
+
+  @Test
+  public void testJsonArray() {
+    final JsonArray array = JsonFormat.INSTANCE.fromString("[1, \"a\", [true, null], {\"k\": 1.0}]", JsonArray.class);
+    Assertions.assertEquals(4, array.size());
+    Assertions.assertEquals(1, array.get(0).getAsInt());
+    Assertions.assertEquals("a", array.get(1).getAsString());
+    Assertions.assertTrue(array.get(2).getAsJsonArray().get(1).isJsonNull());
+    Assertions.assertEquals(1.0, array.get(3).getAsJsonObject().get("k").getAsDouble());
+
+    Assertions.assertThrows(Exception.class, () -> JsonFormat.INSTANCE.fromString("{\"a\": 1}", JsonArray.class));
+    Assertions.assertThrows(Exception.class, () -> JsonFormat.INSTANCE.fromString("[1]", JsonObject.class));
+  }
+
+  @Test
+  public void testJsonPrimitive() {
+    Assertions.assertEquals("abc", JsonFormat.INSTANCE.fromString("\"abc\"", JsonPrimitive.class).getAsString());
+    Assertions.assertEquals(123, JsonFormat.INSTANCE.fromString("123", JsonPrimitive.class).getAsInt());
+    Assertions.assertEquals(123, JsonFormat.INSTANCE.fromString("123", JsonElement.class).getAsInt());
+  }
+
+  @Test
+  public void testIntegerWidth() {
+    final JsonObject obj = JsonFormat.INSTANCE.fromString("{\"a\": 1, \"b\": 1099511627776}", JsonObject.class);
+    Assertions.assertEquals(new JsonPrimitive(1), obj.get("a"));
+    Assertions.assertEquals(new JsonPrimitive(1L << 40), obj.get("b"));
+
+    final JsonObject expected = new JsonObject();
+    expected.add("a", new JsonPrimitive(1));
+    expected.add("b", new JsonPrimitive(1L << 40));
+    Assertions.assertEquals(expected, obj);
+  }
+
+  @Test
+  public void testNestedRecord() {
+    final Holder holder = JsonFormat.INSTANCE.fromString("{\"name\": \"x\", \"data\": {\"a\": [1, 2]}, \"other\": 5}", Holder.class);
+    Assertions.assertEquals("x", holder.name());
+    Assertions.assertEquals(2, holder.data().getAsJsonArray("a").size());
+    Assertions.assertEquals(5, holder.other().getAsInt());
+  }
+
+  public record Holder(String name, JsonObject data, JsonElement other) {}
+
+  @Test
+  public void testSharedKeys() {
+    final JsonArray items = YamlFormat.INSTANCE.fromString("""
+      - { id: 1, name: a }
+      - { id: 2, name: b }
+      """, JsonArray.class);
+    final String keyA = items.get(0).getAsJsonObject().keySet().stream().filter("name"::equals).findFirst().orElseThrow();
+    final String keyB = items.get(1).getAsJsonObject().keySet().stream().filter("name"::equals).findFirst().orElseThrow();
+    Assertions.assertSame(keyA, keyB);
+  }
+
+  @Test
+  public void testCbor() {
+    final JsonObject obj = JsonFormat.INSTANCE.fromString(JSON, JsonObject.class);
+    obj.add("bytes", new JsonPrimitive(new byte[] { 1, 2, 3 }));
+    final JsonObject cborObj = CborFormat.INSTANCE.fromBytes(CborFormat.INSTANCE.asBytes(obj), JsonObject.class);
+    Assertions.assertEquals(obj.get("items"), cborObj.get("items"));
+    Assertions.assertArrayEquals(new byte[] { 1, 2, 3 }, cborObj.get("bytes").getAsJsonPrimitive().getAsBytes());
+  }
+
+  @Test
+  public void testXmlDuplicates() {
+    final JsonObject obj = XmlFormat.INSTANCE.fromString("<root><item>a</item><item>b</item><item>c</item><x>1</x></root>", JsonObject.class);
+    Assertions.assertEquals(3, obj.getAsJsonArray("item").size());
+    Assertions.assertEquals("c", obj.getAsJsonArray("item").get(2).getAsString());
+    Assertions.assertEquals("1", obj.get("x").getAsString());
+  }
+}
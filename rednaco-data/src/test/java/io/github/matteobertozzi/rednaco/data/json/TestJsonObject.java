@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.data.json;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.data.JsonFormat;
+
+public class TestJsonObject {
+  @Test
+  public void testInlineToMap() {
+    final JsonObject obj = new JsonObject();
+    Assertions.assertTrue(obj.isEmpty());
+    for (int i = 0; i < 100; ++i) {
+      obj.add("k" + i, i);
+      Assertions.assertEquals(i + 1, obj.size());
+      for (int k = 0; k <= i; ++k) {
+        Assertions.assertEquals(k, obj.get("k" + k).getAsInt());
+      }
+      Assertions.assertNull(obj.get("k" + (i + 1)));
+    }
+
+    // insertion order is preserved, before and after the map upgrade
+    final List<String> keys = new ArrayList<>(obj.keySet());
+    for (int i = 0; i < 100; ++i) {
+      Assertions.assertEquals("k" + i, keys.get(i));
+    }
+
+    obj.add("k5", "replaced");
+    Assertions.assertEquals(100, obj.size());
+    Assertions.assertEquals("replaced", obj.get("k5").getAsString());
+  }
+
+  @Test
+  public void testRemove() {
+    final JsonObject obj = new JsonObject().add("a", 1).add("b", 2).add("c", 3);
+    Assertions.assertEquals(2, obj.remove("b").getAsInt());
+    Assertions.assertNull(obj.remove("b"));
+    Assertions.assertEquals(2, obj.size());
+    Assertions.assertEquals(List.of("a", "c"), new ArrayList<>(obj.keySet()));
+    obj.add("d", 4);
+    Assertions.assertEquals(List.of("a", "c", "d"), new ArrayList<>(obj.keySet()));
+    obj.clear();
+    Assertions.assertTrue(obj.isEmpty());
+    Assertions.assertFalse(obj.has("a"));
+  }
+
+  @Test
+  public void testEquals() {
+    final JsonObject a = new JsonObject();
+    final JsonObject b = new JsonObject(64);
+    for (int i = 0; i < JsonObject.INLINE_MAX_SIZE; ++i) {
+      a.add("k" + i, i);
+      b.add("k" + (JsonObject.INLINE_MAX_SIZE - 1 - i), JsonObject.INLINE_MAX_SIZE - 1 - i);
+    }
+    Assertions.assertEquals(a, b);
+    Assertions.assertEquals(b, a);
+    Assertions.assertEquals(a.hashCode(), b.hashCode());
+    Assertions.assertEquals(a.getMembers(), b.getMembers());
+    Assertions.assertEquals(Map.copyOf(b.getMembers()).hashCode(), a.hashCode());
+
+    b.add("k0", 100);
+    Assertions.assertNotEquals(a, b);
+  }
+
+  @Test
+  public void testCopyOnWriteKeys() {
+    final JsonObject a = new JsonObject().add("a", 1).add("b", 2);
+    final JsonObject b = new JsonObject(a);
+    b.add("a", 10);
+    b.add("c", 3);
+    a.remove("b");
+
+    Assertions.assertEquals(1, a.get("a").getAsInt());
+    Assertions.assertEquals(1, a.size());
+    Assertions.assertEquals(10, b.get("a").getAsInt());
+    Assertions.assertEquals(2, b.get("b").getAsInt());
+    Assertions.assertEquals(3, b.size());
+  }
+
+  @Test
+  public void testCopies() {
+    final JsonObjectShape shape = JsonObjectShape.of("a", "b");
+    final JsonObject row = shape.newObject(new JsonPrimitive(1), new JsonPrimitive(2));
+    final JsonObject rowCopy = new JsonObject(row);
+    final JsonObject copyOfCopy = new JsonObject(rowCopy);
+    rowCopy.remove("a");
+    copyOfCopy.add("c", 3);
+    row.add("b", 20);
+
+    Assertions.assertEquals(new JsonObject().add("a", 1).add("b", 20), row);
+    Assertions.assertEquals(new JsonObject().add("b", 2), rowCopy);
+    Assertions.assertEquals(new JsonObject().add("a", 1).add("b", 2).add("c", 3), copyOfCopy);
+    Assertions.assertEquals(List.of("a", "b"), new ArrayList<>(shape.newObject().keySet()));
+  }
+
+  @Test
+  public void testMembersView() {
+    for (final int count: new int[] { 4, JsonObject.INLINE_MAX_SIZE, JsonObject.INLINE_MAX_SIZE * 2 }) {
+      final JsonObject obj = new JsonObject();
+      for (int i = 0; i < count; ++i) obj.add("k" + i, i);
+
+      final Map<String, JsonElement> members = obj.getMembers();
+      Assertions.assertEquals(count, members.size());
+      Assertions.assertEquals(2, members.remove("k2").getAsInt());
+      Assertions.assertFalse(obj.has("k2"));
+      Assertions.assertEquals(1, members.put("k1", new JsonPrimitive(10)).getAsInt());
+      Assertions.assertEquals(10, obj.get("k1").getAsInt());
+
+      for (final Map.Entry<String, JsonElement> entry: members.entrySet()) {
+        entry.setValue(new JsonPrimitive(entry.getValue().getAsInt() * 2));
+      }
+      Assertions.assertEquals(20, obj.get("k1").getAsInt());
+      Assertions.assertEquals(6, obj.get("k3").getAsInt());
+
+      final Iterator<Map.Entry<String, JsonElement>> it = members.entrySet().iterator();
+      while (it.hasNext()) {
+        if (it.next().getValue().getAsInt() % 4 != 0) it.remove();
+      }
+      for (final Map.Entry<String, JsonElement> entry: members.entrySet()) {
+        Assertions.assertEquals(0, entry.getValue().getAsInt() % 4, entry.toString());
+      }
+      Assertions.assertEquals(obj.size(), members.size());
+      Assertions.assertEquals(members.keySet(), obj.keySet());
+
+      // the view follows the object when it moves from the inline arrays to the map
+      for (int i = 0; i < JsonObject.INLINE_MAX_SIZE * 2; ++i) members.put("x" + i, new JsonPrimitive(i));
+      Assertions.assertEquals(obj.size(), members.size());
+      Assertions.assertEquals(7, members.get("x7").getAsInt());
+      members.clear();
+      Assertions.assertTrue(obj.isEmpty());
+    }
+  }
+
+  @Test
+  public void testShape() {
+    final JsonObjectShape shape = JsonObjectShape.of("id", "name");
+    Assertions.assertEquals(1, shape.indexOf("name"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> JsonObjectShape.of("a", "a"));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> shape.newObject(new JsonPrimitive(1)));
+
+    final JsonObject row1 = shape.newObject(new JsonPrimitive(1), new JsonPrimitive("foo"));
+    final JsonObject row2 = shape.newObject();
+    Assertions.assertTrue(row2.get("id").isJsonNull());
+    row2.add("id", 2).add("extra", true);
+    Assertions.assertEquals(new JsonObject().add("id", 1).add("name", "foo"), row1);
+    Assertions.assertEquals(3, row2.size());
+    Assertions.assertEquals(2, row1.size());
+    Assertions.assertFalse(row1.has("extra"));
+
+    Assertions.assertEquals("{\"id\":1,\"name\":\"foo\"}", JsonFormat.INSTANCE.asString(row1));
+  }
+
+  @Test
+  public void testParsedShapes() {
+    final JsonArray rows = JsonFormat.INSTANCE.fromString("""
+      [{"a": 1, "b": {"x": 1}}, {"a": 2, "b": {"x": 2}}, {"b": 3, "a": 3}, {"a": 4, "a": 5}]
+      """, JsonArray.class);
+    Assertions.assertEquals(4, rows.size());
+    Assertions.assertEquals(2, rows.get(1).getAsJsonObject().get("a").getAsInt());
+    Assertions.assertEquals(2, rows.get(1).getAsJsonObject().getAsJsonObject("b").get("x").getAsInt());
+    Assertions.assertEquals(List.of("b", "a"), new ArrayList<>(rows.get(2).getAsJsonObject().keySet()));
+    Assertions.assertEquals(1, rows.get(3).getAsJsonObject().size());
+    Assertions.assertEquals(5, rows.get(3).getAsJsonObject().get("a").getAsInt());
+
+    // modifying a row does not change the others sharing the shape
+    rows.get(0).getAsJsonObject().add("c", 10);
+    rows.get(1).getAsJsonObject().remove("a");
+    Assertions.assertEquals(3, rows.get(0).getAsJsonObject().size());
+    Assertions.assertEquals(1, rows.get(1).getAsJsonObject().size());
+    Assertions.assertFalse(rows.get(1).getAsJsonObject().has("c"));
+  }
+}
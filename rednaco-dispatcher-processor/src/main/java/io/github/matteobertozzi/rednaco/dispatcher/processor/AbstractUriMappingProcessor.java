@@ -101,8 +101,8 @@ public abstract class AbstractUriMappingProcessor<T> extends AbstractProcessor {
     ExecutionType execType();
   }
 
-  public record DirectUriRoute(UriMethod[] methods, String uri, ExecutionType execType, String execMethodName, boolean noTraceDump) implements UriRoute {}
-  public record PatternUriRoute(UriMethod[] methods, String uri, ExecutionType execType, String execMethodName, boolean noTraceDump, byte[] path, Pattern pattern) implements UriRoute {}
+  public record DirectUriRoute(UriMethod[] methods, String uri, ExecutionType execType, String execMethodName, String handlerName, boolean noTraceDump) implements UriRoute {}
+  public record PatternUriRoute(UriMethod[] methods, String uri, ExecutionType execType, String execMethodName, String handlerName, boolean noTraceDump, byte[] path, Pattern pattern) implements UriRoute {}
 
   @Override
   public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
@@ -167,7 +167,7 @@ public abstract class AbstractUriMappingProcessor<T> extends AbstractProcessor {
     final ExecutionType execType = parseExecutionType(element);
     final String execMethodName = execMethodName(element);
     final String fullUri = (uriPrefix != null) ? uriPrefix.value() + uri.uri() : uri.uri();
-    return new DirectUriRoute(uri.method(), fullUri, execType, execMethodName, noTraceDump);
+    return new DirectUriRoute(uri.method(), fullUri, execType, execMethodName, element.getSimpleName().toString(), noTraceDump);
   }
 
   private PatternUriRoute parseUriVariableMapping(final Element element) {
@@ -178,7 +178,7 @@ public abstract class AbstractUriMappingProcessor<T> extends AbstractProcessor {
     final String execMethodName = execMethodName(element);
     final String fullUri = (uriPrefix != null) ? uriPrefix.value() + uri.uri() : uri.uri();
     final RouterPathSpec spec = RoutePathUtil.parsePathWithVariables(fullUri);
-    return new PatternUriRoute(uri.method(), fullUri, execType, execMethodName, noTraceDump, spec.path(), spec.pattern());
+    return new PatternUriRoute(uri.method(), fullUri, execType, execMethodName, element.getSimpleName().toString(), noTraceDump, spec.path(), spec.pattern());
   }
 
   private PatternUriRoute parseUriPatternMapping(final Element element) {
@@ -189,7 +189,7 @@ public abstract class AbstractUriMappingProcessor<T> extends AbstractProcessor {
     final String execMethodName = execMethodName(element);
     final String fullUri = (uriPrefix != null) ? uriPrefix.value() + uri.uri() : uri.uri();
     final RouterPathSpec spec = RoutePathUtil.parsePathWithPattern(fullUri);
-    return new PatternUriRoute(uri.method(), fullUri, execType, execMethodName, noTraceDump, spec.path(), spec.pattern());
+    return new PatternUriRoute(uri.method(), fullUri, execType, execMethodName, element.getSimpleName().toString(), noTraceDump, spec.path(), spec.pattern());
   }
 
   private ExecutionType parseExecutionType(final Element element) {
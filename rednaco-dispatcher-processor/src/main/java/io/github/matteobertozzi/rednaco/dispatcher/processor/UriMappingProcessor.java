@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -82,6 +83,8 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
 
   @Override
   protected void writeBuilders(final Collection<DispatchClassBuilder> dispatchers) {
+    if (!verifyRouteConflicts(dispatchers)) return;
+
     for (final DispatchClassBuilder builder: dispatchers) {
       try {
         builder.writeSource(processingEnv);
@@ -91,6 +94,46 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
     }
   }
 
+  /**
+   * Verify that no two handlers of this compilation unit map the same method and uri.
+   * At runtime the RouterMap keeps the last direct mapping and the RouterTrie keeps the first pattern mapping.
+   */
+  private boolean verifyRouteConflicts(final Collection<DispatchClassBuilder> dispatchers) {
+    final HashMap<String, String> routes = new HashMap<>();
+    boolean valid = true;
+    for (final DispatchClassBuilder builder: dispatchers) {
+      for (final DirectUriRoute route: builder.directMappings) {
+        valid &= verifyRouteConflict(routes, builder, route.methods(), route.uri(), route.uri(), route.handlerName());
+      }
+      for (final PatternUriRoute route: builder.variableMappings) {
+        valid &= verifyRouteConflict(routes, builder, route.methods(), route.uri(), routePathKey(route), route.handlerName());
+      }
+      for (final PatternUriRoute route: builder.patternMappings) {
+        valid &= verifyRouteConflict(routes, builder, route.methods(), route.uri(), routePathKey(route), route.handlerName());
+      }
+    }
+    return valid;
+  }
+
+  private boolean verifyRouteConflict(final Map<String, String> routes, final DispatchClassBuilder builder,
+      final UriMethod[] methods, final String uri, final String routeKey, final String handlerName) {
+    final String owner = builder.fullName + "." + handlerName;
+    boolean valid = true;
+    for (final UriMethod method: methods) {
+      final String otherOwner = routes.putIfAbsent(method.name() + " " + routeKey, owner);
+      if (otherOwner != null) {
+        fatalError("route conflict {} {}: mapped by {} and {}", method, uri, otherOwner, owner);
+        valid = false;
+      }
+    }
+    return valid;
+  }
+
+  private static String routePathKey(final PatternUriRoute route) {
+    // variables are replaced by wildcards in the path, so "/a/{x}" and "/a/{y}" have the same key
+    return "pattern:" + new String(route.path(), StandardCharsets.UTF_8);
+  }
+
   private void processClassMethodMapping(final Map<String, DispatchClassBuilder> dispatchBuilder,
       final String uri, final String execMethodName, final Element element,
       final Consumer<DispatchClassBuilder> builderConsumer) {
@@ -169,8 +212,6 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
         out.add("// Autogen from @UriMapping processor ").add(ZonedDateTime.now()).addLine();
         out.add("package ").add(ns).addLine(".autogen;");
         out.addLine();
-        out.addLine("import java.util.regex.Pattern;");
-        out.addLine();
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.MessageContext;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.MessageDispatcher;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.MessageDispatcher.DispatcherProviders;");
@@ -179,8 +220,10 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.MessageDispatcherQueues.MessageDispatcherQueue;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.MessageExecutor.ExecutionType;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.message.Message;");
+        out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.message.MessageContentCodec;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.message.MessageMetadata;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.message.MessageUtil;");
+        out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutePattern;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.routing.UriMessage;");
         out.addLine("import io.github.matteobertozzi.rednaco.dispatcher.routing.UriMethod;");
@@ -214,29 +257,9 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
           out.add("this::").add(mapping.execMethodName()).addLine("),");
         }
         out.addLine("  };");
-        // variable mappings
-        out.addLine("  private final PatternRouteMapping[] VARIABLE_MAPPINGS = new PatternRouteMapping[] {");
-        for (final PatternUriRoute mapping: variableMappings) {
-          out.add("    new PatternRouteMapping(");
-          writeUriMethods(out, mapping.methods());
-          out.add(", ").add("Pattern.compile(\"").add(mapping.pattern()).add("\"), ");
-          out.add("ExecutionType.").add(mapping.execType().name()).add(", ");
-          out.add("this::").add(mapping.execMethodName()).add(", ");
-          writeByteArray(out, mapping.path());
-          out.addLine("),");
-        }
-        out.addLine("  };");
-        out.addLine("  private final PatternRouteMapping[] PATTERN_MAPPINGS = new PatternRouteMapping[] {");
-        for (final PatternUriRoute mapping: patternMappings) {
-          out.add("    new PatternRouteMapping(");
-          writeUriMethods(out, mapping.methods());
-          out.add(", ").add("Pattern.compile(\"").add(mapping.pattern()).add("\"), ");
-          out.add("ExecutionType.").add(mapping.execType().name()).add(", ");
-          out.add("this::").add(mapping.execMethodName()).add(", ");
-          writeByteArray(out, mapping.path());
-          out.addLine("),");
-        }
-        out.addLine("  };");
+        // variable and pattern mappings
+        writePatternMappings(out, "VARIABLE", variableMappings);
+        writePatternMappings(out, "PATTERN", patternMappings);
         out.addLine();
         out.addLine("  @Override public DirectRouteMapping[] directRouteMappings() { return DIRECT_MAPPINGS; }");
         out.addLine("  @Override public PatternRouteMapping[] variableRouteMappings() { return VARIABLE_MAPPINGS; }");
@@ -259,6 +282,31 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
       }
     }
 
+    private void writePatternMappings(final FluentPrintWriter out, final String prefix, final List<PatternUriRoute> mappings) {
+      // patterns and paths are shared by all the instances, and the patterns are compiled on first use
+      for (int i = 0, n = mappings.size(); i < n; ++i) {
+        final PatternUriRoute mapping = mappings.get(i);
+        out.add("  private static final RoutePattern ").add(prefix).add("_REGEX_").add(i);
+        out.add(" = RoutePattern.of(\"").add(mapping.pattern()).addLine("\");");
+        out.add("  private static final byte[] ").add(prefix).add("_PATH_").add(i).add(" = ");
+        writeByteArray(out, mapping.path());
+        out.addLine(";");
+      }
+
+      out.add("  private final PatternRouteMapping[] ").add(prefix).addLine("_MAPPINGS = new PatternRouteMapping[] {");
+      for (int i = 0, n = mappings.size(); i < n; ++i) {
+        final PatternUriRoute mapping = mappings.get(i);
+        out.add("    new PatternRouteMapping(");
+        writeUriMethods(out, mapping.methods());
+        out.add(", ").add(prefix).add("_REGEX_").add(i).add(", ");
+        out.add("ExecutionType.").add(mapping.execType().name()).add(", ");
+        out.add("this::").add(mapping.execMethodName()).add(", ");
+        out.add(prefix).add("_PATH_").add(i);
+        out.addLine("),");
+      }
+      out.addLine("  };");
+    }
+
     private void writeUriMethods(final FluentPrintWriter writer, final UriMethod[] methods) {
       if (methods.length == 1) {
         switch (methods[0]) {
@@ -332,6 +380,16 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
       code.add("};").addLine();
     }
 
+    // write the content codecs, resolved once when the class is loaded
+    for (int i = 0, n = method.paramCount(); i < n; ++i) {
+      final VariableElement p = method.param(i);
+      final TypeMirror t = method.paramType(i);
+      if (!isContentParam(p, t)) continue;
+
+      code.indent().add("private static final MessageContentCodec<").add(t).add("> ").add(contentCodecName(methodConstPrefix, p));
+      code.add(" = new MessageContentCodec<>(").add(t).add(".class);").addLine();
+    }
+
     // write execution method code
     code.indent().add("private Message ").add(execMethodName).add("(final MessageContext ctx, final Message inMsg) throws Exception ").openBlock();
 
@@ -374,7 +432,7 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
         if (i == sessionParamIndex) continue;
         final VariableElement p = method.param(i);
         final TypeMirror t = method.paramType(i);
-        processParamMapping(code, p, t);
+        processParamMapping(code, methodConstPrefix, p, t);
       }
 
       // verify data args
@@ -452,7 +510,22 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
     return queueId.replace('.', '_').replace('/', '_').replace(' ', '_').replace('-', '_');
   }
 
-  private void processParamMapping(final CodeBuilder code, final VariableElement param, final TypeMirror paramType) {
+  private static String contentCodecName(final String methodConstPrefix, final VariableElement param) {
+    return methodConstPrefix + "_" + param.getSimpleName().toString().toUpperCase() + "_CODEC";
+  }
+
+  private boolean isContentParam(final VariableElement param, final TypeMirror paramType) {
+    return param.getAnnotation(TokenSession.class) == null
+        && param.getAnnotation(UriVariable.class) == null
+        && param.getAnnotation(UriPattern.class) == null
+        && param.getAnnotation(HeaderValue.class) == null
+        && param.getAnnotation(QueryParam.class) == null
+        && param.getAnnotation(MetaParam.class) == null
+        && !isByteTypeArray(paramType)
+        && !isTypeAssignable(paramType, messageType);
+  }
+
+  private void processParamMapping(final CodeBuilder code, final String methodConstPrefix, final VariableElement param, final TypeMirror paramType) {
     final String varName = "p_" + param.getSimpleName();
     code.indent().addVariableDecl(paramType, varName).add(" = ");
 
@@ -479,7 +552,7 @@ public class UriMappingProcessor extends AbstractUriMappingProcessor<DispatchCla
     } else if (isTypeAssignable(paramType, messageType)) {
       code.add("(").add(paramType).add(")").add("inMsg;");
     } else {
-      code.add("MessageUtil.convertInputContent(inMsg, ").add(paramType).add(".class);");
+      code.add("MessageUtil.convertInputContent(inMsg, ").add(contentCodecName(methodConstPrefix, param)).add(");");
     }
 
     code.addLine();
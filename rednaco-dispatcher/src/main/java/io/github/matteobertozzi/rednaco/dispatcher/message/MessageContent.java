@@ -20,9 +20,13 @@ package io.github.matteobertozzi.rednaco.dispatcher.message;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.function.Consumer;
 
 import io.github.matteobertozzi.rednaco.data.DataFormat;
+import io.github.matteobertozzi.rednaco.data.DataFormatCodec;
+import io.github.matteobertozzi.rednaco.data.DataFormatDecoder;
 import io.github.matteobertozzi.rednaco.hashes.CryptographicHash;
+import io.github.matteobertozzi.rednaco.io.RuntimeIOException;
 
 public interface MessageContent {
   MessageContent retain();
@@ -34,6 +38,25 @@ public interface MessageContent {
   <T> T convertContent(DataFormat format, Class<T> classOfT);
   byte[] convertContentToBytes();
 
+  default <T> T convertContent(final DataFormatCodec<T> codec) {
+    return convertContent(codec.format(), codec.valueType());
+  }
+
+  /**
+   * Decode the content incrementally, each value (or each element of a top-level array)
+   * is passed to the consumer as soon as it is complete, without materializing the whole content.
+   * @return the number of values passed to the consumer
+   */
+  default <T> long forEachContent(final DataFormatCodec<T> codec, final Consumer<? super T> consumer) {
+    try (DataFormatDecoder<T> decoder = codec.newDecoder(consumer)) {
+      writeContentToStream(new MessageUtil.DecoderOutputStream(decoder));
+      decoder.endOfInput();
+      return decoder.decodedCount();
+    } catch (final IOException e) {
+      throw new RuntimeIOException(e);
+    }
+  }
+
   default CryptographicHash contentHash(final CryptographicHash hash) {
     // meh, use stream writer
     return hash.update(convertContentToBytes());
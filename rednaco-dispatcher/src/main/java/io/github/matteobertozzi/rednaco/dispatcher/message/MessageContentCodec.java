@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.dispatcher.message;
+
+import io.github.matteobertozzi.rednaco.data.DataFormat;
+import io.github.matteobertozzi.rednaco.data.DataFormatCodec;
+import io.github.matteobertozzi.rednaco.data.FieldNameDictionary;
+import io.github.matteobertozzi.rednaco.data.JsonFormat;
+
+/**
+ * The codecs of a content type, resolved once by the owner (e.g. the generated route handlers)
+ * instead of looking them up on every message.
+ * JSON, the default content-type, is resolved on creation. The other formats on first use.
+ */
+public final class MessageContentCodec<T> {
+  private final Class<T> valueType;
+  private final DataFormatCodec<T> jsonCodec;
+
+  public MessageContentCodec(final Class<T> valueType) {
+    this.valueType = valueType;
+    this.jsonCodec = JsonFormat.INSTANCE.codec(valueType);
+  }
+
+  public Class<T> valueType() {
+    return valueType;
+  }
+
+  public DataFormatCodec<T> get(final DataFormat format) {
+    return (format == JsonFormat.INSTANCE) ? jsonCodec : format.codec(valueType);
+  }
+
+  public DataFormatCodec<T> get(final DataFormat format, final FieldNameDictionary dictionary) {
+    return (dictionary == null) ? get(format) : format.codec(valueType, dictionary);
+  }
+}
@@ -18,8 +18,6 @@
 package io.github.matteobertozzi.rednaco.dispatcher.message;
 
 import java.net.URL;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -36,6 +34,7 @@ import java.util.function.BiConsumer;
 
 import io.github.matteobertozzi.rednaco.collections.arrays.ArrayUtil;
 import io.github.matteobertozzi.rednaco.collections.maps.MapUtil;
+import io.github.matteobertozzi.rednaco.strings.FormUrlDecoder;
 import io.github.matteobertozzi.rednaco.strings.StringUtil;
 import io.github.matteobertozzi.rednaco.util.BitUtil;
 
@@ -108,18 +107,14 @@ public class MessageMetadataMap  implements MessageMetadata {
     }
 
     final MessageMetadataMap metadata = new MessageMetadataMap();
-    int index = formData.indexOf('?') + 1;
-    while (index < formData.length()) {
-      final int keyEndIndex = formData.indexOf('=', index);
-      int valEndIndex = formData.indexOf('&', keyEndIndex + 1);
-      if (valEndIndex < 0) valEndIndex = formData.length();
-
-      final String key = URLDecoder.decode(formData.substring(index, keyEndIndex), StandardCharsets.UTF_8);
-      final String val = URLDecoder.decode(formData.substring(keyEndIndex + 1, valEndIndex), StandardCharsets.UTF_8);
-      metadata.add(key, val);
+    final int index = formData.indexOf('?') + 1;
+    FormUrlDecoder.decode(formData, index, formData.length() - index, metadata::add);
+    return metadata;
+  }
 
-      index = valEndIndex + 1;
-    }
+  public static MessageMetadataMap fromFormUrlEncoded(final byte[] formData, final int off, final int len) {
+    final MessageMetadataMap metadata = new MessageMetadataMap();
+    if (len > 0) FormUrlDecoder.decode(formData, off, len, metadata::add);
     return metadata;
   }
 
@@ -30,6 +30,7 @@ import java.util.Locale;
 import java.util.Locale.LanguageRange;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
 
@@ -38,6 +39,10 @@ import io.github.matteobertozzi.rednaco.collections.arrays.ArrayUtil;
 import io.github.matteobertozzi.rednaco.collections.lists.ListUtil;
 import io.github.matteobertozzi.rednaco.data.CborFormat;
 import io.github.matteobertozzi.rednaco.data.DataFormat;
+import io.github.matteobertozzi.rednaco.data.DataFormatCodec;
+import io.github.matteobertozzi.rednaco.data.DataFormatDecoder;
+import io.github.matteobertozzi.rednaco.data.DataFormatException;
+import io.github.matteobertozzi.rednaco.data.FieldNameDictionary;
 import io.github.matteobertozzi.rednaco.data.FormUrlEncodedFormat;
 import io.github.matteobertozzi.rednaco.data.JsonFormat;
 import io.github.matteobertozzi.rednaco.data.XmlFormat;
@@ -56,6 +61,9 @@ public final class MessageUtil {
   public static final String METADATA_CONTENT_TYPE = "content-type";
   public static final String METADATA_CONTENT_LENGTH = "content-length";
   public static final String METADATA_CONTENT_ENCODING = "content-encoding";
+  // the FieldNameDictionary used to encode the content, and the one the client knows for the response
+  public static final String METADATA_FIELD_NAMES_DICTIONARY = "x-field-names-dictionary";
+  public static final String METADATA_ACCEPT_FIELD_NAMES_DICTIONARY = "x-accept-field-names-dictionary";
 
   public static final String CONTENT_TYPE_FORM_URLENCODED = "application/x-www-form-urlencoded";
   public static final String CONTENT_TYPE_TEXT_PLAIN = "text/plain";
@@ -159,14 +167,58 @@ public final class MessageUtil {
     };
   }
 
+  /**
+   * @return the dictionary used to encode the content, null if the content does not use one
+   * @throws DataFormatException if the dictionary is not registered, the content cannot be decoded
+   */
+  public static FieldNameDictionary parseFieldNameDictionary(final MessageMetadata metadata) {
+    final String dictionaryId = metadata.getString(METADATA_FIELD_NAMES_DICTIONARY, null);
+    if (dictionaryId == null) return null;
+
+    final FieldNameDictionary dictionary = FieldNameDictionary.get(dictionaryId);
+    if (dictionary == null) throw new DataFormatException("unknown field names dictionary: " + dictionaryId);
+    return dictionary;
+  }
+
+  /**
+   * @return the dictionary used to encode the content, null if the format does not support dictionaries
+   *         or the content does not use one
+   * @throws DataFormatException if the dictionary is not registered, the content cannot be decoded
+   */
+  private static FieldNameDictionary parseFieldNameDictionary(final DataFormat format, final MessageMetadata metadata) {
+    return format.supportsFieldNameDictionary() ? parseFieldNameDictionary(metadata) : null;
+  }
+
+  /**
+   * @return the dictionary known by the client, null if not specified or not registered (the response will not use it)
+   */
+  public static FieldNameDictionary parseAcceptFieldNameDictionary(final MessageMetadata metadata) {
+    return FieldNameDictionary.get(metadata.getString(METADATA_ACCEPT_FIELD_NAMES_DICTIONARY, null));
+  }
+
   public static <T> T convertInputContent(final Message message, final Class<T> classOfT) {
     final DataFormat dataFormat = parseContentType(message.metadata());
-    return message.convertContent(dataFormat, classOfT);
+    return message.convertContent(dataFormat.codec(classOfT, parseFieldNameDictionary(dataFormat, message.metadata())));
+  }
+
+  public static <T> T convertInputContent(final Message message, final MessageContentCodec<T> codec) {
+    final DataFormat dataFormat = parseContentType(message.metadata());
+    return message.convertContent(codec.get(dataFormat, parseFieldNameDictionary(dataFormat, message.metadata())));
+  }
+
+  public static <T> long convertInputContent(final Message message, final Class<T> classOfT, final Consumer<? super T> consumer) {
+    final DataFormat dataFormat = parseContentType(message.metadata());
+    return message.forEachContent(dataFormat.codec(classOfT, parseFieldNameDictionary(dataFormat, message.metadata())), consumer);
+  }
+
+  public static <T> long convertInputContent(final Message message, final MessageContentCodec<T> codec, final Consumer<? super T> consumer) {
+    final DataFormat dataFormat = parseContentType(message.metadata());
+    return message.forEachContent(codec.get(dataFormat, parseFieldNameDictionary(dataFormat, message.metadata())), consumer);
   }
 
   public static <T> T convertOutputContent(final Message message, final Class<T> classOfT) {
     final DataFormat dataFormat = parseAcceptFormat(message.metadata());
-    return message.convertContent(dataFormat, classOfT);
+    return message.convertContent(dataFormat.codec(classOfT, parseFieldNameDictionary(dataFormat, message.metadata())));
   }
 
   // ====================================================================================================
@@ -231,6 +283,25 @@ public final class MessageUtil {
     return new TypedMessage<>(EmptyMetadata.INSTANCE, data);
   }
 
+  /**
+   * Encode the data with the format accepted by the request,
+   * using the field names dictionary known by the client when the format supports it.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> Message newEncodedDataMessage(final MessageMetadata requestMetadata, final T data) {
+    // like TypedMessage, null data is a message without content
+    if (data == null) return newEmptyMessage(EmptyMetadata.INSTANCE);
+
+    final DataFormat format = parseAcceptFormat(requestMetadata);
+    final FieldNameDictionary dictionary = format.supportsFieldNameDictionary() ? parseAcceptFieldNameDictionary(requestMetadata) : null;
+    final DataFormatCodec<T> codec = format.codec((Class<T>) data.getClass(), dictionary);
+
+    final MessageMetadataMap metadata = new MessageMetadataMap();
+    metadata.set(METADATA_CONTENT_TYPE, format.contentType());
+    if (dictionary != null) metadata.set(METADATA_FIELD_NAMES_DICTIONARY, dictionary.id());
+    return new RawMessage(metadata, codec.asBytes(data));
+  }
+
   public static Message newRawMessage(final Map<String, String> metadata, final byte[] content) {
     return new RawMessage(metadata, content);
   }
@@ -353,16 +424,41 @@ public final class MessageUtil {
 
     @Override
     public <T> T convertContent(final DataFormat format, final Class<T> classOfT) {
+      return convertContent(format.codec(classOfT));
+    }
+
+    @Override
+    public <T> T convertContent(final DataFormatCodec<T> codec) {
       return switch (metadata().getString(METADATA_CONTENT_ENCODING, "")) {
-        case "gzip" -> convertGzContent(format, classOfT);
-        default -> format.fromBytes(content, classOfT);
+        case "gzip" -> convertGzContent(codec);
+        default -> codec.fromBytes(content);
       };
     }
 
-    private <T> T convertGzContent(final DataFormat format, final Class<T> classOfT) {
+    @Override
+    public <T> long forEachContent(final DataFormatCodec<T> codec, final Consumer<? super T> consumer) {
+      if (BytesUtil.isEmpty(content)) return 0;
+
+      try (DataFormatDecoder<T> decoder = codec.newDecoder(consumer)) {
+        switch (metadata().getString(METADATA_CONTENT_ENCODING, "")) {
+          case "gzip" -> {
+            try (GZIPInputStream gz = new GZIPInputStream(new ByteArrayInputStream(content))) {
+              gz.transferTo(new DecoderOutputStream(decoder));
+            } catch (final IOException e) {
+              throw new RuntimeIOException(e);
+            }
+          }
+          default -> decoder.add(content);
+        }
+        decoder.endOfInput();
+        return decoder.decodedCount();
+      }
+    }
+
+    private <T> T convertGzContent(final DataFormatCodec<T> codec) {
       try (ByteArrayInputStream stream = new ByteArrayInputStream(content())) {
         try (GZIPInputStream gz = new GZIPInputStream(stream)) {
-          return format.fromStream(gz, classOfT);
+          return codec.fromStream(gz);
         }
       } catch (final IOException e) {
         throw new RuntimeIOException(e);
@@ -447,4 +543,22 @@ public final class MessageUtil {
 
     @Override public String toString() { return "{}"; }
   }
+
+  static final class DecoderOutputStream extends OutputStream {
+    private final DataFormatDecoder<?> decoder;
+
+    DecoderOutputStream(final DataFormatDecoder<?> decoder) {
+      this.decoder = decoder;
+    }
+
+    @Override
+    public void write(final int b) {
+      decoder.add(new byte[] { (byte) b });
+    }
+
+    @Override
+    public void write(final byte[] buf, final int off, final int len) {
+      decoder.add(buf, off, len);
+    }
+  }
 }
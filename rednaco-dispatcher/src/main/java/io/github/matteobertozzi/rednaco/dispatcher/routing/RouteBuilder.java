@@ -17,7 +17,9 @@
 
 package io.github.matteobertozzi.rednaco.dispatcher.routing;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 
 import io.github.matteobertozzi.easerinsights.logging.Logger;
@@ -26,6 +28,7 @@ import io.github.matteobertozzi.rednaco.collections.arrays.ArraySortUtil;
 import io.github.matteobertozzi.rednaco.collections.arrays.ArrayUtil;
 import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.DirectRouteMapping;
 import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.PatternRouteMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.RouteMapping;
 
 public class RouteBuilder {
   private final ArrayList<PatternRouteMapping> patternMappings = new ArrayList<>();
@@ -61,16 +64,26 @@ public class RouteBuilder {
   }
 
   private static RouterMap[] buildRouterMap(final List<DirectRouteMapping> mappings) {
+    final int[] methodRoutes = new int[UriMethod.METHODS.length];
+    for (final DirectRouteMapping route: mappings) {
+      for (final UriMethod method: route.methods()) {
+        methodRoutes[method.ordinal()]++;
+      }
+    }
+
     final RouterMap[] directMappings = new RouterMap[UriMethod.METHODS.length];
     for (int m = 0; m < directMappings.length; ++m) {
-      directMappings[m] = new RouterMap();
+      directMappings[m] = new RouterMap(methodRoutes[m]);
     }
 
     for (final DirectRouteMapping route: mappings) {
       final UriMethod[] methods = route.methods();
       for (int m = 0; m < methods.length; ++m) {
         final UriMethod method = methods[m];
-        directMappings[method.ordinal()].put(route.uri(), route);
+        final RouteMapping oldRoute = directMappings[method.ordinal()].put(route.uri(), route);
+        if (oldRoute != null && oldRoute != route) {
+          Logger.warn("duplicate direct mapping: {} {}, the last one registered is used", method, route.uri());
+        }
         Logger.trace("add direct mapping: {} {}", method, route.uri());
       }
     }
@@ -83,12 +96,17 @@ public class RouteBuilder {
       patternMappings[m] = new RouterTrie();
     }
 
+    final HashSet<String> routes = new HashSet<>(mappings.size());
     for (final PatternRouteMapping route: mappings) {
       final UriMethod[] methods = route.methods();
       for (int m = 0; m < methods.length; ++m) {
         final UriMethod method = methods[m];
+        if (!routes.add(method.name() + ' ' + new String(route.path(), StandardCharsets.UTF_8))) {
+          Logger.warn("duplicate pattern mapping: {} {}, the first one registered is used", method, route.routePattern());
+        }
         patternMappings[method.ordinal()].put(route.path(), route);
-        Logger.trace("add pattern mapping: {} {}", method, route.pattern());
+        // the pattern is compiled on the first match, not while building the router
+        Logger.trace("add pattern mapping: {} {}", method, route.routePattern());
       }
     }
     return patternMappings;
@@ -97,14 +115,14 @@ public class RouteBuilder {
   private static String[] buildAliases(final List<String> aliases) {
     if (aliases.isEmpty()) return new String[0];
 
-    final String[] sortedAliases = aliases.toArray(new String[0]);
-    ArraySortUtil.sort(0, sortedAliases.length / 2,
-      (a, b) -> sortedAliases[b * 2].compareTo(sortedAliases[a * 2]),
-      (a, b) -> {
-        ArrayUtil.swap(sortedAliases, a * 2, b * 2);
-        ArrayUtil.swap(sortedAliases, (a * 2) + 1, (b * 2) + 1);
-      }
-    );
+    // stable sort: aliases with the same name keep the registration order
+    final int[] index = ArraySortUtil.sortedIndex(0, aliases.size() / 2,
+      (a, b) -> aliases.get(b * 2).compareTo(aliases.get(a * 2)));
+    final String[] sortedAliases = new String[index.length * 2];
+    for (int i = 0; i < index.length; ++i) {
+      sortedAliases[i * 2] = aliases.get(index[i] * 2);
+      sortedAliases[(i * 2) + 1] = aliases.get((index[i] * 2) + 1);
+    }
     for (int i = 0; i < sortedAliases.length; i += 2) {
       Logger.trace("add mapping alias: {} -> {}", sortedAliases[i], sortedAliases[i + 1]);
     }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.dispatcher.routing;
+
+import java.util.regex.Pattern;
+
+/**
+ * Route regex compiled on first use.
+ * The generated route mappings keep them as static constants,
+ * so no Pattern.compile() runs at boot or when a new mapping instance is created.
+ */
+public final class RoutePattern {
+  private final String regex;
+  private volatile Pattern pattern;
+
+  private RoutePattern(final String regex, final Pattern pattern) {
+    this.regex = regex;
+    this.pattern = pattern;
+  }
+
+  public static RoutePattern of(final String regex) {
+    return new RoutePattern(regex, null);
+  }
+
+  public static RoutePattern of(final Pattern pattern) {
+    return new RoutePattern(pattern.pattern(), pattern);
+  }
+
+  public String regex() {
+    return regex;
+  }
+
+  public Pattern get() {
+    Pattern p = pattern;
+    if (p == null) {
+      // benign race: the compiled patterns are equivalent
+      p = Pattern.compile(regex);
+      pattern = p;
+    }
+    return p;
+  }
+
+  public boolean isCompiled() {
+    return pattern != null;
+  }
+
+  @Override
+  public String toString() {
+    return regex;
+  }
+}
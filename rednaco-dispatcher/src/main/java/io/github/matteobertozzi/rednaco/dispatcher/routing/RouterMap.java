@@ -22,5 +22,11 @@ import java.util.HashMap;
 import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.RouteMapping;
 
 public class RouterMap extends HashMap<String, RouteMapping> {
-  // no-op
+  public RouterMap() {
+    super();
+  }
+
+  public RouterMap(final int expectedSize) {
+    super((int) Math.ceil(expectedSize / 0.75));
+  }
 }
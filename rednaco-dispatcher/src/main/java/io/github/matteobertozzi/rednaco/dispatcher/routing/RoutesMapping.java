@@ -54,7 +54,15 @@ public interface RoutesMapping {
   }
 
   record PatternRouteMatcher(Matcher matcher, ExecutionType executionType, MessageExecutor executor) implements RouteMatcher {}
-  record PatternRouteMapping(UriMethod[] methods, Pattern pattern, ExecutionType executionType, MessageExecutor executor, byte[] path) implements RouteMapping {
+  record PatternRouteMapping(UriMethod[] methods, RoutePattern routePattern, ExecutionType executionType, MessageExecutor executor, byte[] path) implements RouteMapping {
+    public PatternRouteMapping(final UriMethod[] methods, final Pattern pattern, final ExecutionType executionType, final MessageExecutor executor, final byte[] path) {
+      this(methods, RoutePattern.of(pattern), executionType, executor, path);
+    }
+
+    public Pattern pattern() {
+      return routePattern.get();
+    }
+
     @Override
     public Matcher matcher() {
       throw new UnsupportedOperationException();
@@ -68,7 +76,7 @@ public interface RoutesMapping {
     @Override
     public RouteMatcher match(final String path) {
       // TODO: carrier pool
-      final Matcher m = pattern.matcher(path);
+      final Matcher m = routePattern.get().matcher(path);
       return m.matches() ? new PatternRouteMatcher(m, executionType(), executor()) : null;
     }
   }
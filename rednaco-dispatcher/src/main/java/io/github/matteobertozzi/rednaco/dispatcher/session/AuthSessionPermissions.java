@@ -108,15 +108,15 @@ public record AuthSessionPermissions(Map<String, String[]> moduleRoles) {
     if (jsonObj.isEmpty()) return AuthSessionPermissions.EMPTY_PERMISSIONS;
 
     final HashMap<String, String[]> moduleRoles = HashMap.newHashMap(jsonObj.size());
-    for (final Map.Entry<String, JsonElement> entry: jsonObj.entrySet()) {
-      final JsonArray jsonArray = entry.getValue().getAsJsonArray();
+    jsonObj.forEach((module, value) -> {
+      final JsonArray jsonArray = value.getAsJsonArray();
       final String[] roles = new String[jsonArray.size()];
       for (int i = 0; i < roles.length; ++i) {
         roles[i] = jsonArray.get(i).getAsString();
       }
       Arrays.sort(roles);
-      moduleRoles.put(entry.getKey(), roles);
-    }
+      moduleRoles.put(module, roles);
+    });
     return new AuthSessionPermissions(Map.copyOf(moduleRoles));
   }
 
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.matteobertozzi.rednaco.dispatcher.message;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.data.DataFormatException;
+
+public class TestMessageUtil {
+  public record Item(String name, int value) {}
+
+  @Test
+  public void testFieldNameDictionaryIgnoredByJson() {
+    // JSON does not support dictionaries, the unknown dictionary is not resolved
+    final Message message = MessageUtil.newRawMessage(Map.of(
+      MessageUtil.METADATA_CONTENT_TYPE, MessageUtil.CONTENT_TYPE_APP_JSON,
+      MessageUtil.METADATA_FIELD_NAMES_DICTIONARY, "not-registered"
+    ), "{\"name\":\"a\",\"value\":1}");
+    Assertions.assertEquals(new Item("a", 1), MessageUtil.convertInputContent(message, Item.class));
+
+    // the explicit lookup still reports the unknown dictionary
+    Assertions.assertThrows(DataFormatException.class, () -> MessageUtil.parseFieldNameDictionary(message.metadata()));
+  }
+
+  @Test
+  public void testEncodeNullData() {
+    final Message message = MessageUtil.newEncodedDataMessage(new MessageMetadataMap(), null);
+    Assertions.assertFalse(message.hasContent());
+
+    final Message itemMessage = MessageUtil.newEncodedDataMessage(new MessageMetadataMap(), new Item("a", 1));
+    Assertions.assertTrue(itemMessage.hasContent());
+    Assertions.assertEquals(new Item("a", 1), MessageUtil.convertInputContent(itemMessage, Item.class));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.matteobertozzi.rednaco.dispatcher.routing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.github.matteobertozzi.rednaco.dispatcher.MessageExecutor.ExecutionType;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutePathUtil.RouterPathSpec;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.DirectRouteMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.PatternRouteMapping;
+import io.github.matteobertozzi.rednaco.dispatcher.routing.RoutesMapping.RouteMatcher;
+
+public class TestRouteBuilder {
+  private record TestRoutesMapping(DirectRouteMapping[] directRouteMappings,
+      PatternRouteMapping[] variableRouteMappings, PatternRouteMapping[] patternRouteMappings) implements RoutesMapping {}
+
+  @Test
+  public void testLazyPatterns() {
+    final RouterPathSpec spec = RoutePathUtil.parsePathWithVariables("/v1/items/{id}");
+    final RoutePattern pattern = RoutePattern.of(spec.pattern().pattern());
+    final PatternRouteMapping mapping = new PatternRouteMapping(UriMethod.METHODS_GET, pattern, ExecutionType.DEFAULT, null, spec.path());
+
+    final Router router = new RouteBuilder()
+      .add(new TestRoutesMapping(null, new PatternRouteMapping[] { mapping }, null))
+      .build();
+    Assertions.assertFalse(pattern.isCompiled());
+
+    final RouteMatcher matcher = router.get(UriMethod.GET, "/v1/items/abc");
+    Assertions.assertNotNull(matcher);
+    Assertions.assertEquals("abc", matcher.matcher().group("id"));
+    Assertions.assertTrue(pattern.isCompiled());
+    Assertions.assertSame(pattern.get(), mapping.pattern());
+    Assertions.assertNull(router.get(UriMethod.POST, "/v1/items/abc"));
+  }
+
+  @Test
+  public void testDuplicateRoutes() {
+    final DirectRouteMapping a = new DirectRouteMapping(UriMethod.METHODS_GET, "/v1/a", ExecutionType.DEFAULT, null);
+    final DirectRouteMapping b = new DirectRouteMapping(UriMethod.METHODS_GET, "/v1/a", ExecutionType.INLINE_FAST, null);
+    final RouterPathSpec spec = RoutePathUtil.parsePathWithVariables("/v1/b/{x}");
+    final PatternRouteMapping c = new PatternRouteMapping(UriMethod.METHODS_GET, RoutePattern.of(spec.pattern()), ExecutionType.DEFAULT, null, spec.path());
+    final PatternRouteMapping d = new PatternRouteMapping(UriMethod.METHODS_GET, RoutePattern.of(spec.pattern()), ExecutionType.INLINE_FAST, null, spec.path());
+
+    final Router router = new RouteBuilder()
+      .add(new TestRoutesMapping(new DirectRouteMapping[] { a }, new PatternRouteMapping[] { c }, null))
+      .add(new TestRoutesMapping(new DirectRouteMapping[] { b }, new PatternRouteMapping[] { d }, null))
+      .build();
+    // the direct map keeps the last mapping, the trie keeps the first one
+    Assertions.assertSame(b, router.get(UriMethod.GET, "/v1/a"));
+    Assertions.assertEquals(ExecutionType.DEFAULT, router.get(UriMethod.GET, "/v1/b/foo").executionType());
+  }
+}
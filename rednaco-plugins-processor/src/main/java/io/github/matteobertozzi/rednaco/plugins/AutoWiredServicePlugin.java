@@ -25,4 +25,17 @@ import java.lang.annotation.Target;
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.SOURCE)
 public @interface AutoWiredServicePlugin {
+  /**
+   * The plugin service name, must match serviceName().
+   * Named plugins are stored in META-INF/rednaco/service-plugin-index,
+   * and the ServicePluginRegistry instantiates them only when configured, without a ServiceLoader scan.
+   */
+  String name() default "";
+
+  /**
+   * Service names of the plugins that must be initialized before this one.
+   * The processor stores them in META-INF/rednaco/service-plugin-dependencies,
+   * and the ServicePluginRegistry initializes the independent plugins concurrently.
+   */
+  String[] dependsOn() default {};
 }
@@ -21,8 +21,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
@@ -35,6 +38,8 @@ import javax.tools.Diagnostic.Kind;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
 
+import io.github.matteobertozzi.rednaco.io.ServicesFiles;
+
 public class AutoWiredServiceProcessor extends AbstractProcessor {
   @Override
   public SourceVersion getSupportedSourceVersion() {
@@ -66,16 +71,68 @@ public class AutoWiredServiceProcessor extends AbstractProcessor {
     if (elements.isEmpty()) return true;
 
     final HashSet<String> services = new HashSet<>(elements.size());
+    final HashMap<String, Set<String>> dependencies = new HashMap<>();
+    final HashMap<String, Set<String>> index = new HashMap<>();
+    final HashMap<String, String> namedClasses = new HashMap<>();
     for (final Element element: elements) {
       final TypeElement typeElement = (TypeElement)element;
-      services.add(typeElement.getQualifiedName().toString());
+      final AutoWiredServicePlugin annotation = typeElement.getAnnotation(AutoWiredServicePlugin.class);
+      final String className = typeElement.getQualifiedName().toString();
+      services.add(className);
+      // dependsOn may repeat a name, Set.of() would reject it
+      dependencies.put(className, new HashSet<>(Arrays.asList(annotation.dependsOn())));
+      index.put(className, annotation.name().isEmpty() ? Set.of() : Set.of(annotation.name()));
       log("Adding ServicePlugin: " + typeElement);
+
+      if (!annotation.name().isEmpty()) {
+        final String otherClass = namedClasses.put(annotation.name(), className);
+        if (otherClass != null) {
+          fatalError("duplicate service plugin name '" + annotation.name() + "': " + otherClass + ", " + className);
+          return false;
+        }
+      }
     }
 
     final String resourceFile = ServicesFiles.getPath(ServicePlugin.class);
     final Filer filer = processingEnv.getFiler();
     services.addAll(loadExistingServices(filer, resourceFile));
-    return saveServices(filer, resourceFile, services);
+    return saveServices(filer, resourceFile, services)
+        && saveMapping(filer, ServicePluginRegistry.SERVICE_PLUGIN_DEPENDENCIES_PATH, dependencies)
+        && saveMapping(filer, ServicePluginRegistry.SERVICE_PLUGIN_INDEX_PATH, index);
+  }
+
+  private boolean saveMapping(final Filer filer, final String resourceName, final Map<String, Set<String>> mapping) {
+    // the classes compiled in this round replace their old entries
+    final Map<String, Set<String>> existing = loadExistingMapping(filer, resourceName);
+    for (final Map.Entry<String, Set<String>> entry: existing.entrySet()) {
+      mapping.putIfAbsent(entry.getKey(), entry.getValue());
+    }
+
+    try {
+      final FileObject fileObject = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+      try (OutputStream stream = fileObject.openOutputStream()) {
+        ServicesFiles.writeMappingFile(mapping, stream);
+      }
+      log("service plugin file written: " + resourceName + " " + mapping);
+      return true;
+    } catch (final IOException e) {
+      fatalError("unable to write service plugin file: " + resourceName);
+      return false;
+    }
+  }
+
+  private Map<String, Set<String>> loadExistingMapping(final Filer filer, final String resourceName) {
+    try {
+      final FileObject fileObject = filer.getResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+      try (InputStream stream = fileObject.openInputStream()) {
+        return ServicesFiles.readMappingFile(stream);
+      }
+    } catch (final NoSuchFileException e) {
+      return Collections.emptyMap();
+    } catch (final IOException e) {
+      log("Unable to read " + resourceName + ", " + e);
+      return Collections.emptyMap();
+    }
   }
 
   private Set<String> loadExistingServices(final Filer filer, final String resourceName) {
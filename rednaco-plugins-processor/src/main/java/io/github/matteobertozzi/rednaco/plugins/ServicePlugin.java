@@ -17,12 +17,22 @@
 
 package io.github.matteobertozzi.rednaco.plugins;
 
+import java.util.Set;
+
 import io.github.matteobertozzi.rednaco.util.BuildInfo;
 
 public interface ServicePlugin {
   String serviceName();
   BuildInfo buildInfo();
 
+  /**
+   * @return the service names of the plugins that must be initialized before this one,
+   *         in addition to the ones declared with @AutoWiredServicePlugin(dependsOn = ...)
+   */
+  default Set<String> dependencies() {
+    return Set.of();
+  }
+
   default void initialize() throws Exception {
     // no-op
   }
@@ -17,14 +17,31 @@
 
 package io.github.matteobertozzi.rednaco.plugins;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 
 import io.github.matteobertozzi.easerinsights.logging.Logger;
+import io.github.matteobertozzi.rednaco.io.ServicesFiles;
 import io.github.matteobertozzi.rednaco.strings.HumansTableView;
 import io.github.matteobertozzi.rednaco.strings.HumansUtil;
 import io.github.matteobertozzi.rednaco.util.BuildInfo;
@@ -33,7 +50,11 @@ import io.github.matteobertozzi.rednaco.util.function.FailableConsumer;
 public final class ServicePluginRegistry {
   public static final ServicePluginRegistry INSTANCE = new ServicePluginRegistry();
 
-  private final HashMap<String, ServicePlugin> loadedPlugins = new HashMap<>();
+  static final String SERVICE_PLUGIN_DEPENDENCIES_PATH = "META-INF/rednaco/service-plugin-dependencies";
+  static final String SERVICE_PLUGIN_INDEX_PATH = "META-INF/rednaco/service-plugin-index";
+
+  private final ConcurrentHashMap<String, ServicePlugin> loadedPlugins = new ConcurrentHashMap<>();
+  private List<PluginInitTime> startupTimeline = List.of();
 
   private ServicePluginRegistry() {
     // no-op
@@ -51,6 +72,13 @@ public final class ServicePluginRegistry {
     return loadedPlugins.get(name);
   }
 
+  /**
+   * @return the init timeline of the last loadPluginServices()/initPlugins() call, sorted by start time
+   */
+  public List<PluginInitTime> startupTimeline() {
+    return startupTimeline;
+  }
+
   // ===============================================================================================
   //  Scan/Load/Destroy plugin related
   // ===============================================================================================
@@ -94,39 +122,256 @@ public final class ServicePluginRegistry {
   // ===============================================================================================
   //  Loading plugin related
   // ===============================================================================================
-  private record PluginServiceInitTime(String name, long loadTime) {}
+  /**
+   * Load and initialize the configured modules.
+   * The plugins named in the compile-time index (@AutoWiredServicePlugin(name = ...)) are instantiated
+   * only if configured. The ServiceLoader scan is used only for the configured modules missing from the index.
+   */
   public void loadPluginServices(final Set<String> modules, final FailableConsumer<ServicePlugin> consumer) throws Exception {
+    Logger.info("scanning for plugins. configured modules: {}", modules);
+    final Map<String, String> index = loadPluginIndex();
+    final ArrayList<ServicePlugin> plugins = new ArrayList<>(modules.size());
+    final HashSet<String> missingModules = new HashSet<>(modules);
+    for (final Map.Entry<String, String> entry: index.entrySet()) {
+      if (!modules.contains(entry.getKey())) {
+        Logger.info("plugin available, but not configured to be loaded: {}", entry.getKey());
+        continue;
+      }
+      plugins.add(newIndexedPlugin(entry.getKey(), entry.getValue()));
+      missingModules.remove(entry.getKey());
+    }
+
+    if (!missingModules.isEmpty()) {
+      Logger.debug("modules not in the plugin index {}, scanning for plugins", missingModules);
+      final HashSet<String> indexedClasses = new HashSet<>(index.values());
+      for (final ServiceLoader.Provider<ServicePlugin> provider: scanPlugins().stream().toList()) {
+        if (indexedClasses.contains(provider.type().getName())) continue;
+
+        final ServicePlugin plugin = provider.get();
+        if (!missingModules.contains(plugin.serviceName())) {
+          Logger.info("plugin available, but not configured to be loaded: {}", plugin.serviceName());
+          continue;
+        }
+        plugins.add(plugin);
+      }
+    }
+    initPlugins(plugins, consumer);
+  }
+
+  /**
+   * Initialize the plugins following their dependencies.
+   * Each plugin is initialized on a virtual thread as soon as all its dependencies are loaded,
+   * so independent plugins are initialized concurrently.
+   * The consumer is called one plugin at the time, after the plugin and its dependencies are loaded.
+   * If a plugin fails, the plugins depending on it are not loaded and the first error is rethrown.
+   */
+  public void initPlugins(final Collection<ServicePlugin> plugins, final FailableConsumer<ServicePlugin> consumer) throws Exception {
     final long startTime = System.nanoTime();
 
-    final ArrayList<PluginServiceInitTime> pluginInitTimes = new ArrayList<>();
+    final List<PluginNode> nodes = sortByDependencies(plugins, loadMappingResources(SERVICE_PLUGIN_DEPENDENCIES_PATH));
+    final HashMap<String, CompletableFuture<Boolean>> loaded = new HashMap<>(nodes.size());
+    final ConcurrentHashMap<String, PluginInitTime> initTimes = new ConcurrentHashMap<>(nodes.size());
+    final ReentrantLock consumerLock = new ReentrantLock();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (final PluginNode node: nodes) {
+        final CompletableFuture<?>[] deps = new CompletableFuture<?>[node.dependencies().size()];
+        int index = 0;
+        for (final String dep: node.dependencies()) {
+          deps[index++] = loaded.get(dep);
+        }
 
-    Logger.info("scanning for plugins. configured modules: {}", modules);
-    for (final ServicePlugin plugin: scanPlugins()) {
-      if (!modules.contains(plugin.serviceName())) {
-        Logger.info("plugin available, but not configured to be loaded: {}", plugin.serviceName());
-        continue;
+        loaded.put(node.name(), CompletableFuture.allOf(deps).thenApplyAsync(v -> {
+          for (final CompletableFuture<?> dep: deps) {
+            if (!((Boolean) dep.join())) {
+              Logger.error("plugin {} not loaded, a dependency was not loaded: {}", node.name(), node.dependencies());
+              return false;
+            }
+          }
+          return initPlugin(node, startTime, initTimes, consumer, consumerLock);
+        }, executor));
       }
 
-      Logger.info("loading feature: {}", plugin.serviceName());
-      final long pluginInitStartTime = System.nanoTime();
-      if (!load(plugin)) {
-        continue;
+      CompletableFuture.allOf(loaded.values().toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+    } finally {
+      startupTimeline = buildTimeline(initTimes);
+      logTimeline(startupTimeline, startTime);
+    }
+
+    for (final PluginNode node: nodes) {
+      try {
+        loaded.get(node.name()).join();
+      } catch (final CompletionException e) {
+        if (e.getCause() instanceof final Exception cause) throw cause;
+        throw e;
+      }
+    }
+  }
+
+  private boolean initPlugin(final PluginNode node, final long startTime, final Map<String, PluginInitTime> initTimes,
+      final FailableConsumer<ServicePlugin> consumer, final ReentrantLock consumerLock) {
+    final ServicePlugin plugin = node.plugin();
+    Logger.info("loading feature: {}", plugin.serviceName());
+    final long pluginInitStartTime = System.nanoTime();
+    try {
+      if (!load(plugin)) return false;
+
+      consumerLock.lock();
+      try {
+        consumer.accept(plugin);
+      } finally {
+        consumerLock.unlock();
       }
+      return true;
+    } catch (final Exception e) {
+      throw new CompletionException(e);
+    } finally {
+      final long endTime = System.nanoTime();
+      initTimes.put(node.name(), new PluginInitTime(node.name(), node.dependencies(),
+        pluginInitStartTime - startTime, endTime - pluginInitStartTime));
+      Logger.info("plugin '{}' init took {}", plugin.serviceName(), HumansUtil.humanTimeNanos(endTime - pluginInitStartTime));
+    }
+  }
+
+  // ===============================================================================================
+  //  Dependencies related
+  // ===============================================================================================
+  private record PluginNode(String name, ServicePlugin plugin, Set<String> dependencies) {}
 
-      consumer.accept(plugin);
+  /**
+   * @return the plugin nodes in topological order (dependencies first)
+   */
+  private static List<PluginNode> sortByDependencies(final Collection<ServicePlugin> plugins, final Map<String, Set<String>> declaredDependencies) {
+    final LinkedHashMap<String, PluginNode> nodes = new LinkedHashMap<>(plugins.size());
+    for (final ServicePlugin plugin: plugins) {
+      final HashSet<String> deps = new HashSet<>(plugin.dependencies());
+      deps.addAll(declaredDependencies.getOrDefault(plugin.getClass().getName(), Set.of()));
+      final PluginNode node = new PluginNode(plugin.serviceName(), plugin, deps);
+      if (nodes.put(node.name(), node) != null) {
+        throw new IllegalStateException("duplicate plugin " + node.name());
+      }
+    }
 
-      final long elapsed = System.nanoTime() - pluginInitStartTime;
-      pluginInitTimes.add(new PluginServiceInitTime(plugin.serviceName(), elapsed));
-      Logger.info("plugin '{}' init took {}", plugin.serviceName(), HumansUtil.humanTimeNanos(elapsed));
+    // Kahn's algorithm: in-degree = number of dependencies not yet sorted
+    final HashMap<String, Integer> inDegree = new HashMap<>(nodes.size());
+    final HashMap<String, List<PluginNode>> dependents = new HashMap<>(nodes.size());
+    final ArrayDeque<PluginNode> ready = new ArrayDeque<>();
+    for (final PluginNode node: nodes.values()) {
+      for (final String dep: node.dependencies()) {
+        if (!nodes.containsKey(dep)) {
+          throw new IllegalStateException("plugin " + node.name() + " depends on " + dep + ", which is not available or not configured");
+        }
+        dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(node);
+      }
+      inDegree.put(node.name(), node.dependencies().size());
+      if (node.dependencies().isEmpty()) ready.add(node);
     }
 
-    Collections.sort(pluginInitTimes, (a, b) -> Long.compare(b.loadTime(), a.loadTime()));
+    final ArrayList<PluginNode> sorted = new ArrayList<>(nodes.size());
+    while (!ready.isEmpty()) {
+      final PluginNode node = ready.poll();
+      sorted.add(node);
+      for (final PluginNode dependent: dependents.getOrDefault(node.name(), List.of())) {
+        if (inDegree.merge(dependent.name(), -1, Integer::sum) == 0) {
+          ready.add(dependent);
+        }
+      }
+    }
+
+    if (sorted.size() != nodes.size()) {
+      final ArrayList<String> cycle = new ArrayList<>();
+      for (final Map.Entry<String, Integer> entry: inDegree.entrySet()) {
+        if (entry.getValue() > 0) cycle.add(entry.getKey());
+      }
+      Collections.sort(cycle);
+      throw new IllegalStateException("plugin dependency cycle between: " + cycle);
+    }
+    return sorted;
+  }
+
+  // ===============================================================================================
+  //  Plugin index related
+  // ===============================================================================================
+  /**
+   * @return the plugins from the compile-time index, as service name to class name
+   */
+  private static Map<String, String> loadPluginIndex() throws IOException {
+    final HashMap<String, String> index = new HashMap<>();
+    for (final Map.Entry<String, Set<String>> entry: loadMappingResources(SERVICE_PLUGIN_INDEX_PATH).entrySet()) {
+      for (final String name: entry.getValue()) {
+        final String otherClass = index.put(name, entry.getKey());
+        if (otherClass != null && !otherClass.equals(entry.getKey())) {
+          throw new IllegalStateException("duplicate plugin " + name + ": " + otherClass + ", " + entry.getKey());
+        }
+      }
+    }
+    return index;
+  }
+
+  private static ServicePlugin newIndexedPlugin(final String name, final String className) throws ReflectiveOperationException {
+    final Class<? extends ServicePlugin> pluginClass = Class.forName(className, true, classLoader()).asSubclass(ServicePlugin.class);
+    final ServicePlugin plugin = pluginClass.getDeclaredConstructor().newInstance();
+    if (!name.equals(plugin.serviceName())) {
+      throw new IllegalStateException("plugin " + className + " is indexed as " + name + " but its serviceName() is " + plugin.serviceName());
+    }
+    return plugin;
+  }
+
+  private static Map<String, Set<String>> loadMappingResources(final String resourceName) throws IOException {
+    final HashMap<String, Set<String>> mapping = new HashMap<>();
+    final Enumeration<URL> resources = classLoader().getResources(resourceName);
+    while (resources.hasMoreElements()) {
+      try (InputStream stream = resources.nextElement().openStream()) {
+        for (final Map.Entry<String, Set<String>> entry: ServicesFiles.readMappingFile(stream).entrySet()) {
+          mapping.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).addAll(entry.getValue());
+        }
+      }
+    }
+    return mapping;
+  }
+
+  private static ClassLoader classLoader() {
+    final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    return contextClassLoader != null ? contextClassLoader : ServicePluginRegistry.class.getClassLoader();
+  }
+
+  // ===============================================================================================
+  //  Startup timeline related
+  // ===============================================================================================
+  /**
+   * @param startOffsetNs init start time, relative to the start of the plugins initialization
+   * @param initTimeNs time spent in initialize() and in the consumer
+   */
+  public record PluginInitTime(String name, Set<String> dependencies, long startOffsetNs, long initTimeNs) {
+    public long endOffsetNs() {
+      return startOffsetNs + initTimeNs;
+    }
+  }
+
+  private static List<PluginInitTime> buildTimeline(final Map<String, PluginInitTime> initTimes) {
+    final ArrayList<PluginInitTime> timeline = new ArrayList<>(initTimes.values());
+    timeline.sort((a, b) -> Long.compare(a.startOffsetNs(), b.startOffsetNs()));
+    return Collections.unmodifiableList(timeline);
+  }
+
+  private static final int TIMELINE_WIDTH = 40;
+  private static void logTimeline(final List<PluginInitTime> timeline, final long startTime) {
+    final long elapsed = System.nanoTime() - startTime;
+    long serialTime = 0;
     final HumansTableView tableView = new HumansTableView();
-    tableView.addColumns("Plugin Name", "Load Time");
-    for (final PluginServiceInitTime entry: pluginInitTimes) {
-      tableView.addRow(entry.name(), HumansUtil.humanTimeNanos(entry.loadTime()));
+    tableView.addColumns("Plugin Name", "Depends On", "Start", "Load Time", "Timeline");
+    for (final PluginInitTime entry: timeline) {
+      serialTime += entry.initTimeNs();
+      tableView.addRow(entry.name(), String.join(", ", new TreeSet<>(entry.dependencies())),
+        HumansUtil.humanTimeNanos(entry.startOffsetNs()), HumansUtil.humanTimeNanos(entry.initTimeNs()),
+        timelineBar(entry, elapsed));
     }
-    Logger.info("plugin services init took {}", HumansUtil.humanTimeSince(startTime));
-    Logger.debug(tableView.addHumanView(new StringBuilder(1024)).toString());
+    Logger.info("plugin services init took {} (serial init time {})", HumansUtil.humanTimeNanos(elapsed), HumansUtil.humanTimeNanos(serialTime));
+    Logger.info(tableView.addHumanView(new StringBuilder(1024)).toString());
+  }
+
+  private static String timelineBar(final PluginInitTime entry, final long totalTime) {
+    final int start = (int) Math.min(TIMELINE_WIDTH - 1, (entry.startOffsetNs() * TIMELINE_WIDTH) / Math.max(1, totalTime));
+    final int end = (int) Math.min(TIMELINE_WIDTH, Math.max(start + 1, (entry.endOffsetNs() * TIMELINE_WIDTH) / Math.max(1, totalTime)));
+    return " ".repeat(start) + "#".repeat(end - start) + " ".repeat(TIMELINE_WIDTH - end);
   }
 }
@@ -17,6 +17,178 @@
 
 package io.github.matteobertozzi.rednaco.plugins;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.matteobertozzi.rednaco.io.ServicesFiles;
+import io.github.matteobertozzi.rednaco.plugins.ServicePluginRegistry.PluginInitTime;
+import io.github.matteobertozzi.rednaco.util.BuildInfo;
+
 public class TestServicePluginRegistry {
+  private static final class TestPlugin implements ServicePlugin {
+    private final String name;
+    private final Set<String> dependencies;
+    private final long initMillis;
+    private final boolean fail;
+
+    private TestPlugin(final String name, final long initMillis, final String... dependencies) {
+      this(name, initMillis, false, dependencies);
+    }
+
+    private TestPlugin(final String name, final long initMillis, final boolean fail, final String... dependencies) {
+      this.name = name;
+      this.initMillis = initMillis;
+      this.fail = fail;
+      this.dependencies = Set.of(dependencies);
+    }
+
+    @Override public String serviceName() { return name; }
+    @Override public BuildInfo buildInfo() { return null; }
+    @Override public Set<String> dependencies() { return dependencies; }
+
+    @Override
+    public void initialize() throws Exception {
+      Thread.sleep(initMillis);
+      if (fail) throw new IOException("init failed " + name);
+    }
+  }
+
+  public abstract static class CountedPlugin implements ServicePlugin {
+    private static final AtomicInteger INDEXED_INSTANCES = new AtomicInteger();
+    private static final AtomicInteger OTHER_INSTANCES = new AtomicInteger();
+
+    @Override public BuildInfo buildInfo() { return null; }
+  }
+
+  public static final class IndexedPlugin extends CountedPlugin {
+    public IndexedPlugin() { CountedPlugin.INDEXED_INSTANCES.incrementAndGet(); }
+    @Override public String serviceName() { return "indexed"; }
+  }
+
+  public static final class OtherIndexedPlugin extends CountedPlugin {
+    public OtherIndexedPlugin() { CountedPlugin.OTHER_INSTANCES.incrementAndGet(); }
+    @Override public String serviceName() { return "other"; }
+  }
+
+  public static final class ScannedPlugin extends CountedPlugin {
+    @Override public String serviceName() { return "scanned"; }
+  }
+
+  @AfterEach
+  public void destroyPlugins() {
+    ServicePluginRegistry.INSTANCE.destroyLoadedPlugins();
+  }
+
+  @Test
+  public void testInitOrder() throws Exception {
+    final List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+    ServicePluginRegistry.INSTANCE.initPlugins(List.of(
+      new TestPlugin("c", 10, "a", "b"),
+      new TestPlugin("a", 50),
+      new TestPlugin("b", 50),
+      new TestPlugin("d", 10, "c")
+    ), plugin -> consumed.add(plugin.serviceName()));
+
+    Assertions.assertEquals(Set.of("a", "b", "c", "d"), ServicePluginRegistry.INSTANCE.getServiceNames());
+    Assertions.assertEquals(Set.of("a", "b"), Set.copyOf(consumed.subList(0, 2)));
+    Assertions.assertEquals(List.of("c", "d"), consumed.subList(2, 4));
+
+    final HashMap<String, PluginInitTime> timeline = new HashMap<>();
+    for (final PluginInitTime entry: ServicePluginRegistry.INSTANCE.startupTimeline()) {
+      timeline.put(entry.name(), entry);
+    }
+    Assertions.assertEquals(4, timeline.size());
+    // a and b are independent, and initialized concurrently
+    Assertions.assertTrue(timeline.get("b").startOffsetNs() < timeline.get("a").endOffsetNs());
+    Assertions.assertTrue(timeline.get("a").startOffsetNs() < timeline.get("b").endOffsetNs());
+    // c waits for a and b, d waits for c
+    Assertions.assertTrue(timeline.get("c").startOffsetNs() >= timeline.get("a").endOffsetNs());
+    Assertions.assertTrue(timeline.get("c").startOffsetNs() >= timeline.get("b").endOffsetNs());
+    Assertions.assertTrue(timeline.get("d").startOffsetNs() >= timeline.get("c").endOffsetNs());
+  }
+
+  @Test
+  public void testInitFailure() {
+    final IOException e = Assertions.assertThrows(IOException.class, () -> ServicePluginRegistry.INSTANCE.initPlugins(List.of(
+      new TestPlugin("a", 1, true),
+      new TestPlugin("b", 1, "a"),
+      new TestPlugin("c", 1)
+    ), plugin -> {}));
+    Assertions.assertEquals("init failed a", e.getMessage());
+    Assertions.assertEquals(Set.of("c"), ServicePluginRegistry.INSTANCE.getServiceNames());
+  }
+
+  @Test
+  public void testInvalidDependencies() {
+    Assertions.assertThrows(IllegalStateException.class, () -> ServicePluginRegistry.INSTANCE.initPlugins(List.of(
+      new TestPlugin("a", 1, "b"),
+      new TestPlugin("b", 1, "a"),
+      new TestPlugin("c", 1)
+    ), plugin -> {}));
+
+    Assertions.assertThrows(IllegalStateException.class, () -> ServicePluginRegistry.INSTANCE.initPlugins(List.of(
+      new TestPlugin("a", 1, "missing")
+    ), plugin -> {}));
+    Assertions.assertTrue(ServicePluginRegistry.INSTANCE.getServiceNames().isEmpty());
+  }
+
+  @Test
+  public void testMappingFile() throws IOException {
+    final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    ServicesFiles.writeMappingFile(Map.of("foo.B", Set.of("z", "a"), "foo.A", Set.of("x"), "foo.C", Set.of()), stream);
+    Assertions.assertEquals("foo.A: x\nfoo.B: a, z\n", stream.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n"));
+
+    final String data = "# comment\nfoo.A: x\nfoo.B: a, z # other comment\n\nfoo.A: y\n";
+    final Map<String, Set<String>> deps = ServicesFiles.readMappingFile(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)));
+    Assertions.assertEquals(Map.of("foo.A", Set.of("x", "y"), "foo.B", Set.of("a", "z")), deps);
+  }
+
+  @Test
+  public void testPluginIndex(@TempDir final Path tempDir) throws Exception {
+    final String prefix = TestServicePluginRegistry.class.getName() + "$";
+    writeResource(tempDir, ServicesFiles.getPath(ServicePlugin.class),
+      prefix + "IndexedPlugin\n" + prefix + "OtherIndexedPlugin\n" + prefix + "ScannedPlugin\n");
+    writeResource(tempDir, ServicePluginRegistry.SERVICE_PLUGIN_INDEX_PATH,
+      prefix + "IndexedPlugin: indexed\n" + prefix + "OtherIndexedPlugin: other\n");
+    writeResource(tempDir, ServicePluginRegistry.SERVICE_PLUGIN_DEPENDENCIES_PATH,
+      prefix + "ScannedPlugin: indexed\n");
+
+    final ClassLoader oldClassLoader = Thread.currentThread().getContextClassLoader();
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { tempDir.toUri().toURL() }, getClass().getClassLoader())) {
+      Thread.currentThread().setContextClassLoader(classLoader);
+
+      final List<String> consumed = Collections.synchronizedList(new ArrayList<>());
+      ServicePluginRegistry.INSTANCE.loadPluginServices(Set.of("indexed", "scanned"), plugin -> consumed.add(plugin.serviceName()));
+      Assertions.assertEquals(List.of("indexed", "scanned"), consumed);
+      Assertions.assertEquals(1, CountedPlugin.INDEXED_INSTANCES.get());
+      // not configured, and skipped by the ServiceLoader scan because it is indexed
+      Assertions.assertEquals(0, CountedPlugin.OTHER_INSTANCES.get());
+    } finally {
+      Thread.currentThread().setContextClassLoader(oldClassLoader);
+    }
+  }
 
+  private static void writeResource(final Path root, final String name, final String data) throws IOException {
+    final Path path = root.resolve(name);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, data);
+  }
 }